@@ -0,0 +1,74 @@
+package com.ctid.benchmark;
+
+import com.ctid.Main;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.PropertiesFactoryBean;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.quartz.SchedulerFactoryBean;
+
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * 基准测试的 Spring 容器
+ * 使用项目的全部配置启动（不启动Web容器），Quartz 和 JdbcTemplate 都连接 BenchDatabase，
+ * 调度器保持 standby，不触发任务，测量的只是服务层及 JobStore 的开销；需要执行任务的基准测试自行启动调度器。
+ */
+@Configuration
+public class BenchContext {
+    private static final String PREFIX = "org.quartz.dataSource.quartzDataSource.";
+
+    public static ConfigurableApplicationContext start(BenchDatabase database) {
+        return new SpringApplicationBuilder(Main.class, BenchContext.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                // 命令行参数的优先级高于 application.yml
+                .run("--spring.datasource.url=" + database.getUrl(),
+                        "--spring.datasource.username=" + database.getUser(),
+                        "--spring.datasource.password=" + database.getPassword(),
+                        "--spring.datasource.driver-class-name=" + database.getDriver(),
+                        "--spring.kafka.producer.bootstrap-servers=127.0.0.1:1",
+                        "--spring.kafka.consumer.bootstrap-servers=127.0.0.1:1",
+                        "--quartz.command.enabled=false",
+                        "--quartz.execution-events.enabled=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+    }
+
+    /**
+     * 项目的 spring-quartz.properties，数据源改为 BenchDatabase
+     */
+    @Bean
+    @Primary
+    public Properties benchQuartzProperties(Environment environment) throws IOException {
+        PropertiesFactoryBean propertiesFactoryBean = new PropertiesFactoryBean();
+        propertiesFactoryBean.setLocation(new ClassPathResource(environment.getProperty("quartz.config.location", "/spring-quartz.properties")));
+        propertiesFactoryBean.afterPropertiesSet();
+        Properties properties = propertiesFactoryBean.getObject();
+        properties.setProperty(PREFIX + "driver", environment.getProperty("spring.datasource.driver-class-name"));
+        properties.setProperty(PREFIX + "URL", environment.getProperty("spring.datasource.url"));
+        properties.setProperty(PREFIX + "user", environment.getProperty("spring.datasource.username"));
+        properties.setProperty(PREFIX + "password", environment.getProperty("spring.datasource.password", ""));
+        return properties;
+    }
+
+    @Bean
+    public static BeanPostProcessor standbySchedulerPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof SchedulerFactoryBean) {
+                    ((SchedulerFactoryBean) bean).setAutoStartup(false);
+                }
+                return bean;
+            }
+        };
+    }
+}
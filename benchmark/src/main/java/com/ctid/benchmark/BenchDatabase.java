@@ -0,0 +1,114 @@
+package com.ctid.benchmark;
+
+import org.h2.tools.RunScript;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基准测试使用的数据库
+ * 默认每次创建一个新的内嵌 H2(MySQL模式) 内存库并执行 doc/quartz.sql；
+ * 指定 -Dbench.url（及 -Dbench.user、-Dbench.password）时使用已建好表的外部数据库，不执行建表脚本。
+ * 需要 MySQL 语义（GET_LOCK、SKIP LOCKED）的基准测试使用 createMySQL，未指定外部数据库时启动内嵌 MariaDB。
+ */
+public final class BenchDatabase {
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final String driver;
+
+    private BenchDatabase(String url, String user, String password, String driver) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.driver = driver;
+    }
+
+    public static BenchDatabase create() throws SQLException, IOException {
+        BenchDatabase external = external();
+        if (external != null) {
+            return external;
+        }
+        // DB_CLOSE_DELAY=-1 保证建表连接关闭后内存库仍然存在
+        String url = "jdbc:h2:mem:bench" + SEQUENCE.incrementAndGet()
+                + ";MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false;LOCK_TIMEOUT=10000";
+        BenchDatabase database = new BenchDatabase(url, "sa", "", "org.h2.Driver");
+        try (Connection conn = database.getConnection()) {
+            RunScript.execute(conn, new StringReader(h2Script()));
+        }
+        return database;
+    }
+
+    /**
+     * 指定 -Dbench.url 时与 create 相同，否则启动内嵌 MariaDB(需 JDK 17) 并执行 doc/quartz.sql，
+     * 内嵌 MariaDB 在 JVM 退出时停止（JMH 先执行 Benchmark 级 State 的 TearDown，此时各线程的连接还未关闭）
+     */
+    public static BenchDatabase createMySQL() throws SQLException, IOException {
+        BenchDatabase external = external();
+        if (external != null) {
+            return external;
+        }
+        BenchDatabase database = new BenchDatabase(EmbeddedMariaDB.start(), "root", "", "com.mysql.cj.jdbc.Driver");
+        try (Connection conn = database.getConnection()) {
+            ScriptUtils.executeSqlScript(conn, new ClassPathResource("quartz.sql"));
+        }
+        return database;
+    }
+
+    private static BenchDatabase external() {
+        String external = System.getProperty("bench.url");
+        if (external == null || external.isEmpty()) {
+            return null;
+        }
+        return new BenchDatabase(external, System.getProperty("bench.user", "root"),
+                System.getProperty("bench.password", ""), System.getProperty("bench.driver", "com.mysql.cj.jdbc.Driver"));
+    }
+
+    /**
+     * H2 的 MySQL 模式不把 varchar(1) 当作布尔值，Quartz 按布尔读写的列改为 boolean
+     */
+    private static String h2Script() throws IOException {
+        try (InputStream in = BenchDatabase.class.getResourceAsStream("/quartz.sql")) {
+            if (in == null) {
+                throw new IOException("quartz.sql not found on classpath");
+            }
+            String script = new Scanner(in, StandardCharsets.UTF_8.name()).useDelimiter("\\A").next();
+            return script.replace("varchar(1)", "boolean");
+        }
+    }
+
+    public Connection getConnection() throws SQLException {
+        return DriverManager.getConnection(url, user, password);
+    }
+
+    public boolean isEmbedded() {
+        return url.startsWith("jdbc:h2:");
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public String getDriver() {
+        return driver;
+    }
+}
@@ -0,0 +1,46 @@
+package com.ctid.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.CronTrigger;
+import org.quartz.TriggerBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * cron 表达式解析，addJob、updateJob 及批量注册时每个任务都会解析一次
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CronParseBenchmark {
+
+    @Param({"0/5 * * * * ?", "0 15 10 ? * MON-FRI", "0 0/5 14,18 L * ? 2030"})
+    public String cron;
+
+    @Benchmark
+    public CronScheduleBuilder cronSchedule() {
+        return CronScheduleBuilder.cronSchedule(cron);
+    }
+
+    /**
+     * 解析并构建触发器（计算首次触发时间之前的全部开销）
+     */
+    @Benchmark
+    public CronTrigger buildTrigger() {
+        return TriggerBuilder.newTrigger().withIdentity("bench", "bench")
+                .withSchedule(CronScheduleBuilder.cronSchedule(cron)).build();
+    }
+}
@@ -0,0 +1,45 @@
+package com.ctid.benchmark;
+
+import ch.vorburger.exec.ManagedProcessException;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 内嵌 MariaDB(10.11)，支持 GET_LOCK 和 SKIP LOCKED，供需要 MySQL 语义的基准测试使用
+ * mariaDB4j 需 JDK 17，单独成类，其他基准测试在低版本 JDK 上不会加载它。数据库进程由 mariaDB4j 在 JVM 退出时停止。
+ */
+final class EmbeddedMariaDB {
+    private static final String DATABASE = "quartz";
+
+    private EmbeddedMariaDB() {
+    }
+
+    /**
+     * 启动并建库，返回库的 JDBC URL（用户 root，无密码）
+     */
+    static String start() throws SQLException {
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0);
+        // 以 root 运行时 mariadbd 需显式指定用户
+        config.addArg("--user=root");
+        DB db;
+        try {
+            db = DB.newEmbeddedDB(config.build());
+            db.start();
+        } catch (ManagedProcessException e) {
+            throw new SQLException("embedded MariaDB failed to start", e);
+        }
+        // DB.createDB 需要 mariadb 命令行客户端，直接通过 JDBC 建库
+        String server = "jdbc:mysql://localhost:" + db.getConfiguration().getPort() + "/";
+        try (Connection conn = DriverManager.getConnection(server, "root", "");
+             Statement statement = conn.createStatement()) {
+            statement.execute("create database " + DATABASE);
+        }
+        return server + DATABASE;
+    }
+}
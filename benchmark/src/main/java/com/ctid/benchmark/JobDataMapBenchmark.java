@@ -0,0 +1,119 @@
+package com.ctid.benchmark;
+
+import com.ctid.config.JobDataMapCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.JobDataMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JobDataMap 序列化：StdJDBCDelegate 的 Java 序列化与 CompactJDBCDelegate 使用的 JobDataMapCodec
+ * 每行字节数在 setup 时输出（bytes per row），与耗时一起比较。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JobDataMapBenchmark {
+
+    /**
+     * 参数个数
+     */
+    @Param({"4", "32"})
+    public int entries;
+
+    @Param({"512"})
+    public int compressThreshold;
+
+    private JobDataMap jobDataMap;
+    private byte[] javaBytes;
+    private byte[] compactBytes;
+
+    @Setup
+    public void setUp() throws Exception {
+        jobDataMap = new JobDataMap();
+        for (int i = 0; i < entries; i++) {
+            switch (i % 4) {
+                case 0:
+                    jobDataMap.put("param" + i, "value-" + i);
+                    break;
+                case 1:
+                    jobDataMap.put("count" + i, i * 1000);
+                    break;
+                case 2:
+                    jobDataMap.put("time" + i, new Date(1700000000000L + i));
+                    break;
+                default:
+                    List<Object> list = new ArrayList<>();
+                    list.add("a" + i);
+                    list.add((long) i);
+                    list.add(Boolean.TRUE);
+                    jobDataMap.put("list" + i, list);
+                    break;
+            }
+        }
+        javaBytes = javaSerialize();
+        compactBytes = compactEncode();
+        System.out.printf("%n[JobDataMap entries=%d] java: %d bytes/row, compact: %d bytes/row%n", entries, javaBytes.length, compactBytes.length);
+    }
+
+    @Benchmark
+    public byte[] javaSerialize() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(baos)) {
+            out.writeObject(jobDataMap);
+        }
+        return baos.toByteArray();
+    }
+
+    @Benchmark
+    public Object javaDeserialize() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(javaBytes))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public byte[] compactEncode() throws IOException {
+        return JobDataMapCodec.encode(jobDataMap.getWrappedMap(), compressThreshold);
+    }
+
+    @Benchmark
+    public Map<String, Object> compactDecode() throws IOException, ClassNotFoundException {
+        return JobDataMapCodec.decode(compactBytes);
+    }
+
+    /**
+     * 与 HashMap 的 Java 序列化比较，排除 JobDataMap 类描述信息的影响
+     */
+    @Benchmark
+    public byte[] javaSerializeHashMap() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(baos)) {
+            out.writeObject(new HashMap<>(jobDataMap.getWrappedMap()));
+        }
+        return baos.toByteArray();
+    }
+}
@@ -0,0 +1,71 @@
+package com.ctid.benchmark;
+
+import com.ctid.job.TestJob1;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.calendar.BaseCalendar;
+import org.quartz.spi.JobFactory;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.TriggerFiredBundle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次触发创建任务实例的开销：AutowiringSpringBeanJobFactory.createJobInstance 实例化任务并注入依赖
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JobFactoryBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private JobFactory jobFactory;
+    private Scheduler scheduler;
+    private TriggerFiredBundle bundle;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchContext.start(BenchDatabase.create());
+        jobFactory = context.getBean(JobFactory.class);
+        scheduler = context.getBean("scheduler", Scheduler.class);
+        JobDetail jobDetail = JobBuilder.newJob(TestJob1.class).withIdentity("bench", "bench")
+                .usingJobData("tenant", "bench").build();
+        OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger().withIdentity("bench", "bench")
+                .withSchedule(SimpleScheduleBuilder.repeatSecondlyForever()).build();
+        trigger.computeFirstFireTime(new BaseCalendar());
+        Date now = new Date();
+        bundle = new TriggerFiredBundle(jobDetail, trigger, null, false, now, now, null, trigger.getNextFireTime());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Job newJob() throws SchedulerException {
+        return jobFactory.newJob(bundle, scheduler);
+    }
+}
@@ -0,0 +1,104 @@
+package com.ctid.benchmark;
+
+import com.ctid.dto.JobRequest;
+import com.ctid.dto.JobResult;
+import com.ctid.job.TestJob;
+import com.ctid.service.QuartzService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * QuartzService 的增、改、查
+ * 每组参数启动一个新的容器和数据库，预先通过 addJobs 注册 jobs 个 cron 任务。
+ * addCronJob/addSimpleJob 测量期间新增的任务会使任务总数略大于 jobs。
+ * 调度器保持 standby，queryRunJob 需要执行中的任务，见 QueryRunJobBenchmark。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class JobServiceBenchmark {
+    private static final String GROUP = "bench";
+    private static final String[] CRONS = {"0/5 * * * * ?", "0 0/1 * * * ?"};
+
+    @Param({"1000", "10000", "100000"})
+    public int jobs;
+
+    private ConfigurableApplicationContext context;
+    private QuartzService quartzService;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Object> jobData = Collections.singletonMap("tenant", "bench");
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchContext.start(BenchDatabase.create());
+        quartzService = context.getBean(QuartzService.class);
+        int chunk = 10000;
+        for (int from = 0; from < jobs; from += chunk) {
+            List<JobRequest> requests = new ArrayList<>(chunk);
+            for (int i = from; i < Math.min(jobs, from + chunk); i++) {
+                JobRequest request = new JobRequest();
+                request.setJobClassName(TestJob.class.getName());
+                request.setJobName("job-" + i);
+                request.setJobGroupName(GROUP);
+                request.setJobTime(CRONS[0]);
+                request.setJobData(new HashMap<>(jobData));
+                requests.add(request);
+            }
+            for (JobResult result : quartzService.addJobs(requests, false)) {
+                if (!result.isSuccess()) {
+                    throw new IllegalStateException("preload failed: " + result);
+                }
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void addCronJob() {
+        quartzService.addJob(TestJob.class, "cron-" + sequence.incrementAndGet(), GROUP, CRONS[0], null, jobData);
+    }
+
+    @Benchmark
+    public void addSimpleJob() {
+        quartzService.addJob(TestJob.class, "simple-" + sequence.incrementAndGet(), GROUP, 60, -1, jobData);
+    }
+
+    @Benchmark
+    public void updateJob() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        quartzService.updateJob("job-" + random.nextInt(jobs), GROUP, CRONS[random.nextInt(CRONS.length)], null);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> queryAllJob() {
+        return quartzService.queryAllJob();
+    }
+}
@@ -0,0 +1,73 @@
+package com.ctid.benchmark;
+
+import com.ctid.config.KeyOrderedDispatcher;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按key有序并行消费的吞吐（记录数/秒）
+ * 模拟单个分区一次poll的 RECORDS 条记录，key 在 keys 个值中轮换，sleepMillis 模拟处理记录时等待I/O。
+ * workers=1 相当于原来的逐条消费，keys 不小于 workers 时吞吐随 workers 近似线性增长。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class KeyOrderedDispatchBenchmark {
+    private static final int RECORDS = 100;
+
+    @Param({"1", "4", "16"})
+    public int workers;
+
+    @Param({"1", "64"})
+    public int keys;
+
+    @Param({"1"})
+    public int sleepMillis;
+
+    private KeyOrderedDispatcher dispatcher;
+    private List<ConsumerRecord<String, Object>> records;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dispatcher = new KeyOrderedDispatcher("bench", workers);
+        records = new ArrayList<>(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            records.add(new ConsumerRecord<>("bench", 0, i, "key" + (i % keys), "value" + i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void dispatch() {
+        dispatcher.dispatch(records, record -> {
+            if (sleepMillis > 0) {
+                Thread.sleep(sleepMillis);
+            }
+        });
+    }
+}
@@ -0,0 +1,187 @@
+package com.ctid.benchmark;
+
+import com.ctid.config.CompactJDBCDelegate;
+import com.ctid.config.InstrumentedSemaphore;
+import com.ctid.config.MySQLSkipLockedDelegate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.quartz.TriggerKey;
+import org.quartz.impl.jdbcjobstore.LockException;
+import org.quartz.impl.jdbcjobstore.NoSuchDelegateException;
+import org.quartz.impl.jdbcjobstore.StdJDBCDelegate;
+import org.quartz.simpl.CascadingClassLoadHelper;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 集群获取触发器的竞争：8个线程模拟8个节点，各自使用独立的连接反复执行一次获取（选取触发器、锁内工作、提交）
+ * mode=row 为 QRTZ_LOCKS 行锁，mode=getLock 为 MySQL 命名锁，两者都在 TRIGGER_ACCESS 锁内选取；
+ * mode=skipLocked 与 SkipLockedJobStoreTX 相同，不取全局锁，以读已提交 SELECT ... FOR UPDATE SKIP LOCKED 各自锁定不同的触发器行。
+ * 三种模式都需要 MySQL 语义，默认启动内嵌 MariaDB(需 JDK 17)，也可指定外部 MySQL（需已执行 doc/quartz.sql）：
+ * java -Dbench.url=jdbc:mysql://localhost:3306/quartz -Dbench.user=root -Dbench.password=password \
+ * -jar target/benchmarks.jar LockContentionBenchmark -p mode=row,getLock,skipLocked
+ * 锁内工作量 holdTokens 模拟获取触发器后的更新。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Threads(8)
+@Fork(1)
+public class LockContentionBenchmark {
+    private static final String LOCK_NAME = "TRIGGER_ACCESS";
+    private static final String SCHED_NAME = "LockContentionBenchmark";
+    private static final String MODE_SKIP_LOCKED = "skipLocked";
+    private static final String GROUP = "bench";
+    /**
+     * 触发器行数，不少于线程数，skipLocked 模式下各节点才能同时选到
+     */
+    private static final int TRIGGERS = 64;
+
+    @State(Scope.Benchmark)
+    public static class Cluster {
+        @Param({InstrumentedSemaphore.MODE_ROW, InstrumentedSemaphore.MODE_GET_LOCK, MODE_SKIP_LOCKED})
+        public String mode;
+
+        @Param({"1000"})
+        public long holdTokens;
+
+        /**
+         * 每次获取的触发器数
+         */
+        @Param({"1"})
+        public int batchSize;
+
+        private BenchDatabase database;
+
+        @Setup(Level.Trial)
+        public void setUp() throws SQLException, IOException, LockException {
+            database = BenchDatabase.createMySQL();
+            try (Connection conn = database.getConnection()) {
+                conn.setAutoCommit(false);
+                clean(conn);
+                insertTriggers(conn);
+                // 预先插入 QRTZ_LOCKS 行，避免各线程第一次加锁时并发插入
+                InstrumentedSemaphore semaphore = new InstrumentedSemaphore();
+                semaphore.setTablePrefix("QRTZ_");
+                semaphore.setSchedName(SCHED_NAME);
+                semaphore.obtainLock(conn, LOCK_NAME);
+                conn.commit();
+                semaphore.releaseLock(LOCK_NAME);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            try (Connection conn = database.getConnection()) {
+                conn.setAutoCommit(false);
+                clean(conn);
+                conn.commit();
+            }
+        }
+
+        private static void insertTriggers(Connection conn) throws SQLException {
+            try (PreparedStatement ps = conn.prepareStatement("insert into QRTZ_JOB_DETAILS (SCHED_NAME, JOB_NAME, JOB_GROUP, JOB_CLASS_NAME,"
+                    + " IS_DURABLE, IS_NONCONCURRENT, IS_UPDATE_DATA, REQUESTS_RECOVERY) values (?, 'job', ?, 'com.ctid.job.TestJob', '1', '0', '0', '0')")) {
+                ps.setString(1, SCHED_NAME);
+                ps.setString(2, GROUP);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement("insert into QRTZ_TRIGGERS (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP, JOB_NAME, JOB_GROUP,"
+                    + " NEXT_FIRE_TIME, PRIORITY, TRIGGER_STATE, TRIGGER_TYPE, START_TIME, MISFIRE_INSTR) values (?, ?, ?, 'job', ?, ?, 5, 'WAITING', 'SIMPLE', 0, 0)")) {
+                for (int i = 0; i < TRIGGERS; i++) {
+                    ps.setString(1, SCHED_NAME);
+                    ps.setString(2, "t" + i);
+                    ps.setString(3, GROUP);
+                    ps.setString(4, GROUP);
+                    ps.setLong(5, i);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+
+        private static void clean(Connection conn) throws SQLException {
+            for (String table : new String[]{"QRTZ_TRIGGERS", "QRTZ_JOB_DETAILS", "QRTZ_LOCKS"}) {
+                try (PreparedStatement ps = conn.prepareStatement("delete from " + table + " where SCHED_NAME = ?")) {
+                    ps.setString(1, SCHED_NAME);
+                    ps.executeUpdate();
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Node {
+        private Connection conn;
+        private StdJDBCDelegate delegate;
+        /**
+         * skipLocked 模式为 null
+         */
+        private InstrumentedSemaphore semaphore;
+
+        @Setup(Level.Trial)
+        public void setUp(Cluster cluster) throws SQLException, NoSuchDelegateException {
+            conn = cluster.database.getConnection();
+            conn.setAutoCommit(false);
+            CascadingClassLoadHelper loadHelper = new CascadingClassLoadHelper();
+            loadHelper.initialize();
+            if (MODE_SKIP_LOCKED.equals(cluster.mode)) {
+                conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+                delegate = new MySQLSkipLockedDelegate();
+            } else {
+                delegate = new CompactJDBCDelegate();
+                semaphore = new InstrumentedSemaphore();
+                semaphore.setTablePrefix("QRTZ_");
+                semaphore.setSchedName(SCHED_NAME);
+                semaphore.setMode(cluster.mode);
+                semaphore.setRecordOperation(false);
+            }
+            delegate.initialize(LoggerFactory.getLogger(LockContentionBenchmark.class), "QRTZ_", SCHED_NAME,
+                    "node", loadHelper, false, null);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            conn.close();
+        }
+    }
+
+    @Benchmark
+    public List<TriggerKey> acquireTriggers(Cluster cluster, Node node) throws LockException, SQLException {
+        if (node.semaphore == null) {
+            List<TriggerKey> keys = node.delegate.selectTriggerToAcquire(node.conn, Long.MAX_VALUE, 0L, cluster.batchSize);
+            Blackhole.consumeCPU(cluster.holdTokens);
+            node.conn.commit();
+            return keys;
+        }
+        node.semaphore.obtainLock(node.conn, LOCK_NAME);
+        try {
+            List<TriggerKey> keys = node.delegate.selectTriggerToAcquire(node.conn, Long.MAX_VALUE, 0L, cluster.batchSize);
+            Blackhole.consumeCPU(cluster.holdTokens);
+            node.conn.commit();
+            return keys;
+        } finally {
+            node.semaphore.releaseLock(LOCK_NAME);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.ctid.benchmark;
+
+import com.ctid.config.SchedulerShards;
+import com.ctid.dto.JobRequest;
+import com.ctid.dto.JobResult;
+import com.ctid.job.TestJob;
+import com.ctid.service.QuartzService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QuartzService.queryRunJob
+ * 启动调度器，预置 jobs 个不会触发的 cron 任务，再注册 running 个一直执行到测量结束的任务，
+ * 等它们全部处于执行中后开始测量（running 不能超过线程池的 threadCount）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class QueryRunJobBenchmark {
+    private static final String GROUP = "bench";
+    private static final String IDLE_CRON = "0 0 0 1 1 ? 2099";
+
+    /**
+     * 执行中的任务在测量结束后才放行
+     */
+    private static volatile CountDownLatch release = new CountDownLatch(0);
+
+    @Param({"1000", "10000", "100000"})
+    public int jobs;
+
+    @Param({"1", "20"})
+    public int running;
+
+    private ConfigurableApplicationContext context;
+    private QuartzService quartzService;
+
+    @DisallowConcurrentExecution
+    public static class BlockingJob extends QuartzJobBean {
+        @Override
+        protected void executeInternal(JobExecutionContext context) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        release = new CountDownLatch(1);
+        context = BenchContext.start(BenchDatabase.create());
+        quartzService = context.getBean(QuartzService.class);
+        Map<String, Object> jobData = Collections.singletonMap("tenant", "bench");
+        int chunk = 10000;
+        for (int from = 0; from < jobs; from += chunk) {
+            List<JobRequest> requests = new ArrayList<>(chunk);
+            for (int i = from; i < Math.min(jobs, from + chunk); i++) {
+                JobRequest request = new JobRequest();
+                request.setJobClassName(TestJob.class.getName());
+                request.setJobName("job-" + i);
+                request.setJobGroupName(GROUP);
+                request.setJobTime(IDLE_CRON);
+                requests.add(request);
+            }
+            for (JobResult result : quartzService.addJobs(requests, false)) {
+                if (!result.isSuccess()) {
+                    throw new IllegalStateException("preload failed: " + result);
+                }
+            }
+        }
+        for (Scheduler scheduler : context.getBean(SchedulerShards.class).getSchedulers()) {
+            scheduler.start();
+        }
+        for (int i = 0; i < running; i++) {
+            quartzService.addJob(BlockingJob.class, "running-" + i, GROUP, 3600, -1, jobData);
+        }
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(60);
+        while (quartzService.queryRunJob().size() < running) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("only " + quartzService.queryRunJob().size() + " of " + running + " jobs started");
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        release.countDown();
+        // 等执行中的任务结束后再关闭，否则工作线程回报完成时 JobStore 已关闭
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        while (!quartzService.queryRunJob().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        context.close();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> queryRunJob() {
+        return quartzService.queryRunJob();
+    }
+}
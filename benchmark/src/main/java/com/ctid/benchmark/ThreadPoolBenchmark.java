@@ -0,0 +1,104 @@
+package com.ctid.benchmark;
+
+import com.ctid.config.BulkheadThreadPool;
+import com.ctid.config.VirtualThreadPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.simpl.SimpleThreadPool;
+import org.quartz.spi.ThreadPool;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线程池吞吐（任务数/秒）：SimpleThreadPool、BulkheadThreadPool 与 VirtualThreadPool
+ * 按调度线程的方式提交任务：先 blockForAvailableThreads 再 runInThread，sleepMillis 模拟等待I/O的任务。
+ * VirtualThreadPool 需在 JDK 21 及以上运行才使用虚拟线程，低版本JDK测得的是退化后的平台线程。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ThreadPoolBenchmark {
+    private static final int TASKS = 1000;
+
+    @Param({"simple", "bulkhead", "virtual"})
+    public String pool;
+
+    @Param({"0", "10"})
+    public int sleepMillis;
+
+    @Param({"20"})
+    public int threadCount;
+
+    @Param({"200"})
+    public int maxConcurrency;
+
+    private ThreadPool threadPool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        switch (pool) {
+            case "simple":
+                threadPool = new SimpleThreadPool(threadCount, Thread.NORM_PRIORITY);
+                break;
+            case "bulkhead":
+                BulkheadThreadPool bulkhead = new BulkheadThreadPool();
+                bulkhead.setThreadCount(threadCount);
+                threadPool = bulkhead;
+                break;
+            case "virtual":
+                VirtualThreadPool virtual = new VirtualThreadPool();
+                virtual.setThreadCount(threadCount);
+                virtual.setMaxConcurrency(maxConcurrency);
+                threadPool = virtual;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown pool: " + pool);
+        }
+        threadPool.setInstanceId("bench");
+        threadPool.setInstanceName("bench-" + pool);
+        threadPool.initialize();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        threadPool.shutdown(true);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public void runJobs() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(TASKS);
+        Runnable task = () -> {
+            try {
+                if (sleepMillis > 0) {
+                    Thread.sleep(sleepMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                done.countDown();
+            }
+        };
+        for (int i = 0; i < TASKS; i++) {
+            threadPool.blockForAvailableThreads();
+            threadPool.runInThread(task);
+        }
+        done.await();
+    }
+}
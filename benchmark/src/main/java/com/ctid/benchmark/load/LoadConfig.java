@@ -0,0 +1,121 @@
+package com.ctid.benchmark.load;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 压测参数，命令行以 key=value 指定，以 org.quartz. 开头的参数覆盖各节点的 Quartz 配置，值为空时删除该配置
+ */
+@Data
+public class LoadConfig {
+    /**
+     * 同一JVM中的集群节点数
+     */
+    private int nodes = 4;
+    /**
+     * 每个节点的线程数，覆盖 org.quartz.threadPool.threadCount
+     */
+    private int threadCount = 20;
+    /**
+     * cron 任务数，第i个任务在每 cronPeriodSeconds 秒的第 i % cronPeriodSeconds 秒触发
+     */
+    private int cronJobs = 200;
+    private int cronPeriodSeconds = 5;
+    /**
+     * 间隔任务数
+     */
+    private int intervalJobs = 200;
+    private long intervalMillis = 1000;
+    /**
+     * 不允许并发执行的任务数，每个任务 nonConcurrentTriggers 个间隔为 intervalMillis 的触发器
+     */
+    private int nonConcurrentJobs = 10;
+    private int nonConcurrentTriggers = 3;
+    /**
+     * 任务执行时间(ms)为 execMillis + [0, execJitterMillis)
+     */
+    private long execMillis = 50;
+    private int execJitterMillis = 50;
+    /**
+     * 预热时间，期间的触发不计入汇总，但计入时间线
+     */
+    private int warmupSeconds = 10;
+    private int durationSeconds = 60;
+    /**
+     * 时间线的统计间隔
+     */
+    private int reportIntervalSeconds = 5;
+    /**
+     * JSON 报告路径
+     */
+    private String output = "load-report.json";
+    private Map<String, String> quartzOverrides = new LinkedHashMap<>();
+
+    public static LoadConfig parse(String[] args) {
+        LoadConfig config = new LoadConfig();
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            String key = parts[0].trim();
+            String value = parts[1].trim();
+            if (key.startsWith("org.quartz.")) {
+                config.quartzOverrides.put(key, value);
+                continue;
+            }
+            switch (key) {
+                case "nodes":
+                    config.nodes = Integer.parseInt(value);
+                    break;
+                case "threadCount":
+                    config.threadCount = Integer.parseInt(value);
+                    break;
+                case "cronJobs":
+                    config.cronJobs = Integer.parseInt(value);
+                    break;
+                case "cronPeriodSeconds":
+                    config.cronPeriodSeconds = Integer.parseInt(value);
+                    break;
+                case "intervalJobs":
+                    config.intervalJobs = Integer.parseInt(value);
+                    break;
+                case "intervalMillis":
+                    config.intervalMillis = Long.parseLong(value);
+                    break;
+                case "nonConcurrentJobs":
+                    config.nonConcurrentJobs = Integer.parseInt(value);
+                    break;
+                case "nonConcurrentTriggers":
+                    config.nonConcurrentTriggers = Integer.parseInt(value);
+                    break;
+                case "execMillis":
+                    config.execMillis = Long.parseLong(value);
+                    break;
+                case "execJitterMillis":
+                    config.execJitterMillis = Integer.parseInt(value);
+                    break;
+                case "warmupSeconds":
+                    config.warmupSeconds = Integer.parseInt(value);
+                    break;
+                case "durationSeconds":
+                    config.durationSeconds = Integer.parseInt(value);
+                    break;
+                case "reportIntervalSeconds":
+                    config.reportIntervalSeconds = Integer.parseInt(value);
+                    break;
+                case "output":
+                    config.output = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown parameter: " + key);
+            }
+        }
+        if (config.nodes <= 0 || config.cronPeriodSeconds <= 0 || config.reportIntervalSeconds <= 0 || config.intervalMillis <= 0) {
+            throw new IllegalArgumentException("nodes, cronPeriodSeconds, intervalMillis and reportIntervalSeconds must be > 0");
+        }
+        return config;
+    }
+}
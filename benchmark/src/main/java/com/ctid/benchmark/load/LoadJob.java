@@ -0,0 +1,34 @@
+package com.ctid.benchmark.load;
+
+import org.quartz.Job;
+import org.quartz.JobDataMap;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 压测任务，按 JobDataMap 中的 execMillis + [0, execJitterMillis) 休眠，模拟等待I/O的任务
+ */
+public class LoadJob implements Job {
+    public static final String EXEC_MILLIS = "execMillis";
+    public static final String EXEC_JITTER_MILLIS = "execJitterMillis";
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        JobDataMap data = context.getMergedJobDataMap();
+        long millis = data.getLong(EXEC_MILLIS);
+        int jitter = data.getInt(EXEC_JITTER_MILLIS);
+        if (jitter > 0) {
+            millis += ThreadLocalRandom.current().nextInt(jitter);
+        }
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new JobExecutionException(e);
+            }
+        }
+    }
+}
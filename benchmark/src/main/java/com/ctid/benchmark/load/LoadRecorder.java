@@ -0,0 +1,221 @@
+package com.ctid.benchmark.load;
+
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.quartz.JobListener;
+import org.quartz.Trigger;
+import org.quartz.TriggerListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 记录所有节点的触发、执行及 misfire
+ * 每个节点注册一个实例（区分节点计数），汇总及时间线数据由同一个 Totals 共享。
+ */
+public class LoadRecorder implements TriggerListener, JobListener {
+    /**
+     * 触发延迟直方图上限，超过的值计入溢出桶
+     */
+    private static final int MAX_TRACKED_MILLIS = 120_000;
+    /**
+     * 重复触发检查保留的计划时间范围，更早的记录在每个统计间隔结束时清理，内存只与这段时间内的触发次数有关。
+     * 同一计划时间的重复触发不会晚于触发延迟，延迟超过该值的触发已计入直方图的溢出桶。
+     */
+    private static final long FIRE_RETENTION_MILLIS = MAX_TRACKED_MILLIS;
+
+    private final String instanceId;
+    private final Totals totals;
+    private final LongAdder fired = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+
+    public LoadRecorder(String instanceId, Totals totals) {
+        this.instanceId = instanceId;
+        this.totals = totals;
+    }
+
+    @Override
+    public String getName() {
+        return "loadRecorder";
+    }
+
+    @Override
+    public void triggerFired(Trigger trigger, JobExecutionContext context) {
+        fired.increment();
+        long lag = context.getFireTime().getTime() - context.getScheduledFireTime().getTime();
+        Window window = totals.window.get();
+        window.fired.increment();
+        window.fireLag.record(lag);
+        if (totals.isMeasuring(context.getFireTime().getTime())) {
+            totals.fired.increment();
+            totals.fireLag.record(lag);
+        }
+        // 同一触发器同一计划时间只应触发一次
+        long scheduled = context.getScheduledFireTime().getTime();
+        String fireKey = trigger.getKey() + "@" + scheduled;
+        if (totals.fires.putIfAbsent(fireKey, scheduled) != null) {
+            totals.duplicateFires.increment();
+        }
+    }
+
+    @Override
+    public boolean vetoJobExecution(Trigger trigger, JobExecutionContext context) {
+        return false;
+    }
+
+    @Override
+    public void triggerMisfired(Trigger trigger) {
+        totals.window.get().misfires.increment();
+        if (totals.isMeasuring(System.currentTimeMillis())) {
+            totals.misfires.increment();
+        }
+    }
+
+    @Override
+    public void triggerComplete(Trigger trigger, JobExecutionContext context, Trigger.CompletedExecutionInstruction triggerInstructionCode) {
+    }
+
+    @Override
+    public void jobToBeExecuted(JobExecutionContext context) {
+        if (context.getJobDetail().isConcurrentExectionDisallowed()) {
+            int running = totals.running.computeIfAbsent(context.getJobDetail().getKey(), key -> new AtomicInteger()).incrementAndGet();
+            if (running > 1) {
+                totals.nonConcurrentViolations.increment();
+            }
+            totals.maxNonConcurrentRunning.accumulateAndGet(running, Math::max);
+        }
+    }
+
+    @Override
+    public void jobExecutionVetoed(JobExecutionContext context) {
+    }
+
+    @Override
+    public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+        if (context.getJobDetail().isConcurrentExectionDisallowed()) {
+            totals.running.get(context.getJobDetail().getKey()).decrementAndGet();
+        }
+        completed.increment();
+        totals.window.get().completed.increment();
+        if (totals.isMeasuring(context.getFireTime().getTime())) {
+            totals.completed.increment();
+            totals.executionTime.record(context.getJobRunTime());
+            if (jobException != null) {
+                totals.failed.increment();
+            }
+        }
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public long getFired() {
+        return fired.sum();
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    /**
+     * 所有节点共享的统计
+     */
+    public static class Totals {
+        private final long startedAt;
+        private final long measureFrom;
+        private volatile long measureUntil = Long.MAX_VALUE;
+        private final LongAdder fired = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder misfires = new LongAdder();
+        private final LongAdder duplicateFires = new LongAdder();
+        private final LongAdder nonConcurrentViolations = new LongAdder();
+        private final AtomicInteger maxNonConcurrentRunning = new AtomicInteger();
+        private final MillisHistogram fireLag = new MillisHistogram(MAX_TRACKED_MILLIS);
+        private final MillisHistogram executionTime = new MillisHistogram(MAX_TRACKED_MILLIS);
+        /**
+         * 触发器@计划时间 -> 计划时间
+         */
+        private final Map<String, Long> fires = new ConcurrentHashMap<>();
+        private final Map<JobKey, AtomicInteger> running = new ConcurrentHashMap<>();
+        private final AtomicReference<Window> window = new AtomicReference<>(new Window());
+        private final AtomicLong windowStart = new AtomicLong();
+        private final List<LoadReport.Interval> timeline = new ArrayList<>();
+
+        public Totals(long startedAt, long measureFrom) {
+            this.startedAt = startedAt;
+            this.measureFrom = measureFrom;
+            this.windowStart.set(startedAt);
+        }
+
+        private boolean isMeasuring(long time) {
+            return time >= measureFrom && time < measureUntil;
+        }
+
+        /**
+         * 结束当前统计间隔，加入时间线
+         */
+        public synchronized void roll(long now) {
+            Window finished = window.getAndSet(new Window());
+            long start = windowStart.getAndSet(now);
+            double seconds = Math.max(1, now - start) / 1000D;
+            LoadReport.Interval interval = new LoadReport.Interval();
+            interval.setOffsetSeconds((now - startedAt) / 1000D);
+            interval.setWarmup(start < measureFrom);
+            interval.setFired(finished.fired.sum());
+            interval.setCompleted(finished.completed.sum());
+            interval.setMisfires(finished.misfires.sum());
+            interval.setThroughputPerSecond(finished.completed.sum() / seconds);
+            interval.setFireLagMillis(finished.fireLag.snapshot());
+            timeline.add(interval);
+            fires.values().removeIf(scheduled -> scheduled < now - FIRE_RETENTION_MILLIS);
+        }
+
+        public long getWindowStart() {
+            return windowStart.get();
+        }
+
+        public void stopMeasuring(long now) {
+            measureUntil = now;
+        }
+
+        public synchronized LoadReport.Summary summary() {
+            LoadReport.Summary summary = new LoadReport.Summary();
+            double seconds = Math.max(1, Math.min(measureUntil, System.currentTimeMillis()) - measureFrom) / 1000D;
+            summary.setMeasuredSeconds(seconds);
+            summary.setFired(fired.sum());
+            summary.setCompleted(completed.sum());
+            summary.setFailed(failed.sum());
+            summary.setThroughputPerSecond(completed.sum() / seconds);
+            summary.setFireLagMillis(fireLag.snapshot());
+            summary.setExecutionMillis(executionTime.snapshot());
+            summary.setMisfires(misfires.sum());
+            summary.setDuplicateFires(duplicateFires.sum());
+            summary.setNonConcurrentViolations(nonConcurrentViolations.sum());
+            summary.setMaxNonConcurrentRunning(maxNonConcurrentRunning.get());
+            return summary;
+        }
+
+        public synchronized List<LoadReport.Interval> getTimeline() {
+            return new ArrayList<>(timeline);
+        }
+    }
+
+    private static class Window {
+        private final LongAdder fired = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder misfires = new LongAdder();
+        /**
+         * 时间线只需要粗略的上限，60秒以上计入溢出桶
+         */
+        private final MillisHistogram fireLag = new MillisHistogram(60_000);
+    }
+}
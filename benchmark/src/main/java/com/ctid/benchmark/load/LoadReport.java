@@ -0,0 +1,102 @@
+package com.ctid.benchmark.load;
+
+import com.ctid.dto.AcquisitionStats;
+import com.ctid.dto.DataSourceStats;
+import com.ctid.dto.LockStats;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测报告，输出为 JSON
+ */
+@Data
+public class LoadReport {
+    public static final String CHECK_PASSED = "passed";
+    public static final String CHECK_FAILED = "failed";
+    public static final String CHECK_NOT_CHECKED = "not checked";
+
+    private LoadConfig config;
+    private String database;
+    /**
+     * 重复触发及并发执行检查的结果：passed、failed，内嵌 H2 上为 not checked（计数仍见 summary），有 failed 时退出码为1
+     */
+    private Map<String, String> checks = new LinkedHashMap<>();
+    private String javaVersion;
+    /**
+     * 实际使用的 Quartz 配置（不含密码）
+     */
+    private Map<String, String> quartzProperties;
+    private long startedAt;
+    private Summary summary;
+    private List<Interval> timeline = new ArrayList<>();
+    private List<Node> nodes = new ArrayList<>();
+
+    /**
+     * 预热结束后的汇总
+     */
+    @Data
+    public static class Summary {
+        private double measuredSeconds;
+        private long fired;
+        private long completed;
+        private long failed;
+        private double throughputPerSecond;
+        /**
+         * 实际触发时间减计划触发时间(ms)
+         */
+        private Percentiles fireLagMillis;
+        private Percentiles executionMillis;
+        private long misfires;
+        /**
+         * 同一触发器同一计划时间被触发多次的次数，应为0
+         */
+        private long duplicateFires;
+        /**
+         * @DisallowConcurrentExecution 任务同时执行的次数，应为0
+         */
+        private long nonConcurrentViolations;
+        private int maxNonConcurrentRunning;
+    }
+
+    /**
+     * 时间线上的一个统计间隔
+     */
+    @Data
+    public static class Interval {
+        /**
+         * 间隔结束时距开始的秒数
+         */
+        private double offsetSeconds;
+        private boolean warmup;
+        private long fired;
+        private long completed;
+        private long misfires;
+        private double throughputPerSecond;
+        private Percentiles fireLagMillis;
+    }
+
+    @Data
+    public static class Node {
+        private String instanceId;
+        private long fired;
+        private long completed;
+        private AcquisitionStats acquisition;
+        private List<LockStats> locks;
+        private DataSourceStats dataSource;
+    }
+
+    @Data
+    public static class Percentiles {
+        private long count;
+        private double mean;
+        private long p50;
+        private long p90;
+        private long p99;
+        private long p999;
+        private long max;
+    }
+}
@@ -0,0 +1,292 @@
+package com.ctid.benchmark.load;
+
+import com.ctid.benchmark.BenchDatabase;
+import com.ctid.config.AdaptiveJobStoreTX;
+import com.ctid.config.DruidConnectionProvider;
+import com.ctid.config.InstrumentedSemaphore;
+import com.ctid.config.SchedulerShards;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Scheduler;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.core.QuartzScheduler;
+import org.quartz.core.QuartzSchedulerResources;
+import org.quartz.impl.SchedulerRepository;
+import org.quartz.impl.StdScheduler;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.impl.jdbcjobstore.JobStoreSupport;
+import org.quartz.spi.JobStore;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 端到端调度压测
+ * 在一个JVM中启动 nodes 个集群节点（各自的 JobStore、线程池、Druid 连接池，配置取自项目的 spring-quartz.properties），
+ * 注册 cron、间隔及不允许并发的任务，运行 warmupSeconds + durationSeconds 秒后输出 JSON 报告：
+ * 触发延迟 p50/p99/p999、misfire 次数、各节点的锁等待及获取触发器统计、按间隔的吞吐时间线，
+ * 以及重复触发和 @DisallowConcurrentExecution 并发执行的检查，两项检查不为0时以退出码1结束。
+ * <p>
+ * 默认使用内嵌 H2，只适合比较延迟和吞吐：H2 的 MVCC 行锁不能完全串行化多个节点，即使是 Quartz 自带的实现也会出现少量重复触发，
+ * 因此 H2 上两项检查的结果为 not checked，只报告计数，不影响退出码。升级前的正确性检查需用 -Dbench.url 指定已建表的 MySQL（只清理 SCHED_NAME 为 QuartzLoadTest 的数据）：
+ * java -cp target/benchmarks.jar com.ctid.benchmark.load.LoadTest nodes=4 cronJobs=500 durationSeconds=120
+ * java -cp target/benchmarks.jar com.ctid.benchmark.load.LoadTest org.quartz.jobStore.lockHandler.mode=getLock
+ */
+public class LoadTest {
+    private static final String PROPERTIES_LOCATION = "/spring-quartz.properties";
+    private static final String DATA_SOURCE_PREFIX = "org.quartz.dataSource.quartzDataSource.";
+    private static final String SCHED_NAME = "QuartzLoadTest";
+    private static final String[] TABLES = {"FIRED_TRIGGERS", "PAUSED_TRIGGER_GRPS", "SCHEDULER_STATE", "LOCKS",
+            "SIMPLE_TRIGGERS", "CRON_TRIGGERS", "SIMPROP_TRIGGERS", "BLOB_TRIGGERS", "TRIGGERS", "JOB_DETAILS", "CALENDARS"};
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config = LoadConfig.parse(args);
+        BenchDatabase database = BenchDatabase.create();
+        Properties properties = quartzProperties(config, database);
+        if (!database.isEmbedded()) {
+            clear(database, properties);
+        }
+
+        List<Scheduler> schedulers = new ArrayList<>();
+        List<LoadRecorder> recorders = new ArrayList<>();
+        List<DruidConnectionProvider> providers = new ArrayList<>();
+        long startedAt = System.currentTimeMillis() + 2000;
+        LoadRecorder.Totals totals = new LoadRecorder.Totals(startedAt, startedAt + config.getWarmupSeconds() * 1000L);
+        for (int i = 0; i < config.getNodes(); i++) {
+            // DBConnectionManager 按数据源名称全局登记，每个节点使用独立名称才能各自拥有连接池，关闭时互不影响
+            Properties node = SchedulerShards.shardProperties(properties, i + 1);
+            node.setProperty("org.quartz.scheduler.instanceName", properties.getProperty("org.quartz.scheduler.instanceName"));
+            node.setProperty("org.quartz.scheduler.instanceId", "load-node-" + i);
+            Set<DruidConnectionProvider> before = new HashSet<>(DruidConnectionProvider.getProviders());
+            Scheduler scheduler = new StdSchedulerFactory(node).getScheduler();
+            // 同名调度器在一个JVM中只能登记一个
+            SchedulerRepository.getInstance().remove(scheduler.getSchedulerName());
+            providers.add(DruidConnectionProvider.getProviders().stream().filter(p -> !before.contains(p)).findFirst().orElse(null));
+            LoadRecorder recorder = new LoadRecorder("load-node-" + i, totals);
+            scheduler.getListenerManager().addTriggerListener(recorder);
+            scheduler.getListenerManager().addJobListener(recorder);
+            schedulers.add(scheduler);
+            recorders.add(recorder);
+        }
+        registerJobs(schedulers.get(0), config, new Date(startedAt));
+
+        ScheduledExecutorService timeline = Executors.newSingleThreadScheduledExecutor();
+        for (Scheduler scheduler : schedulers) {
+            scheduler.start();
+        }
+        long interval = config.getReportIntervalSeconds() * 1000L;
+        timeline.scheduleAtFixedRate(() -> {
+            totals.roll(System.currentTimeMillis());
+            List<LoadReport.Interval> points = totals.getTimeline();
+            LoadReport.Interval last = points.get(points.size() - 1);
+            System.out.printf("[%6.1fs]%s fired=%d completed=%d misfires=%d lag p50=%dms p99=%dms p999=%dms%n",
+                    last.getOffsetSeconds(), last.isWarmup() ? " warmup" : "", last.getFired(), last.getCompleted(),
+                    last.getMisfires(), last.getFireLagMillis().getP50(), last.getFireLagMillis().getP99(), last.getFireLagMillis().getP999());
+        }, startedAt + interval - System.currentTimeMillis(), interval, TimeUnit.MILLISECONDS);
+
+        Thread.sleep(startedAt - System.currentTimeMillis() + (config.getWarmupSeconds() + config.getDurationSeconds()) * 1000L);
+        timeline.shutdown();
+        timeline.awaitTermination(10, TimeUnit.SECONDS);
+        long stoppedAt = System.currentTimeMillis();
+        totals.stopMeasuring(stoppedAt);
+        // 最后一个不完整的间隔过短时吞吐没有意义，不加入时间线
+        if (stoppedAt - totals.getWindowStart() >= interval / 2) {
+            totals.roll(stoppedAt);
+        }
+        for (Scheduler scheduler : schedulers) {
+            scheduler.standby();
+        }
+
+        LoadReport report = new LoadReport();
+        report.setConfig(config);
+        report.setDatabase(database.getUrl());
+        report.setJavaVersion(System.getProperty("java.version"));
+        report.setQuartzProperties(printable(properties));
+        report.setStartedAt(startedAt);
+        for (int i = 0; i < schedulers.size(); i++) {
+            report.getNodes().add(node(schedulers.get(i), recorders.get(i), providers.get(i)));
+        }
+        for (Scheduler scheduler : schedulers) {
+            scheduler.shutdown(true);
+        }
+        report.setSummary(totals.summary());
+        report.setTimeline(totals.getTimeline());
+        boolean checked = !database.isEmbedded();
+        report.getChecks().put("duplicateFires", check(checked, report.getSummary().getDuplicateFires()));
+        report.getChecks().put("nonConcurrentViolations", check(checked, report.getSummary().getNonConcurrentViolations()));
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        File output = new File(config.getOutput());
+        mapper.writeValue(output, report);
+        System.out.println(mapper.writeValueAsString(report.getSummary()));
+        System.out.println("report: " + output.getAbsolutePath());
+        System.out.println("checks: " + report.getChecks());
+        if (!checked) {
+            System.out.println("WARN: duplicate/non-concurrent checks are not checked on embedded H2, its MVCC row locks do not serialize cluster nodes, run against MySQL with -Dbench.url");
+        }
+        System.exit(report.getChecks().containsValue(LoadReport.CHECK_FAILED) ? 1 : 0);
+    }
+
+    private static String check(boolean checked, long violations) {
+        if (!checked) {
+            return LoadReport.CHECK_NOT_CHECKED;
+        }
+        return violations == 0 ? LoadReport.CHECK_PASSED : LoadReport.CHECK_FAILED;
+    }
+
+    /**
+     * 项目的 Quartz 配置，数据源改为压测数据库
+     * H2 的 READ COMMITTED 为快照读，集群中 @DisallowConcurrentExecution 的阻塞检查会读到旧的触发器状态，需使用串行化隔离级别
+     */
+    private static Properties quartzProperties(LoadConfig config, BenchDatabase database) throws Exception {
+        Properties properties = new Properties();
+        try (InputStream in = LoadTest.class.getResourceAsStream(PROPERTIES_LOCATION)) {
+            properties.load(in);
+        }
+        properties.setProperty("org.quartz.scheduler.instanceName", SCHED_NAME);
+        properties.setProperty("org.quartz.threadPool.threadCount", String.valueOf(config.getThreadCount()));
+        properties.setProperty(DATA_SOURCE_PREFIX + "driver", database.getDriver());
+        properties.setProperty(DATA_SOURCE_PREFIX + "URL", database.getUrl());
+        properties.setProperty(DATA_SOURCE_PREFIX + "user", database.getUser());
+        properties.setProperty(DATA_SOURCE_PREFIX + "password", database.getPassword());
+        if (database.isEmbedded()) {
+            properties.setProperty("org.quartz.jobStore.txIsolationLevelSerializable", "true");
+        }
+        // 空值表示删除该配置，用于换回 Quartz 自带实现时去掉其不支持的参数
+        config.getQuartzOverrides().forEach((key, value) -> {
+            if (value.isEmpty()) {
+                properties.remove(key);
+            } else {
+                properties.setProperty(key, value);
+            }
+        });
+        return properties;
+    }
+
+    private static void clear(BenchDatabase database, Properties properties) throws Exception {
+        String prefix = properties.getProperty("org.quartz.jobStore.tablePrefix", "QRTZ_");
+        try (Connection conn = database.getConnection()) {
+            for (String table : TABLES) {
+                try (PreparedStatement ps = conn.prepareStatement("DELETE FROM " + prefix + table + " WHERE SCHED_NAME = ?")) {
+                    ps.setString(1, properties.getProperty("org.quartz.scheduler.instanceName"));
+                    ps.executeUpdate();
+                }
+            }
+        }
+    }
+
+    private static void registerJobs(Scheduler scheduler, LoadConfig config, Date start) throws Exception {
+        Map<JobDetail, Set<? extends Trigger>> jobs = new LinkedHashMap<>();
+        int period = config.getCronPeriodSeconds();
+        for (int i = 0; i < config.getCronJobs(); i++) {
+            String cron = (i % period) + "/" + period + " * * * * ?";
+            jobs.put(jobDetail(LoadJob.class, "cron-" + i, config), Collections.singleton(TriggerBuilder.newTrigger()
+                    .withIdentity("cron-" + i + "_trigger", "load").startAt(start)
+                    .withSchedule(CronScheduleBuilder.cronSchedule(cron)).build()));
+            flush(scheduler, jobs, false);
+        }
+        long intervalMillis = config.getIntervalMillis();
+        for (int i = 0; i < config.getIntervalJobs(); i++) {
+            // 首次触发时间均匀分布在一个间隔内
+            jobs.put(jobDetail(LoadJob.class, "interval-" + i, config), Collections.singleton(TriggerBuilder.newTrigger()
+                    .withIdentity("interval-" + i + "_trigger", "load")
+                    .startAt(new Date(start.getTime() + i * intervalMillis / Math.max(1, config.getIntervalJobs())))
+                    .withSchedule(SimpleScheduleBuilder.simpleSchedule().withIntervalInMilliseconds(intervalMillis).repeatForever())
+                    .build()));
+            flush(scheduler, jobs, false);
+        }
+        for (int i = 0; i < config.getNonConcurrentJobs(); i++) {
+            JobDetail job = jobDetail(NonConcurrentLoadJob.class, "non-concurrent-" + i, config);
+            job.getJobDataMap().put(NonConcurrentLoadJob.RUNS, 0L);
+            Set<Trigger> triggers = new HashSet<>();
+            for (int t = 0; t < config.getNonConcurrentTriggers(); t++) {
+                triggers.add(TriggerBuilder.newTrigger().withIdentity("non-concurrent-" + i + "_trigger_" + t, "load")
+                        .forJob(job).startAt(start)
+                        .withSchedule(SimpleScheduleBuilder.simpleSchedule().withIntervalInMilliseconds(intervalMillis).repeatForever())
+                        .build());
+            }
+            jobs.put(job, triggers);
+            flush(scheduler, jobs, false);
+        }
+        flush(scheduler, jobs, true);
+    }
+
+    private static JobDetail jobDetail(Class<? extends LoadJob> jobClass, String name, LoadConfig config) {
+        return JobBuilder.newJob(jobClass).withIdentity(name, "load")
+                .usingJobData(LoadJob.EXEC_MILLIS, config.getExecMillis())
+                .usingJobData(LoadJob.EXEC_JITTER_MILLIS, config.getExecJitterMillis())
+                .build();
+    }
+
+    /**
+     * 每 500 个任务提交一次
+     */
+    private static void flush(Scheduler scheduler, Map<JobDetail, Set<? extends Trigger>> jobs, boolean force) throws Exception {
+        if (!jobs.isEmpty() && (force || jobs.size() >= 500)) {
+            scheduler.scheduleJobs(jobs, true);
+            jobs.clear();
+        }
+    }
+
+    private static LoadReport.Node node(Scheduler scheduler, LoadRecorder recorder, DruidConnectionProvider provider) throws Exception {
+        LoadReport.Node node = new LoadReport.Node();
+        node.setInstanceId(recorder.getInstanceId());
+        node.setFired(recorder.getFired());
+        node.setCompleted(recorder.getCompleted());
+        // 各节点的 SCHED_NAME 相同，按名称登记的静态注册表只保留一个节点，直接从调度器取 JobStore
+        JobStore jobStore = jobStore(scheduler);
+        if (jobStore instanceof AdaptiveJobStoreTX) {
+            node.setAcquisition(((AdaptiveJobStoreTX) jobStore).getStats());
+        }
+        if (jobStore instanceof JobStoreSupport) {
+            Method getLockHandler = JobStoreSupport.class.getDeclaredMethod("getLockHandler");
+            getLockHandler.setAccessible(true);
+            Object lockHandler = getLockHandler.invoke(jobStore);
+            if (lockHandler instanceof InstrumentedSemaphore) {
+                node.setLocks(((InstrumentedSemaphore) lockHandler).getStats());
+            }
+        }
+        if (provider != null) {
+            node.setDataSource(provider.getStats());
+        }
+        return node;
+    }
+
+    private static JobStore jobStore(Scheduler scheduler) throws ReflectiveOperationException {
+        Field sched = StdScheduler.class.getDeclaredField("sched");
+        sched.setAccessible(true);
+        Field resources = QuartzScheduler.class.getDeclaredField("resources");
+        resources.setAccessible(true);
+        return ((QuartzSchedulerResources) resources.get(sched.get(scheduler))).getJobStore();
+    }
+
+    private static Map<String, String> printable(Properties properties) {
+        Map<String, String> result = new TreeMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            result.put(name, name.toLowerCase().contains("password") ? "******" : properties.getProperty(name));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,64 @@
+package com.ctid.benchmark.load;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按毫秒精确计数的直方图，用于触发延迟的 p50/p99/p999
+ * 超过 maxMillis 的值计入最后一个桶，此时分位数取记录到的最大值。
+ */
+public class MillisHistogram {
+    private final AtomicLongArray counts;
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public MillisHistogram(int maxMillis) {
+        counts = new AtomicLongArray(maxMillis + 1);
+    }
+
+    public void record(long millis) {
+        long value = Math.max(0, millis);
+        counts.incrementAndGet((int) Math.min(counts.length() - 1, value));
+        sum.add(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // 重试直到更新成功或已有更大值
+        }
+    }
+
+    public LoadReport.Percentiles snapshot() {
+        long[] snapshot = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        LoadReport.Percentiles percentiles = new LoadReport.Percentiles();
+        percentiles.setCount(total);
+        if (total == 0) {
+            return percentiles;
+        }
+        long maxMillis = max.get();
+        percentiles.setMean((double) sum.sum() / total);
+        percentiles.setP50(Math.min(maxMillis, percentile(snapshot, total, 0.50)));
+        percentiles.setP90(Math.min(maxMillis, percentile(snapshot, total, 0.90)));
+        percentiles.setP99(Math.min(maxMillis, percentile(snapshot, total, 0.99)));
+        percentiles.setP999(Math.min(maxMillis, percentile(snapshot, total, 0.999)));
+        percentiles.setMax(maxMillis);
+        return percentiles;
+    }
+
+    private static long percentile(long[] counts, long total, double quantile) {
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                // 最后一个桶为溢出桶，由调用方以最大值截断
+                return i == counts.length - 1 ? Long.MAX_VALUE : i;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+}
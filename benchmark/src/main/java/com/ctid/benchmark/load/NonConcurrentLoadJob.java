@@ -0,0 +1,22 @@
+package com.ctid.benchmark.load;
+
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.PersistJobDataAfterExecution;
+
+/**
+ * 与 TestJob/TestJob1 相同的注解组合：集群内同一任务不得并发执行，执行后回写 JobDataMap
+ * 每个任务配置多个触发器，用于检查集群中是否出现并发执行。
+ */
+@PersistJobDataAfterExecution
+@DisallowConcurrentExecution
+public class NonConcurrentLoadJob extends LoadJob {
+    public static final String RUNS = "runs";
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        super.execute(context);
+        context.getJobDetail().getJobDataMap().put(RUNS, context.getJobDetail().getJobDataMap().getLong(RUNS) + 1);
+    }
+}
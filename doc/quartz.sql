@@ -190,6 +190,11 @@ create index IDX_QRTZ_T_NFT_MISFIRE
 create index IDX_QRTZ_T_NFT_ST
     on QRTZ_TRIGGERS (SCHED_NAME, TRIGGER_STATE, NEXT_FIRE_TIME);
 
+-- SkipLockedJobStoreTX 获取触发器：按 NEXT_FIRE_TIME ASC, PRIORITY DESC 顺序扫描并在索引上过滤 MISFIRE_INSTR，
+-- FOR UPDATE SKIP LOCKED 只锁定 LIMIT 内的行（降序索引需要 MySQL 8）
+create index IDX_QRTZ_T_ACQUIRE
+    on QRTZ_TRIGGERS (SCHED_NAME, TRIGGER_STATE, NEXT_FIRE_TIME, PRIORITY desc, MISFIRE_INSTR);
+
 create index IDX_QRTZ_T_NFT_ST_MISFIRE
     on QRTZ_TRIGGERS (SCHED_NAME, MISFIRE_INSTR, NEXT_FIRE_TIME, TRIGGER_STATE);
 
@@ -205,3 +210,65 @@ create index IDX_QRTZ_T_N_STATE
 create index IDX_QRTZ_T_STATE
     on QRTZ_TRIGGERS (SCHED_NAME, TRIGGER_STATE);
 
+
+-- 任务目录缓存版本号，任意节点修改任务/触发器后递增，其他节点据此判断本地缓存是否过期
+create table QRTZ_CATALOG_VERSION
+(
+    SCHED_NAME varchar(120) not null,
+    VERSION    bigint       not null,
+    primary key (SCHED_NAME)
+);
+
+-- 分块任务（ChunkedQuartzJobBean）的检查点，执行中按间隔更新游标，节点宕机恢复或重试时从游标继续，执行成功后删除
+create table QRTZ_JOB_CHECKPOINT
+(
+    SCHED_NAME       varchar(120)  not null,
+    JOB_NAME         varchar(190)  not null,
+    JOB_GROUP        varchar(190)  not null,
+    JOB_CURSOR       varchar(1000) null,
+    ITEMS            bigint        not null,
+    TOTAL_ITEMS      bigint        not null,
+    FIRE_INSTANCE_ID varchar(95)   not null,
+    INSTANCE_NAME    varchar(190)  not null,
+    RUN_START_TIME   bigint        not null,
+    RUN_START_ITEMS  bigint        not null,
+    UPDATED_TIME     bigint        not null,
+    primary key (SCHED_NAME, JOB_NAME, JOB_GROUP)
+);
+
+-- 分片任务（ShardedQuartzJobBean）的执行批次，每次触发一行，全部分片结束后记录成功/失败数及汇总结果
+create table QRTZ_JOB_SHARD_RUN
+(
+    SCHED_NAME  varchar(120)  not null,
+    RUN_ID      varchar(95)   not null,
+    JOB_NAME    varchar(190)  not null,
+    JOB_GROUP   varchar(190)  not null,
+    SHARD_TOTAL int           not null,
+    STATE       varchar(16)   not null,
+    START_TIME  bigint        not null,
+    END_TIME    bigint        null,
+    SUCCEEDED   int           not null,
+    FAILED      int           not null,
+    RUN_RESULT  varchar(4000) null,
+    primary key (SCHED_NAME, RUN_ID)
+);
+
+create index IDX_QRTZ_JSR_J_ST
+    on QRTZ_JOB_SHARD_RUN (SCHED_NAME, JOB_NAME, JOB_GROUP, START_TIME);
+
+-- 分片任务每个分片的执行状态，失败的分片按 ATTEMPTS 重试，成功的分片不再执行
+create table QRTZ_JOB_SHARD
+(
+    SCHED_NAME    varchar(120)  not null,
+    RUN_ID        varchar(95)   not null,
+    SHARD_INDEX   int           not null,
+    STATE         varchar(16)   not null,
+    ATTEMPTS      int           not null,
+    TRIGGER_NAME  varchar(190)  null,
+    INSTANCE_NAME varchar(190)  null,
+    START_TIME    bigint        null,
+    END_TIME      bigint        null,
+    SHARD_RESULT  varchar(4000) null,
+    ERROR_MSG     varchar(1000) null,
+    primary key (SCHED_NAME, RUN_ID, SHARD_INDEX)
+);
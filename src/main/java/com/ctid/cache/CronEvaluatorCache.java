@@ -0,0 +1,64 @@
+package com.ctid.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.CronExpression;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.text.ParseException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 已解析的cron表达式缓存，按表达式及时区共享
+ * 大量触发器使用相同的表达式，预测触发时间时每个表达式只解析一次。
+ * CronExpression 解析后只读，getTimeAfter 可以并发调用。
+ * 无法解析的表达式也会缓存，避免重复解析失败。
+ */
+@Slf4j
+@Component
+public class CronEvaluatorCache {
+    /**
+     * 缓存的表达式数上限，超过后清空重建
+     */
+    @Value("${quartz.forecast.cron-cache-size:10000}")
+    private int maxSize = 10000;
+
+    private final Map<String, Optional<CronExpression>> expressions = new ConcurrentHashMap<>();
+
+    /**
+     * @param timeZoneId 时区，为空时使用默认时区
+     * @return 解析失败时为 null
+     */
+    public CronExpression get(String expression, String timeZoneId) {
+        String key = timeZoneId == null ? expression : expression + '\n' + timeZoneId;
+        Optional<CronExpression> cached = expressions.get(key);
+        if (cached == null) {
+            if (expressions.size() >= maxSize) {
+                expressions.clear();
+            }
+            cached = expressions.computeIfAbsent(key, k -> parse(expression, timeZoneId));
+        }
+        return cached.orElse(null);
+    }
+
+    public int size() {
+        return expressions.size();
+    }
+
+    private static Optional<CronExpression> parse(String expression, String timeZoneId) {
+        try {
+            CronExpression cron = new CronExpression(expression);
+            if (StringUtils.hasText(timeZoneId)) {
+                cron.setTimeZone(TimeZone.getTimeZone(timeZoneId));
+            }
+            return Optional.of(cron);
+        } catch (ParseException e) {
+            log.warn("invalid cron expression: {}, {}", expression, e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.ctid.cache;
+
+import com.ctid.dao.QuartzJobDao;
+import com.ctid.dto.CatalogStats;
+import com.ctid.dto.JobInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.JobKey;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 任务目录的进程内缓存
+ * 启动时全量加载；本节点的修改由 JobCatalogListener 通知后增量刷新，并递增数据库中的目录版本号；
+ * 其他节点的修改通过定期比对版本号发现，版本号不一致时全量重新加载。
+ * 读取时只有缓存过期才会访问数据库。
+ * 缓存中的 JobInfo 及列表创建后不再修改，触发时间变化时复制后整体替换，读取返回副本，调用方可以自由修改。
+ */
+@Slf4j
+@Component
+public class JobCatalogCache {
+    @Resource
+    private QuartzJobDao quartzJobDao;
+    /**
+     * 两次版本号检查的最小间隔，即跨节点修改的最大可见延迟
+     */
+    @Value("${quartz.catalog.check-interval-ms:5000}")
+    private long checkIntervalMs;
+    /**
+     * 本地变更合并刷新的间隔
+     */
+    @Value("${quartz.catalog.flush-interval-ms:500}")
+    private long flushIntervalMs;
+    /**
+     * 一次刷新中变更任务数超过该值时改为全量加载
+     */
+    @Value("${quartz.catalog.full-reload-threshold:1000}")
+    private int fullReloadThreshold;
+
+    private volatile Map<JobKey, List<JobInfo>> jobs = new ConcurrentHashMap<>();
+    private volatile Map<TriggerKey, JobKey> triggerIndex = new ConcurrentHashMap<>();
+    private final Set<JobKey> pendingJobs = ConcurrentHashMap.newKeySet();
+    private volatile boolean pendingFullReload;
+
+    private volatile long version = -1;
+    private volatile long lastSyncTime;
+    private volatile long lastReloadMillis;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+
+    private ScheduledExecutorService flushExecutor;
+
+    @PostConstruct
+    public void init() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("job catalog initial load failed, will retry on first read: {}", e.getMessage());
+        }
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "job-catalog-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 全部任务及触发器
+     */
+    public List<JobInfo> getAll() {
+        ensureFresh();
+        List<JobInfo> result = new ArrayList<>(triggerIndex.size());
+        for (List<JobInfo> infos : jobs.values()) {
+            for (JobInfo info : infos) {
+                result.add(copy(info));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 单个任务的全部触发器
+     */
+    public List<JobInfo> get(JobKey jobKey) {
+        ensureFresh();
+        List<JobInfo> infos = jobs.get(jobKey);
+        if (infos == null) {
+            return Collections.emptyList();
+        }
+        List<JobInfo> result = new ArrayList<>(infos.size());
+        for (JobInfo info : infos) {
+            result.add(copy(info));
+        }
+        return result;
+    }
+
+    /**
+     * 本节点修改了某个任务或其触发器
+     */
+    public void jobChanged(JobKey jobKey) {
+        if (jobKey != null) {
+            pendingJobs.add(jobKey);
+        }
+    }
+
+    /**
+     * 本节点修改了某个触发器，任务未知时按全量处理
+     */
+    public void triggerChanged(TriggerKey triggerKey) {
+        JobKey jobKey = triggerKey == null ? null : triggerIndex.get(triggerKey);
+        if (jobKey != null) {
+            pendingJobs.add(jobKey);
+        } else {
+            allChanged();
+        }
+    }
+
+    /**
+     * 本节点做了批量修改（按组暂停/恢复、清空等）
+     */
+    public void allChanged() {
+        pendingFullReload = true;
+    }
+
+    /**
+     * 本节点触发完成后更新触发时间，不视为目录变更
+     * 复制该任务的列表及触发器后原子替换，正在读取的线程仍看到替换前的完整数据
+     */
+    public void triggerFired(Trigger trigger) {
+        TriggerKey triggerKey = trigger.getKey();
+        jobs.computeIfPresent(trigger.getJobKey(), (jobKey, infos) -> {
+            List<JobInfo> updated = new ArrayList<>(infos.size());
+            for (JobInfo info : infos) {
+                if (triggerKey.getName().equals(info.getTriggerName()) && triggerKey.getGroup().equals(info.getTriggerGroup())) {
+                    JobInfo fired = copy(info);
+                    fired.setPrevFireTime(toTime(trigger.getPreviousFireTime()));
+                    fired.setNextFireTime(toTime(trigger.getNextFireTime()));
+                    updated.add(fired);
+                } else {
+                    updated.add(info);
+                }
+            }
+            return Collections.unmodifiableList(updated);
+        });
+    }
+
+    public CatalogStats getStats() {
+        CatalogStats stats = new CatalogStats();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        stats.setSize(triggerIndex.size());
+        stats.setHits(hitCount);
+        stats.setMisses(missCount);
+        stats.setHitRatio(hitCount + missCount == 0 ? 0D : (double) hitCount / (hitCount + missCount));
+        stats.setVersion(version);
+        stats.setStalenessMillis(lastSyncTime == 0 ? -1 : System.currentTimeMillis() - lastSyncTime);
+        stats.setReloads(reloads.sum());
+        stats.setLastReloadMillis(lastReloadMillis);
+        stats.setPendingChanges(pendingJobs.size());
+        return stats;
+    }
+
+    private void ensureFresh() {
+        if (version < 0 || pendingFullReload || !pendingJobs.isEmpty()) {
+            misses.increment();
+            flush();
+            return;
+        }
+        if (System.currentTimeMillis() - lastSyncTime < checkIntervalMs) {
+            hits.increment();
+            return;
+        }
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (now - lastSyncTime < checkIntervalMs) {
+                hits.increment();
+                return;
+            }
+            long dbVersion = quartzJobDao.selectCatalogVersion();
+            if (dbVersion == version) {
+                lastSyncTime = now;
+                hits.increment();
+            } else {
+                log.info("job catalog version changed, local: {}, db: {}, reload", version, dbVersion);
+                misses.increment();
+                reload();
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            if (pendingFullReload || !pendingJobs.isEmpty()) {
+                flush();
+            }
+        } catch (Exception e) {
+            log.warn("job catalog flush failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 递增目录版本号通知其他节点，并刷新本地变更的任务
+     */
+    private synchronized void flush() {
+        boolean full = pendingFullReload;
+        List<JobKey> changed = new ArrayList<>(pendingJobs);
+        pendingJobs.removeAll(changed);
+        if (!full && changed.isEmpty()) {
+            if (version < 0) {
+                reload();
+            }
+            return;
+        }
+        pendingFullReload = false;
+        try {
+            long newVersion = quartzJobDao.incrementCatalogVersion();
+            if (full || changed.size() > fullReloadThreshold || newVersion != version + 1) {
+                // 期间有其他节点修改过目录，增量刷新无法保证一致
+                reload();
+                return;
+            }
+            for (JobKey jobKey : changed) {
+                refresh(jobKey);
+            }
+            version = newVersion;
+            lastSyncTime = System.currentTimeMillis();
+        } catch (RuntimeException e) {
+            // 刷新失败时下次改为全量加载，避免丢失变更
+            pendingFullReload = true;
+            throw e;
+        }
+    }
+
+    private void refresh(JobKey jobKey) {
+        List<JobInfo> old = jobs.remove(jobKey);
+        if (old != null) {
+            for (JobInfo info : old) {
+                triggerIndex.remove(TriggerKey.triggerKey(info.getTriggerName(), info.getTriggerGroup()));
+            }
+        }
+        List<JobInfo> infos = quartzJobDao.selectJobs(jobKey);
+        if (!infos.isEmpty()) {
+            jobs.put(jobKey, Collections.unmodifiableList(infos));
+            for (JobInfo info : infos) {
+                triggerIndex.put(TriggerKey.triggerKey(info.getTriggerName(), info.getTriggerGroup()), jobKey);
+            }
+        }
+    }
+
+    private synchronized void reload() {
+        long start = System.currentTimeMillis();
+        // 先读版本号，加载期间发生的修改会在下次检查时再次触发加载
+        long dbVersion = quartzJobDao.selectCatalogVersion();
+        List<JobInfo> all = quartzJobDao.selectAllJobs();
+        Map<JobKey, List<JobInfo>> newJobs = new ConcurrentHashMap<>();
+        Map<TriggerKey, JobKey> newIndex = new ConcurrentHashMap<>(all.size() * 2);
+        for (JobInfo info : all) {
+            JobKey jobKey = JobKey.jobKey(info.getJobName(), info.getJobGroupName());
+            newJobs.computeIfAbsent(jobKey, key -> new ArrayList<>(1)).add(info);
+            newIndex.put(TriggerKey.triggerKey(info.getTriggerName(), info.getTriggerGroup()), jobKey);
+        }
+        newJobs.replaceAll((jobKey, infos) -> Collections.unmodifiableList(infos));
+        jobs = newJobs;
+        triggerIndex = newIndex;
+        version = dbVersion;
+        lastSyncTime = System.currentTimeMillis();
+        lastReloadMillis = lastSyncTime - start;
+        reloads.increment();
+        log.info("job catalog reloaded, triggers: {}, version: {}, cost: {}ms", all.size(), dbVersion, lastReloadMillis);
+    }
+
+    private static JobInfo copy(JobInfo info) {
+        JobInfo copy = new JobInfo();
+        BeanUtils.copyProperties(info, copy);
+        return copy;
+    }
+
+    private static Long toTime(Date date) {
+        return date == null ? null : date.getTime();
+    }
+}
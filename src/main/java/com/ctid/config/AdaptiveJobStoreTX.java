@@ -0,0 +1,285 @@
+package com.ctid.config;
+
+import com.ctid.dto.AcquisitionStats;
+import org.quartz.JobDetail;
+import org.quartz.JobPersistenceException;
+import org.quartz.SchedulerConfigException;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.impl.jdbcjobstore.JobStoreTX;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 自适应批量获取触发器的 JobStoreTX
+ * 调度线程给出的 maxCount（空闲线程数与 batchTriggerAcquisitionMaxCount 的较小值）只作为上限，
+ * 实际的批量大小和提前获取时间窗口根据每次获取的结果调整：
+ * 获取满批或触发器已落后（有积压）且持锁时间低于目标时扩大批量，满批且未落后时同时扩大时间窗口；
+ * 持锁时间超过目标时批量和时间窗口减半；未取满时时间窗口逐步回落到配置值。
+ * <p>
+ * batchTriggerAcquisitionMaxCount 为默认值1时批量无法扩大，需配置为不小于线程数。
+ * <p>
+ * 配置示例：
+ * org.quartz.jobStore.class=com.ctid.config.AdaptiveJobStoreTX
+ * org.quartz.scheduler.batchTriggerAcquisitionMaxCount=20
+ * org.quartz.jobStore.maxTimeWindow=500
+ * org.quartz.jobStore.targetLockHoldMillis=50
+ * <p>
+ * AsyncQuartzJobBean 的执行在 future 结束后才完成 triggeredJobComplete，见 AsyncJobTracker；
+ * 关闭时先最多等待 asyncShutdownTimeout(ms) 让这些推迟的完成执行完，之后的不再回报。
+ * 加锁执行时把操作名（回调所在的 JobStoreSupport 方法）传给 InstrumentedSemaphore 按操作统计锁耗时。
+ * <p>
+ * JobStoreTX 以原始类型的 executeInLock 覆盖了 JobStoreSupport 的泛型方法，继承它的类编译时有 unchecked 警告，
+ * 该警告只能在类上忽略（方法上的 @SuppressWarnings 对继承的覆盖关系无效，泛型签名的覆盖与 JobStoreTX 的方法冲突）。
+ */
+@SuppressWarnings("unchecked")
+public class AdaptiveJobStoreTX extends JobStoreTX {
+
+    /**
+     * 按调度器实例名登记的 JobStore，供监控读取
+     */
+    private static final Map<String, AdaptiveJobStoreTX> STORES = new ConcurrentHashMap<>();
+
+    /**
+     * 回调类对应的操作名：JobStoreSupport 的匿名回调类所在的方法名，按类缓存
+     */
+    private static final ClassValue<String> OPERATIONS = new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            Method method = type.getEnclosingMethod();
+            return method == null ? null : method.getName();
+        }
+    };
+
+    /**
+     * 最小批量
+     */
+    private int minBatchSize = 1;
+    /**
+     * 提前获取时间窗口上限(ms)，窗口内的触发器会随批次中最早的触发器一起提前触发
+     */
+    private long maxTimeWindow = 500;
+    /**
+     * 单次获取持有 TRIGGER_ACCESS 锁的目标时间(ms)
+     */
+    private long targetLockHoldMillis = 50;
+    /**
+     * 关闭时等待异步任务结束并回报完成的最长时间(ms)
+     */
+    private long asyncShutdownTimeout = 10000;
+
+    private volatile int batchSize;
+    private volatile long timeWindow = -1;
+    private volatile long baseTimeWindow;
+    private volatile int maxCeiling = 1;
+
+    private volatile int lastMaxCount;
+    private volatile int lastAcquired;
+    private volatile long lastLagMillis;
+    private volatile long lastLockHoldMillis;
+    private volatile long lastAcquireMillis;
+    private volatile long maxAcquireMillis;
+    private volatile long totalAcquireMillis;
+    private volatile long acquisitions;
+    private volatile long triggersAcquired;
+
+    public static Collection<AdaptiveJobStoreTX> getStores() {
+        return STORES.values();
+    }
+
+    @Override
+    public void initialize(ClassLoadHelper loadHelper, SchedulerSignaler signaler) throws SchedulerConfigException {
+        if (minBatchSize <= 0) {
+            throw new SchedulerConfigException("minBatchSize must be > 0");
+        }
+        super.initialize(loadHelper, signaler);
+        batchSize = minBatchSize;
+        STORES.put(getInstanceName(), this);
+    }
+
+    @Override
+    public void shutdown() {
+        // 推迟的 triggeredJobComplete 需在 JobStore 关闭前执行，关闭后重试加锁会抛出 IllegalStateException
+        int abandoned = AsyncJobTracker.drain(getInstanceName(), getInstanceId(), asyncShutdownTimeout);
+        if (abandoned > 0) {
+            getLog().warn("{} async executions did not complete within {}ms of shutdown, left to cluster recovery", abandoned, asyncShutdownTimeout);
+        }
+        super.shutdown();
+        STORES.remove(getInstanceName(), this);
+    }
+
+    /**
+     * 只由调度线程调用
+     */
+    @Override
+    public List<OperableTrigger> acquireNextTriggers(long noLaterThan, int maxCount, long timeWindow) throws JobPersistenceException {
+        int ceiling = Math.max(1, maxCount);
+        if (this.timeWindow < 0) {
+            this.baseTimeWindow = timeWindow;
+            this.timeWindow = timeWindow;
+        }
+        maxCeiling = Math.max(maxCeiling, ceiling);
+        int batch = Math.min(ceiling, batchSize);
+        long window = this.timeWindow;
+        long start = System.currentTimeMillis();
+        List<OperableTrigger> triggers = acquireBatch(noLaterThan, batch, window);
+        long cost = System.currentTimeMillis() - start;
+
+        long earliest = Long.MAX_VALUE;
+        for (OperableTrigger trigger : triggers) {
+            if (trigger.getNextFireTime() != null) {
+                earliest = Math.min(earliest, trigger.getNextFireTime().getTime());
+            }
+        }
+        long lag = earliest == Long.MAX_VALUE ? 0 : Math.max(0, start - earliest);
+        adapt(batch, window, triggers.size(), lag, lastLockHoldMillis);
+
+        lastMaxCount = maxCount;
+        lastAcquired = triggers.size();
+        lastLagMillis = lag;
+        lastAcquireMillis = cost;
+        maxAcquireMillis = Math.max(maxAcquireMillis, cost);
+        totalAcquireMillis += cost;
+        acquisitions++;
+        triggersAcquired += triggers.size();
+        return triggers;
+    }
+
+    @Override
+    protected <T> T executeInNonManagedTXLock(String lockName, TransactionCallback<T> txCallback, TransactionValidator<T> txValidator)
+            throws JobPersistenceException {
+        String previous = InstrumentedSemaphore.enterOperation(OPERATIONS.get(txCallback.getClass()));
+        try {
+            return super.executeInNonManagedTXLock(lockName, txCallback, txValidator);
+        } finally {
+            InstrumentedSemaphore.exitOperation(previous);
+        }
+    }
+
+    /**
+     * 误点处理和集群心跳不经过 executeInNonManagedTXLock，直接加锁
+     */
+    @Override
+    protected RecoverMisfiredJobsResult doRecoverMisfires() throws JobPersistenceException {
+        String previous = InstrumentedSemaphore.enterOperation("doRecoverMisfires");
+        try {
+            return super.doRecoverMisfires();
+        } finally {
+            InstrumentedSemaphore.exitOperation(previous);
+        }
+    }
+
+    @Override
+    protected boolean doCheckin() throws JobPersistenceException {
+        String previous = InstrumentedSemaphore.enterOperation("doCheckin");
+        try {
+            return super.doCheckin();
+        } finally {
+            InstrumentedSemaphore.exitOperation(previous);
+        }
+    }
+
+    /**
+     * 异步任务在工作线程返回时尚未结束，推迟到 future 结束后再释放 BLOCKED 状态并回写 JobDataMap
+     */
+    @Override
+    public void triggeredJobComplete(OperableTrigger trigger, JobDetail jobDetail, CompletedExecutionInstruction triggerInstCode) {
+        if (AsyncJobTracker.deferStoreCompletion(trigger.getFireInstanceId(),
+                () -> super.triggeredJobComplete(trigger, jobDetail, triggerInstCode))) {
+            return;
+        }
+        super.triggeredJobComplete(trigger, jobDetail, triggerInstCode);
+    }
+
+    /**
+     * 获取一批触发器，默认在 TRIGGER_ACCESS 锁内执行
+     */
+    protected List<OperableTrigger> acquireBatch(long noLaterThan, int maxCount, long timeWindow) throws JobPersistenceException {
+        return super.acquireNextTriggers(noLaterThan, maxCount, timeWindow);
+    }
+
+    /**
+     * 在 TRIGGER_ACCESS 锁内执行，耗时即持锁时间（不含提交）；SKIP LOCKED 模式下为持有触发器行锁的时间
+     */
+    @Override
+    protected List<OperableTrigger> acquireNextTrigger(Connection conn, long noLaterThan, int maxCount, long timeWindow) throws JobPersistenceException {
+        long start = System.currentTimeMillis();
+        try {
+            return super.acquireNextTrigger(conn, noLaterThan, maxCount, timeWindow);
+        } finally {
+            lastLockHoldMillis = System.currentTimeMillis() - start;
+        }
+    }
+
+    private void adapt(int batch, long window, int acquired, long lag, long hold) {
+        boolean full = acquired >= batch;
+        if (hold > targetLockHoldMillis) {
+            batchSize = Math.max(minBatchSize, batch / 2);
+            timeWindow = Math.max(baseTimeWindow, window / 2);
+        } else if (full || lag > 0) {
+            batchSize = Math.min(maxCeiling, batch + Math.max(1, batch / 2));
+            if (full && lag == 0) {
+                timeWindow = Math.min(Math.max(baseTimeWindow, maxTimeWindow), window + Math.max(50, window / 2));
+            }
+        } else {
+            timeWindow = Math.max(baseTimeWindow, window - window / 4);
+        }
+    }
+
+    public AcquisitionStats getStats() {
+        AcquisitionStats stats = new AcquisitionStats();
+        long count = acquisitions;
+        stats.setInstanceName(getInstanceName());
+        stats.setBatchSize(batchSize);
+        stats.setTimeWindow(Math.max(0, timeWindow));
+        stats.setLastMaxCount(lastMaxCount);
+        stats.setLastAcquired(lastAcquired);
+        stats.setLastLagMillis(lastLagMillis);
+        stats.setLastLockHoldMillis(lastLockHoldMillis);
+        stats.setLastAcquireMillis(lastAcquireMillis);
+        stats.setAvgAcquireMillis(count == 0 ? 0D : (double) totalAcquireMillis / count);
+        stats.setMaxAcquireMillis(maxAcquireMillis);
+        stats.setAcquisitions(count);
+        stats.setTriggersAcquired(triggersAcquired);
+        return stats;
+    }
+
+    public int getMinBatchSize() {
+        return minBatchSize;
+    }
+
+    public void setMinBatchSize(int minBatchSize) {
+        this.minBatchSize = minBatchSize;
+    }
+
+    public long getMaxTimeWindow() {
+        return maxTimeWindow;
+    }
+
+    public void setMaxTimeWindow(long maxTimeWindow) {
+        this.maxTimeWindow = maxTimeWindow;
+    }
+
+    public long getTargetLockHoldMillis() {
+        return targetLockHoldMillis;
+    }
+
+    public void setTargetLockHoldMillis(long targetLockHoldMillis) {
+        this.targetLockHoldMillis = targetLockHoldMillis;
+    }
+
+    public long getAsyncShutdownTimeout() {
+        return asyncShutdownTimeout;
+    }
+
+    public void setAsyncShutdownTimeout(long asyncShutdownTimeout) {
+        this.asyncShutdownTimeout = asyncShutdownTimeout;
+    }
+}
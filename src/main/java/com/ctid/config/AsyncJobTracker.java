@@ -0,0 +1,353 @@
+package com.ctid.config;
+
+import com.ctid.dto.AsyncExecution;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 异步任务的执行登记
+ * AsyncQuartzJobBean 返回的 CompletableFuture 按 fireInstanceId 登记，工作线程随即归还线程池。
+ * JobRunShell 在 execute 返回后依次通知 JobListener、TriggerListener 和 JobStore：
+ * 监听器通过 {@link #whenComplete} 在异步结束时再记录耗时和结果；
+ * AdaptiveJobStoreTX 通过 {@link #deferStoreCompletion} 把 triggeredJobComplete 推迟到异步结束，
+ * 在此之前触发器保持 BLOCKED（@DisallowConcurrentExecution），JobDataMap 在结束后才回写（@PersistJobDataAfterExecution）。
+ * 推迟的 triggeredJobComplete 在独立的线程中执行，不占用完成 future 的线程。
+ * JobStore 关闭前通过 {@link #drain} 最多等待 asyncShutdownTimeout，让本节点的异步执行结束并完成回报；
+ * 超时仍未结束的不再回报，与节点宕机时正在执行的任务一样由集群恢复处理。
+ */
+@Slf4j
+public final class AsyncJobTracker {
+    private static final Map<String, Execution> EXECUTIONS = new ConcurrentHashMap<>();
+    private static final Map<String, Boolean> SUPPORTED = new ConcurrentHashMap<>();
+    private static final AtomicInteger IN_FLIGHT = new AtomicInteger();
+    private static final LongAdder SUCCEEDED = new LongAdder();
+    private static final LongAdder FAILED = new LongAdder();
+    private static final ExecutorService COMPLETER;
+    /**
+     * 执行从登记表移除时通知 drain
+     */
+    private static final Object DRAIN = new Object();
+
+    static {
+        AtomicInteger index = new AtomicInteger();
+        COMPLETER = new ThreadPoolExecutor(4, 4, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "async-job-complete-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private AsyncJobTracker() {
+    }
+
+    /**
+     * 一次异步执行
+     */
+    public static final class Execution {
+        private final JobExecutionContext context;
+        private final String scheduler;
+        private final String fireInstanceId;
+        private final String jobName;
+        private final String jobGroupName;
+        private final long startTime = System.currentTimeMillis();
+        private final long startNanos = System.nanoTime();
+        private final List<Consumer<Execution>> callbacks = new ArrayList<>();
+        private long runTime;
+        private Throwable error;
+        private boolean done;
+        private boolean storeNotified;
+        private Runnable storeCompletion;
+        /**
+         * JobStore 关闭时放弃回报
+         */
+        private boolean cancelled;
+
+        private Execution(JobExecutionContext context) {
+            this.context = context;
+            this.scheduler = scheduler(context);
+            this.fireInstanceId = context.getFireInstanceId();
+            this.jobName = context.getJobDetail().getKey().getName();
+            this.jobGroupName = context.getJobDetail().getKey().getGroup();
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        /**
+         * 从 execute 开始到 future 结束的耗时（毫秒），结束前为已用时间
+         */
+        public synchronized long getRunTime() {
+            return done ? runTime : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        }
+
+        /**
+         * future 异常结束的原因，成功时为 null
+         */
+        public synchronized Throwable getError() {
+            return error;
+        }
+
+        private void finish(Throwable throwable) {
+            List<Consumer<Execution>> pending;
+            Runnable completion;
+            synchronized (this) {
+                done = true;
+                runTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                error = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                pending = new ArrayList<>(callbacks);
+                callbacks.clear();
+                completion = storeNotified ? storeCompletion : null;
+            }
+            IN_FLIGHT.decrementAndGet();
+            if (error == null) {
+                SUCCEEDED.increment();
+            } else {
+                FAILED.increment();
+                log.warn("async job failed, job: {}.{}, runTime: {}ms, reason: {}", jobGroupName, jobName, runTime, error.getMessage());
+            }
+            for (Consumer<Execution> callback : pending) {
+                runCallback(callback, this);
+            }
+            if (completion != null) {
+                COMPLETER.execute(() -> complete(completion));
+            }
+        }
+
+        /**
+         * 在完成线程中执行推迟的 triggeredJobComplete，之后才从登记表移除，drain 据此等待
+         */
+        private void complete(Runnable completion) {
+            try {
+                synchronized (this) {
+                    if (cancelled) {
+                        return;
+                    }
+                }
+                completion.run();
+            } catch (RuntimeException e) {
+                log.error("async job store completion failed, job: {}.{}", jobGroupName, jobName, e);
+            } finally {
+                remove(this);
+            }
+        }
+
+        AsyncExecution toStats() {
+            AsyncExecution stats = new AsyncExecution();
+            stats.setFireInstanceId(fireInstanceId);
+            stats.setJobName(jobName);
+            stats.setJobGroupName(jobGroupName);
+            stats.setStartTime(startTime);
+            stats.setElapsedMillis(getRunTime());
+            return stats;
+        }
+    }
+
+    /**
+     * 调度器的 JobStore 是否支持推迟完成（AdaptiveJobStoreTX 及其子类），按调度器名缓存
+     */
+    public static boolean isSupported(JobExecutionContext context) {
+        try {
+            Scheduler scheduler = context.getScheduler();
+            return SUPPORTED.computeIfAbsent(scheduler.getSchedulerName(), name -> {
+                try {
+                    return AdaptiveJobStoreTX.class.isAssignableFrom(scheduler.getMetaData().getJobStoreClass());
+                } catch (SchedulerException e) {
+                    return false;
+                }
+            });
+        } catch (SchedulerException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 登记异步执行，在工作线程中调用
+     */
+    public static void register(JobExecutionContext context, CompletableFuture<?> future) {
+        Execution execution = new Execution(context);
+        EXECUTIONS.put(execution.fireInstanceId, execution);
+        IN_FLIGHT.incrementAndGet();
+        future.whenComplete((result, throwable) -> execution.finish(throwable));
+    }
+
+    /**
+     * 异步执行结束后回调；不是异步执行时返回 false，由调用方按同步执行处理
+     * 异步执行已结束时立即在当前线程回调
+     */
+    public static boolean whenComplete(JobExecutionContext context, Consumer<Execution> callback) {
+        Execution execution = context.getFireInstanceId() == null ? null : EXECUTIONS.get(context.getFireInstanceId());
+        if (execution == null) {
+            return false;
+        }
+        synchronized (execution) {
+            if (!execution.done) {
+                execution.callbacks.add(callback);
+                return true;
+            }
+        }
+        runCallback(callback, execution);
+        return true;
+    }
+
+    /**
+     * 推迟 JobStore 的 triggeredJobComplete；不是异步执行或已经结束时返回 false，由调用方立即完成
+     */
+    public static boolean deferStoreCompletion(String fireInstanceId, Runnable completion) {
+        Execution execution = fireInstanceId == null ? null : EXECUTIONS.get(fireInstanceId);
+        if (execution == null) {
+            return false;
+        }
+        synchronized (execution) {
+            execution.storeNotified = true;
+            if (!execution.done) {
+                execution.storeCompletion = completion;
+                return true;
+            }
+        }
+        remove(execution);
+        return false;
+    }
+
+    /**
+     * JobStore 关闭前调用：等待该调度器节点的异步执行结束并完成推迟的 triggeredJobComplete，最多 timeoutMillis；
+     * 超时后放弃剩余执行的回报，由集群恢复处理
+     *
+     * @return 放弃回报的执行数
+     */
+    public static int drain(String schedName, String instanceId, long timeoutMillis) {
+        String scheduler = scheduler(schedName, instanceId);
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (DRAIN) {
+            long wait;
+            while (pending(scheduler) > 0 && (wait = deadline - System.currentTimeMillis()) > 0) {
+                try {
+                    DRAIN.wait(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        int abandoned = 0;
+        for (Execution execution : EXECUTIONS.values()) {
+            if (scheduler.equals(execution.scheduler) && EXECUTIONS.remove(execution.fireInstanceId, execution)) {
+                synchronized (execution) {
+                    execution.cancelled = true;
+                    execution.storeCompletion = null;
+                }
+                abandoned++;
+            }
+        }
+        return abandoned;
+    }
+
+    /**
+     * 正在执行的异步任务数
+     */
+    public static int getInFlight() {
+        return IN_FLIGHT.get();
+    }
+
+    public static long getSucceeded() {
+        return SUCCEEDED.sum();
+    }
+
+    public static long getFailed() {
+        return FAILED.sum();
+    }
+
+    /**
+     * 该调度器节点正在执行的异步任务的执行上下文，工作线程已归还，不在 Scheduler.getCurrentlyExecutingJobs 中
+     */
+    public static List<JobExecutionContext> getExecutingContexts(String schedName, String instanceId) {
+        String scheduler = scheduler(schedName, instanceId);
+        List<JobExecutionContext> result = new ArrayList<>();
+        for (Execution execution : EXECUTIONS.values()) {
+            if (!scheduler.equals(execution.scheduler)) {
+                continue;
+            }
+            synchronized (execution) {
+                if (execution.done) {
+                    continue;
+                }
+            }
+            result.add(execution.context);
+        }
+        return result;
+    }
+
+    /**
+     * 正在执行的异步任务，按开始时间排序
+     */
+    public static List<AsyncExecution> getExecutions() {
+        List<AsyncExecution> result = new ArrayList<>();
+        for (Execution execution : EXECUTIONS.values()) {
+            synchronized (execution) {
+                if (execution.done) {
+                    continue;
+                }
+            }
+            result.add(execution.toStats());
+        }
+        result.sort((a, b) -> Long.compare(a.getStartTime(), b.getStartTime()));
+        return result;
+    }
+
+    private static int pending(String scheduler) {
+        int pending = 0;
+        for (Execution execution : EXECUTIONS.values()) {
+            if (scheduler.equals(execution.scheduler)) {
+                pending++;
+            }
+        }
+        return pending;
+    }
+
+    private static void remove(Execution execution) {
+        EXECUTIONS.remove(execution.fireInstanceId, execution);
+        synchronized (DRAIN) {
+            DRAIN.notifyAll();
+        }
+    }
+
+    /**
+     * 同一JVM中可能有多个同名调度器（分片或压测中的多个节点），按 实例名/实例ID 区分
+     */
+    private static String scheduler(String schedName, String instanceId) {
+        return schedName + '/' + instanceId;
+    }
+
+    private static String scheduler(JobExecutionContext context) {
+        try {
+            return scheduler(context.getScheduler().getSchedulerName(), context.getScheduler().getSchedulerInstanceId());
+        } catch (SchedulerException e) {
+            // StdScheduler 的这两个方法不会抛出异常
+            return "";
+        }
+    }
+
+    private static void runCallback(Consumer<Execution> callback, Execution execution) {
+        try {
+            callback.accept(execution);
+        } catch (Exception e) {
+            log.error("async job callback failed, job: {}.{}", execution.jobGroupName, execution.jobName, e);
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.ctid.config;
+
+import com.ctid.dto.PoolStats;
+import org.quartz.JobExecutionContext;
+import org.quartz.SchedulerConfigException;
+import org.quartz.core.JobRunShell;
+import org.quartz.spi.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按任务组隔离的Quartz线程池（舱壁）
+ * groupThreadCounts 中配置的任务组使用各自的子线程池，子线程池用满后借用共享的溢出线程池，每组最多借用 maxBorrowedThreads 个；
+ * 未配置的任务组只使用溢出线程池(threadCount)。本组子线程池和可借用的溢出线程都用满时，该组新触发的任务在本组子线程池排队，
+ * 不再占用溢出线程，一个任务组的慢任务不会占满溢出线程池、拖住其他任务组。
+ * 调度线程按 blockForAvailableThreads 的返回值获取触发器，获取时不区分任务组，
+ * 因此返回仍有空闲线程的任务组中最大的可用线程数（配置的任务组为本组空闲数加可借用的溢出线程空闲数，未配置的任务组为溢出线程池空闲数），
+ * 只有全部任务组都没有空闲线程时调度线程才等待。获取到的触发器若属于已用满的任务组，在本组排队等待。
+ * <p>
+ * 配置示例：
+ * org.quartz.threadPool.class=com.ctid.config.BulkheadThreadPool
+ * org.quartz.threadPool.threadCount=10
+ * org.quartz.threadPool.groupThreadCounts=report:4,realtime:6
+ * org.quartz.threadPool.maxBorrowedThreads=5
+ */
+public class BulkheadThreadPool implements ThreadPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkheadThreadPool.class);
+
+    /**
+     * 溢出线程池在统计中的名称
+     */
+    public static final String OVERFLOW = "*";
+
+    /**
+     * 按调度器实例名登记的线程池，供监控读取
+     */
+    private static final Map<String, BulkheadThreadPool> POOLS = new ConcurrentHashMap<>();
+
+    private static volatile Field jecField;
+
+    private int threadCount = 10;
+    private int threadPriority = Thread.NORM_PRIORITY;
+    private boolean threadsInheritContextClassLoaderOfInitializingThread;
+    private boolean makeThreadsDaemons;
+    private String threadNamePrefix;
+    /**
+     * 任务组子线程池大小，格式 group1:4,group2:6
+     */
+    private String groupThreadCounts;
+    /**
+     * 每个配置的任务组最多借用的溢出线程数，小于0时为 threadCount 的一半
+     */
+    private int maxBorrowedThreads = -1;
+
+    private String instanceId;
+    private String instanceName;
+
+    private final Object lock = new Object();
+    private Map<String, Bulkhead> groups = Collections.emptyMap();
+    private Bulkhead overflow;
+    private volatile boolean shutdown;
+
+    public static Collection<BulkheadThreadPool> getPools() {
+        return POOLS.values();
+    }
+
+    @Override
+    public void initialize() throws SchedulerConfigException {
+        if (threadCount <= 0) {
+            throw new SchedulerConfigException("Thread count must be > 0");
+        }
+        if (threadPriority < Thread.MIN_PRIORITY || threadPriority > Thread.MAX_PRIORITY) {
+            throw new SchedulerConfigException("Thread priority must be > 0 and <= 10");
+        }
+        String prefix = threadNamePrefix == null ? instanceName + "_Worker" : threadNamePrefix;
+        Map<String, Bulkhead> parsed = new LinkedHashMap<>();
+        if (groupThreadCounts != null && !groupThreadCounts.trim().isEmpty()) {
+            for (String entry : groupThreadCounts.split(",")) {
+                String[] pair = entry.split(":");
+                if (pair.length != 2 || pair[0].trim().isEmpty()) {
+                    throw new SchedulerConfigException("Invalid groupThreadCounts entry: " + entry);
+                }
+                int size;
+                try {
+                    size = Integer.parseInt(pair[1].trim());
+                } catch (NumberFormatException e) {
+                    throw new SchedulerConfigException("Invalid groupThreadCounts entry: " + entry, e);
+                }
+                if (size <= 0) {
+                    throw new SchedulerConfigException("Group thread count must be > 0: " + entry);
+                }
+                String group = pair[0].trim();
+                parsed.put(group, new Bulkhead(group, size, prefix + "-" + group));
+            }
+        }
+        groups = parsed;
+        overflow = new Bulkhead(OVERFLOW, threadCount, prefix);
+        if (maxBorrowedThreads < 0) {
+            maxBorrowedThreads = threadCount / 2;
+        }
+        if (instanceName != null) {
+            POOLS.put(instanceName, this);
+        }
+        LOG.info("BulkheadThreadPool initialized, overflow threads: {}, groups: {}, max borrowed threads per group: {}",
+                threadCount, groupThreadCounts, maxBorrowedThreads);
+    }
+
+    @Override
+    public boolean runInThread(Runnable runnable) {
+        if (runnable == null) {
+            return false;
+        }
+        if (shutdown) {
+            // 与 SimpleThreadPool 一致，关闭期间仍执行已触发的任务
+            Thread thread = new Thread(runnable, instanceName + "_WorkerAfterShutdown");
+            thread.setDaemon(makeThreadsDaemons);
+            thread.start();
+            return true;
+        }
+        Bulkhead dedicated = groups.get(groupOf(runnable));
+        Bulkhead target;
+        // 借用溢出线程的任务组，结束时归还借用数
+        Bulkhead lender = null;
+        synchronized (lock) {
+            if (dedicated == null) {
+                // 溢出线程池用满时在溢出线程池排队
+                target = overflow;
+            } else if (dedicated.assigned < dedicated.size) {
+                target = dedicated;
+            } else if (dedicated.borrowed < maxBorrowedThreads && overflow.assigned < overflow.size) {
+                target = overflow;
+                lender = dedicated;
+                dedicated.borrowed++;
+                dedicated.overflowed.incrementAndGet();
+            } else {
+                // 本组容量用满，在本组排队，不占用其他任务组可用的溢出线程
+                target = dedicated;
+            }
+            target.assigned++;
+        }
+        Bulkhead bulkhead = target;
+        Bulkhead borrower = lender;
+        bulkhead.executor.execute(() -> {
+            bulkhead.active.incrementAndGet();
+            try {
+                runnable.run();
+            } finally {
+                bulkhead.active.decrementAndGet();
+                bulkhead.completed.incrementAndGet();
+                release(bulkhead, borrower);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public int blockForAvailableThreads() {
+        synchronized (lock) {
+            int available;
+            while ((available = available()) < 1 && !shutdown) {
+                try {
+                    lock.wait(500);
+                } catch (InterruptedException ignore) {
+                }
+            }
+            return available;
+        }
+    }
+
+    @Override
+    public int getPoolSize() {
+        int size = threadCount;
+        for (Bulkhead bulkhead : groups.values()) {
+            size += bulkhead.size;
+        }
+        return size;
+    }
+
+    @Override
+    public void shutdown(boolean waitForJobsToComplete) {
+        shutdown = true;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+        List<Bulkhead> all = all();
+        for (Bulkhead bulkhead : all) {
+            bulkhead.executor.shutdown();
+        }
+        if (waitForJobsToComplete) {
+            for (Bulkhead bulkhead : all) {
+                try {
+                    while (!bulkhead.executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                        LOG.debug("Waiting for jobs of pool {} to complete", bulkhead.name);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        if (instanceName != null) {
+            POOLS.remove(instanceName, this);
+        }
+        LOG.debug("BulkheadThreadPool shutdown complete");
+    }
+
+    /**
+     * 各任务组子线程池及溢出线程池的占用情况
+     */
+    public List<PoolStats> getStats() {
+        List<PoolStats> result = new ArrayList<>();
+        synchronized (lock) {
+            for (Bulkhead bulkhead : all()) {
+                PoolStats stats = new PoolStats();
+                int active = bulkhead.active.get();
+                stats.setInstanceName(instanceName);
+                stats.setName(bulkhead.name);
+                stats.setSize(bulkhead.size);
+                stats.setActive(active);
+                stats.setQueued(Math.max(0, bulkhead.assigned - active));
+                stats.setUtilization((double) active / bulkhead.size);
+                stats.setCompleted(bulkhead.completed.get());
+                stats.setOverflowed(bulkhead.overflowed.get());
+                result.add(stats);
+            }
+        }
+        return result;
+    }
+
+    private List<Bulkhead> all() {
+        List<Bulkhead> all = new ArrayList<>(groups.values());
+        if (overflow != null) {
+            all.add(overflow);
+        }
+        return all;
+    }
+
+    /**
+     * 各任务组可立即得到的线程数的最大值：配置的任务组为本组空闲数加可借用的溢出线程空闲数，未配置的任务组为溢出线程池空闲数
+     * 用满的任务组不影响其他任务组的获取，调用方持有 lock
+     */
+    private int available() {
+        int overflowIdle = Math.max(0, overflow.size - overflow.assigned);
+        int available = overflowIdle;
+        for (Bulkhead group : groups.values()) {
+            int idle = Math.max(0, group.size - group.assigned) + Math.min(overflowIdle, Math.max(0, maxBorrowedThreads - group.borrowed));
+            available = Math.max(available, idle);
+        }
+        return available;
+    }
+
+    private void release(Bulkhead bulkhead, Bulkhead borrower) {
+        synchronized (lock) {
+            bulkhead.assigned--;
+            if (borrower != null) {
+                borrower.borrowed--;
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * 从 JobRunShell 中取出任务组，取不到时返回 null（使用溢出线程池）
+     */
+    private static String groupOf(Runnable runnable) {
+        if (!(runnable instanceof JobRunShell)) {
+            return null;
+        }
+        try {
+            Field field = jecField;
+            if (field == null) {
+                field = JobRunShell.class.getDeclaredField("jec");
+                field.setAccessible(true);
+                jecField = field;
+            }
+            JobExecutionContext context = (JobExecutionContext) field.get(runnable);
+            return context == null ? null : context.getJobDetail().getKey().getGroup();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOG.warn("Unable to resolve job group, run in overflow pool: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private class Bulkhead {
+        private final String name;
+        private final int size;
+        private final ThreadPoolExecutor executor;
+        /**
+         * 已分配到本池的任务数（执行中+排队），由 lock 保护
+         */
+        private int assigned;
+        /**
+         * 本组正在占用的溢出线程数，由 lock 保护
+         */
+        private int borrowed;
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong overflowed = new AtomicLong();
+
+        Bulkhead(String name, int size, String threadPrefix) {
+            this.name = name;
+            this.size = size;
+            AtomicInteger seq = new AtomicInteger();
+            ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+            this.executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, threadPrefix + "-" + seq.incrementAndGet());
+                thread.setPriority(threadPriority);
+                thread.setDaemon(makeThreadsDaemons);
+                if (threadsInheritContextClassLoaderOfInitializingThread) {
+                    thread.setContextClassLoader(contextClassLoader);
+                }
+                return thread;
+            });
+            this.executor.prestartAllCoreThreads();
+        }
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public int getThreadPriority() {
+        return threadPriority;
+    }
+
+    public void setThreadPriority(int threadPriority) {
+        this.threadPriority = threadPriority;
+    }
+
+    public boolean isThreadsInheritContextClassLoaderOfInitializingThread() {
+        return threadsInheritContextClassLoaderOfInitializingThread;
+    }
+
+    public void setThreadsInheritContextClassLoaderOfInitializingThread(boolean inheritLoader) {
+        this.threadsInheritContextClassLoaderOfInitializingThread = inheritLoader;
+    }
+
+    public boolean isMakeThreadsDaemons() {
+        return makeThreadsDaemons;
+    }
+
+    public void setMakeThreadsDaemons(boolean makeThreadsDaemons) {
+        this.makeThreadsDaemons = makeThreadsDaemons;
+    }
+
+    public String getThreadNamePrefix() {
+        return threadNamePrefix;
+    }
+
+    public void setThreadNamePrefix(String threadNamePrefix) {
+        this.threadNamePrefix = threadNamePrefix;
+    }
+
+    public String getGroupThreadCounts() {
+        return groupThreadCounts;
+    }
+
+    public void setGroupThreadCounts(String groupThreadCounts) {
+        this.groupThreadCounts = groupThreadCounts;
+    }
+
+    public int getMaxBorrowedThreads() {
+        return maxBorrowedThreads;
+    }
+
+    public void setMaxBorrowedThreads(int maxBorrowedThreads) {
+        this.maxBorrowedThreads = maxBorrowedThreads;
+    }
+
+    public String getInstanceName() {
+        return instanceName;
+    }
+
+    @Override
+    public void setInstanceId(String schedInstId) {
+        this.instanceId = schedInstId;
+    }
+
+    @Override
+    public void setInstanceName(String schedName) {
+        this.instanceName = schedName;
+    }
+}
@@ -0,0 +1,244 @@
+package com.ctid.config;
+
+import com.ctid.dto.JobDataStats;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.impl.JobDetailImpl;
+import org.quartz.impl.jdbcjobstore.NoSuchDelegateException;
+import org.quartz.impl.jdbcjobstore.StdJDBCDelegate;
+import org.quartz.spi.ClassLoadHelper;
+import org.slf4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.sql.Blob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 使用 JobDataMapCodec 紧凑编码保存 JobDataMap 的 JDBC 代理
+ * QRTZ_JOB_DETAILS.JOB_DATA 和 QRTZ_TRIGGERS.JOB_DATA 写入紧凑格式，读取时按魔数区分，
+ * 仍可读取 Java 序列化的旧数据，旧数据在任务或触发器下次更新时转换为新格式。
+ * 日历、BLOB 触发器等其他对象仍使用 Java 序列化。
+ * <p>
+ * @PersistJobDataAfterExecution 的任务执行后，Quartz 只要 JobDataMap 被 put 过（即使值未变）就回写整个 JOB_DATA。
+ * 这里在加载这类任务时记录 JobDataMap 的规范形式（JobDataMapCodec.encode(map)，嵌套的 HashMap 也按 key 排序），
+ * 回写前重新生成比较，内容相同时跳过 UPDATE。比较与库中的存储格式和 writeCompact 无关，
+ * 未修改的旧格式数据不会被转换，修改后按 writeCompact 写入。
+ * <p>
+ * 参数通过 driverDelegateInitString 配置（"|" 分隔），其余参数交给 StdJDBCDelegate：
+ * writeCompact       是否写入紧凑格式，默认 false。false 时只增加读取能力，仍写入 Java 序列化；
+ *                    集群全部节点升级到本版本后再改为 true，否则未升级的节点读不出紧凑格式的数据
+ * compressThreshold  正文达到该字节数时 deflate 压缩，默认 512，-1 不压缩
+ * <p>
+ * 配置示例：
+ * org.quartz.jobStore.driverDelegateClass=com.ctid.config.CompactJDBCDelegate
+ * org.quartz.jobStore.driverDelegateInitString=writeCompact=false|compressThreshold=512
+ */
+public class CompactJDBCDelegate extends StdJDBCDelegate {
+    private static final String WRITE_COMPACT = "writeCompact";
+    private static final String COMPRESS_THRESHOLD = "compressThreshold";
+    private static final byte[] NO_DATA = new byte[0];
+
+    /**
+     * 按调度器名称登记的代理，供监控读取
+     */
+    private static final Map<String, CompactJDBCDelegate> DELEGATES = new ConcurrentHashMap<>();
+
+    private boolean writeCompact = false;
+    private int compressThreshold = 512;
+
+    /**
+     * selectJobDetail 期间读到的 JOB_DATA 字节，用于统计跳过回写节省的字节数
+     */
+    private final ThreadLocal<byte[]> loadedJobData = new ThreadLocal<>();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder skippedWrites = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    public static Collection<CompactJDBCDelegate> getDelegates() {
+        return DELEGATES.values();
+    }
+
+    /**
+     * 代理在 JobStore 第一次访问数据库时才创建，之前返回 null
+     */
+    public static CompactJDBCDelegate getDelegate(String schedName) {
+        return DELEGATES.get(schedName);
+    }
+
+    @Override
+    public void initialize(Logger logger, String tablePrefix, String schedName, String instanceId, ClassLoadHelper classLoadHelper, boolean useProperties, String initString) throws NoSuchDelegateException {
+        super.initialize(logger, tablePrefix, schedName, instanceId, classLoadHelper, useProperties, parseSettings(initString));
+        DELEGATES.put(schedName, this);
+    }
+
+    /**
+     * 取出本类的参数，返回 StdJDBCDelegate 的参数
+     */
+    protected String parseSettings(String initString) throws NoSuchDelegateException {
+        if (initString == null) {
+            return null;
+        }
+        StringJoiner rest = new StringJoiner("|");
+        for (String setting : initString.split("\\|")) {
+            String[] parts = setting.split("=", 2);
+            String name = parts[0].trim();
+            String value = parts.length == 1 ? "" : parts[1].trim();
+            if (WRITE_COMPACT.equals(name)) {
+                if (!value.isEmpty()) {
+                    writeCompact = Boolean.parseBoolean(value);
+                }
+            } else if (COMPRESS_THRESHOLD.equals(name)) {
+                if (!value.isEmpty()) {
+                    try {
+                        compressThreshold = Integer.parseInt(value);
+                    } catch (NumberFormatException e) {
+                        throw new NoSuchDelegateException("Invalid setting: '" + setting + "'", e);
+                    }
+                }
+            } else if (!setting.isEmpty()) {
+                rest.add(setting);
+            }
+        }
+        return rest.length() == 0 ? null : rest.toString();
+    }
+
+    @Override
+    protected ByteArrayOutputStream serializeJobData(JobDataMap data) throws IOException {
+        if (!writeCompact || canUseProperties()) {
+            return super.serializeJobData(data);
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        if (data != null) {
+            baos.write(JobDataMapCodec.encode(data.getWrappedMap(), compressThreshold));
+        }
+        return baos;
+    }
+
+    @Override
+    public JobDetail selectJobDetail(Connection conn, JobKey jobKey, ClassLoadHelper loadHelper) throws ClassNotFoundException, IOException, SQLException {
+        if (canUseProperties()) {
+            return super.selectJobDetail(conn, jobKey, loadHelper);
+        }
+        loadedJobData.set(NO_DATA);
+        try {
+            JobDetail job = super.selectJobDetail(conn, jobKey, loadHelper);
+            // 只有执行后回写 JobDataMap 的任务需要比较
+            if (job instanceof JobDetailImpl && job.isPersistJobDataAfterExecution()) {
+                JobDataMap map = job.getJobDataMap();
+                ((JobDetailImpl) job).setJobDataMap(new LoadedJobDataMap(map, JobDataMapCodec.encode(map.getWrappedMap()), loadedJobData.get().length));
+            }
+            return job;
+        } finally {
+            loadedJobData.remove();
+        }
+    }
+
+    @Override
+    public int updateJobData(Connection conn, JobDetail job) throws IOException, SQLException {
+        JobDataMap map = job.getJobDataMap();
+        if (canUseProperties() || !(map instanceof LoadedJobDataMap)) {
+            return super.updateJobData(conn, job);
+        }
+        LoadedJobDataMap loaded = (LoadedJobDataMap) map;
+        byte[] canonical = JobDataMapCodec.encode(map.getWrappedMap());
+        if (Arrays.equals(canonical, loaded.canonical)) {
+            skippedWrites.increment();
+            bytesSaved.add(loaded.storedLength);
+            return 0;
+        }
+        byte[] data = writeCompact
+                ? JobDataMapCodec.compress(canonical, compressThreshold)
+                : super.serializeJobData(new JobDataMap(map.getWrappedMap())).toByteArray();
+        int updated;
+        try (PreparedStatement ps = conn.prepareStatement(rtp(UPDATE_JOB_DATA))) {
+            ps.setBytes(1, data);
+            ps.setString(2, job.getKey().getName());
+            ps.setString(3, job.getKey().getGroup());
+            updated = ps.executeUpdate();
+        }
+        loaded.canonical = canonical;
+        loaded.storedLength = data.length;
+        writes.increment();
+        bytesWritten.add(data.length);
+        return updated;
+    }
+
+    @Override
+    protected Object getObjectFromBlob(ResultSet rs, String colName) throws ClassNotFoundException, IOException, SQLException {
+        byte[] data = getBytes(rs, colName);
+        if (data != null && COL_JOB_DATAMAP.equals(colName) && loadedJobData.get() != null) {
+            loadedJobData.set(data);
+        }
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        if (JobDataMapCodec.isCompact(data)) {
+            return JobDataMapCodec.decode(data);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return in.readObject();
+        }
+    }
+
+    protected byte[] getBytes(ResultSet rs, String colName) throws SQLException {
+        Blob blob = rs.getBlob(colName);
+        if (blob == null) {
+            return null;
+        }
+        long length = blob.length();
+        return length == 0 ? null : blob.getBytes(1, (int) length);
+    }
+
+    public JobDataStats getStats() {
+        JobDataStats stats = new JobDataStats();
+        stats.setInstanceName(schedName);
+        stats.setWrites(writes.sum());
+        stats.setBytesWritten(bytesWritten.sum());
+        stats.setSkippedWrites(skippedWrites.sum());
+        stats.setBytesSaved(bytesSaved.sum());
+        return stats;
+    }
+
+    /**
+     * 带加载时规范形式的 JobDataMap，只在本节点内存中使用。
+     * 任务经 getJobDetail 取出后可能被重新保存，Java 序列化时替换为普通 JobDataMap，库中不会出现本类
+     */
+    private static class LoadedJobDataMap extends JobDataMap {
+        private static final long serialVersionUID = 1L;
+
+        private transient byte[] canonical;
+        private transient int storedLength;
+
+        LoadedJobDataMap(JobDataMap source, byte[] canonical, int storedLength) {
+            super(source.getWrappedMap());
+            this.canonical = canonical;
+            this.storedLength = storedLength;
+        }
+
+        private Object writeReplace() {
+            return new JobDataMap(getWrappedMap());
+        }
+    }
+
+    public boolean isWriteCompact() {
+        return writeCompact;
+    }
+
+    public int getCompressThreshold() {
+        return compressThreshold;
+    }
+}
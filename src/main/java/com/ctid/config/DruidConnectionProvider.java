@@ -1,12 +1,27 @@
 package com.ctid.config;
 
 import com.alibaba.druid.pool.DruidDataSource;
+import com.alibaba.druid.pool.GetConnectionTimeoutException;
+import com.ctid.dto.DataSourceStats;
+import com.ctid.metrics.LatencyHistogram;
 import org.quartz.utils.ConnectionProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
 
 public class DruidConnectionProvider implements ConnectionProvider {
+    private static final Logger LOG = LoggerFactory.getLogger(DruidConnectionProvider.class);
+
+    /**
+     * 已初始化的连接池，供监控读取
+     */
+    private static final Collection<DruidConnectionProvider> PROVIDERS = new CopyOnWriteArrayList<>();
+
     /**
      * 常量配置，与quartz.properties文件的key保持一致(去掉前缀)，同时提供set方法，Quartz框架自动注入值。
      *
@@ -29,18 +44,45 @@ public class DruidConnectionProvider implements ConnectionProvider {
 
     private String discardIdleConnectionsSeconds;
 
+    //启动时预先建立的连接数，同时作为最小空闲连接数的默认值
+    private int initialConnections = 2;
+    //最小空闲连接数，为负数时取 initialConnections
+    private int minIdle = -1;
+    //获取连接的超时时间(ms)，超时后抛出异常由Quartz重试，而不是无限等待
+    private long maxWaitMillis = 3000;
+    //是否在每个连接上缓存PreparedStatement，Quartz的SQL固定，命中率很高
+    private boolean poolPreparedStatements = true;
+    //每个连接缓存的PreparedStatement数，需覆盖Quartz调度循环中的常用SQL
+    private int maxCachedStatementsPerConnection = 50;
+
+    private final LatencyHistogram checkoutWait = new LatencyHistogram();
+    private final LongAdder checkoutTimeouts = new LongAdder();
+
     public static final int DEFAULT_DB_MAX_CONNECTIONS = 10;
 
     //Druid连接池
     private DruidDataSource datasource;
 
+    public static Collection<DruidConnectionProvider> getProviders() {
+        return PROVIDERS;
+    }
+
     @Override
     public Connection getConnection() throws SQLException {
-        return datasource.getConnection();
+        long start = System.nanoTime();
+        try {
+            return datasource.getConnection();
+        } catch (GetConnectionTimeoutException e) {
+            checkoutTimeouts.increment();
+            throw e;
+        } finally {
+            checkoutWait.record(System.nanoTime() - start);
+        }
     }
 
     @Override
     public void shutdown() throws SQLException {
+        PROVIDERS.remove(this);
         datasource.close();
     }
 
@@ -69,10 +111,15 @@ public class DruidConnectionProvider implements ConnectionProvider {
         datasource.setUsername(this.user);
         datasource.setPassword(this.password);
         datasource.setMaxActive(this.maxConnections);
-        datasource.setMinIdle(1);
-        datasource.setMaxWait(0);
+        int initialSize = Math.max(0, Math.min(this.initialConnections, this.maxConnections));
+        datasource.setInitialSize(initialSize);
+        datasource.setMinIdle(Math.min(this.minIdle < 0 ? initialSize : this.minIdle, this.maxConnections));
+        //空闲连接保活，避免预热的连接被数据库断开
+        datasource.setKeepAlive(true);
+        datasource.setMaxWait(this.maxWaitMillis);
         datasource.setTestWhileIdle(true);
-        datasource.setMaxPoolPreparedStatementPerConnectionSize(DEFAULT_DB_MAX_CONNECTIONS);
+        datasource.setPoolPreparedStatements(this.poolPreparedStatements);
+        datasource.setMaxPoolPreparedStatementPerConnectionSize(this.maxCachedStatementsPerConnection);
         if (this.validationQuery != null) {
             datasource.setValidationQuery(this.validationQuery);
             if (!this.validateOnCheckout)
@@ -81,6 +128,31 @@ public class DruidConnectionProvider implements ConnectionProvider {
                 datasource.setTestOnBorrow(true);
             datasource.setValidationQueryTimeout(this.idleConnectionValidationSeconds);
         }
+        //预热：建立 initialSize 个连接，数据库暂不可用时不影响调度器启动，由连接池后台线程继续重试
+        try {
+            datasource.init();
+        } catch (SQLException e) {
+            LOG.warn("Druid pool warm-up failed, connections will be created on demand: {}", e.getMessage());
+        }
+        PROVIDERS.add(this);
+    }
+
+    public DataSourceStats getStats() {
+        DataSourceStats stats = new DataSourceStats();
+        long hits = datasource.getCachedPreparedStatementHitCount();
+        long misses = datasource.getCachedPreparedStatementMissCount();
+        stats.setName(datasource.getName());
+        stats.setMaxActive(datasource.getMaxActive());
+        stats.setActiveCount(datasource.getActiveCount());
+        stats.setPoolingCount(datasource.getPoolingCount());
+        stats.setWaitingThreads(datasource.getWaitThreadCount());
+        stats.setMaxWaitMillis(datasource.getMaxWait());
+        stats.setCheckoutWait(checkoutWait.snapshot());
+        stats.setCheckoutTimeouts(checkoutTimeouts.sum());
+        stats.setStatementCacheHits(hits);
+        stats.setStatementCacheMisses(misses);
+        stats.setStatementCacheHitRatio(hits + misses == 0 ? 0D : (double) hits / (hits + misses));
+        return stats;
     }
 
     public String getDriver() {
@@ -162,4 +234,44 @@ public class DruidConnectionProvider implements ConnectionProvider {
     public void setDiscardIdleConnectionsSeconds(String discardIdleConnectionsSeconds) {
         this.discardIdleConnectionsSeconds = discardIdleConnectionsSeconds;
     }
+
+    public int getInitialConnections() {
+        return initialConnections;
+    }
+
+    public void setInitialConnections(int initialConnections) {
+        this.initialConnections = initialConnections;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public void setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public boolean isPoolPreparedStatements() {
+        return poolPreparedStatements;
+    }
+
+    public void setPoolPreparedStatements(boolean poolPreparedStatements) {
+        this.poolPreparedStatements = poolPreparedStatements;
+    }
+
+    public int getMaxCachedStatementsPerConnection() {
+        return maxCachedStatementsPerConnection;
+    }
+
+    public void setMaxCachedStatementsPerConnection(int maxCachedStatementsPerConnection) {
+        this.maxCachedStatementsPerConnection = maxCachedStatementsPerConnection;
+    }
 }
@@ -0,0 +1,268 @@
+package com.ctid.config;
+
+import com.ctid.dto.LockStats;
+import com.ctid.metrics.LatencyHistogram;
+import org.quartz.impl.jdbcjobstore.LockException;
+import org.quartz.impl.jdbcjobstore.StdRowLockSemaphore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 记录集群锁等待及持有时间的锁处理器
+ * 按锁名(TRIGGER_ACCESS/STATE_ACCESS)及获取锁的 JobStore 操作分别统计等待时间和持有时间（含提交）。
+ * 操作名由 AdaptiveJobStoreTX 在加锁执行前通过 {@link #enterOperation} 传入，其他 JobStore 只有按锁名的汇总。
+ * <p>
+ * mode=row（默认）与 StdRowLockSemaphore 相同，在 QRTZ_LOCKS 上 SELECT ... FOR UPDATE；
+ * mode=getLock 使用 MySQL 的 GET_LOCK/RELEASE_LOCK 命名锁，不在 QRTZ_LOCKS 上加行锁和间隙锁。
+ * 两种模式互不互斥，集群中所有节点必须使用相同的模式。
+ * <p>
+ * 配置示例：
+ * org.quartz.jobStore.lockHandler.class=com.ctid.config.InstrumentedSemaphore
+ * org.quartz.jobStore.lockHandler.mode=getLock
+ * org.quartz.jobStore.lockHandler.lockTimeoutSeconds=30
+ */
+public class InstrumentedSemaphore extends StdRowLockSemaphore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(InstrumentedSemaphore.class);
+
+    public static final String MODE_ROW = "row";
+    public static final String MODE_GET_LOCK = "getLock";
+
+    /**
+     * MySQL 命名锁名称的最大长度
+     */
+    private static final int MAX_LOCK_NAME_LENGTH = 64;
+
+    /**
+     * 按调度器名称登记的锁处理器，供监控读取
+     */
+    private static final Map<String, InstrumentedSemaphore> SEMAPHORES = new ConcurrentHashMap<>();
+
+    private String mode = MODE_ROW;
+    /**
+     * getLock 模式下等待锁的超时时间(秒)，超时后抛出 LockException 由 JobStore 重试
+     */
+    private int lockTimeoutSeconds = 30;
+    /**
+     * 当前线程正在执行的 JobStore 操作
+     */
+    private static final ThreadLocal<String> OPERATION = new ThreadLocal<>();
+
+    /**
+     * 是否按 JobStore 操作分别统计
+     */
+    private boolean recordOperation = true;
+
+    private final ThreadLocal<Map<String, Hold>> holds = ThreadLocal.withInitial(HashMap::new);
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public static Collection<InstrumentedSemaphore> getSemaphores() {
+        return SEMAPHORES.values();
+    }
+
+    /**
+     * 标记当前线程开始执行的 JobStore 操作，返回之前的操作，结束时传给 {@link #exitOperation} 恢复
+     */
+    public static String enterOperation(String operation) {
+        String previous = OPERATION.get();
+        OPERATION.set(operation);
+        return previous;
+    }
+
+    public static void exitOperation(String previous) {
+        if (previous == null) {
+            OPERATION.remove();
+        } else {
+            OPERATION.set(previous);
+        }
+    }
+
+    @Override
+    public void setSchedName(String schedName) {
+        super.setSchedName(schedName);
+        if (schedName != null) {
+            SEMAPHORES.put(schedName, this);
+        }
+    }
+
+    @Override
+    public boolean obtainLock(Connection conn, String lockName) throws LockException {
+        if (isLockOwner(lockName)) {
+            return super.obtainLock(conn, lockName);
+        }
+        String operation = recordOperation ? OPERATION.get() : null;
+        long start = System.nanoTime();
+        boolean obtained = super.obtainLock(conn, lockName);
+        long acquired = System.nanoTime();
+        for (Entry entry : entries(lockName, operation)) {
+            entry.wait.record(acquired - start);
+        }
+        holds.get().put(lockName, new Hold(operation, acquired, conn));
+        return obtained;
+    }
+
+    @Override
+    public void releaseLock(String lockName) {
+        Hold hold = isLockOwner(lockName) ? holds.get().remove(lockName) : null;
+        if (hold != null) {
+            if (MODE_GET_LOCK.equals(mode)) {
+                releaseNamedLock(hold.conn, lockName);
+            }
+            long held = System.nanoTime() - hold.acquired;
+            for (Entry entry : entries(lockName, hold.operation)) {
+                entry.hold.record(held);
+            }
+        }
+        super.releaseLock(lockName);
+    }
+
+    @Override
+    protected void executeSQL(Connection conn, String lockName, String expandedSQL, String expandedInsertSQL) throws LockException {
+        if (!MODE_GET_LOCK.equals(mode)) {
+            super.executeSQL(conn, lockName, expandedSQL, expandedInsertSQL);
+            return;
+        }
+        try (PreparedStatement ps = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            ps.setString(1, namedLock(lockName));
+            ps.setInt(2, lockTimeoutSeconds);
+            try (ResultSet rs = ps.executeQuery()) {
+                // 1 获得锁，0 超时，NULL 出错
+                if (rs.next() && rs.getInt(1) == 1) {
+                    return;
+                }
+            }
+        } catch (SQLException e) {
+            throw new LockException("Failure obtaining named lock: " + namedLock(lockName), e);
+        }
+        throw new LockException("Timeout obtaining named lock: " + namedLock(lockName) + " after " + lockTimeoutSeconds + "s");
+    }
+
+    /**
+     * 命名锁在连接（会话）上持有，提交不会释放，必须在归还连接前释放
+     */
+    private void releaseNamedLock(Connection conn, String lockName) {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, namedLock(lockName));
+            ps.executeQuery().close();
+        } catch (SQLException e) {
+            LOG.error("Failure releasing named lock: {}", namedLock(lockName), e);
+        }
+    }
+
+    public List<LockStats> getStats() {
+        List<LockStats> result = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            LockStats stats = new LockStats();
+            stats.setInstanceName(getSchedName());
+            stats.setMode(mode);
+            stats.setLockName(entry.lockName);
+            stats.setOperation(entry.operation);
+            stats.setWait(entry.wait.snapshot());
+            stats.setHold(entry.hold.snapshot());
+            result.add(stats);
+        }
+        result.sort((a, b) -> {
+            int c = a.getLockName().compareTo(b.getLockName());
+            if (c != 0) {
+                return c;
+            }
+            // 汇总排在该锁的各操作之前
+            return a.getOperation() == null ? -1 : b.getOperation() == null ? 1 : a.getOperation().compareTo(b.getOperation());
+        });
+        return result;
+    }
+
+    /**
+     * 该锁的汇总统计及该操作的统计
+     */
+    private Entry[] entries(String lockName, String operation) {
+        Entry total = entries.computeIfAbsent(lockName, key -> new Entry(lockName, null));
+        if (operation == null) {
+            return new Entry[]{total};
+        }
+        Entry byOperation = entries.computeIfAbsent(lockName + '/' + operation, key -> new Entry(lockName, operation));
+        return new Entry[]{total, byOperation};
+    }
+
+    private String namedLock(String lockName) {
+        String name = getTablePrefix() + getSchedName() + "_" + lockName;
+        if (name.length() <= MAX_LOCK_NAME_LENGTH) {
+            return name;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(name.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder("QRTZ_");
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.append('_').append(lockName).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Hold {
+        private final String operation;
+        private final long acquired;
+        private final Connection conn;
+
+        Hold(String operation, long acquired, Connection conn) {
+            this.operation = operation;
+            this.acquired = acquired;
+            this.conn = conn;
+        }
+    }
+
+    private static class Entry {
+        private final String lockName;
+        private final String operation;
+        private final LatencyHistogram wait = new LatencyHistogram();
+        private final LatencyHistogram hold = new LatencyHistogram();
+
+        Entry(String lockName, String operation) {
+            this.lockName = lockName;
+            this.operation = operation;
+        }
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        if (!MODE_ROW.equals(mode) && !MODE_GET_LOCK.equals(mode)) {
+            throw new IllegalArgumentException("Unsupported lock mode: " + mode + ", expected row or getLock");
+        }
+        this.mode = mode;
+    }
+
+    public int getLockTimeoutSeconds() {
+        return lockTimeoutSeconds;
+    }
+
+    public void setLockTimeoutSeconds(int lockTimeoutSeconds) {
+        this.lockTimeoutSeconds = lockTimeoutSeconds;
+    }
+
+    public boolean isRecordOperation() {
+        return recordOperation;
+    }
+
+    public void setRecordOperation(boolean recordOperation) {
+        this.recordOperation = recordOperation;
+    }
+}
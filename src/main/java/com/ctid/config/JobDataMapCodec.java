@@ -0,0 +1,379 @@
+package com.ctid.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * JobDataMap 紧凑二进制编码
+ * 格式：魔数 QJD + 版本(1字节) + 标志(1字节，bit0 表示正文已 deflate 压缩) + 正文。
+ * 正文为条目数及按 key 排序的各条目的 key、类型标记和值，嵌套的 HashMap 同样按 key 排序，整数和长度使用变长编码。
+ * 常用类型（字符串、数字、布尔、日期、byte[]、ArrayList、HashMap/LinkedHashMap）直接编码，
+ * 其他可序列化对象按 Java 序列化嵌入，保证任何可以存入原 JobDataMap 的值都可以编码。
+ * Java 序列化的数据以 0xACED 开头，不会与魔数冲突，可以据此区分旧数据。
+ */
+public final class JobDataMapCodec {
+    private static final byte[] MAGIC = {'Q', 'J', 'D'};
+    private static final byte VERSION = 1;
+    private static final int FLAG_DEFLATED = 1;
+    private static final int HEADER_LENGTH = MAGIC.length + 2;
+
+    private static final int T_NULL = 0;
+    private static final int T_STRING = 1;
+    private static final int T_INT = 2;
+    private static final int T_LONG = 3;
+    private static final int T_TRUE = 4;
+    private static final int T_FALSE = 5;
+    private static final int T_DOUBLE = 6;
+    private static final int T_FLOAT = 7;
+    private static final int T_SHORT = 8;
+    private static final int T_BYTE = 9;
+    private static final int T_CHAR = 10;
+    private static final int T_DATE = 11;
+    private static final int T_BYTES = 12;
+    private static final int T_BIG_DECIMAL = 13;
+    private static final int T_BIG_INTEGER = 14;
+    private static final int T_LIST = 15;
+    private static final int T_HASH_MAP = 16;
+    private static final int T_LINKED_HASH_MAP = 17;
+    private static final int T_SERIALIZED = 127;
+
+    private JobDataMapCodec() {
+    }
+
+    /**
+     * 是否为本编码格式的数据
+     */
+    public static boolean isCompact(byte[] data) {
+        return data != null && data.length >= HEADER_LENGTH
+                && data[0] == MAGIC[0] && data[1] == MAGIC[1] && data[2] == MAGIC[2];
+    }
+
+    /**
+     * @param compressThreshold 正文达到该字节数时压缩，小于0不压缩
+     */
+    public static byte[] encode(Map<?, ?> map, int compressThreshold) throws IOException {
+        return compress(encode(map), compressThreshold);
+    }
+
+    /**
+     * 不压缩的编码结果，也是 map 的规范形式：顶层和嵌套 HashMap 的条目都按 key 排序，
+     * 内容相同的 map 编码结果相同，可以直接比较字节判断是否修改
+     */
+    public static byte[] encode(Map<?, ?> map) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream(128);
+        result.write(MAGIC);
+        result.write(VERSION);
+        result.write(0);
+        DataOutputStream out = new DataOutputStream(result);
+        String[] keys = new String[map.size()];
+        int i = 0;
+        for (Object key : map.keySet()) {
+            if (!(key instanceof String)) {
+                throw new IOException("JobDataMap keys must be Strings, offending Key: " + key);
+            }
+            keys[i++] = (String) key;
+        }
+        Arrays.sort(keys);
+        writeVarInt(out, keys.length);
+        for (String key : keys) {
+            writeString(out, key);
+            writeValue(out, map.get(key));
+        }
+        out.flush();
+        return result.toByteArray();
+    }
+
+    /**
+     * 正文达到阈值时压缩 encode(map) 的结果，不需要压缩或压缩无收益时返回原数组
+     *
+     * @param compressThreshold 正文达到该字节数时压缩，小于0不压缩
+     */
+    public static byte[] compress(byte[] encoded, int compressThreshold) throws IOException {
+        int bodyLength = encoded.length - HEADER_LENGTH;
+        if (compressThreshold < 0 || bodyLength < compressThreshold) {
+            return encoded;
+        }
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream(bodyLength);
+        try (DeflaterOutputStream zip = new DeflaterOutputStream(deflated)) {
+            zip.write(encoded, HEADER_LENGTH, bodyLength);
+        }
+        if (deflated.size() >= bodyLength) {
+            return encoded;
+        }
+        ByteArrayOutputStream result = new ByteArrayOutputStream(deflated.size() + HEADER_LENGTH);
+        result.write(MAGIC);
+        result.write(VERSION);
+        result.write(FLAG_DEFLATED);
+        deflated.writeTo(result);
+        return result.toByteArray();
+    }
+
+    public static Map<String, Object> decode(byte[] data) throws IOException, ClassNotFoundException {
+        if (!isCompact(data)) {
+            throw new IOException("Not a compact JobDataMap");
+        }
+        if (data[MAGIC.length] != VERSION) {
+            throw new IOException("Unsupported compact JobDataMap version: " + data[MAGIC.length]);
+        }
+        InputStream body = new ByteArrayInputStream(data, HEADER_LENGTH, data.length - HEADER_LENGTH);
+        if ((data[MAGIC.length + 1] & FLAG_DEFLATED) != 0) {
+            body = new InflaterInputStream(body);
+        }
+        try (DataInputStream in = new DataInputStream(body)) {
+            int size = readVarInt(in);
+            Map<String, Object> map = new HashMap<>(capacity(size));
+            for (int i = 0; i < size; i++) {
+                map.put(readString(in), readValue(in));
+            }
+            return map;
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(T_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(T_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(T_INT);
+            writeVarLong(out, zigZag((Integer) value));
+        } else if (value instanceof Long) {
+            out.writeByte(T_LONG);
+            writeVarLong(out, zigZag((Long) value));
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? T_TRUE : T_FALSE);
+        } else if (value instanceof Double) {
+            out.writeByte(T_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(T_FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Short) {
+            out.writeByte(T_SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(T_BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Character) {
+            out.writeByte(T_CHAR);
+            out.writeChar((Character) value);
+        } else if (value.getClass() == Date.class) {
+            out.writeByte(T_DATE);
+            writeVarLong(out, zigZag(((Date) value).getTime()));
+        } else if (value instanceof byte[]) {
+            out.writeByte(T_BYTES);
+            writeBytes(out, (byte[]) value);
+        } else if (value.getClass() == BigDecimal.class) {
+            out.writeByte(T_BIG_DECIMAL);
+            writeString(out, value.toString());
+        } else if (value.getClass() == BigInteger.class) {
+            out.writeByte(T_BIG_INTEGER);
+            writeBytes(out, ((BigInteger) value).toByteArray());
+        } else if (value.getClass() == ArrayList.class) {
+            List<?> list = (List<?>) value;
+            out.writeByte(T_LIST);
+            writeVarInt(out, list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value.getClass() == HashMap.class || value.getClass() == LinkedHashMap.class) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            boolean hashMap = value.getClass() == HashMap.class;
+            out.writeByte(hashMap ? T_HASH_MAP : T_LINKED_HASH_MAP);
+            writeVarInt(out, map.size());
+            if (hashMap) {
+                writeSortedEntries(out, map);
+            } else {
+                // LinkedHashMap 的顺序是内容的一部分，按原顺序写入
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeValue(out, entry.getKey());
+                    writeValue(out, entry.getValue());
+                }
+            }
+        } else if (value instanceof Serializable) {
+            out.writeByte(T_SERIALIZED);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+                oos.writeObject(value);
+            }
+            writeBytes(out, bytes.toByteArray());
+        } else {
+            throw new IOException("Unable to encode JobDataMap value of type " + value.getClass().getName() + ", it is not serializable");
+        }
+    }
+
+    /**
+     * HashMap 的迭代顺序与插入历史有关，key 不一定可比较，按 key 的编码字节排序后写入
+     */
+    private static void writeSortedEntries(DataOutputStream out, Map<?, ?> map) throws IOException {
+        List<Map.Entry<byte[], Object>> entries = new ArrayList<>(map.size());
+        ByteArrayOutputStream keyBytes = new ByteArrayOutputStream(32);
+        DataOutputStream keyOut = new DataOutputStream(keyBytes);
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            keyBytes.reset();
+            writeValue(keyOut, entry.getKey());
+            keyOut.flush();
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(keyBytes.toByteArray(), entry.getValue()));
+        }
+        entries.sort((a, b) -> compareUnsigned(a.getKey(), b.getKey()));
+        for (Map.Entry<byte[], Object> entry : entries) {
+            out.write(entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    private static int compareUnsigned(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException, ClassNotFoundException {
+        int type = in.readUnsignedByte();
+        switch (type) {
+            case T_NULL:
+                return null;
+            case T_STRING:
+                return readString(in);
+            case T_INT:
+                return (int) unZigZag(readVarLong(in));
+            case T_LONG:
+                return unZigZag(readVarLong(in));
+            case T_TRUE:
+                return Boolean.TRUE;
+            case T_FALSE:
+                return Boolean.FALSE;
+            case T_DOUBLE:
+                return in.readDouble();
+            case T_FLOAT:
+                return in.readFloat();
+            case T_SHORT:
+                return in.readShort();
+            case T_BYTE:
+                return in.readByte();
+            case T_CHAR:
+                return in.readChar();
+            case T_DATE:
+                return new Date(unZigZag(readVarLong(in)));
+            case T_BYTES:
+                return readBytes(in);
+            case T_BIG_DECIMAL:
+                return new BigDecimal(readString(in));
+            case T_BIG_INTEGER:
+                return new BigInteger(readBytes(in));
+            case T_LIST: {
+                int size = readVarInt(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            case T_HASH_MAP:
+            case T_LINKED_HASH_MAP: {
+                int size = readVarInt(in);
+                Map<Object, Object> map = type == T_HASH_MAP ? new HashMap<>(capacity(size)) : new LinkedHashMap<>(capacity(size));
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(in), readValue(in));
+                }
+                return map;
+            }
+            case T_SERIALIZED:
+                try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(readBytes(in)))) {
+                    return ois.readObject();
+                }
+            default:
+                throw new IOException("Unknown compact JobDataMap value type: " + type);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        writeVarInt(out, value.length);
+        out.write(value);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] value = new byte[readVarInt(in)];
+        in.readFully(value);
+        return value;
+    }
+
+    private static void writeVarInt(OutputStream out, int value) throws IOException {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        long value = readVarLong(in);
+        if (value > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt compact JobDataMap, length " + value);
+        }
+        return (int) value;
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt compact JobDataMap, varint too long");
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int capacity(int size) {
+        return Math.max(4, (int) (size / 0.75f) + 1);
+    }
+}
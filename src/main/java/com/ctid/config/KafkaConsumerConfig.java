@@ -31,6 +31,14 @@ import java.util.Map;
 @Slf4j
 @Configuration
 public class KafkaConsumerConfig {
+    /**
+     * 死信记录的header，记录原始消息的位置和失败原因
+     */
+    public static final String ORIGIN_ERROR_MSG = "ORIGIN_ERROR_MSG";
+    public static final String ORIGIN_TOPIC = "ORIGIN_TOPIC";
+    public static final String ORIGIN_PARTITION = "ORIGIN_PARTITION";
+    public static final String ORIGIN_OFFSET = "ORIGIN_OFFSET";
+    public static final String ORIGIN_TIMESTAMP = "ORIGIN_TIMESTAMP";
 
     @Value("${spring.kafka.consumer.bootstrap-servers}")
     private String bootstrapServers;
@@ -62,6 +70,10 @@ public class KafkaConsumerConfig {
     private String valueDeserializerClass;
     @Value("${spring.kafka.consumer.properties.spring.json.trusted.packages}")
     private String packages;
+    @Value("${quartz.dlq.topic:dead-letter-queue}")
+    private String dlqTopic;
+    @Value("${spring.kafka.listener.key-ordered-workers:8}")
+    private int keyOrderedWorkers;
 
     @Resource
     private KafkaTemplate<Object, Object> kafkaTemplate;
@@ -107,6 +119,62 @@ public class KafkaConsumerConfig {
         factory.getContainerProperties().setPollTimeout(pollTimeout);
         //设置为批量监听，需要用List接收
         factory.setBatchListener(false); //批量消费消息
+        factory.setCommonErrorHandler(errorHandler());
+
+        return factory;
+    }
+
+    /**
+     * 批量监听的容器工厂，每次poll的记录（最多max-poll-records条）一次交给监听器，处理完后手动确认一次
+     * 监听器抛出异常时整批按同样的间隔重试，仍失败时逐条发送到死信队列
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(concurrency);
+        factory.setMissingTopicsFatal(missingTopicsFatal);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        factory.getContainerProperties().setPollTimeout(pollTimeout);
+        factory.setBatchListener(true);
+        factory.setCommonErrorHandler(errorHandler());
+        return factory;
+    }
+
+    /**
+     * 按key有序并行消费的容器工厂，与批量监听相同，监听器通过 keyOrderedDispatcher 把一次poll的记录分发到工作线程
+     * 用法：
+     * <pre>
+     * &#64;KafkaListener(topics = "xxx", containerFactory = "keyOrderedKafkaListenerContainerFactory")
+     * public void onMessages(List&lt;ConsumerRecord&lt;String, Object&gt;&gt; records, Acknowledgment ack) {
+     *     keyOrderedDispatcher.dispatch(records, this::handle);
+     *     ack.acknowledge();
+     * }
+     * </pre>
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> keyOrderedKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(concurrency);
+        factory.setMissingTopicsFatal(missingTopicsFatal);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        factory.getContainerProperties().setPollTimeout(pollTimeout);
+        factory.setBatchListener(true);
+        // dispatch 抛出的 BatchListenerFailedException 指明失败的记录，之前的记录提交偏移量，该记录重试后进入死信队列
+        factory.setCommonErrorHandler(errorHandler());
+        return factory;
+    }
+
+    /**
+     * 按key有序并行处理的工作线程池，所有使用 keyOrderedKafkaListenerContainerFactory 的监听器共用
+     */
+    @Bean(destroyMethod = "shutdown")
+    public KeyOrderedDispatcher keyOrderedDispatcher() {
+        return new KeyOrderedDispatcher("kafka-key-ordered", keyOrderedWorkers);
+    }
+
+    private DefaultErrorHandler errorHandler() {
         // 配置错误处理器
         // 3次重试后失败的处理
         DefaultErrorHandler errorHandler = new DefaultErrorHandler(
@@ -120,13 +188,11 @@ public class KafkaConsumerConfig {
         errorHandler.setRetryListeners((record, ex, deliveryAttempt) ->
                 log.info("重试消费消息 (尝试:{}次): 主题：{}，分区：{}，偏移量：{}， 原因：{}，内容：【{}】", deliveryAttempt, record.topic(), record.partition(), record.offset(), ex.getMessage(), record.value())
         );
-        factory.setCommonErrorHandler(errorHandler);
-
-        return factory;
+        return errorHandler;
     }
 
-    // 发送到死信队列的专用方法
-    private void sendToDlq(ConsumerRecord<?, ?> record, Exception exception) {
+    // 发送到死信队列的专用方法，批量监听器中无法处理的记录也直接调用
+    public void sendToDlq(ConsumerRecord<?, ?> record, Exception exception) {
         try {
             Headers headers = new RecordHeaders();
             String topic = record.topic();
@@ -134,15 +200,15 @@ public class KafkaConsumerConfig {
             String offset = String.valueOf(record.offset());
             String timestamp = String.valueOf(record.timestamp());
 
-            headers.add("ORIGIN_ERROR_MSG", exception.getMessage().getBytes(StandardCharsets.UTF_8));
-            headers.add("ORIGIN_TOPIC", topic.getBytes(StandardCharsets.UTF_8));
-            headers.add("ORIGIN_PARTITION", partition.getBytes(StandardCharsets.UTF_8));
-            headers.add("ORIGIN_OFFSET", offset.getBytes(StandardCharsets.UTF_8));
-            headers.add("ORIGIN_TIMESTAMP", timestamp.getBytes(StandardCharsets.UTF_8));
+            headers.add(ORIGIN_ERROR_MSG, String.valueOf(exception.getMessage()).getBytes(StandardCharsets.UTF_8));
+            headers.add(ORIGIN_TOPIC, topic.getBytes(StandardCharsets.UTF_8));
+            headers.add(ORIGIN_PARTITION, partition.getBytes(StandardCharsets.UTF_8));
+            headers.add(ORIGIN_OFFSET, offset.getBytes(StandardCharsets.UTF_8));
+            headers.add(ORIGIN_TIMESTAMP, timestamp.getBytes(StandardCharsets.UTF_8));
 
             // 3. 构建带 Headers 的 ProducerRecord
             ProducerRecord<Object, Object> dlqRecord = new ProducerRecord<>(
-                    "dead-letter-queue",  // 死信队列 topic
+                    dlqTopic,               // 死信队列 topic
                     null,                   // 分区 (null 表示由分区器决定)
                     record.key(),           // 原始 key
                     record.value(),         // 原始 value
@@ -0,0 +1,110 @@
+package com.ctid.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 按key有序的并行处理
+ * 批量监听器收到的一次poll的记录交给工作线程池并行处理，同一分区中key相同的记录按偏移量顺序串行执行，
+ * 不同key之间并行，吞吐随工作线程数增长而不受分区数限制。没有key的记录按分区顺序执行。
+ * 全部记录处理完后返回，由监听器确认提交整批偏移量。
+ * <p>
+ * 有记录处理失败时，同key的后续记录不再执行，所有已开始的记录结束后抛出 BatchListenerFailedException，
+ * 指向poll顺序中第一条失败的记录：DefaultErrorHandler 提交此前连续处理完成的记录的偏移量，
+ * 从失败的记录起重新拉取并按 BackOff 重试，仍失败时把该记录发送到死信队列后继续。
+ * 失败记录之后已处理成功的记录会被再次投递，监听器需要保证处理幂等。
+ */
+@Slf4j
+public class KeyOrderedDispatcher {
+    private final ExecutorService executor;
+    private final int workers;
+
+    /**
+     * 记录的处理逻辑，在工作线程中调用
+     */
+    @FunctionalInterface
+    public interface RecordProcessor<K, V> {
+        void process(ConsumerRecord<K, V> record) throws Exception;
+    }
+
+    public KeyOrderedDispatcher(String name, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be positive");
+        }
+        this.workers = workers;
+        AtomicInteger index = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, name + "-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * 并行处理一批记录，返回时全部记录都已处理成功
+     *
+     * @param records   批量监听器收到的记录，保持容器传入的顺序
+     * @param processor 单条记录的处理逻辑
+     * @throws BatchListenerFailedException 有记录处理失败
+     */
+    public <K, V> void dispatch(List<ConsumerRecord<K, V>> records, RecordProcessor<K, V> processor) {
+        if (records.isEmpty()) {
+            return;
+        }
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[records.size()];
+        AtomicReferenceArray<Exception> failures = new AtomicReferenceArray<>(records.size());
+        // 每条链上的记录在同一分区，失败后被跳过的记录一定排在失败记录之后
+        Map<List<Object>, CompletableFuture<Void>> tails = new HashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<K, V> record = records.get(i);
+            int index = i;
+            Runnable task = () -> {
+                try {
+                    processor.process(record);
+                } catch (Exception e) {
+                    failures.set(index, e);
+                    throw new IllegalStateException(e);
+                }
+            };
+            List<Object> chain = Arrays.asList(record.topic(), record.partition(), record.key());
+            CompletableFuture<Void> previous = tails.get(chain);
+            // 前一条失败时 thenRunAsync 不执行，本条以同样的异常结束
+            CompletableFuture<Void> current = previous == null
+                    ? CompletableFuture.runAsync(task, executor)
+                    : previous.thenRunAsync(task, executor);
+            tails.put(chain, current);
+            futures[i] = current;
+        }
+        CompletableFuture.allOf(futures).handle((result, ex) -> null).join();
+        for (int i = 0; i < records.size(); i++) {
+            Exception failure = failures.get(i);
+            if (failure != null) {
+                ConsumerRecord<K, V> record = records.get(i);
+                log.warn("key ordered processing failed, topic: {}, partition: {}, offset: {}, reason: {}",
+                        record.topic(), record.partition(), record.offset(), failure.getMessage());
+                throw new BatchListenerFailedException(String.valueOf(failure.getMessage()), failure, i);
+            }
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,58 @@
+package com.ctid.config;
+
+import org.quartz.TriggerKey;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.quartz.TriggerKey.triggerKey;
+
+/**
+ * MySQL 8 以 SELECT ... FOR UPDATE SKIP LOCKED 选取待触发触发器的 JDBC 代理，与 SkipLockedJobStoreTX 配合使用
+ * 选出的行在获取事务提交前保持行锁，其他节点的同一查询跳过这些行，各节点并发获取互不相交的批次。
+ * 使用 LIMIT 代替 setMaxRows（MySQL 驱动的 setMaxRows 在客户端截断，服务端仍会锁定全部匹配行），
+ * 配合 doc/quartz.sql 中的 IDX_QRTZ_T_ACQUIRE 索引按序扫描，只锁定本批次的行。
+ * JobDataMap 编码与 CompactJDBCDelegate 相同。
+ * <p>
+ * 配置示例：
+ * org.quartz.jobStore.class=com.ctid.config.SkipLockedJobStoreTX
+ * org.quartz.jobStore.driverDelegateClass=com.ctid.config.MySQLSkipLockedDelegate
+ */
+public class MySQLSkipLockedDelegate extends CompactJDBCDelegate {
+
+    protected static final String SELECT_NEXT_TRIGGER_TO_ACQUIRE_SKIP_LOCKED = SELECT_NEXT_TRIGGER_TO_ACQUIRE
+            + " LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    @Override
+    public List<TriggerKey> selectTriggerToAcquire(Connection conn, long noLaterThan, long noEarlierThan, int maxCount) throws SQLException {
+        if (maxCount < 1) {
+            maxCount = 1;
+        }
+        List<TriggerKey> nextTriggers = new ArrayList<>(maxCount);
+        try (PreparedStatement ps = conn.prepareStatement(rtp(selectTriggerToAcquireSQL()))) {
+            ps.setFetchSize(maxCount);
+            ps.setString(1, STATE_WAITING);
+            ps.setBigDecimal(2, new BigDecimal(String.valueOf(noLaterThan)));
+            ps.setBigDecimal(3, new BigDecimal(String.valueOf(noEarlierThan)));
+            ps.setInt(4, maxCount);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    nextTriggers.add(triggerKey(rs.getString(COL_TRIGGER_NAME), rs.getString(COL_TRIGGER_GROUP)));
+                }
+            }
+        }
+        return nextTriggers;
+    }
+
+    /**
+     * 第4个参数为 LIMIT
+     */
+    protected String selectTriggerToAcquireSQL() {
+        return SELECT_NEXT_TRIGGER_TO_ACQUIRE_SKIP_LOCKED;
+    }
+}
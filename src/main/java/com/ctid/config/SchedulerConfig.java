@@ -1,7 +1,12 @@
 package com.ctid.config;
 
+import org.quartz.JobListener;
 import org.quartz.Scheduler;
+import org.quartz.SchedulerListener;
+import org.quartz.TriggerListener;
 import org.quartz.spi.JobFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.PropertiesFactoryBean;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.ApplicationContext;
@@ -11,6 +16,8 @@ import org.springframework.core.io.ClassPathResource;
 import org.springframework.scheduling.quartz.SchedulerFactoryBean;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 @Configuration
@@ -33,14 +40,54 @@ public class SchedulerConfig {
         return schedulerFactoryBean.getScheduler();
     }
 
+    /**
+     * 容器中的 SchedulerListener、TriggerListener、JobListener 均注册为全局监听器
+     */
     @Bean
     public SchedulerFactoryBean schedulerFactoryBean(Properties quartzProperties,
-                                                     JobFactory jobFactory) throws IOException {
+                                                     JobFactory jobFactory,
+                                                     ObjectProvider<SchedulerListener> schedulerListeners,
+                                                     ObjectProvider<TriggerListener> triggerListeners,
+                                                     ObjectProvider<JobListener> jobListeners) throws IOException {
+        return newSchedulerFactoryBean(quartzProperties, jobFactory, schedulerListeners, triggerListeners, jobListeners);
+    }
+
+    /**
+     * 分片调度器，quartz.shard.count 大于1时在本JVM中额外创建 count-1 个使用不同 SCHED_NAME 的调度器
+     */
+    @Bean
+    public SchedulerShards schedulerShards(Scheduler scheduler,
+                                           @Value("${quartz.shard.count:1}") int shardCount,
+                                           Properties quartzProperties,
+                                           JobFactory jobFactory,
+                                           ApplicationContext applicationContext,
+                                           ObjectProvider<SchedulerListener> schedulerListeners,
+                                           ObjectProvider<TriggerListener> triggerListeners,
+                                           ObjectProvider<JobListener> jobListeners) throws Exception {
+        List<SchedulerFactoryBean> shardFactories = new ArrayList<>();
+        for (int i = 1; i < shardCount; i++) {
+            SchedulerFactoryBean factory = newSchedulerFactoryBean(SchedulerShards.shardProperties(quartzProperties, i),
+                    jobFactory, schedulerListeners, triggerListeners, jobListeners);
+            factory.setApplicationContext(applicationContext);
+            factory.afterPropertiesSet();
+            shardFactories.add(factory);
+        }
+        return new SchedulerShards(scheduler, shardFactories);
+    }
+
+    private SchedulerFactoryBean newSchedulerFactoryBean(Properties quartzProperties,
+                                                         JobFactory jobFactory,
+                                                         ObjectProvider<SchedulerListener> schedulerListeners,
+                                                         ObjectProvider<TriggerListener> triggerListeners,
+                                                         ObjectProvider<JobListener> jobListeners) {
         SchedulerFactoryBean schedulerFactoryBean = new SchedulerFactoryBean();
         schedulerFactoryBean.setApplicationContextSchedulerContextKey("applicationContextScheduler");
         schedulerFactoryBean.setQuartzProperties(quartzProperties);
         schedulerFactoryBean.setStartupDelay(10);
         schedulerFactoryBean.setJobFactory(jobFactory);
+        schedulerFactoryBean.setSchedulerListeners(schedulerListeners.orderedStream().toArray(SchedulerListener[]::new));
+        schedulerFactoryBean.setGlobalTriggerListeners(triggerListeners.orderedStream().toArray(TriggerListener[]::new));
+        schedulerFactoryBean.setGlobalJobListeners(jobListeners.orderedStream().toArray(JobListener[]::new));
         return schedulerFactoryBean;
     }
 
@@ -0,0 +1,191 @@
+package com.ctid.config;
+
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.quartz.SchedulerFactoryBean;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * 分片调度器
+ * 同一JVM中运行N个调度器，各自使用相同表中不同的 SCHED_NAME 分区和独立的 QRTZ_LOCKS 行，
+ * 分片0沿用原 instanceName，保证未分片时的数据不需要迁移。
+ * 任务按 JobKey 一致性哈希路由到分片，分片数变化时只有少量任务的路由改变，
+ * 已存在的任务通过 locate 在其所在分片上操作。
+ * 分片1..N-1的 SchedulerFactoryBean 不注册为Spring Bean，其启动和关闭由本类负责。
+ */
+public class SchedulerShards implements SmartLifecycle, DisposableBean {
+    /**
+     * 每个分片在哈希环上的虚拟节点数
+     */
+    private static final int VIRTUAL_NODES = 128;
+
+    private final List<Scheduler> schedulers;
+    private final List<String> schedulerNames;
+    private final List<SchedulerFactoryBean> shardFactories;
+    private final TreeMap<Long, Integer> ring = new TreeMap<>();
+    private volatile boolean running;
+
+    /**
+     * @param primary        分片0，即容器中的 scheduler
+     * @param shardFactories 分片1..N-1，已完成初始化
+     */
+    public SchedulerShards(Scheduler primary, List<SchedulerFactoryBean> shardFactories) throws SchedulerException {
+        List<Scheduler> all = new ArrayList<>(shardFactories.size() + 1);
+        List<String> names = new ArrayList<>(shardFactories.size() + 1);
+        all.add(primary);
+        names.add(primary.getSchedulerName());
+        for (SchedulerFactoryBean factory : shardFactories) {
+            Scheduler scheduler = factory.getScheduler();
+            all.add(scheduler);
+            names.add(scheduler.getSchedulerName());
+        }
+        this.schedulers = Collections.unmodifiableList(all);
+        this.schedulerNames = Collections.unmodifiableList(names);
+        this.shardFactories = shardFactories;
+        for (int i = 0; i < names.size(); i++) {
+            for (int v = 0; v < VIRTUAL_NODES; v++) {
+                ring.put(hash(names.get(i) + "#" + v), i);
+            }
+        }
+    }
+
+    /**
+     * 分片的调度器名称，分片0为原名称
+     */
+    public static String shardName(String baseName, int index) {
+        return index == 0 ? baseName : baseName + "_" + index;
+    }
+
+    /**
+     * 分片的Quartz配置：替换 instanceName，并使用独立的数据源名称，
+     * 避免各分片关闭时关闭同一个连接池
+     */
+    public static Properties shardProperties(Properties base, int index) {
+        Properties props = new Properties();
+        props.putAll(base);
+        String baseName = base.getProperty("org.quartz.scheduler.instanceName", "QuartzScheduler");
+        props.setProperty("org.quartz.scheduler.instanceName", shardName(baseName, index));
+        String dsName = base.getProperty("org.quartz.jobStore.dataSource");
+        if (index > 0 && dsName != null) {
+            String shardDsName = dsName + "_" + index;
+            String prefix = "org.quartz.dataSource." + dsName + ".";
+            for (String key : base.stringPropertyNames()) {
+                if (key.startsWith(prefix)) {
+                    props.remove(key);
+                    props.setProperty("org.quartz.dataSource." + shardDsName + "." + key.substring(prefix.length()), base.getProperty(key));
+                }
+            }
+            props.setProperty("org.quartz.jobStore.dataSource", shardDsName);
+        }
+        return props;
+    }
+
+    public int size() {
+        return schedulers.size();
+    }
+
+    public List<Scheduler> getSchedulers() {
+        return schedulers;
+    }
+
+    public List<String> getSchedulerNames() {
+        return schedulerNames;
+    }
+
+    /**
+     * 按一致性哈希计算任务应在的分片
+     */
+    public Scheduler route(JobKey jobKey) {
+        return schedulers.get(routeIndex(jobKey));
+    }
+
+    public int routeIndex(JobKey jobKey) {
+        if (schedulers.size() == 1) {
+            return 0;
+        }
+        SortedMap<Long, Integer> tail = ring.tailMap(hash(jobKey.toString()));
+        return tail.isEmpty() ? ring.firstEntry().getValue() : tail.get(tail.firstKey());
+    }
+
+    /**
+     * 任务所在的分片：优先路由分片，其次是已存在该任务的其他分片（分片数调整前创建的任务），都不存在时为路由分片
+     */
+    public Scheduler locate(JobKey jobKey) throws SchedulerException {
+        Scheduler routed = route(jobKey);
+        if (schedulers.size() == 1 || routed.checkExists(jobKey)) {
+            return routed;
+        }
+        for (Scheduler scheduler : schedulers) {
+            if (scheduler != routed && scheduler.checkExists(jobKey)) {
+                return scheduler;
+            }
+        }
+        return routed;
+    }
+
+    /**
+     * 按调度器名称取分片，名称未知时为路由分片
+     */
+    public Scheduler get(String schedulerName, JobKey jobKey) {
+        int index = schedulerName == null ? -1 : schedulerNames.indexOf(schedulerName);
+        return index < 0 ? route(jobKey) : schedulers.get(index);
+    }
+
+    @Override
+    public void start() {
+        for (SchedulerFactoryBean factory : shardFactories) {
+            factory.start();
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        for (SchedulerFactoryBean factory : shardFactories) {
+            factory.stop();
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 与 SchedulerFactoryBean 相同，最后启动、最先停止
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void destroy() throws SchedulerException {
+        for (SchedulerFactoryBean factory : shardFactories) {
+            factory.destroy();
+        }
+    }
+
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            return ((long) (digest[3] & 0xFF) << 24) | ((long) (digest[2] & 0xFF) << 16)
+                    | ((long) (digest[1] & 0xFF) << 8) | (digest[0] & 0xFF);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.ctid.config;
+
+import org.quartz.JobPersistenceException;
+import org.quartz.SchedulerConfigException;
+import org.quartz.impl.jdbcjobstore.FiredTriggerRecord;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 不持有 TRIGGER_ACCESS 锁获取触发器的 JobStore，需使用 MySQLSkipLockedDelegate（MySQL 8.0.1+ 或 MariaDB 10.6+）
+ * 各节点用 SELECT ... FOR UPDATE SKIP LOCKED 并发选取互不相交的批次，不再在全局锁上排队。
+ * 其余操作仍与 AdaptiveJobStoreTX 相同，防止重复触发和 @DisallowConcurrentExecution 的保证不变：
+ * 1. 获取时以 UPDATE ... SET TRIGGER_STATE='ACQUIRED' WHERE TRIGGER_STATE='WAITING' 抢占，行锁保证同一触发器只有一个节点更新成功；
+ * 2. triggersFired 仍在 TRIGGER_ACCESS 锁内执行，只触发状态仍为 ACQUIRED 的触发器，
+ *    不允许并发的任务第一个触发器触发时将同一任务其他 WAITING/ACQUIRED 的触发器置为 BLOCKED，
+ *    其他节点并发获取的该任务触发器因此不会触发。
+ * 集群中所有节点必须使用本模式或都不使用（混用时未使用本模式的节点仍持锁获取，不会重复触发，但达不到并发效果）。
+ * acquireTriggersWithinLock 在本模式下无效。
+ * 获取事务使用读已提交隔离级别，SKIP LOCKED 只锁定选中的行（MySQL/MariaDB 默认的可重复读下并发获取会死锁）。
+ * <p>
+ * 配置示例：
+ * org.quartz.jobStore.class=com.ctid.config.SkipLockedJobStoreTX
+ * org.quartz.jobStore.driverDelegateClass=com.ctid.config.MySQLSkipLockedDelegate
+ * <p>
+ * 继承自 JobStoreTX 的 executeInLock unchecked 警告报在每个子类的声明处，与 AdaptiveJobStoreTX 一样在类上忽略。
+ */
+@SuppressWarnings("unchecked")
+public class SkipLockedJobStoreTX extends AdaptiveJobStoreTX {
+
+    @Override
+    public void initialize(ClassLoadHelper loadHelper, SchedulerSignaler signaler) throws SchedulerConfigException {
+        super.initialize(loadHelper, signaler);
+        try {
+            if (!(getDelegate() instanceof MySQLSkipLockedDelegate)) {
+                throw new SchedulerConfigException("SkipLockedJobStoreTX requires driverDelegateClass " + MySQLSkipLockedDelegate.class.getName());
+            }
+        } catch (JobPersistenceException e) {
+            throw new SchedulerConfigException("Couldn't create delegate: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 不加锁执行，事务提交失败时与 JobStoreSupport 相同，按本节点的 fired trigger 记录判断是否已获取成功
+     */
+    @Override
+    protected List<OperableTrigger> acquireBatch(final long noLaterThan, final int maxCount, final long timeWindow) throws JobPersistenceException {
+        return executeInNonManagedTXLock(null,
+                conn -> {
+                    // 可重复读下选取时还会加间隙锁，与其他节点更新 TRIGGER_STATE 时的索引插入互相等待而死锁
+                    try {
+                        int isolation = conn.getTransactionIsolation();
+                        conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+                        try {
+                            return acquireNextTrigger(conn, noLaterThan, maxCount, timeWindow);
+                        } finally {
+                            conn.setTransactionIsolation(isolation);
+                        }
+                    } catch (SQLException e) {
+                        throw new JobPersistenceException("Couldn't set transaction isolation: " + e.getMessage(), e);
+                    }
+                },
+                (conn, result) -> {
+                    try {
+                        List<FiredTriggerRecord> acquired = getDelegate().selectInstancesFiredTriggerRecords(conn, getInstanceId());
+                        Set<String> fireInstanceIds = new HashSet<>();
+                        for (FiredTriggerRecord ft : acquired) {
+                            fireInstanceIds.add(ft.getFireInstanceId());
+                        }
+                        for (OperableTrigger tr : result) {
+                            if (fireInstanceIds.contains(tr.getFireInstanceId())) {
+                                return true;
+                            }
+                        }
+                        return false;
+                    } catch (SQLException e) {
+                        throw new JobPersistenceException("error validating trigger acquisition", e);
+                    }
+                });
+    }
+}
@@ -0,0 +1,282 @@
+package com.ctid.config;
+
+import com.ctid.dto.PoolStats;
+import org.quartz.SchedulerConfigException;
+import org.quartz.simpl.SimpleThreadPool;
+import org.quartz.spi.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 虚拟线程Quartz线程池，适用于以等待HTTP/JDBC/Kafka为主的任务
+ * JDK 21 及以上每个触发的任务运行在一个新的虚拟线程上，并发数不超过 maxConcurrency；
+ * 更低版本的JDK退化为 threadCount 个平台线程的 SimpleThreadPool。
+ * 虚拟线程API通过反射调用，项目仍按 Java 8 编译。
+ * <p>
+ * 任务结束时Quartz仍需在工作线程上访问数据库，maxConcurrency 应结合 quartzDataSource 的连接数设置。
+ * <p>
+ * 配置示例：
+ * org.quartz.threadPool.class=com.ctid.config.VirtualThreadPool
+ * org.quartz.threadPool.threadCount=20
+ * org.quartz.threadPool.maxConcurrency=200
+ */
+public class VirtualThreadPool implements ThreadPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadPool.class);
+
+    /**
+     * 按调度器实例名登记的线程池，供监控读取
+     */
+    private static final Map<String, VirtualThreadPool> POOLS = new ConcurrentHashMap<>();
+
+    /**
+     * 平台线程模式（退化模式）的线程数
+     */
+    private int threadCount = 10;
+    /**
+     * 虚拟线程模式下同时执行的最大任务数
+     */
+    private int maxConcurrency = 100;
+    private int threadPriority = Thread.NORM_PRIORITY;
+    private boolean threadsInheritContextClassLoaderOfInitializingThread;
+    private boolean makeThreadsDaemons;
+    private String threadNamePrefix;
+
+    private String instanceId;
+    private String instanceName;
+
+    private ExecutorService executor;
+    private Semaphore permits;
+    private SimpleThreadPool fallback;
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private volatile boolean shutdown;
+
+    public static Collection<VirtualThreadPool> getPools() {
+        return POOLS.values();
+    }
+
+    @Override
+    public void initialize() throws SchedulerConfigException {
+        if (maxConcurrency <= 0) {
+            throw new SchedulerConfigException("Max concurrency must be > 0");
+        }
+        String prefix = threadNamePrefix == null ? instanceName + "_Worker" : threadNamePrefix;
+        executor = newVirtualThreadExecutor(prefix + "-v");
+        if (executor != null) {
+            permits = new Semaphore(maxConcurrency);
+            LOG.info("VirtualThreadPool initialized, virtual threads, max concurrency: {}", maxConcurrency);
+        } else {
+            fallback = new SimpleThreadPool(threadCount, threadPriority);
+            fallback.setThreadNamePrefix(prefix);
+            fallback.setMakeThreadsDaemons(makeThreadsDaemons);
+            fallback.setThreadsInheritContextClassLoaderOfInitializingThread(threadsInheritContextClassLoaderOfInitializingThread);
+            fallback.setInstanceId(instanceId);
+            fallback.setInstanceName(instanceName);
+            fallback.initialize();
+            LOG.info("VirtualThreadPool initialized, virtual threads unavailable on java {}, fallback to {} platform threads",
+                    System.getProperty("java.version"), threadCount);
+        }
+        if (instanceName != null) {
+            POOLS.put(instanceName, this);
+        }
+    }
+
+    @Override
+    public boolean runInThread(Runnable runnable) {
+        if (runnable == null) {
+            return false;
+        }
+        if (fallback != null) {
+            return fallback.runInThread(() -> track(runnable));
+        }
+        if (shutdown) {
+            // 与 SimpleThreadPool 一致，关闭期间仍执行已触发的任务
+            Thread thread = new Thread(runnable, instanceName + "_WorkerAfterShutdown");
+            thread.setDaemon(makeThreadsDaemons);
+            thread.start();
+            return true;
+        }
+        // 调度线程已通过 blockForAvailableThreads 确认有空闲，这里通常不会等待
+        permits.acquireUninterruptibly();
+        try {
+            executor.execute(() -> {
+                try {
+                    track(runnable);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            LOG.error("Unable to start virtual thread", e);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int blockForAvailableThreads() {
+        if (fallback != null) {
+            return fallback.blockForAvailableThreads();
+        }
+        while (!shutdown) {
+            try {
+                // 等到至少一个许可后立即归还，只用于判断容量
+                if (permits.tryAcquire(500, TimeUnit.MILLISECONDS)) {
+                    permits.release();
+                    return permits.availablePermits();
+                }
+            } catch (InterruptedException ignore) {
+            }
+        }
+        return permits.availablePermits();
+    }
+
+    @Override
+    public int getPoolSize() {
+        return fallback != null ? fallback.getPoolSize() : maxConcurrency;
+    }
+
+    @Override
+    public void shutdown(boolean waitForJobsToComplete) {
+        shutdown = true;
+        if (fallback != null) {
+            fallback.shutdown(waitForJobsToComplete);
+        } else if (executor != null) {
+            executor.shutdown();
+            if (waitForJobsToComplete) {
+                try {
+                    while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                        LOG.debug("Waiting for {} virtual thread jobs to complete", maxConcurrency - permits.availablePermits());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        if (instanceName != null) {
+            POOLS.remove(instanceName, this);
+        }
+        LOG.debug("VirtualThreadPool shutdown complete");
+    }
+
+    /**
+     * 是否运行在虚拟线程模式
+     */
+    public boolean isVirtual() {
+        return fallback == null;
+    }
+
+    public PoolStats getStats() {
+        PoolStats stats = new PoolStats();
+        stats.setInstanceName(instanceName);
+        stats.setName(isVirtual() ? "virtual" : "platform");
+        stats.setSize(getPoolSize());
+        stats.setActive(active.get());
+        stats.setUtilization((double) active.get() / getPoolSize());
+        stats.setCompleted(completed.get());
+        return stats;
+    }
+
+    private void track(Runnable runnable) {
+        active.incrementAndGet();
+        try {
+            runnable.run();
+        } finally {
+            active.decrementAndGet();
+            completed.incrementAndGet();
+        }
+    }
+
+    /**
+     * 通过反射创建每任务一个虚拟线程的执行器，JDK不支持时返回 null
+     */
+    private static ExecutorService newVirtualThreadExecutor(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix + "-", 1L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newExecutor.invoke(null, factory);
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            // JDK 21 以下没有该API；JDK 19/20 未开启预览特性时抛出 UnsupportedOperationException
+            return null;
+        }
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public int getThreadPriority() {
+        return threadPriority;
+    }
+
+    public void setThreadPriority(int threadPriority) {
+        this.threadPriority = threadPriority;
+    }
+
+    public boolean isThreadsInheritContextClassLoaderOfInitializingThread() {
+        return threadsInheritContextClassLoaderOfInitializingThread;
+    }
+
+    public void setThreadsInheritContextClassLoaderOfInitializingThread(boolean inheritLoader) {
+        this.threadsInheritContextClassLoaderOfInitializingThread = inheritLoader;
+    }
+
+    public boolean isMakeThreadsDaemons() {
+        return makeThreadsDaemons;
+    }
+
+    public void setMakeThreadsDaemons(boolean makeThreadsDaemons) {
+        this.makeThreadsDaemons = makeThreadsDaemons;
+    }
+
+    public String getThreadNamePrefix() {
+        return threadNamePrefix;
+    }
+
+    public void setThreadNamePrefix(String threadNamePrefix) {
+        this.threadNamePrefix = threadNamePrefix;
+    }
+
+    public String getInstanceName() {
+        return instanceName;
+    }
+
+    @Override
+    public void setInstanceId(String schedInstId) {
+        this.instanceId = schedInstId;
+    }
+
+    @Override
+    public void setInstanceName(String schedName) {
+        this.instanceName = schedName;
+    }
+}
@@ -0,0 +1,43 @@
+package com.ctid.controller;
+
+import com.ctid.dto.DlqReplayRequest;
+import com.ctid.dto.DlqReplayStatus;
+import com.ctid.service.DlqReplayService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.annotation.Resource;
+import java.util.List;
+
+/**
+ * 死信重放
+ */
+@RestController
+@RequestMapping("/quartz/dlq")
+public class DlqReplayController {
+    @Resource
+    private DlqReplayService dlqReplayService;
+
+    /**
+     * 启动重放，相同名称的重放从上次提交的偏移量继续
+     */
+    @RequestMapping("/replay")
+    public ResponseEntity<DlqReplayStatus> replay(DlqReplayRequest request) {
+        return ResponseEntity.ok().body(dlqReplayService.startReplay(request));
+    }
+
+    @RequestMapping("/stopReplay")
+    public ResponseEntity<DlqReplayStatus> stopReplay(@RequestParam String name) {
+        return ResponseEntity.ok().body(dlqReplayService.stopReplay(name));
+    }
+
+    /**
+     * 本节点各重放的进度及速度
+     */
+    @RequestMapping("/queryReplays")
+    public ResponseEntity<List<DlqReplayStatus>> queryReplays() {
+        return ResponseEntity.ok().body(dlqReplayService.queryReplays());
+    }
+}
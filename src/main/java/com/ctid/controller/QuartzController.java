@@ -1,5 +1,14 @@
 package com.ctid.controller;
 
+import com.ctid.dto.FireForecast;
+import com.ctid.dto.FireForecastQuery;
+import com.ctid.dto.JobCheckpoint;
+import com.ctid.dto.JobPage;
+import com.ctid.dto.JobQuery;
+import com.ctid.dto.JobRequest;
+import com.ctid.dto.JobResult;
+import com.ctid.dto.NodeLoad;
+import com.ctid.dto.ShardRun;
 import com.ctid.service.QuartzService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.quartz.QuartzJobBean;
@@ -21,9 +30,11 @@ public class QuartzController {
                                          @RequestParam String jobGroupName,
                                          @RequestParam int jobTime,   // 间隔秒
                                          @RequestParam int jobTimes,  // 执行次数，0表示无限循环
+                                         @RequestParam(required = false) Integer spreadSeconds,  // 打散窗口秒
+                                         @RequestParam(required = false) Integer shardCount,  // 分片数，仅分片任务
                                          @RequestBody(required = false) Map<String, Object> jobData) throws ClassNotFoundException {
         Class<? extends QuartzJobBean> jobClass = (Class<? extends QuartzJobBean>) Class.forName(jobClassName);
-        quartzService.addJob(jobClass, jobName, jobGroupName, jobTime, jobTimes, jobData);
+        quartzService.addJob(jobClass, jobName, jobGroupName, jobTime, jobTimes, jobData, spreadSeconds, shardCount);
         return ResponseEntity.ok().build();
     }
 
@@ -33,12 +44,21 @@ public class QuartzController {
                                          @RequestParam String jobGroupName,
                                          @RequestParam String jobTime,   // cron表达式
                                          @RequestParam(required = false) Integer misfire,
+                                         @RequestParam(required = false) Integer spreadSeconds,  // 打散窗口秒
+                                         @RequestParam(required = false) Integer shardCount,  // 分片数，仅分片任务
                                          @RequestBody(required = false) Map<String, Object> jobData) throws ClassNotFoundException {
         Class<? extends QuartzJobBean> jobClass = (Class<? extends QuartzJobBean>) Class.forName(jobClassName);
-        quartzService.addJob(jobClass, jobName, jobGroupName, jobTime, misfire, jobData);
+        quartzService.addJob(jobClass, jobName, jobGroupName, jobTime, misfire, jobData, spreadSeconds, shardCount);
         return ResponseEntity.ok().build();
     }
 
+    @RequestMapping("/addJobs")
+    public ResponseEntity<List<JobResult>> addJobs(@RequestParam(required = false, defaultValue = "false") boolean replace,
+                                                   @RequestBody List<JobRequest> jobs) {
+        List<JobResult> results = quartzService.addJobs(jobs, replace);
+        return ResponseEntity.ok().body(results);
+    }
+
     @RequestMapping("/updateJob")
     public ResponseEntity<String> updateJob(String jobName, String jobGroupName, String jobTime, @RequestParam(required = false) Integer misfire) {
         quartzService.updateJob(jobName, jobGroupName, jobTime, misfire);
@@ -75,4 +95,40 @@ public class QuartzController {
         List<Map<String, Object>> maps = quartzService.queryRunJob();
         return ResponseEntity.ok().body(maps);
     }
+
+    @RequestMapping("/queryClusterRunJob")
+    public ResponseEntity<List<NodeLoad>> queryClusterRunJob() {
+        List<NodeLoad> nodes = quartzService.queryClusterRunJob();
+        return ResponseEntity.ok().body(nodes);
+    }
+
+    @RequestMapping("/queryChunkedJobs")
+    public ResponseEntity<List<JobCheckpoint>> queryChunkedJobs() {
+        List<JobCheckpoint> checkpoints = quartzService.queryChunkedJobs();
+        return ResponseEntity.ok().body(checkpoints);
+    }
+
+    @RequestMapping("/queryShardRuns")
+    public ResponseEntity<List<ShardRun>> queryShardRuns(String jobName, String jobGroupName, @RequestParam(required = false) Integer limit) {
+        List<ShardRun> runs = quartzService.queryShardRuns(jobName, jobGroupName, limit);
+        return ResponseEntity.ok().body(runs);
+    }
+
+    @RequestMapping("/retryShards")
+    public ResponseEntity<Integer> retryShards(String jobName, String jobGroupName) {
+        int retried = quartzService.retryShards(jobName, jobGroupName);
+        return ResponseEntity.ok().body(retried);
+    }
+
+    @RequestMapping("/queryJobs")
+    public ResponseEntity<JobPage> queryJobs(JobQuery query) {
+        JobPage page = quartzService.queryJobs(query);
+        return ResponseEntity.ok().body(page);
+    }
+
+    @RequestMapping("/forecastFires")
+    public ResponseEntity<FireForecast> forecastFires(FireForecastQuery query) {
+        FireForecast forecast = quartzService.forecastFires(query);
+        return ResponseEntity.ok().body(forecast);
+    }
 }
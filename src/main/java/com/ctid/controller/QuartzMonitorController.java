@@ -0,0 +1,110 @@
+package com.ctid.controller;
+
+import com.ctid.cache.JobCatalogCache;
+import com.ctid.config.AdaptiveJobStoreTX;
+import com.ctid.config.AsyncJobTracker;
+import com.ctid.config.BulkheadThreadPool;
+import com.ctid.config.CompactJDBCDelegate;
+import com.ctid.config.DruidConnectionProvider;
+import com.ctid.config.InstrumentedSemaphore;
+import com.ctid.config.VirtualThreadPool;
+import com.ctid.dto.AcquisitionStats;
+import com.ctid.dto.AsyncExecution;
+import com.ctid.dto.CatalogStats;
+import com.ctid.dto.DataSourceStats;
+import com.ctid.dto.JobDataStats;
+import com.ctid.dto.LockStats;
+import com.ctid.dto.PoolStats;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 调度器运行状态监控
+ */
+@RestController
+@RequestMapping("/quartz/monitor")
+public class QuartzMonitorController {
+    @Resource
+    private JobCatalogCache jobCatalogCache;
+
+    @RequestMapping("/catalog")
+    public ResponseEntity<CatalogStats> catalog() {
+        return ResponseEntity.ok().body(jobCatalogCache.getStats());
+    }
+
+    /**
+     * 线程池占用情况：各任务组子线程池及溢出线程池，或虚拟线程池
+     */
+    @RequestMapping("/threadPool")
+    public ResponseEntity<List<PoolStats>> threadPool() {
+        List<PoolStats> result = new ArrayList<>();
+        for (BulkheadThreadPool pool : BulkheadThreadPool.getPools()) {
+            result.addAll(pool.getStats());
+        }
+        for (VirtualThreadPool pool : VirtualThreadPool.getPools()) {
+            result.add(pool.getStats());
+        }
+        return ResponseEntity.ok().body(result);
+    }
+
+    /**
+     * 触发器批量获取的自适应参数及耗时
+     */
+    @RequestMapping("/acquisition")
+    public ResponseEntity<List<AcquisitionStats>> acquisition() {
+        List<AcquisitionStats> result = new ArrayList<>();
+        for (AdaptiveJobStoreTX store : AdaptiveJobStoreTX.getStores()) {
+            result.add(store.getStats());
+        }
+        return ResponseEntity.ok().body(result);
+    }
+
+    /**
+     * 集群锁按锁名及 JobStore 操作统计的等待、持有时间
+     */
+    @RequestMapping("/locks")
+    public ResponseEntity<List<LockStats>> locks() {
+        List<LockStats> result = new ArrayList<>();
+        for (InstrumentedSemaphore semaphore : InstrumentedSemaphore.getSemaphores()) {
+            result.addAll(semaphore.getStats());
+        }
+        return ResponseEntity.ok().body(result);
+    }
+
+    /**
+     * Quartz数据源连接池状态
+     */
+    @RequestMapping("/dataSource")
+    public ResponseEntity<List<DataSourceStats>> dataSource() {
+        List<DataSourceStats> result = new ArrayList<>();
+        for (DruidConnectionProvider provider : DruidConnectionProvider.getProviders()) {
+            result.add(provider.getStats());
+        }
+        return ResponseEntity.ok().body(result);
+    }
+
+    /**
+     * 任务执行后 JobDataMap 的回写及跳过次数
+     */
+    @RequestMapping("/jobData")
+    public ResponseEntity<List<JobDataStats>> jobData() {
+        List<JobDataStats> result = new ArrayList<>();
+        for (CompactJDBCDelegate delegate : CompactJDBCDelegate.getDelegates()) {
+            result.add(delegate.getStats());
+        }
+        return ResponseEntity.ok().body(result);
+    }
+
+    /**
+     * 本节点正在执行的异步任务及已执行时间
+     */
+    @RequestMapping("/asyncJobs")
+    public ResponseEntity<List<AsyncExecution>> asyncJobs() {
+        return ResponseEntity.ok().body(AsyncJobTracker.getExecutions());
+    }
+}
@@ -0,0 +1,596 @@
+package com.ctid.dao;
+
+import com.ctid.config.SchedulerShards;
+import com.ctid.dto.JobCheckpoint;
+import com.ctid.dto.JobInfo;
+import com.ctid.dto.JobQuery;
+import com.ctid.dto.NodeLoad;
+import com.ctid.dto.RunningJob;
+import com.ctid.dto.ShardExecution;
+import com.ctid.dto.ShardRun;
+import com.ctid.job.ShardedQuartzJobBean;
+import org.quartz.JobKey;
+import org.quartz.Trigger;
+import org.quartz.impl.jdbcjobstore.Constants;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+/**
+ * 直接读取Quartz表的查询，避免通过Scheduler逐个任务查询造成的N+1次数据库访问
+ */
+@Repository
+public class QuartzJobDao {
+    private static final String JOB_COLUMNS = "t.SCHED_NAME, t.TRIGGER_NAME, t.TRIGGER_GROUP, t.JOB_NAME, t.JOB_GROUP, j.JOB_CLASS_NAME, j.DESCRIPTION, "
+            + "t.TRIGGER_STATE, t.TRIGGER_TYPE, t.NEXT_FIRE_TIME, t.PREV_FIRE_TIME, t.END_TIME, t.PRIORITY, t.MISFIRE_INSTR, "
+            + "c.CRON_EXPRESSION, c.TIME_ZONE_ID, s.REPEAT_COUNT, s.REPEAT_INTERVAL, s.TIMES_TRIGGERED";
+
+    private static final String JOB_TABLES = " FROM {0}TRIGGERS t"
+            + " JOIN {0}JOB_DETAILS j ON j.SCHED_NAME = t.SCHED_NAME AND j.JOB_NAME = t.JOB_NAME AND j.JOB_GROUP = t.JOB_GROUP"
+            + " LEFT JOIN {0}CRON_TRIGGERS c ON c.SCHED_NAME = t.SCHED_NAME AND c.TRIGGER_NAME = t.TRIGGER_NAME AND c.TRIGGER_GROUP = t.TRIGGER_GROUP"
+            + " LEFT JOIN {0}SIMPLE_TRIGGERS s ON s.SCHED_NAME = t.SCHED_NAME AND s.TRIGGER_NAME = t.TRIGGER_NAME AND s.TRIGGER_GROUP = t.TRIGGER_GROUP";
+
+    /**
+     * 排除分片任务的分片触发器，参数为 ShardedQuartzJobBean.SHARD_TRIGGER_GROUP
+     */
+    private static final String NOT_SHARD_TRIGGER = " AND t.TRIGGER_GROUP <> ?";
+
+    /**
+     * 按任务名查询所在分片时每条SQL的任务数
+     */
+    private static final int OWNER_QUERY_CHUNK = 500;
+
+    private static final RowMapper<JobInfo> JOB_INFO_MAPPER = QuartzJobDao::mapJobInfo;
+
+    private static final String CHECKPOINT_COLUMNS = "c.SCHED_NAME, c.JOB_NAME, c.JOB_GROUP, c.JOB_CURSOR, c.ITEMS, c.TOTAL_ITEMS, c.FIRE_INSTANCE_ID,"
+            + " c.INSTANCE_NAME, c.RUN_START_TIME, c.RUN_START_ITEMS, c.UPDATED_TIME";
+
+    private static final RowMapper<JobCheckpoint> CHECKPOINT_MAPPER = (rs, rowNum) -> {
+        JobCheckpoint checkpoint = new JobCheckpoint();
+        checkpoint.setSchedName(rs.getString("SCHED_NAME"));
+        checkpoint.setJobName(rs.getString("JOB_NAME"));
+        checkpoint.setJobGroupName(rs.getString("JOB_GROUP"));
+        checkpoint.setJobCursor(rs.getString("JOB_CURSOR"));
+        checkpoint.setItems(rs.getLong("ITEMS"));
+        checkpoint.setTotalItems(rs.getLong("TOTAL_ITEMS"));
+        checkpoint.setFireInstanceId(rs.getString("FIRE_INSTANCE_ID"));
+        checkpoint.setInstanceName(rs.getString("INSTANCE_NAME"));
+        checkpoint.setRunStartTime(rs.getLong("RUN_START_TIME"));
+        checkpoint.setRunStartItems(rs.getLong("RUN_START_ITEMS"));
+        checkpoint.setUpdatedTime(rs.getLong("UPDATED_TIME"));
+        return checkpoint;
+    };
+
+    private static final String SHARD_RUN_COLUMNS = "SCHED_NAME, RUN_ID, JOB_NAME, JOB_GROUP, SHARD_TOTAL, STATE, START_TIME, END_TIME,"
+            + " SUCCEEDED, FAILED, RUN_RESULT";
+
+    private static final RowMapper<ShardRun> SHARD_RUN_MAPPER = (rs, rowNum) -> {
+        ShardRun run = new ShardRun();
+        run.setSchedName(rs.getString("SCHED_NAME"));
+        run.setRunId(rs.getString("RUN_ID"));
+        run.setJobName(rs.getString("JOB_NAME"));
+        run.setJobGroupName(rs.getString("JOB_GROUP"));
+        run.setShardTotal(rs.getInt("SHARD_TOTAL"));
+        run.setState(rs.getString("STATE"));
+        run.setStartTime(rs.getLong("START_TIME"));
+        run.setEndTime(getLong(rs, "END_TIME"));
+        run.setSucceeded(rs.getInt("SUCCEEDED"));
+        run.setFailed(rs.getInt("FAILED"));
+        run.setResult(rs.getString("RUN_RESULT"));
+        return run;
+    };
+
+    private static final String SHARD_COLUMNS = "SHARD_INDEX, STATE, ATTEMPTS, TRIGGER_NAME, INSTANCE_NAME, START_TIME, END_TIME,"
+            + " SHARD_RESULT, ERROR_MSG";
+
+    private static final RowMapper<ShardExecution> SHARD_MAPPER = (rs, rowNum) -> {
+        ShardExecution shard = new ShardExecution();
+        shard.setShardIndex(rs.getInt("SHARD_INDEX"));
+        shard.setState(rs.getString("STATE"));
+        shard.setAttempts(rs.getInt("ATTEMPTS"));
+        shard.setTriggerName(rs.getString("TRIGGER_NAME"));
+        shard.setInstanceName(rs.getString("INSTANCE_NAME"));
+        shard.setStartTime(getLong(rs, "START_TIME"));
+        shard.setEndTime(getLong(rs, "END_TIME"));
+        shard.setResult(rs.getString("SHARD_RESULT"));
+        shard.setErrorMsg(rs.getString("ERROR_MSG"));
+        return shard;
+    };
+
+    @Resource
+    private JdbcTemplate jdbcTemplate;
+    @Resource(name = "quartzProperties")
+    private Properties quartzProperties;
+
+    /**
+     * 分片数，见 SchedulerShards
+     */
+    @Value("${quartz.shard.count:1}")
+    private int shardCount = 1;
+
+    private String tablePrefix;
+    /**
+     * 分片0的调度器名称，任务目录版本号按该名称记录
+     */
+    private String schedName;
+    /**
+     * 全部分片的调度器名称，查询在全部分片中进行
+     */
+    private List<String> schedNames;
+    private String schedNamePlaceholders;
+
+    @PostConstruct
+    public void init() {
+        tablePrefix = quartzProperties.getProperty("org.quartz.jobStore.tablePrefix", "QRTZ_");
+        schedName = quartzProperties.getProperty("org.quartz.scheduler.instanceName", "QuartzScheduler");
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, shardCount); i++) {
+            names.add(SchedulerShards.shardName(schedName, i));
+        }
+        schedNames = Collections.unmodifiableList(names);
+        schedNamePlaceholders = placeholders(schedNames.size());
+    }
+
+    /**
+     * 按条件查询一页任务，以(TRIGGER_NAME, TRIGGER_GROUP)主键顺序做游标分页
+     *
+     * @param query      查询条件
+     * @param afterName  上一页最后一条的触发器名称，为空表示第一页
+     * @param afterGroup 上一页最后一条的触发器组名
+     * @param limit      最多返回条数
+     */
+    public List<JobInfo> selectJobs(JobQuery query, String afterName, String afterGroup, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(JOB_COLUMNS).append(rtp(JOB_TABLES))
+                .append(" WHERE t.SCHED_NAME IN (").append(schedNamePlaceholders).append(")").append(NOT_SHARD_TRIGGER);
+        List<Object> args = new ArrayList<>(schedNames);
+        args.add(ShardedQuartzJobBean.SHARD_TRIGGER_GROUP);
+        if (StringUtils.hasText(query.getJobGroupName())) {
+            sql.append(" AND t.JOB_GROUP = ?");
+            args.add(query.getJobGroupName());
+        }
+        if (StringUtils.hasText(query.getJobStatus())) {
+            List<String> states = toStoreStates(query.getJobStatus());
+            sql.append(" AND t.TRIGGER_STATE IN (").append(placeholders(states.size())).append(")");
+            args.addAll(states);
+        }
+        if (StringUtils.hasText(query.getJobClassName())) {
+            sql.append(" AND j.JOB_CLASS_NAME = ?");
+            args.add(query.getJobClassName());
+        }
+        if (query.getNextFireTimeFrom() != null) {
+            sql.append(" AND t.NEXT_FIRE_TIME >= ?");
+            args.add(query.getNextFireTimeFrom());
+        }
+        if (query.getNextFireTimeTo() != null) {
+            sql.append(" AND t.NEXT_FIRE_TIME < ?");
+            args.add(query.getNextFireTimeTo());
+        }
+        if (StringUtils.hasText(query.getTriggerType())) {
+            sql.append(" AND t.TRIGGER_TYPE = ?");
+            args.add(query.getTriggerType().toUpperCase());
+        }
+        if (afterName != null) {
+            sql.append(" AND (t.TRIGGER_NAME > ? OR (t.TRIGGER_NAME = ? AND t.TRIGGER_GROUP > ?))");
+            args.add(afterName);
+            args.add(afterName);
+            args.add(afterGroup);
+        }
+        sql.append(" ORDER BY t.TRIGGER_NAME, t.TRIGGER_GROUP LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), JOB_INFO_MAPPER, args.toArray());
+    }
+
+    /**
+     * 查询全部任务及触发器
+     */
+    public List<JobInfo> selectAllJobs() {
+        String sql = "SELECT " + JOB_COLUMNS + rtp(JOB_TABLES) + " WHERE t.SCHED_NAME IN (" + schedNamePlaceholders + ")" + NOT_SHARD_TRIGGER;
+        List<Object> args = new ArrayList<>(schedNames);
+        args.add(ShardedQuartzJobBean.SHARD_TRIGGER_GROUP);
+        return jdbcTemplate.query(sql, JOB_INFO_MAPPER, args.toArray());
+    }
+
+    /**
+     * 查询单个任务的全部触发器
+     */
+    public List<JobInfo> selectJobs(JobKey jobKey) {
+        String sql = "SELECT " + JOB_COLUMNS + rtp(JOB_TABLES) + " WHERE t.SCHED_NAME IN (" + schedNamePlaceholders + ")" + NOT_SHARD_TRIGGER
+                + " AND t.JOB_NAME = ? AND t.JOB_GROUP = ?";
+        List<Object> args = new ArrayList<>(schedNames);
+        args.add(ShardedQuartzJobBean.SHARD_TRIGGER_GROUP);
+        args.add(jobKey.getName());
+        args.add(jobKey.getGroup());
+        return jdbcTemplate.query(sql, JOB_INFO_MAPPER, args.toArray());
+    }
+
+    /**
+     * 查询已存在的任务所在的分片
+     *
+     * @return 任务 -> 调度器名称，不存在的任务不在结果中
+     */
+    public Map<JobKey, String> selectJobOwners(Collection<JobKey> jobKeys) {
+        Map<JobKey, String> owners = new HashMap<>();
+        List<String> jobNames = jobKeys.stream().map(JobKey::getName).distinct().collect(Collectors.toList());
+        for (int from = 0; from < jobNames.size(); from += OWNER_QUERY_CHUNK) {
+            List<String> chunk = jobNames.subList(from, Math.min(jobNames.size(), from + OWNER_QUERY_CHUNK));
+            String sql = rtp("SELECT SCHED_NAME, JOB_NAME, JOB_GROUP FROM {0}JOB_DETAILS WHERE SCHED_NAME IN (" + schedNamePlaceholders
+                    + ") AND JOB_NAME IN (" + placeholders(chunk.size()) + ")");
+            List<Object> args = new ArrayList<>(schedNames);
+            args.addAll(chunk);
+            jdbcTemplate.query(sql, rs -> {
+                JobKey jobKey = JobKey.jobKey(rs.getString("JOB_NAME"), rs.getString("JOB_GROUP"));
+                if (jobKeys.contains(jobKey)) {
+                    owners.put(jobKey, rs.getString("SCHED_NAME"));
+                }
+            }, args.toArray());
+        }
+        return owners;
+    }
+
+    /**
+     * 查询任务目录版本号，尚未有任何修改时为0
+     */
+    public long selectCatalogVersion() {
+        List<Long> versions = jdbcTemplate.queryForList(rtp("SELECT VERSION FROM {0}CATALOG_VERSION WHERE SCHED_NAME = ?"), Long.class, schedName);
+        return versions.isEmpty() ? 0L : versions.get(0);
+    }
+
+    /**
+     * 递增任务目录版本号
+     *
+     * @return 递增后的版本号
+     */
+    public long incrementCatalogVersion() {
+        int updated = jdbcTemplate.update(rtp("UPDATE {0}CATALOG_VERSION SET VERSION = VERSION + 1 WHERE SCHED_NAME = ?"), schedName);
+        if (updated == 0) {
+            try {
+                jdbcTemplate.update(rtp("INSERT INTO {0}CATALOG_VERSION (SCHED_NAME, VERSION) VALUES (?, 1)"), schedName);
+            } catch (DuplicateKeyException e) {
+                // 其他节点已先插入
+                jdbcTemplate.update(rtp("UPDATE {0}CATALOG_VERSION SET VERSION = VERSION + 1 WHERE SCHED_NAME = ?"), schedName);
+            }
+        }
+        return selectCatalogVersion();
+    }
+
+    /**
+     * 查询集群中全部已触发（已获取或执行中）的触发器
+     */
+    public List<RunningJob> selectFiredTriggers() {
+        String sql = rtp("SELECT SCHED_NAME, INSTANCE_NAME, ENTRY_ID, TRIGGER_NAME, TRIGGER_GROUP, JOB_NAME, JOB_GROUP, FIRED_TIME, SCHED_TIME, STATE, IS_NONCONCURRENT"
+                + " FROM {0}FIRED_TRIGGERS WHERE SCHED_NAME IN (" + schedNamePlaceholders + ")");
+        long now = System.currentTimeMillis();
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            RunningJob job = new RunningJob();
+            job.setSchedName(rs.getString("SCHED_NAME"));
+            job.setInstanceName(rs.getString("INSTANCE_NAME"));
+            job.setEntryId(rs.getString("ENTRY_ID"));
+            job.setTriggerName(rs.getString("TRIGGER_NAME"));
+            job.setTriggerGroup(rs.getString("TRIGGER_GROUP"));
+            job.setJobName(rs.getString("JOB_NAME"));
+            job.setJobGroupName(rs.getString("JOB_GROUP"));
+            job.setFiredTime(rs.getLong("FIRED_TIME"));
+            job.setScheduledTime(rs.getLong("SCHED_TIME"));
+            job.setElapsedMillis(Math.max(0L, now - job.getFiredTime()));
+            job.setState(rs.getString("STATE"));
+            job.setNonConcurrent(rs.getBoolean("IS_NONCONCURRENT"));
+            return job;
+        }, schedNames.toArray());
+    }
+
+    /**
+     * 查询集群节点心跳信息
+     */
+    public List<NodeLoad> selectSchedulerStates() {
+        String sql = rtp("SELECT SCHED_NAME, INSTANCE_NAME, LAST_CHECKIN_TIME, CHECKIN_INTERVAL FROM {0}SCHEDULER_STATE WHERE SCHED_NAME IN (" + schedNamePlaceholders + ")");
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            NodeLoad node = new NodeLoad();
+            node.setSchedName(rs.getString("SCHED_NAME"));
+            node.setInstanceName(rs.getString("INSTANCE_NAME"));
+            node.setLastCheckinTime(rs.getLong("LAST_CHECKIN_TIME"));
+            node.setCheckinInterval(rs.getLong("CHECKIN_INTERVAL"));
+            return node;
+        }, schedNames.toArray());
+    }
+
+    /**
+     * 查询任务的检查点，没有时返回 null
+     */
+    public JobCheckpoint selectCheckpoint(String schedName, JobKey jobKey) {
+        List<JobCheckpoint> checkpoints = jdbcTemplate.query(rtp("SELECT " + CHECKPOINT_COLUMNS + " FROM {0}JOB_CHECKPOINT c"
+                        + " WHERE c.SCHED_NAME = ? AND c.JOB_NAME = ? AND c.JOB_GROUP = ?"),
+                CHECKPOINT_MAPPER, schedName, jobKey.getName(), jobKey.getGroup());
+        return checkpoints.isEmpty() ? null : checkpoints.get(0);
+    }
+
+    /**
+     * 开始一次执行：登记执行者，没有检查点时新建
+     */
+    public void startCheckpoint(JobCheckpoint checkpoint) {
+        Object[] args = {checkpoint.getJobCursor(), checkpoint.getItems(), checkpoint.getTotalItems(), checkpoint.getFireInstanceId(),
+                checkpoint.getInstanceName(), checkpoint.getRunStartTime(), checkpoint.getRunStartItems(), checkpoint.getUpdatedTime(),
+                checkpoint.getSchedName(), checkpoint.getJobName(), checkpoint.getJobGroupName()};
+        String update = rtp("UPDATE {0}JOB_CHECKPOINT SET JOB_CURSOR = ?, ITEMS = ?, TOTAL_ITEMS = ?, FIRE_INSTANCE_ID = ?, INSTANCE_NAME = ?,"
+                + " RUN_START_TIME = ?, RUN_START_ITEMS = ?, UPDATED_TIME = ? WHERE SCHED_NAME = ? AND JOB_NAME = ? AND JOB_GROUP = ?");
+        if (jdbcTemplate.update(update, args) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(rtp("INSERT INTO {0}JOB_CHECKPOINT (JOB_CURSOR, ITEMS, TOTAL_ITEMS, FIRE_INSTANCE_ID, INSTANCE_NAME,"
+                    + " RUN_START_TIME, RUN_START_ITEMS, UPDATED_TIME, SCHED_NAME, JOB_NAME, JOB_GROUP) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"), args);
+        } catch (DuplicateKeyException e) {
+            // 同一任务的另一次执行已先插入
+            jdbcTemplate.update(update, args);
+        }
+    }
+
+    /**
+     * 更新检查点，按主键更新一行
+     *
+     * @return 检查点已被同一任务的其他执行接管时返回 false
+     */
+    public boolean updateCheckpoint(String schedName, JobKey jobKey, String fireInstanceId, String cursor, long items, long updatedTime) {
+        return jdbcTemplate.update(rtp("UPDATE {0}JOB_CHECKPOINT SET JOB_CURSOR = ?, ITEMS = ?, UPDATED_TIME = ?"
+                        + " WHERE SCHED_NAME = ? AND JOB_NAME = ? AND JOB_GROUP = ? AND FIRE_INSTANCE_ID = ?"),
+                cursor, items, updatedTime, schedName, jobKey.getName(), jobKey.getGroup(), fireInstanceId) > 0;
+    }
+
+    /**
+     * 执行完成后删除检查点，已被其他执行接管时不删除
+     */
+    public void deleteCheckpoint(String schedName, JobKey jobKey, String fireInstanceId) {
+        jdbcTemplate.update(rtp("DELETE FROM {0}JOB_CHECKPOINT WHERE SCHED_NAME = ? AND JOB_NAME = ? AND JOB_GROUP = ? AND FIRE_INSTANCE_ID = ?"),
+                schedName, jobKey.getName(), jobKey.getGroup(), fireInstanceId);
+    }
+
+    /**
+     * 查询集群中全部检查点，FIRE_INSTANCE_ID 仍在 QRTZ_FIRED_TRIGGERS 中的为正在执行
+     */
+    public List<JobCheckpoint> selectCheckpoints() {
+        String sql = rtp("SELECT " + CHECKPOINT_COLUMNS + ", f.ENTRY_ID FROM {0}JOB_CHECKPOINT c"
+                + " LEFT JOIN {0}FIRED_TRIGGERS f ON f.SCHED_NAME = c.SCHED_NAME AND f.ENTRY_ID = c.FIRE_INSTANCE_ID"
+                + " WHERE c.SCHED_NAME IN (" + schedNamePlaceholders + ")");
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            JobCheckpoint checkpoint = CHECKPOINT_MAPPER.mapRow(rs, rowNum);
+            checkpoint.setRunning(rs.getString("ENTRY_ID") != null);
+            return checkpoint;
+        }, schedNames.toArray());
+    }
+
+    /**
+     * 查询任务未结束的分片批次，没有时返回 null
+     */
+    public String selectActiveShardRun(String schedName, JobKey jobKey) {
+        List<String> runIds = jdbcTemplate.queryForList(rtp("SELECT RUN_ID FROM {0}JOB_SHARD_RUN"
+                        + " WHERE SCHED_NAME = ? AND JOB_NAME = ? AND JOB_GROUP = ? AND STATE = 'RUNNING'"),
+                String.class, schedName, jobKey.getName(), jobKey.getGroup());
+        return runIds.isEmpty() ? null : runIds.get(0);
+    }
+
+    /**
+     * 新建分片批次及其全部分片，分片状态为 WAITING
+     * 在同一事务中插入，避免批次为 RUNNING 而分片缺失，导致批次永远无法结束
+     */
+    @Transactional
+    public void insertShardRun(String schedName, String runId, JobKey jobKey, int shardTotal, long startTime) {
+        jdbcTemplate.update(rtp("INSERT INTO {0}JOB_SHARD_RUN (SCHED_NAME, RUN_ID, JOB_NAME, JOB_GROUP, SHARD_TOTAL, STATE, START_TIME,"
+                        + " SUCCEEDED, FAILED) VALUES (?, ?, ?, ?, ?, 'RUNNING', ?, 0, 0)"),
+                schedName, runId, jobKey.getName(), jobKey.getGroup(), shardTotal, startTime);
+        List<Object[]> args = new ArrayList<>(shardTotal);
+        for (int i = 0; i < shardTotal; i++) {
+            args.add(new Object[]{schedName, runId, i});
+        }
+        jdbcTemplate.batchUpdate(rtp("INSERT INTO {0}JOB_SHARD (SCHED_NAME, RUN_ID, SHARD_INDEX, STATE, ATTEMPTS)"
+                + " VALUES (?, ?, ?, 'WAITING', 0)"), args);
+    }
+
+    /**
+     * 分片等待新的触发器执行（首次执行或重试）
+     */
+    public void updateShardTrigger(String schedName, String runId, int shardIndex, String triggerName, String errorMsg) {
+        jdbcTemplate.update(rtp("UPDATE {0}JOB_SHARD SET STATE = 'WAITING', TRIGGER_NAME = ?, ERROR_MSG = ?"
+                        + " WHERE SCHED_NAME = ? AND RUN_ID = ? AND SHARD_INDEX = ?"),
+                triggerName, errorMsg, schedName, runId, shardIndex);
+    }
+
+    /**
+     * 开始执行分片，执行次数加1
+     *
+     * @return 开始后的分片状态，分片不存在或已成功时返回 null
+     */
+    public ShardExecution startShard(String schedName, String runId, int shardIndex, String instanceName, long startTime) {
+        int updated = jdbcTemplate.update(rtp("UPDATE {0}JOB_SHARD SET STATE = 'RUNNING', ATTEMPTS = ATTEMPTS + 1, INSTANCE_NAME = ?,"
+                        + " START_TIME = ?, END_TIME = NULL, ERROR_MSG = NULL"
+                        + " WHERE SCHED_NAME = ? AND RUN_ID = ? AND SHARD_INDEX = ? AND STATE <> 'SUCCESS'"),
+                instanceName, startTime, schedName, runId, shardIndex);
+        if (updated == 0) {
+            return null;
+        }
+        List<ShardExecution> shards = jdbcTemplate.query(rtp("SELECT " + SHARD_COLUMNS + " FROM {0}JOB_SHARD"
+                + " WHERE SCHED_NAME = ? AND RUN_ID = ? AND SHARD_INDEX = ?"), SHARD_MAPPER, schedName, runId, shardIndex);
+        return shards.isEmpty() ? null : shards.get(0);
+    }
+
+    /**
+     * 分片执行结束，state 为 SUCCESS 或 FAILED
+     */
+    public void finishShard(String schedName, String runId, int shardIndex, String state, String result, String errorMsg, long endTime) {
+        jdbcTemplate.update(rtp("UPDATE {0}JOB_SHARD SET STATE = ?, SHARD_RESULT = ?, ERROR_MSG = ?, END_TIME = ?"
+                        + " WHERE SCHED_NAME = ? AND RUN_ID = ? AND SHARD_INDEX = ?"),
+                state, result, errorMsg, endTime, schedName, runId, shardIndex);
+    }
+
+    /**
+     * 按状态统计批次的分片数
+     */
+    public Map<String, Integer> countShardStates(String schedName, String runId) {
+        Map<String, Integer> counts = new HashMap<>();
+        jdbcTemplate.query(rtp("SELECT STATE, COUNT(*) AS CNT FROM {0}JOB_SHARD WHERE SCHED_NAME = ? AND RUN_ID = ? GROUP BY STATE"),
+                rs -> {
+                    counts.put(rs.getString("STATE"), rs.getInt("CNT"));
+                }, schedName, runId);
+        return counts;
+    }
+
+    /**
+     * 结束分片批次，只有把批次从 RUNNING 改为结束状态的调用返回 true，用于保证汇总只执行一次
+     */
+    public boolean finishShardRun(String schedName, String runId, String state, int succeeded, int failed, long endTime) {
+        return jdbcTemplate.update(rtp("UPDATE {0}JOB_SHARD_RUN SET STATE = ?, SUCCEEDED = ?, FAILED = ?, END_TIME = ?"
+                        + " WHERE SCHED_NAME = ? AND RUN_ID = ? AND STATE = 'RUNNING'"),
+                state, succeeded, failed, endTime, schedName, runId) > 0;
+    }
+
+    public void updateShardRunResult(String schedName, String runId, String result) {
+        jdbcTemplate.update(rtp("UPDATE {0}JOB_SHARD_RUN SET RUN_RESULT = ? WHERE SCHED_NAME = ? AND RUN_ID = ?"),
+                result, schedName, runId);
+    }
+
+    /**
+     * 重试失败的分片前重新打开已结束的批次
+     */
+    public void reopenShardRun(String schedName, String runId) {
+        jdbcTemplate.update(rtp("UPDATE {0}JOB_SHARD_RUN SET STATE = 'RUNNING', END_TIME = NULL WHERE SCHED_NAME = ? AND RUN_ID = ?"),
+                schedName, runId);
+    }
+
+    /**
+     * 查询任务最近的分片批次，按开始时间倒序
+     */
+    public List<ShardRun> selectShardRuns(String schedName, JobKey jobKey, int limit) {
+        return jdbcTemplate.query(rtp("SELECT " + SHARD_RUN_COLUMNS + " FROM {0}JOB_SHARD_RUN"
+                        + " WHERE SCHED_NAME = ? AND JOB_NAME = ? AND JOB_GROUP = ? ORDER BY START_TIME DESC LIMIT ?"),
+                SHARD_RUN_MAPPER, schedName, jobKey.getName(), jobKey.getGroup(), limit);
+    }
+
+    /**
+     * 查询批次的全部分片，按分片序号排序
+     */
+    public List<ShardExecution> selectShards(String schedName, String runId) {
+        return jdbcTemplate.query(rtp("SELECT " + SHARD_COLUMNS + " FROM {0}JOB_SHARD WHERE SCHED_NAME = ? AND RUN_ID = ? ORDER BY SHARD_INDEX"),
+                SHARD_MAPPER, schedName, runId);
+    }
+
+    /**
+     * 删除任务在 before 之前开始且已结束的分片批次
+     */
+    public void deleteShardRuns(String schedName, JobKey jobKey, long before) {
+        Object[] args = {schedName, schedName, jobKey.getName(), jobKey.getGroup(), before};
+        jdbcTemplate.update(rtp("DELETE FROM {0}JOB_SHARD WHERE SCHED_NAME = ? AND RUN_ID IN (SELECT RUN_ID FROM {0}JOB_SHARD_RUN"
+                + " WHERE SCHED_NAME = ? AND JOB_NAME = ? AND JOB_GROUP = ? AND STATE <> 'RUNNING' AND START_TIME < ?)"), args);
+        jdbcTemplate.update(rtp("DELETE FROM {0}JOB_SHARD_RUN WHERE SCHED_NAME = ? AND JOB_NAME = ? AND JOB_GROUP = ?"
+                + " AND STATE <> 'RUNNING' AND START_TIME < ?"), schedName, jobKey.getName(), jobKey.getGroup(), before);
+    }
+
+    /**
+     * 将 Trigger.TriggerState 转换为JobStore中实际存储的状态值
+     */
+    static List<String> toStoreStates(String jobStatus) {
+        switch (Trigger.TriggerState.valueOf(jobStatus.toUpperCase())) {
+            case NORMAL:
+                return Arrays.asList(Constants.STATE_WAITING, Constants.STATE_ACQUIRED, Constants.STATE_EXECUTING);
+            case PAUSED:
+                return Arrays.asList(Constants.STATE_PAUSED, Constants.STATE_PAUSED_BLOCKED);
+            case COMPLETE:
+                return Collections.singletonList(Constants.STATE_COMPLETE);
+            case ERROR:
+                return Collections.singletonList(Constants.STATE_ERROR);
+            case BLOCKED:
+                return Collections.singletonList(Constants.STATE_BLOCKED);
+            default:
+                return Collections.singletonList(Constants.STATE_DELETED);
+        }
+    }
+
+    /**
+     * 将JobStore中存储的状态值转换为 Trigger.TriggerState，规则同 JobStoreSupport.getTriggerState
+     */
+    static Trigger.TriggerState toTriggerState(String storeState) {
+        if (storeState == null || Constants.STATE_DELETED.equals(storeState)) {
+            return Trigger.TriggerState.NONE;
+        }
+        switch (storeState) {
+            case Constants.STATE_COMPLETE:
+                return Trigger.TriggerState.COMPLETE;
+            case Constants.STATE_PAUSED:
+            case Constants.STATE_PAUSED_BLOCKED:
+                return Trigger.TriggerState.PAUSED;
+            case Constants.STATE_ERROR:
+                return Trigger.TriggerState.ERROR;
+            case Constants.STATE_BLOCKED:
+                return Trigger.TriggerState.BLOCKED;
+            default:
+                return Trigger.TriggerState.NORMAL;
+        }
+    }
+
+    private static JobInfo mapJobInfo(ResultSet rs, int rowNum) throws SQLException {
+        JobInfo jobInfo = new JobInfo();
+        jobInfo.setSchedName(rs.getString("SCHED_NAME"));
+        jobInfo.setTriggerName(rs.getString("TRIGGER_NAME"));
+        jobInfo.setTriggerGroup(rs.getString("TRIGGER_GROUP"));
+        jobInfo.setJobName(rs.getString("JOB_NAME"));
+        jobInfo.setJobGroupName(rs.getString("JOB_GROUP"));
+        jobInfo.setJobClassName(rs.getString("JOB_CLASS_NAME"));
+        jobInfo.setDescription(rs.getString("DESCRIPTION"));
+        jobInfo.setJobStatus(toTriggerState(rs.getString("TRIGGER_STATE")).name());
+        jobInfo.setTriggerType(rs.getString("TRIGGER_TYPE"));
+        jobInfo.setNextFireTime(getTime(rs, "NEXT_FIRE_TIME"));
+        jobInfo.setPrevFireTime(getTime(rs, "PREV_FIRE_TIME"));
+        // 未设置结束时间时 Quartz 写入0
+        Long endTime = getTime(rs, "END_TIME");
+        jobInfo.setEndTime(endTime == null || endTime == 0 ? null : endTime);
+        jobInfo.setPriority(getInteger(rs, "PRIORITY"));
+        jobInfo.setMisfireInstruction(getInteger(rs, "MISFIRE_INSTR"));
+        jobInfo.setJobTime(rs.getString("CRON_EXPRESSION"));
+        jobInfo.setTimeZoneId(rs.getString("TIME_ZONE_ID"));
+        jobInfo.setRepeatCount(getLong(rs, "REPEAT_COUNT"));
+        jobInfo.setRepeatInterval(getLong(rs, "REPEAT_INTERVAL"));
+        jobInfo.setTimesTriggered(getLong(rs, "TIMES_TRIGGERED"));
+        return jobInfo;
+    }
+
+    /**
+     * Quartz以-1表示无触发时间
+     */
+    private static Long getTime(ResultSet rs, String column) throws SQLException {
+        long time = rs.getLong(column);
+        return rs.wasNull() || time < 0 ? null : time;
+    }
+
+    private static Long getLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Integer getInteger(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static String placeholders(int size) {
+        return String.join(", ", Collections.nCopies(size, "?"));
+    }
+
+    private String rtp(String sql) {
+        return sql.replace("{0}", tablePrefix);
+    }
+}
@@ -0,0 +1,43 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+/**
+ * 触发器批量获取的自适应参数及耗时
+ */
+@Data
+public class AcquisitionStats {
+    private String instanceName;
+    /**
+     * 当前批量大小
+     */
+    private int batchSize;
+    /**
+     * 当前提前获取时间窗口(ms)
+     */
+    private long timeWindow;
+    /**
+     * 最近一次调度线程给出的上限，即空闲线程数与 batchTriggerAcquisitionMaxCount 的较小值
+     */
+    private int lastMaxCount;
+    /**
+     * 最近一次获取到的触发器数
+     */
+    private int lastAcquired;
+    /**
+     * 最近一次获取到的触发器中最早一个已落后的时间(ms)，大于0说明有积压
+     */
+    private long lastLagMillis;
+    /**
+     * 最近一次持有 TRIGGER_ACCESS 锁的时间(ms)
+     */
+    private long lastLockHoldMillis;
+    /**
+     * 最近一次获取的总耗时(ms)，包含等待锁的时间
+     */
+    private long lastAcquireMillis;
+    private double avgAcquireMillis;
+    private long maxAcquireMillis;
+    private long acquisitions;
+    private long triggersAcquired;
+}
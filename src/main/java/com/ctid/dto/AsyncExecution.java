@@ -0,0 +1,21 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+/**
+ * 正在执行的异步任务
+ */
+@Data
+public class AsyncExecution {
+    private String fireInstanceId;
+    private String jobName;
+    private String jobGroupName;
+    /**
+     * 开始执行时间（毫秒）
+     */
+    private long startTime;
+    /**
+     * 已执行时间（毫秒）
+     */
+    private long elapsedMillis;
+}
@@ -0,0 +1,43 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+/**
+ * 任务目录缓存统计
+ */
+@Data
+public class CatalogStats {
+    /**
+     * 缓存中的触发器数
+     */
+    private int size;
+    /**
+     * 直接由缓存返回的读取次数
+     */
+    private long hits;
+    /**
+     * 需要访问数据库（全量或增量刷新）的读取次数
+     */
+    private long misses;
+    private double hitRatio;
+    /**
+     * 本地已同步的目录版本号
+     */
+    private long version;
+    /**
+     * 距离上次确认与数据库一致的毫秒数
+     */
+    private long stalenessMillis;
+    /**
+     * 全量加载次数
+     */
+    private long reloads;
+    /**
+     * 最近一次全量加载耗时（毫秒）
+     */
+    private long lastReloadMillis;
+    /**
+     * 待刷新的本地变更任务数
+     */
+    private int pendingChanges;
+}
@@ -0,0 +1,39 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+/**
+ * Quartz数据源连接池状态
+ */
+@Data
+public class DataSourceStats {
+    private String name;
+    private int maxActive;
+    /**
+     * 已借出的连接数
+     */
+    private int activeCount;
+    /**
+     * 池中空闲的连接数
+     */
+    private int poolingCount;
+    /**
+     * 正在等待连接的线程数
+     */
+    private int waitingThreads;
+    /**
+     * 获取连接的超时时间(ms)
+     */
+    private long maxWaitMillis;
+    /**
+     * 获取连接的耗时
+     */
+    private LatencyStats checkoutWait;
+    /**
+     * 获取连接超时次数
+     */
+    private long checkoutTimeouts;
+    private long statementCacheHits;
+    private long statementCacheMisses;
+    private double statementCacheHitRatio;
+}
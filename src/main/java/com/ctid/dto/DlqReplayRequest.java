@@ -0,0 +1,47 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+/**
+ * 死信重放条件，过滤条件均可为空
+ */
+@Data
+public class DlqReplayRequest {
+    /**
+     * 重放名称，作为消费组名的后缀，相同名称再次启动时从上次提交的偏移量继续
+     */
+    private String name;
+    /**
+     * 原始主题（ORIGIN_TOPIC）
+     */
+    private String originTopic;
+    /**
+     * 原始消息时间范围（ORIGIN_TIMESTAMP，毫秒），包含 fromTime，不包含 toTime
+     */
+    private Long fromTime;
+    private Long toTime;
+    /**
+     * 失败原因（ORIGIN_ERROR_MSG）包含的文本
+     */
+    private String errorContains;
+    /**
+     * REPUBLISH 重新发送到原始主题（或 targetTopic），REPROCESS 交给原始主题的 DlqRecordHandler 直接处理，默认 REPUBLISH
+     */
+    private String mode;
+    /**
+     * 重新发送的目标主题，为空时使用原始主题
+     */
+    private String targetTopic;
+    /**
+     * 每秒最多重放的记录数，默认500，<=0 不限速
+     */
+    private Integer ratePerSecond;
+    /**
+     * 并行线程数，默认4，相同key的记录由同一线程按顺序处理
+     */
+    private Integer parallelism;
+    /**
+     * 最多重放的记录数，为空不限制
+     */
+    private Long maxRecords;
+}
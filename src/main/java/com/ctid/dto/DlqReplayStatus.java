@@ -0,0 +1,47 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+/**
+ * 死信重放进度
+ */
+@Data
+public class DlqReplayStatus {
+    private String name;
+    /**
+     * RUNNING、COMPLETED、STOPPED、FAILED
+     */
+    private String state;
+    private String mode;
+    private long startTime;
+    private Long endTime;
+    private long elapsedMillis;
+    /**
+     * 已读取的死信数
+     */
+    private long scanned;
+    /**
+     * 符合过滤条件的死信数
+     */
+    private long matched;
+    /**
+     * 重放成功数
+     */
+    private long replayed;
+    /**
+     * 重放失败数，失败的记录仍留在死信队列中
+     */
+    private long failed;
+    /**
+     * 启动时死信队列末尾之前尚未读取的记录数
+     */
+    private long remaining;
+    /**
+     * 重放速度（条/秒）
+     */
+    private double recordsPerSecond;
+    /**
+     * 最近一次失败原因
+     */
+    private String message;
+}
@@ -0,0 +1,45 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 触发时间预测结果
+ */
+@Data
+public class FireForecast {
+    /**
+     * 预测起点（毫秒时间戳，整秒），histogram[i] 为 [from + i秒, from + i+1秒) 内的预计触发次数
+     */
+    private long from;
+    private int horizonSeconds;
+    /**
+     * 参与预测的触发器数
+     */
+    private int triggers;
+    /**
+     * 暂停、已完成或出错等不会触发的触发器数
+     */
+    private int inactiveTriggers;
+    /**
+     * 只计入下次触发时间的触发器数（CAL_INT、DAILY_I 等类型或cron表达式无法解析）
+     */
+    private int approximateTriggers;
+    /**
+     * 任务目录缓存中下次触发时间已过的触发器数，多为已在集群其他节点触发，cron、simple 触发器从预测起点之后按原节奏继续计算
+     */
+    private int overdueTriggers;
+    private long totalFires;
+    private int peakFires;
+    private double meanFiresPerSecond;
+    private int[] histogram;
+    /**
+     * 触发次数最多的秒，按触发次数降序
+     */
+    private List<FireHotspot> hotspots;
+    /**
+     * 计算耗时（毫秒）
+     */
+    private long elapsedMillis;
+}
@@ -0,0 +1,26 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+/**
+ * 触发时间预测条件，所有条件均可为空
+ */
+@Data
+public class FireForecastQuery {
+    /**
+     * 预测时长（秒），默认3600
+     */
+    private Integer horizonSeconds;
+    /**
+     * 返回触发次数最多的秒数，默认10
+     */
+    private Integer top;
+    /**
+     * 每个热点秒最多列出的任务数，默认20
+     */
+    private Integer jobsPerHotspot;
+    /**
+     * 任务组名，为空表示全部任务
+     */
+    private String jobGroupName;
+}
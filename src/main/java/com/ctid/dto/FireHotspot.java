@@ -0,0 +1,29 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 预计触发次数最多的一秒
+ */
+@Data
+public class FireHotspot {
+    /**
+     * 距预测起点的秒数
+     */
+    private int second;
+    /**
+     * 该秒的起始时间（毫秒时间戳）
+     */
+    private long time;
+    private int fires;
+    /**
+     * 该秒触发的任务，格式 group.name，最多 jobsPerHotspot 个
+     */
+    private List<String> jobs;
+    /**
+     * 该秒触发的任务总数，大于 jobs 的长度时表示列表被截断
+     */
+    private int jobCount;
+}
@@ -0,0 +1,54 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+/**
+ * 分块任务的检查点及进度，来源于QRTZ_JOB_CHECKPOINT，本节点正在执行的任务为实时进度
+ */
+@Data
+public class JobCheckpoint {
+    /**
+     * 所在分片的调度器名称
+     */
+    private String schedName;
+    private String jobName;
+    private String jobGroupName;
+    /**
+     * 最近一次保存的游标，之前的数据已处理完成
+     */
+    private String jobCursor;
+    /**
+     * 已处理条数（含此前中断的执行）
+     */
+    private long items;
+    /**
+     * 总条数，未知时为-1
+     */
+    private long totalItems;
+    /**
+     * 最近一次执行的 fireInstanceId，与 QRTZ_FIRED_TRIGGERS.ENTRY_ID 对应
+     */
+    private String fireInstanceId;
+    private String instanceName;
+    /**
+     * 本次执行开始时间及开始时的已处理条数
+     */
+    private long runStartTime;
+    private long runStartItems;
+    /**
+     * 检查点更新时间
+     */
+    private long updatedTime;
+    /**
+     * 是否正在执行，否则为中断后等待续跑
+     */
+    private boolean running;
+    /**
+     * 本次执行的处理速度（条/秒）
+     */
+    private double itemsPerSecond;
+    /**
+     * 预计剩余时间（秒），总条数未知时为空
+     */
+    private Long etaSeconds;
+}
@@ -0,0 +1,31 @@
+package com.ctid.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 任务变更命令，由命令主题的JSON消息反序列化得到
+ * ADD    新增任务，字段同批量注册，replace 为 true 时覆盖同名任务
+ * UPDATE 修改cron表达式（jobTime）及misfire策略，注册时打散过的任务按原窗口重新打散
+ * DELETE/PAUSE/RESUME 只需要 jobName、jobGroupName
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class JobCommand extends JobRequest {
+    /**
+     * 命令类型
+     */
+    private Type type;
+    /**
+     * ADD 时已存在同名任务是否覆盖
+     */
+    private boolean replace;
+
+    public enum Type {
+        ADD,
+        UPDATE,
+        DELETE,
+        PAUSE,
+        RESUME
+    }
+}
@@ -0,0 +1,24 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+/**
+ * 任务执行后 JobDataMap 回写统计
+ */
+@Data
+public class JobDataStats {
+    private String instanceName;
+    /**
+     * 实际回写次数
+     */
+    private long writes;
+    private long bytesWritten;
+    /**
+     * 内容未变化而跳过的回写次数
+     */
+    private long skippedWrites;
+    /**
+     * 跳过回写节省的字节数
+     */
+    private long bytesSaved;
+}
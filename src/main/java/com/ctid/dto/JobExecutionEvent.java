@@ -0,0 +1,47 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+/**
+ * 任务执行事件，每次执行结束（或被否决）时发布一条
+ */
+@Data
+public class JobExecutionEvent {
+    /**
+     * 执行结果：SUCCESS、FAILURE、VETOED
+     */
+    private String outcome;
+    private String schedName;
+    /**
+     * 执行节点的实例ID
+     */
+    private String instanceId;
+    private String fireInstanceId;
+    private String jobName;
+    private String jobGroupName;
+    private String jobClassName;
+    private String triggerName;
+    private String triggerGroup;
+    /**
+     * 计划触发时间（毫秒）
+     */
+    private Long scheduledFireTime;
+    /**
+     * 开始执行时间（毫秒）
+     */
+    private long startTime;
+    /**
+     * 结束时间（毫秒）
+     */
+    private long endTime;
+    /**
+     * 执行耗时（毫秒）
+     */
+    private long runTime;
+    private boolean recovering;
+    private int refireCount;
+    /**
+     * 失败原因
+     */
+    private String errorMessage;
+}
@@ -0,0 +1,47 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+/**
+ * 任务及其触发器的查询结果
+ */
+@Data
+public class JobInfo {
+    /**
+     * 所在分片的调度器名称
+     */
+    private String schedName;
+    private String jobName;
+    private String jobGroupName;
+    private String jobClassName;
+    private String description;
+    private String triggerName;
+    private String triggerGroup;
+    /**
+     * 触发器类型：CRON、SIMPLE、CAL_INT、DAILY_I、BLOB
+     */
+    private String triggerType;
+    /**
+     * 触发器状态，取值同 Trigger.TriggerState
+     */
+    private String jobStatus;
+    /**
+     * cron表达式，仅CRON触发器有值
+     */
+    private String jobTime;
+    private String timeZoneId;
+    /**
+     * 执行间隔（毫秒），仅SIMPLE触发器有值
+     */
+    private Long repeatInterval;
+    private Long repeatCount;
+    private Long timesTriggered;
+    private Long nextFireTime;
+    private Long prevFireTime;
+    /**
+     * 触发器的结束时间，未设置时为空
+     */
+    private Long endTime;
+    private Integer priority;
+    private Integer misfireInstruction;
+}
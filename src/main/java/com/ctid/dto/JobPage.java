@@ -0,0 +1,21 @@
+package com.ctid.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 任务分页查询结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobPage {
+    private List<JobInfo> items;
+    /**
+     * 下一页游标，为空表示已是最后一页
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,42 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+/**
+ * 任务分页查询条件，所有条件均可为空
+ */
+@Data
+public class JobQuery {
+    /**
+     * 任务组名
+     */
+    private String jobGroupName;
+    /**
+     * 触发器状态，取值同 Trigger.TriggerState：NORMAL、PAUSED、COMPLETE、ERROR、BLOCKED
+     */
+    private String jobStatus;
+    /**
+     * 任务实现类全限定名
+     */
+    private String jobClassName;
+    /**
+     * 下次触发时间下限（毫秒时间戳，包含）
+     */
+    private Long nextFireTimeFrom;
+    /**
+     * 下次触发时间上限（毫秒时间戳，不包含）
+     */
+    private Long nextFireTimeTo;
+    /**
+     * 触发器类型：CRON、SIMPLE
+     */
+    private String triggerType;
+    /**
+     * 上一页返回的nextCursor，为空表示第一页
+     */
+    private String cursor;
+    /**
+     * 每页条数
+     */
+    private Integer limit;
+}
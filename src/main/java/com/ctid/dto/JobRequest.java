@@ -0,0 +1,53 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 批量注册任务的单条任务定义
+ * jobTime(cron表达式) 与 jobInterval(间隔秒) 二选一
+ */
+@Data
+public class JobRequest {
+    /**
+     * 任务实现类全限定名
+     */
+    private String jobClassName;
+    /**
+     * 任务名称（保证唯一性）
+     */
+    private String jobName;
+    /**
+     * 任务组名
+     */
+    private String jobGroupName;
+    /**
+     * cron表达式 （如：0/5 * * * * ? ）
+     */
+    private String jobTime;
+    /**
+     * 任务时间间隔（秒）
+     */
+    private Integer jobInterval;
+    /**
+     * 任务运行次数（null或<0，则不限次数），仅对jobInterval生效
+     */
+    private Integer jobTimes;
+    /**
+     * 任务过期策略（null:默认=2 1:忽略 2:触发一次 3:不触发），仅对jobTime生效
+     */
+    private Integer misfire;
+    /**
+     * 触发时间打散窗口（秒），null或<=1不打散
+     */
+    private Integer spreadSeconds;
+    /**
+     * 分片数，仅对继承 ShardedQuartzJobBean 的任务生效，null为1
+     */
+    private Integer shardCount;
+    /**
+     * 任务参数
+     */
+    private Map<String, Object> jobData;
+}
@@ -0,0 +1,34 @@
+package com.ctid.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量操作中单条任务的处理结果
+ */
+@Data
+@NoArgsConstructor
+public class JobResult {
+    private String jobName;
+    private String jobGroupName;
+    private boolean success;
+    /**
+     * 失败原因
+     */
+    private String message;
+
+    public JobResult(String jobName, String jobGroupName) {
+        this.jobName = jobName;
+        this.jobGroupName = jobGroupName;
+    }
+
+    public void succeed() {
+        this.success = true;
+        this.message = null;
+    }
+
+    public void fail(String message) {
+        this.success = false;
+        this.message = message;
+    }
+}
@@ -0,0 +1,16 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+/**
+ * 耗时分布，分位数为直方图桶上界的近似值
+ */
+@Data
+public class LatencyStats {
+    private long count;
+    private double meanMillis;
+    private double p50Millis;
+    private double p90Millis;
+    private double p99Millis;
+    private double maxMillis;
+}
@@ -0,0 +1,25 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+/**
+ * 集群锁的等待及持有时间
+ */
+@Data
+public class LockStats {
+    private String instanceName;
+    /**
+     * 锁模式：row 行锁(SELECT ... FOR UPDATE)，getLock MySQL GET_LOCK
+     */
+    private String mode;
+    /**
+     * TRIGGER_ACCESS 或 STATE_ACCESS
+     */
+    private String lockName;
+    /**
+     * 获取锁的 JobStore 操作，为空表示该锁的汇总
+     */
+    private String operation;
+    private LatencyStats wait;
+    private LatencyStats hold;
+}
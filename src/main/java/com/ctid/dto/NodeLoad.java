@@ -0,0 +1,34 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 集群单个节点的执行负载
+ */
+@Data
+public class NodeLoad {
+    /**
+     * 分片的调度器名称，同一JVM中的各分片为不同节点
+     */
+    private String schedName;
+    private String instanceName;
+    /**
+     * 最近一次集群心跳时间，非集群模式为空
+     */
+    private Long lastCheckinTime;
+    private Long checkinInterval;
+    /**
+     * 节点线程池大小（按本节点配置估算，集群各节点使用相同配置）
+     */
+    private int threadPoolSize;
+    private int executingCount;
+    private int acquiredCount;
+    /**
+     * 线程使用率 executingCount / threadPoolSize
+     */
+    private double utilization;
+    private List<RunningJob> jobs = new ArrayList<>();
+}
@@ -0,0 +1,39 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+/**
+ * 线程池（或任务组子线程池）占用情况
+ */
+@Data
+public class PoolStats {
+    /**
+     * 调度器实例名
+     */
+    private String instanceName;
+    /**
+     * 任务组名，共享溢出线程池为 *
+     */
+    private String name;
+    private int size;
+    /**
+     * 正在执行的任务数
+     */
+    private int active;
+    /**
+     * 已分配到该池、等待线程的任务数
+     */
+    private int queued;
+    /**
+     * 线程使用率 active / size
+     */
+    private double utilization;
+    /**
+     * 累计执行任务数
+     */
+    private long completed;
+    /**
+     * 该任务组子线程池已满、转入溢出线程池执行的次数
+     */
+    private long overflowed;
+}
@@ -0,0 +1,37 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+/**
+ * 集群中正在执行的任务，来源于QRTZ_FIRED_TRIGGERS
+ */
+@Data
+public class RunningJob {
+    /**
+     * 所在分片的调度器名称
+     */
+    private String schedName;
+    private String instanceName;
+    private String entryId;
+    private String jobName;
+    private String jobGroupName;
+    private String triggerName;
+    private String triggerGroup;
+    /**
+     * 实际触发时间
+     */
+    private long firedTime;
+    /**
+     * 计划触发时间
+     */
+    private long scheduledTime;
+    /**
+     * 已执行时长（毫秒）
+     */
+    private long elapsedMillis;
+    /**
+     * EXECUTING 执行中，ACQUIRED 已获取待执行
+     */
+    private String state;
+    private boolean nonConcurrent;
+}
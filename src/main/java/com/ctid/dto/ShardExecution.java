@@ -0,0 +1,37 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+/**
+ * 分片任务中一个分片的执行状态，来源于QRTZ_JOB_SHARD
+ */
+@Data
+public class ShardExecution {
+    /**
+     * 分片序号，从0开始
+     */
+    private int shardIndex;
+    /**
+     * WAITING 等待触发（含等待重试）、RUNNING 执行中、SUCCESS 成功、FAILED 重试次数用完仍失败
+     */
+    private String state;
+    /**
+     * 已执行次数
+     */
+    private int attempts;
+    /**
+     * 当前（或最后一次）执行的触发器名称，组名与任务组名相同
+     */
+    private String triggerName;
+    /**
+     * 最后一次执行的节点
+     */
+    private String instanceName;
+    private Long startTime;
+    private Long endTime;
+    /**
+     * executeShard 的返回值
+     */
+    private String result;
+    private String errorMsg;
+}
@@ -0,0 +1,39 @@
+package com.ctid.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 分片任务的一次执行批次，来源于QRTZ_JOB_SHARD_RUN
+ */
+@Data
+public class ShardRun {
+    /**
+     * 所在分片的调度器名称
+     */
+    private String schedName;
+    /**
+     * 批次id，为发起批次的那次触发的 fireInstanceId
+     */
+    private String runId;
+    private String jobName;
+    private String jobGroupName;
+    private int shardTotal;
+    /**
+     * RUNNING 执行中、COMPLETED 全部分片成功、FAILED 全部分片结束但有分片失败
+     */
+    private String state;
+    private long startTime;
+    private Long endTime;
+    private int succeeded;
+    private int failed;
+    /**
+     * aggregate 返回的汇总结果，在最后结束的分片所在节点计算
+     */
+    private String result;
+    /**
+     * 各分片的执行状态，按分片序号排序
+     */
+    private List<ShardExecution> shards;
+}
@@ -0,0 +1,126 @@
+package com.ctid.initializer;
+
+import org.quartz.JobKey;
+import org.quartz.Trigger;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+
+/**
+ * 触发时间打散
+ * 按 JobKey 的哈希在窗口内得到固定偏移，同一任务在任何节点、任何时间注册偏移都相同，
+ * 使大量相同周期的任务（如都是每5分钟）不在同一秒争抢线程池和 TRIGGER_ACCESS 锁。
+ * <p>
+ * cron：秒字段为固定值或 a/step 时平移秒字段；秒字段为固定值且分钟字段为固定值或 a/step 时，窗口超过60秒的部分平移分钟字段。
+ * 窗口不超过原有周期（秒字段 step、分钟字段 step 分钟、分钟为 * 时60秒），其他形式的表达式不打散。
+ * 平移超出字段范围时在字段内回绕，即可能提前而不是推后。
+ * simple：首次触发相对注册时间推后固定偏移，窗口不超过 interval。
+ * <p>
+ * 打散窗口保存在触发器的 JobDataMap 中，修改cron表达式时按原窗口重新打散。
+ */
+public final class FireSpread {
+    /**
+     * 触发器 JobDataMap 中保存打散窗口（秒）的key
+     */
+    public static final String SPREAD_SECONDS_KEY = "quartz.spreadSeconds";
+
+    private FireSpread() {
+    }
+
+    /**
+     * 任务在窗口内的偏移（秒），范围 [0, windowSeconds)
+     */
+    public static int offsetSeconds(JobKey jobKey, int windowSeconds) {
+        if (windowSeconds <= 1) {
+            return 0;
+        }
+        return (int) (hash(jobKey.toString()) % windowSeconds);
+    }
+
+    /**
+     * 平移cron表达式，不能打散时返回原表达式
+     */
+    public static String spreadCron(String cronExpression, JobKey jobKey, int windowSeconds) {
+        if (windowSeconds <= 1) {
+            return cronExpression;
+        }
+        String[] fields = cronExpression.trim().split("\\s+");
+        if (fields.length < 6) {
+            return cronExpression;
+        }
+        int[] second = parseField(fields[0]);
+        if (second == null) {
+            return cronExpression;
+        }
+        if (second[1] > 0) {
+            // 秒字段为 a/step，在 step 内平移
+            int offset = offsetSeconds(jobKey, Math.min(windowSeconds, second[1]));
+            fields[0] = (second[0] + offset) % second[1] + "/" + second[1];
+            return String.join(" ", fields);
+        }
+        int[] minute = "*".equals(fields[1]) ? null : parseField(fields[1]);
+        int window = Math.min(windowSeconds, minute == null ? 60 : minute[1] > 0 ? minute[1] * 60 : 3600);
+        int offset = offsetSeconds(jobKey, window);
+        int secondValue = second[0] + offset % 60;
+        int minuteShift = offset / 60;
+        if (minute == null) {
+            fields[0] = String.valueOf(secondValue % 60);
+            return String.join(" ", fields);
+        }
+        // 秒进位到分钟
+        minuteShift += secondValue / 60;
+        fields[0] = String.valueOf(secondValue % 60);
+        if (minute[1] > 0) {
+            fields[1] = (minute[0] + minuteShift) % minute[1] + "/" + minute[1];
+        } else {
+            fields[1] = String.valueOf((minute[0] + minuteShift) % 60);
+        }
+        return String.join(" ", fields);
+    }
+
+    /**
+     * simple触发器的首次触发时间：now 加上任务在窗口内的偏移
+     */
+    public static Date spreadStart(long now, JobKey jobKey, int intervalSeconds, int windowSeconds) {
+        return new Date(now + offsetSeconds(jobKey, Math.min(windowSeconds, intervalSeconds)) * 1000L);
+    }
+
+    /**
+     * 触发器保存的打散窗口，未打散时为0
+     */
+    public static int spreadSeconds(Trigger trigger) {
+        Object value = trigger.getJobDataMap().get(SPREAD_SECONDS_KEY);
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    /**
+     * 解析固定值 n（返回 {n, 0}）或 a/step、星号/step（返回 {a, step}，要求 a < step），其他形式返回 null
+     */
+    private static int[] parseField(String field) {
+        try {
+            int slash = field.indexOf('/');
+            if (slash < 0) {
+                return new int[]{Integer.parseInt(field), 0};
+            }
+            String start = field.substring(0, slash);
+            int step = Integer.parseInt(field.substring(slash + 1));
+            int value = "*".equals(start) ? 0 : Integer.parseInt(start);
+            return step > 0 && value < step ? new int[]{value, step} : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long hash(String key) {
+        try {
+            // 与 SchedulerShards 的一致性哈希使用不同的字节，偏移与分片互不相关
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            return ((long) (digest[7] & 0xFF) << 24) | ((long) (digest[6] & 0xFF) << 16)
+                    | ((long) (digest[5] & 0xFF) << 8) | (digest[4] & 0xFF);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,7 +1,25 @@
 package com.ctid.initializer;
 
+import org.quartz.CronTrigger;
+import org.quartz.Trigger;
+
 public enum MisFireEnum {
     DO_NOTHING,
     FIRE_AND_PROCEED,
-    IGNORE_MISFIRES
+    IGNORE_MISFIRES;
+
+    /**
+     * 触发器的misfire策略，非cron触发器除忽略策略外无对应值，返回 null
+     * cron触发器的默认策略(SMART_POLICY)即 FIRE_AND_PROCEED
+     */
+    public static MisFireEnum of(Trigger trigger) {
+        int instruction = trigger.getMisfireInstruction();
+        if (instruction == Trigger.MISFIRE_INSTRUCTION_IGNORE_MISFIRE_POLICY) {
+            return IGNORE_MISFIRES;
+        }
+        if (!(trigger instanceof CronTrigger)) {
+            return null;
+        }
+        return instruction == CronTrigger.MISFIRE_INSTRUCTION_DO_NOTHING ? DO_NOTHING : FIRE_AND_PROCEED;
+    }
 }
@@ -1,5 +1,8 @@
 package com.ctid.initializer;
 
+import com.ctid.config.SchedulerShards;
+import com.ctid.job.ChunkedQuartzJobBean;
+import com.ctid.job.ShardedQuartzJobBean;
 import org.quartz.*;
 import org.springframework.scheduling.quartz.QuartzJobBean;
 import org.springframework.stereotype.Component;
@@ -10,7 +13,7 @@ import java.util.Map;
 @Component
 public class QuartzJobInitializer {
     @Resource
-    private Scheduler scheduler;
+    private SchedulerShards schedulerShards;
 
     /**
      * 定时任务初始化
@@ -22,18 +25,41 @@ public class QuartzJobInitializer {
      * @throws SchedulerException
      */
     public void scheduleJob(String jobName, String groupName, Class<? extends QuartzJobBean> jobClass, int intervalSeconds) throws SchedulerException {
+        scheduleJob(jobName, groupName, jobClass, intervalSeconds, 0);
+    }
+
+    /**
+     * 定时任务初始化，按任务key在窗口内打散首次触发时间
+     *
+     * @param jobName         任务名称
+     * @param groupName       任务组名
+     * @param jobClass        任务类
+     * @param intervalSeconds 任务执行间隔（秒）
+     * @param spreadSeconds   打散窗口（秒），不超过intervalSeconds，<=1不打散
+     *                        示例：间隔300秒、窗口60秒，各任务固定在每5分钟的第0~59秒中的某一秒触发
+     * @throws SchedulerException
+     */
+    public void scheduleJob(String jobName, String groupName, Class<? extends QuartzJobBean> jobClass, int intervalSeconds, int spreadSeconds) throws SchedulerException {
         JobDetail jobDetail = JobBuilder.newJob(jobClass)
                 .withIdentity(jobName, groupName)
+                // 分块任务在节点宕机后由其他节点从检查点续跑，分片任务由其他节点重新执行宕机节点上的分片
+                .requestRecovery(ChunkedQuartzJobBean.class.isAssignableFrom(jobClass) || ShardedQuartzJobBean.class.isAssignableFrom(jobClass))
                 .build();
 
-        Trigger trigger = TriggerBuilder.newTrigger()
+        TriggerBuilder<SimpleTrigger> triggerBuilder = TriggerBuilder.newTrigger()
                 .withIdentity(jobName.concat("_trigger"), groupName)
-                .startNow()
                 .withSchedule(SimpleScheduleBuilder.simpleSchedule()
                         .withIntervalInSeconds(intervalSeconds)
-                        .repeatForever())
-                .build();
+                        .repeatForever());
+        if (spreadSeconds > 1) {
+            triggerBuilder.startAt(FireSpread.spreadStart(System.currentTimeMillis(), jobDetail.getKey(), intervalSeconds, spreadSeconds))
+                    .usingJobData(FireSpread.SPREAD_SECONDS_KEY, spreadSeconds);
+        } else {
+            triggerBuilder.startNow();
+        }
+        Trigger trigger = triggerBuilder.build();
 
+        Scheduler scheduler = schedulerShards.locate(jobDetail.getKey());
         if (!scheduler.checkExists(jobDetail.getKey())) {
             scheduler.scheduleJob(jobDetail, trigger);
         }
@@ -64,10 +90,35 @@ public class QuartzJobInitializer {
                                 String jobTime,
                                 MisFireEnum misfireEnum,
                                 Map jobData) throws SchedulerException {
+        scheduleJobCron(jobName, jobGroupName, jobClass, jobTime, misfireEnum, jobData, 0);
+    }
+
+    /**
+     * 定时任务初始化，按任务key在窗口内平移cron表达式的秒（及分钟）字段
+     *
+     * @param jobName       任务名称
+     * @param jobGroupName  任务组名
+     * @param jobClass      任务类
+     * @param jobTime       任务执行时间（cron表达式），秒字段为固定值或a/step时才能打散
+     *                      示例：0 0/5 * * * ? 窗口60秒，各任务固定在每5分钟的第0~59秒中的某一秒执行
+     * @param misfireEnum   任务错过策略
+     * @param jobData       任务参数
+     * @param spreadSeconds 打散窗口（秒），<=1不打散
+     * @throws SchedulerException
+     */
+    public void scheduleJobCron(String jobName,
+                                String jobGroupName,
+                                Class<? extends QuartzJobBean> jobClass,
+                                String jobTime,
+                                MisFireEnum misfireEnum,
+                                Map jobData,
+                                int spreadSeconds) throws SchedulerException {
         // 创建jobDetail实例，绑定Job实现类
         // 指明job的名称，所在组的名称，以及绑定job类
         // 任务名称和组构成任务key
         JobDetail jobDetail = JobBuilder.newJob(jobClass).withIdentity(jobName, jobGroupName)
+                // 分块任务在节点宕机后由其他节点从检查点续跑，分片任务由其他节点重新执行宕机节点上的分片
+                .requestRecovery(ChunkedQuartzJobBean.class.isAssignableFrom(jobClass) || ShardedQuartzJobBean.class.isAssignableFrom(jobClass))
                 .build();
         // 设置job参数
         if (jobData != null && !jobData.isEmpty()) {
@@ -81,7 +132,8 @@ public class QuartzJobInitializer {
          * FIRE_AND_PROCEED 错过的全部合并成一次补偿执行
          * IGNORE_MISFIRES 错过的全部立即补偿
          */
-        CronScheduleBuilder cronScheduleBuilder = CronScheduleBuilder.cronSchedule(jobTime);
+        String cron = spreadSeconds > 1 ? FireSpread.spreadCron(jobTime, jobDetail.getKey(), spreadSeconds) : jobTime;
+        CronScheduleBuilder cronScheduleBuilder = CronScheduleBuilder.cronSchedule(cron);
         if (misfireEnum != null) {
             switch (misfireEnum) {
                 case DO_NOTHING:
@@ -95,11 +147,15 @@ public class QuartzJobInitializer {
                     break;
             }
         }
-        Trigger trigger = TriggerBuilder.newTrigger().withIdentity(jobName.concat("_trigger"), jobGroupName)
+        TriggerBuilder<CronTrigger> triggerBuilder = TriggerBuilder.newTrigger().withIdentity(jobName.concat("_trigger"), jobGroupName)
                 .withSchedule(cronScheduleBuilder)
-                .startNow()
-                .build();
+                .startNow();
+        if (spreadSeconds > 1) {
+            triggerBuilder.usingJobData(FireSpread.SPREAD_SECONDS_KEY, spreadSeconds);
+        }
+        Trigger trigger = triggerBuilder.build();
         // 把作业和触发器注册到任务调度中
+        Scheduler scheduler = schedulerShards.locate(jobDetail.getKey());
         if (!scheduler.checkExists(jobDetail.getKey())) {
             scheduler.scheduleJob(jobDetail, trigger);
         }
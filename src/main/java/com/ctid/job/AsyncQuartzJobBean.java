@@ -0,0 +1,56 @@
+package com.ctid.job;
+
+import com.ctid.config.AsyncJobTracker;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 异步任务基类
+ * executeAsync 发起远程调用等操作后立即返回 CompletableFuture，Quartz工作线程随即归还线程池，不在等待中占用线程。
+ * future 结束时才向 JobStore 回报执行完成：@DisallowConcurrentExecution 的任务在结束前不会再次触发，
+ * @PersistJobDataAfterExecution 的任务在结束后回写 context.getJobDetail().getJobDataMap() 的修改。
+ * future 异常结束记为执行失败（指标及执行事件），但不影响触发器的后续触发。
+ * <p>
+ * 需要 org.quartz.jobStore.class 为 AdaptiveJobStoreTX 或其子类，其他 JobStore 下在工作线程中等待 future 结束，按同步任务执行。
+ */
+public abstract class AsyncQuartzJobBean extends QuartzJobBean {
+
+    @Override
+    protected final void executeInternal(JobExecutionContext context) throws JobExecutionException {
+        CompletableFuture<?> future;
+        try {
+            future = executeAsync(context);
+        } catch (JobExecutionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new JobExecutionException(e);
+        }
+        if (future == null) {
+            return;
+        }
+        if (AsyncJobTracker.isSupported(context)) {
+            AsyncJobTracker.register(context, future);
+            return;
+        }
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JobExecutionException(e);
+        } catch (ExecutionException e) {
+            throw new JobExecutionException(e.getCause());
+        }
+    }
+
+    /**
+     * 发起异步执行，不应在其中阻塞等待
+     *
+     * @param context 执行上下文，future 结束前可继续读写 context.getJobDetail().getJobDataMap()
+     * @return 执行结果，返回 null 视为已同步执行完成
+     */
+    protected abstract CompletableFuture<?> executeAsync(JobExecutionContext context) throws Exception;
+}
@@ -0,0 +1,214 @@
+package com.ctid.job;
+
+import com.ctid.dao.QuartzJobDao;
+import com.ctid.dto.JobCheckpoint;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.InterruptableJob;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+
+import javax.annotation.Resource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分块任务基类（断点续跑）
+ * 任务按块处理数据，processChunk 每次从游标之后处理一块并返回新的游标，
+ * 每隔 checkpointIntervalMs 把游标和已处理条数写入 QRTZ_JOB_CHECKPOINT（按主键更新一行）。
+ * 执行成功后删除检查点；执行失败、被中断或节点宕机时检查点保留，
+ * 重试、下一次触发或集群恢复（通过 QuartzService 注册的分块任务自动设置 requestsRecovery）的执行从检查点继续，
+ * 最后一个检查点之后已处理的块会再处理一次，processChunk 需要幂等。
+ * <p>
+ * 检查点按执行的 fireInstanceId 更新，同一任务的新执行开始后旧执行的更新失败并停止，任务应同时标注 @DisallowConcurrentExecution。
+ * 检查点间隔默认 quartz.checkpoint.interval-ms，可在 JobDataMap 中以 checkpointIntervalMs 为单个任务指定。
+ */
+@Slf4j
+public abstract class ChunkedQuartzJobBean extends QuartzJobBean implements InterruptableJob {
+    /**
+     * 本节点正在执行的分块任务，按 fireInstanceId
+     */
+    private static final Map<String, Progress> RUNNING = new ConcurrentHashMap<>();
+
+    @Resource
+    private QuartzJobDao quartzJobDao;
+    @Value("${quartz.checkpoint.interval-ms:5000}")
+    private long checkpointIntervalMs;
+
+    private volatile boolean interrupted;
+
+    /**
+     * 一块的处理结果
+     */
+    public static final class Chunk {
+        private final String cursor;
+        private final long items;
+        private final boolean last;
+
+        private Chunk(String cursor, long items, boolean last) {
+            this.cursor = cursor;
+            this.items = items;
+            this.last = last;
+        }
+
+        /**
+         * 还有数据，下一块从 cursor 之后开始
+         */
+        public static Chunk next(String cursor, long items) {
+            return new Chunk(cursor, items, false);
+        }
+
+        /**
+         * 最后一块
+         */
+        public static Chunk last(long items) {
+            return new Chunk(null, items, true);
+        }
+    }
+
+    /**
+     * 执行中的实时进度
+     */
+    public static final class Progress {
+        private volatile String cursor;
+        private volatile long items;
+        private volatile long totalItems;
+
+        public String getCursor() {
+            return cursor;
+        }
+
+        public long getItems() {
+            return items;
+        }
+
+        public long getTotalItems() {
+            return totalItems;
+        }
+    }
+
+    /**
+     * 本节点正在执行的分块任务的实时进度，不存在时返回 null
+     */
+    public static Progress getProgress(String fireInstanceId) {
+        return fireInstanceId == null ? null : RUNNING.get(fireInstanceId);
+    }
+
+    public void setCheckpointIntervalMs(long checkpointIntervalMs) {
+        this.checkpointIntervalMs = checkpointIntervalMs;
+    }
+
+    /**
+     * 处理游标之后的一块数据
+     *
+     * @param context 执行上下文
+     * @param cursor  上一块返回的游标，首次执行时为 null
+     * @return 本块处理的条数及新的游标
+     */
+    protected abstract Chunk processChunk(JobExecutionContext context, String cursor) throws Exception;
+
+    /**
+     * 总条数，用于计算预计剩余时间，每次执行（含续跑）开始时调用一次，未知时返回-1
+     *
+     * @param cursor 开始的游标，续跑时为检查点的游标
+     */
+    protected long estimateTotal(JobExecutionContext context, String cursor) throws Exception {
+        return -1;
+    }
+
+    @Override
+    public void interrupt() {
+        interrupted = true;
+    }
+
+    @Override
+    protected final void executeInternal(JobExecutionContext context) throws JobExecutionException {
+        JobKey jobKey = context.getJobDetail().getKey();
+        String fireInstanceId = context.getFireInstanceId();
+        JobCheckpoint checkpoint;
+        try {
+            checkpoint = start(context, jobKey);
+        } catch (Exception e) {
+            throw new JobExecutionException(e);
+        }
+        String schedName = checkpoint.getSchedName();
+        Progress progress = new Progress();
+        progress.cursor = checkpoint.getJobCursor();
+        progress.items = checkpoint.getItems();
+        progress.totalItems = checkpoint.getTotalItems();
+        RUNNING.put(fireInstanceId, progress);
+        String cursor = checkpoint.getJobCursor();
+        long items = checkpoint.getItems();
+        long lastSaved = System.currentTimeMillis();
+        try {
+            while (!interrupted) {
+                Chunk chunk;
+                try {
+                    chunk = processChunk(context, cursor);
+                } catch (Exception e) {
+                    // 保存最后完成的块，重试时从这里继续
+                    save(schedName, jobKey, fireInstanceId, cursor, items);
+                    throw new JobExecutionException(e);
+                }
+                items += chunk.items;
+                progress.items = items;
+                if (chunk.last) {
+                    quartzJobDao.deleteCheckpoint(schedName, jobKey, fireInstanceId);
+                    log.info("chunked job {} completed, items: {}", jobKey, items);
+                    return;
+                }
+                cursor = chunk.cursor;
+                progress.cursor = cursor;
+                long now = System.currentTimeMillis();
+                if (now - lastSaved >= checkpointIntervalMs) {
+                    save(schedName, jobKey, fireInstanceId, cursor, items);
+                    lastSaved = now;
+                }
+            }
+            save(schedName, jobKey, fireInstanceId, cursor, items);
+            log.info("chunked job {} interrupted, checkpoint saved, items: {}", jobKey, items);
+        } finally {
+            RUNNING.remove(fireInstanceId, progress);
+        }
+    }
+
+    /**
+     * 读取检查点并登记本次执行
+     */
+    private JobCheckpoint start(JobExecutionContext context, JobKey jobKey) throws Exception {
+        String schedName = context.getScheduler().getSchedulerName();
+        JobCheckpoint checkpoint = quartzJobDao.selectCheckpoint(schedName, jobKey);
+        if (checkpoint == null) {
+            checkpoint = new JobCheckpoint();
+            checkpoint.setSchedName(schedName);
+            checkpoint.setJobName(jobKey.getName());
+            checkpoint.setJobGroupName(jobKey.getGroup());
+        } else {
+            log.info("chunked job {} resumes from checkpoint, items: {}, cursor: {}, recovering: {}",
+                    jobKey, checkpoint.getItems(), checkpoint.getJobCursor(), context.isRecovering());
+        }
+        long now = System.currentTimeMillis();
+        checkpoint.setTotalItems(estimateTotal(context, checkpoint.getJobCursor()));
+        checkpoint.setFireInstanceId(context.getFireInstanceId());
+        checkpoint.setInstanceName(context.getScheduler().getSchedulerInstanceId());
+        checkpoint.setRunStartTime(now);
+        checkpoint.setRunStartItems(checkpoint.getItems());
+        checkpoint.setUpdatedTime(now);
+        quartzJobDao.startCheckpoint(checkpoint);
+        return checkpoint;
+    }
+
+    private void save(String schedName, JobKey jobKey, String fireInstanceId, String cursor, long items) throws JobExecutionException {
+        boolean updated;
+        try {
+            updated = quartzJobDao.updateCheckpoint(schedName, jobKey, fireInstanceId, cursor, items, System.currentTimeMillis());
+        } catch (Exception e) {
+            throw new JobExecutionException("save checkpoint of " + jobKey + " failed", e);
+        }
+        if (!updated) {
+            throw new JobExecutionException("checkpoint of " + jobKey + " has been taken over by another execution");
+        }
+    }
+}
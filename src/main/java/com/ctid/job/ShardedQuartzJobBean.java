@@ -0,0 +1,331 @@
+package com.ctid.job;
+
+import com.ctid.dao.QuartzJobDao;
+import com.ctid.dto.ShardExecution;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.JobDataMap;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+
+import javax.annotation.Resource;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分片任务基类
+ * 任务按原触发器触发时不处理数据，而是新建一个批次（QRTZ_JOB_SHARD_RUN）并为每个分片注册一个只触发一次的触发器，
+ * 触发器的 JobDataMap 带有分片序号和分片总数，集群中任意节点的空闲工作线程都可以取到并执行 executeShard。
+ * 分片触发器统一放在触发器组 SHARD_TRIGGER_GROUP 中，不计入任务目录，也不出现在任务查询和触发预测中。
+ * 每个分片结束后在 QRTZ_JOB_SHARD 记录结果，最后结束的分片所在节点调用一次 aggregate 并把汇总结果记录到批次。
+ * <p>
+ * 分片失败后只重新注册该分片的触发器，延迟 retryDelaySeconds 后重试，最多执行 maxAttempts 次，已成功的分片不再执行；
+ * 重试次数用完时分片为 FAILED，其余分片结束后批次为 FAILED，可通过 QuartzService.retryShards 重试失败的分片。
+ * 同一任务的上一个批次未结束时，新的触发（包括节点宕机后恢复的触发）不再新建批次，而是续跑该批次：
+ * 为 WAITING 但触发器不存在的分片补注册触发器，分片都已结束但批次未结束时补做汇总。
+ * <p>
+ * 分片数在注册时通过 QuartzService 指定，保存在任务 JobDataMap 的 quartz.shardCount 中，未指定时为1。
+ * 分片由同一任务的多个触发器并发执行，任务不能标注 @DisallowConcurrentExecution。
+ */
+@Slf4j
+public abstract class ShardedQuartzJobBean extends QuartzJobBean {
+    /**
+     * 任务 JobDataMap 中的分片数
+     */
+    public static final String SHARD_COUNT_KEY = "quartz.shardCount";
+    /**
+     * 分片触发器所在的触发器组
+     */
+    public static final String SHARD_TRIGGER_GROUP = "QUARTZ_SHARDS";
+    /**
+     * 分片触发器 JobDataMap 中的批次id、分片序号、分片总数，以及本轮重试中的第几次执行
+     */
+    public static final String SHARD_RUN_ID_KEY = "quartz.shardRunId";
+    public static final String SHARD_INDEX_KEY = "quartz.shardIndex";
+    public static final String SHARD_TOTAL_KEY = "quartz.shardTotal";
+    public static final String SHARD_ATTEMPT_KEY = "quartz.shardAttempt";
+
+    public static final String STATE_WAITING = "WAITING";
+    public static final String STATE_RUNNING = "RUNNING";
+    public static final String STATE_SUCCESS = "SUCCESS";
+    public static final String STATE_FAILED = "FAILED";
+    public static final String STATE_COMPLETED = "COMPLETED";
+
+    private static final int MAX_RESULT_LENGTH = 4000;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Resource
+    private QuartzJobDao quartzJobDao;
+    @Value("${quartz.sharded-job.max-attempts:3}")
+    private int maxAttempts;
+    @Value("${quartz.sharded-job.retry-delay-seconds:10}")
+    private int retryDelaySeconds;
+    @Value("${quartz.sharded-job.retention-days:7}")
+    private int retentionDays;
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public void setRetryDelaySeconds(int retryDelaySeconds) {
+        this.retryDelaySeconds = retryDelaySeconds;
+    }
+
+    /**
+     * 执行一个分片
+     *
+     * @param context    执行上下文
+     * @param shardIndex 分片序号，从0开始
+     * @param shardTotal 分片总数
+     * @return 分片结果，记录到 QRTZ_JOB_SHARD 并传给 aggregate，最长4000字符
+     */
+    protected abstract String executeShard(JobExecutionContext context, int shardIndex, int shardTotal) throws Exception;
+
+    /**
+     * 批次的全部分片结束后调用一次，返回值作为汇总结果记录到批次，最长4000字符
+     * 有分片重试次数用完仍失败时也会调用，失败的分片经 retryShards 重试成功后再调用一次
+     *
+     * @param context 最后结束的分片的执行上下文
+     * @param shards  全部分片，按分片序号排序
+     */
+    protected String aggregate(JobExecutionContext context, List<ShardExecution> shards) throws Exception {
+        return null;
+    }
+
+    /**
+     * 分片触发器的名称，所在组为 SHARD_TRIGGER_GROUP，批次id在调度器内唯一，不同任务的分片触发器不会重名
+     *
+     * @param attempts 分片的第几次执行，每次执行的触发器名称不同
+     */
+    public static String shardTriggerName(JobKey jobKey, String runId, int shardIndex, int attempts) {
+        return jobKey.getName() + "_shard_" + runId + "_" + shardIndex + "_" + attempts;
+    }
+
+    /**
+     * 注册分片触发器，在 startAt 触发，错过触发时间后立即触发
+     *
+     * @param attempt 本轮重试中的第几次执行
+     */
+    public static Trigger buildShardTrigger(JobKey jobKey, String triggerName, String runId, int shardIndex, int shardTotal,
+                                            int attempt, Date startAt) {
+        return TriggerBuilder.newTrigger()
+                .withIdentity(triggerName, SHARD_TRIGGER_GROUP)
+                .forJob(jobKey)
+                .usingJobData(SHARD_RUN_ID_KEY, runId)
+                .usingJobData(SHARD_INDEX_KEY, shardIndex)
+                .usingJobData(SHARD_TOTAL_KEY, shardTotal)
+                .usingJobData(SHARD_ATTEMPT_KEY, attempt)
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule().withMisfireHandlingInstructionFireNow())
+                .startAt(startAt)
+                .build();
+    }
+
+    @Override
+    protected final void executeInternal(JobExecutionContext context) throws JobExecutionException {
+        JobDataMap triggerData = context.getTrigger().getJobDataMap();
+        if (triggerData.containsKey(SHARD_RUN_ID_KEY)) {
+            runShard(context, triggerData);
+        } else {
+            fanOut(context);
+        }
+    }
+
+    /**
+     * 原触发器触发：新建批次，为每个分片注册触发器
+     */
+    private void fanOut(JobExecutionContext context) throws JobExecutionException {
+        JobKey jobKey = context.getJobDetail().getKey();
+        String runId = context.getFireInstanceId();
+        Object count = context.getJobDetail().getJobDataMap().get(SHARD_COUNT_KEY);
+        int shardTotal = count == null ? 1 : Integer.parseInt(count.toString());
+        Scheduler scheduler = context.getScheduler();
+        String schedName;
+        try {
+            schedName = scheduler.getSchedulerName();
+            String activeRunId = quartzJobDao.selectActiveShardRun(schedName, jobKey);
+            if (activeRunId != null) {
+                resume(context, schedName, activeRunId);
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (retentionDays > 0) {
+                quartzJobDao.deleteShardRuns(schedName, jobKey, now - TimeUnit.DAYS.toMillis(retentionDays));
+            }
+            quartzJobDao.insertShardRun(schedName, runId, jobKey, shardTotal, now);
+        } catch (Exception e) {
+            throw new JobExecutionException(e);
+        }
+        Date startAt = new Date();
+        for (int i = 0; i < shardTotal; i++) {
+            String triggerName = shardTriggerName(jobKey, runId, i, 1);
+            try {
+                // 先记录触发器名称，分片触发器可能在注册后立即被其他节点执行
+                quartzJobDao.updateShardTrigger(schedName, runId, i, triggerName, null);
+                scheduler.scheduleJob(buildShardTrigger(jobKey, triggerName, runId, i, shardTotal, 1, startAt));
+            } catch (ObjectAlreadyExistsException e) {
+                // 同一任务的另一次触发续跑本批次时已注册
+            } catch (Exception e) {
+                // 未注册的分片记为失败，由 retryShards 重试
+                log.error("sharded job {} run {} schedule shards failed from shard {}", jobKey, runId, i, e);
+                for (int j = i; j < shardTotal; j++) {
+                    quartzJobDao.finishShard(schedName, runId, j, STATE_FAILED, null, truncate("schedule failed: " + e.getMessage(), MAX_ERROR_LENGTH),
+                            System.currentTimeMillis());
+                }
+                completeIfFinished(context, schedName, runId);
+                throw new JobExecutionException(e);
+            }
+        }
+        log.info("sharded job {} run {} started, shards: {}", jobKey, runId, shardTotal);
+    }
+
+    /**
+     * 续跑未结束的批次：上一次拆分或重试时节点宕机，分片已记录为 WAITING 但触发器未注册成功，为这些分片补注册触发器
+     * 触发器名称与原先记录的相同（未记录时按拆分时的规则生成），多个节点同时补注册时只有一个能成功；
+     * 补注册的触发器按分片已执行的次数计算重试次数，不会重新获得 maxAttempts 次机会
+     */
+    private void resume(JobExecutionContext context, String schedName, String runId) throws JobExecutionException {
+        JobKey jobKey = context.getJobDetail().getKey();
+        Scheduler scheduler = context.getScheduler();
+        int resumed = 0;
+        try {
+            List<ShardExecution> shards = quartzJobDao.selectShards(schedName, runId);
+            Date startAt = new Date();
+            for (ShardExecution shard : shards) {
+                if (!STATE_WAITING.equals(shard.getState())) {
+                    continue;
+                }
+                String triggerName = shard.getTriggerName();
+                if (triggerName == null) {
+                    triggerName = shardTriggerName(jobKey, runId, shard.getShardIndex(), shard.getAttempts() + 1);
+                    quartzJobDao.updateShardTrigger(schedName, runId, shard.getShardIndex(), triggerName, shard.getErrorMsg());
+                } else if (scheduler.checkExists(TriggerKey.triggerKey(triggerName, SHARD_TRIGGER_GROUP))) {
+                    continue;
+                }
+                try {
+                    scheduler.scheduleJob(buildShardTrigger(jobKey, triggerName, runId, shard.getShardIndex(), shards.size(),
+                            shard.getAttempts() + 1, startAt));
+                    resumed++;
+                } catch (ObjectAlreadyExistsException e) {
+                    // 其他节点已补注册
+                }
+            }
+        } catch (Exception e) {
+            throw new JobExecutionException(e);
+        }
+        if (resumed > 0) {
+            log.warn("sharded job {} run {} resumed, rescheduled shards: {}", jobKey, runId, resumed);
+        } else {
+            log.warn("sharded job {} previous run {} is not finished, no shard to resume", jobKey, runId);
+            // 最后一个分片结束后、批次结束前节点宕机时批次停留在 RUNNING，这里补做
+            completeIfFinished(context, schedName, runId);
+        }
+    }
+
+    /**
+     * 分片触发器触发：执行分片并记录结果，失败时注册重试触发器
+     */
+    private void runShard(JobExecutionContext context, JobDataMap triggerData) throws JobExecutionException {
+        JobKey jobKey = context.getJobDetail().getKey();
+        String runId = triggerData.getString(SHARD_RUN_ID_KEY);
+        int shardIndex = triggerData.getIntValue(SHARD_INDEX_KEY);
+        int shardTotal = triggerData.getIntValue(SHARD_TOTAL_KEY);
+        int attempt = triggerData.containsKey(SHARD_ATTEMPT_KEY) ? triggerData.getIntValue(SHARD_ATTEMPT_KEY) : 1;
+        Scheduler scheduler = context.getScheduler();
+        String schedName;
+        ShardExecution shard;
+        try {
+            schedName = scheduler.getSchedulerName();
+            shard = quartzJobDao.startShard(schedName, runId, shardIndex, scheduler.getSchedulerInstanceId(), System.currentTimeMillis());
+        } catch (Exception e) {
+            throw new JobExecutionException(e);
+        }
+        if (shard == null) {
+            // 节点宕机恢复等情况下重复触发了已成功的分片
+            log.info("sharded job {} run {} shard {} already succeeded or removed, skipped", jobKey, runId, shardIndex);
+            return;
+        }
+        String result;
+        try {
+            result = executeShard(context, shardIndex, shardTotal);
+        } catch (Exception e) {
+            String errorMsg = truncate(String.valueOf(e.getMessage()), MAX_ERROR_LENGTH);
+            if (attempt < maxAttempts && retry(context, schedName, runId, shardIndex, shardTotal, shard.getAttempts(), attempt, errorMsg)) {
+                log.warn("sharded job {} run {} shard {} failed, attempt {}/{}, retry in {}s, reason: {}",
+                        jobKey, runId, shardIndex, attempt, maxAttempts, retryDelaySeconds, e.getMessage());
+            } else {
+                log.error("sharded job {} run {} shard {} failed after {} attempts", jobKey, runId, shardIndex, attempt, e);
+                quartzJobDao.finishShard(schedName, runId, shardIndex, STATE_FAILED, null, errorMsg, System.currentTimeMillis());
+                completeIfFinished(context, schedName, runId);
+            }
+            throw new JobExecutionException(e);
+        }
+        quartzJobDao.finishShard(schedName, runId, shardIndex, STATE_SUCCESS, truncate(result, MAX_RESULT_LENGTH), null, System.currentTimeMillis());
+        completeIfFinished(context, schedName, runId);
+    }
+
+    /**
+     * 注册分片的重试触发器，注册失败时返回 false
+     */
+    private boolean retry(JobExecutionContext context, String schedName, String runId, int shardIndex, int shardTotal,
+                          int attempts, int attempt, String errorMsg) {
+        JobKey jobKey = context.getJobDetail().getKey();
+        String triggerName = shardTriggerName(jobKey, runId, shardIndex, attempts + 1);
+        Date startAt = new Date(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(Math.max(0, retryDelaySeconds)));
+        try {
+            quartzJobDao.updateShardTrigger(schedName, runId, shardIndex, triggerName, errorMsg);
+            context.getScheduler().scheduleJob(buildShardTrigger(jobKey, triggerName, runId, shardIndex, shardTotal, attempt + 1, startAt));
+            return true;
+        } catch (ObjectAlreadyExistsException e) {
+            // 批次续跑时其他节点已按同一名称注册
+            return true;
+        } catch (SchedulerException e) {
+            log.error("sharded job {} run {} shard {} schedule retry failed", jobKey, runId, shardIndex, e);
+            return false;
+        }
+    }
+
+    /**
+     * 完成屏障：每个分片结束后统计批次中未结束的分片，全部结束时结束批次并汇总结果
+     * 各分片先提交自身状态再统计，最后提交的分片一定能看到全部分片结束；多个分片同时看到时只有一个能结束批次
+     */
+    private void completeIfFinished(JobExecutionContext context, String schedName, String runId) {
+        JobKey jobKey = context.getJobDetail().getKey();
+        try {
+            Map<String, Integer> counts = quartzJobDao.countShardStates(schedName, runId);
+            if (counts.getOrDefault(STATE_WAITING, 0) > 0 || counts.getOrDefault(STATE_RUNNING, 0) > 0) {
+                return;
+            }
+            int succeeded = counts.getOrDefault(STATE_SUCCESS, 0);
+            int failed = counts.getOrDefault(STATE_FAILED, 0);
+            String state = failed > 0 ? STATE_FAILED : STATE_COMPLETED;
+            if (!quartzJobDao.finishShardRun(schedName, runId, state, succeeded, failed, System.currentTimeMillis())) {
+                return;
+            }
+            String result = null;
+            try {
+                result = truncate(aggregate(context, quartzJobDao.selectShards(schedName, runId)), MAX_RESULT_LENGTH);
+                quartzJobDao.updateShardRunResult(schedName, runId, result);
+            } catch (Exception e) {
+                log.error("sharded job {} run {} aggregate failed", jobKey, runId, e);
+            }
+            log.info("sharded job {} run {} {}, succeeded: {}, failed: {}, result: {}", jobKey, runId, state, succeeded, failed, result);
+        } catch (Exception e) {
+            log.error("sharded job {} run {} complete failed", jobKey, runId, e);
+        }
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+}
@@ -0,0 +1,38 @@
+package com.ctid.job;
+
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobDataMap;
+import org.quartz.JobExecutionContext;
+import org.quartz.PersistJobDataAfterExecution;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步任务示例：模拟耗时3秒的远程调用，等待期间不占用Quartz工作线程，
+ * 结束前不会再次触发，结束后回写执行次数 count
+ */
+@PersistJobDataAfterExecution
+@DisallowConcurrentExecution
+public class TestAsyncJob extends AsyncQuartzJobBean {
+    private static final ScheduledExecutorService REMOTE = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "test-async-remote");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    protected CompletableFuture<?> executeAsync(JobExecutionContext context) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        REMOTE.schedule(() -> {
+            JobDataMap dataMap = context.getJobDetail().getJobDataMap();
+            int count = dataMap.containsKey("count") ? dataMap.getInt("count") + 1 : 1;
+            dataMap.put("count", count);
+            System.out.println("TestAsyncJob " + context.getJobDetail().getKey().getName() + " completed, count: " + count);
+            future.complete(null);
+        }, 3, TimeUnit.SECONDS);
+        return future;
+    }
+}
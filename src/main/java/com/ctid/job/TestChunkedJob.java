@@ -0,0 +1,28 @@
+package com.ctid.job;
+
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+
+/**
+ * 分块任务示例：按id顺序处理 20000 条数据，每块 1000 条，游标为已处理的最大id
+ */
+@DisallowConcurrentExecution
+public class TestChunkedJob extends ChunkedQuartzJobBean {
+    private static final long TOTAL = 20000;
+    private static final int CHUNK_SIZE = 1000;
+
+    @Override
+    protected long estimateTotal(JobExecutionContext context, String cursor) {
+        return TOTAL;
+    }
+
+    @Override
+    protected Chunk processChunk(JobExecutionContext context, String cursor) throws Exception {
+        long lastId = cursor == null ? 0 : Long.parseLong(cursor);
+        // 模拟 select ... where id > lastId order by id limit CHUNK_SIZE 及处理耗时
+        Thread.sleep(200);
+        long maxId = Math.min(TOTAL, lastId + CHUNK_SIZE);
+        int items = (int) (maxId - lastId);
+        return maxId >= TOTAL ? Chunk.last(items) : Chunk.next(String.valueOf(maxId), items);
+    }
+}
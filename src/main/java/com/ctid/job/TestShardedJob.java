@@ -0,0 +1,45 @@
+package com.ctid.job;
+
+import com.ctid.dto.ShardExecution;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.JobExecutionContext;
+
+import java.util.List;
+
+/**
+ * 分片任务示例：按 id % shardTotal 把 100000 条数据分给各分片处理，汇总各分片的处理条数
+ * JobDataMap 中 failShard 指定的分片第一次执行时失败，用于观察只重试该分片
+ */
+@Slf4j
+public class TestShardedJob extends ShardedQuartzJobBean {
+    private static final long TOTAL = 100000;
+
+    private Integer failShard;
+
+    public void setFailShard(Integer failShard) {
+        this.failShard = failShard;
+    }
+
+    @Override
+    protected String executeShard(JobExecutionContext context, int shardIndex, int shardTotal) throws Exception {
+        if (failShard != null && failShard == shardIndex && context.getTrigger().getJobDataMap().getIntValue(SHARD_ATTEMPT_KEY) == 1) {
+            throw new IllegalStateException("shard " + shardIndex + " failed");
+        }
+        // 模拟 select ... where mod(id, shardTotal) = shardIndex 及处理耗时
+        Thread.sleep(500);
+        long items = TOTAL / shardTotal + (shardIndex < TOTAL % shardTotal ? 1 : 0);
+        log.info("shard {}/{} processed {} items", shardIndex, shardTotal, items);
+        return String.valueOf(items);
+    }
+
+    @Override
+    protected String aggregate(JobExecutionContext context, List<ShardExecution> shards) {
+        long items = 0;
+        for (ShardExecution shard : shards) {
+            if (ShardedQuartzJobBean.STATE_SUCCESS.equals(shard.getState())) {
+                items += Long.parseLong(shard.getResult());
+            }
+        }
+        return "items=" + items;
+    }
+}
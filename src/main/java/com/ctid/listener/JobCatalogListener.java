@@ -0,0 +1,144 @@
+package com.ctid.listener;
+
+import com.ctid.cache.JobCatalogCache;
+import com.ctid.job.ShardedQuartzJobBean;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.TriggerListener;
+import org.quartz.listeners.SchedulerListenerSupport;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+
+/**
+ * 将本节点的任务/触发器变更通知给任务目录缓存
+ * 分片任务的分片触发器不在任务目录中，其注册、完成不通知缓存，避免每个分片都让各节点全量重新加载
+ */
+@Component
+public class JobCatalogListener extends SchedulerListenerSupport implements TriggerListener {
+    @Resource
+    private JobCatalogCache jobCatalogCache;
+
+    @Override
+    public String getName() {
+        return "jobCatalogListener";
+    }
+
+    @Override
+    public void jobScheduled(Trigger trigger) {
+        if (isShardTrigger(trigger.getKey())) {
+            return;
+        }
+        jobCatalogCache.jobChanged(trigger.getJobKey());
+    }
+
+    @Override
+    public void jobUnscheduled(TriggerKey triggerKey) {
+        if (isShardTrigger(triggerKey)) {
+            return;
+        }
+        jobCatalogCache.triggerChanged(triggerKey);
+    }
+
+    @Override
+    public void triggerFinalized(Trigger trigger) {
+        if (isShardTrigger(trigger.getKey())) {
+            return;
+        }
+        jobCatalogCache.jobChanged(trigger.getJobKey());
+    }
+
+    @Override
+    public void triggerPaused(TriggerKey triggerKey) {
+        if (isShardTrigger(triggerKey)) {
+            return;
+        }
+        jobCatalogCache.triggerChanged(triggerKey);
+    }
+
+    @Override
+    public void triggersPaused(String triggerGroup) {
+        jobCatalogCache.allChanged();
+    }
+
+    @Override
+    public void triggerResumed(TriggerKey triggerKey) {
+        if (isShardTrigger(triggerKey)) {
+            return;
+        }
+        jobCatalogCache.triggerChanged(triggerKey);
+    }
+
+    @Override
+    public void triggersResumed(String triggerGroup) {
+        jobCatalogCache.allChanged();
+    }
+
+    @Override
+    public void jobAdded(JobDetail jobDetail) {
+        jobCatalogCache.jobChanged(jobDetail.getKey());
+    }
+
+    @Override
+    public void jobDeleted(JobKey jobKey) {
+        jobCatalogCache.jobChanged(jobKey);
+    }
+
+    @Override
+    public void jobPaused(JobKey jobKey) {
+        jobCatalogCache.jobChanged(jobKey);
+    }
+
+    @Override
+    public void jobsPaused(String jobGroup) {
+        jobCatalogCache.allChanged();
+    }
+
+    @Override
+    public void jobResumed(JobKey jobKey) {
+        jobCatalogCache.jobChanged(jobKey);
+    }
+
+    @Override
+    public void jobsResumed(String jobGroup) {
+        jobCatalogCache.allChanged();
+    }
+
+    @Override
+    public void schedulingDataCleared() {
+        jobCatalogCache.allChanged();
+    }
+
+    @Override
+    public void triggerFired(Trigger trigger, JobExecutionContext context) {
+    }
+
+    @Override
+    public boolean vetoJobExecution(Trigger trigger, JobExecutionContext context) {
+        return false;
+    }
+
+    @Override
+    public void triggerMisfired(Trigger trigger) {
+    }
+
+    @Override
+    public void triggerComplete(Trigger trigger, JobExecutionContext context, Trigger.CompletedExecutionInstruction triggerInstructionCode) {
+        if (isShardTrigger(trigger.getKey())) {
+            return;
+        }
+        if (triggerInstructionCode == Trigger.CompletedExecutionInstruction.NOOP) {
+            jobCatalogCache.triggerFired(trigger);
+        } else {
+            // 触发器被删除或置为完成/错误状态
+            jobCatalogCache.jobChanged(trigger.getJobKey());
+        }
+    }
+
+    private static boolean isShardTrigger(TriggerKey triggerKey) {
+        return ShardedQuartzJobBean.SHARD_TRIGGER_GROUP.equals(triggerKey.getGroup());
+    }
+}
@@ -0,0 +1,91 @@
+package com.ctid.listener;
+
+import com.ctid.config.KafkaConsumerConfig;
+import com.ctid.dto.JobCommand;
+import com.ctid.dto.JobResult;
+import com.ctid.service.DlqRecordHandler;
+import com.ctid.service.QuartzService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 任务变更命令消费者
+ * 消息值为 JobCommand 的JSON，建议以 jobGroupName.jobName 作为消息key，同一任务的命令进入同一分区保持顺序。
+ * 每次poll的一批命令通过 QuartzService.applyJobCommands 批量执行，处理完后提交一次偏移量。
+ * 无法解析或执行失败的命令（参数错误、任务已存在、任务不存在等）直接发送到死信队列，不影响同批的其他命令。
+ * 死信重放的 REPROCESS 模式下，死信中的命令直接在重放线程中逐条执行。
+ * <p>
+ * 示例：{"type":"ADD","jobClassName":"com.ctid.job.TestJob","jobName":"job1","jobGroupName":"group1","jobTime":"0 0/5 * * * ?"}
+ */
+@Slf4j
+@Component
+public class JobCommandListener implements DlqRecordHandler {
+    @Value("${quartz.command.topic:quartz-job-command}")
+    private String topic;
+    @Resource
+    private QuartzService quartzService;
+    @Resource
+    private KafkaConsumerConfig kafkaConsumerConfig;
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @KafkaListener(id = "jobCommandListener",
+            topics = "${quartz.command.topic:quartz-job-command}",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "${quartz.command.enabled:true}")
+    public void onCommands(List<ConsumerRecord<String, Object>> records, Acknowledgment ack) {
+        List<JobCommand> commands = new ArrayList<>(records.size());
+        List<ConsumerRecord<String, Object>> accepted = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, Object> record : records) {
+            try {
+                if (!(record.value() instanceof String)) {
+                    throw new IllegalArgumentException("job command must be a JSON string");
+                }
+                commands.add(objectMapper.readValue((String) record.value(), JobCommand.class));
+                accepted.add(record);
+            } catch (Exception e) {
+                log.warn("invalid job command, topic: {}, partition: {}, offset: {}, reason: {}", record.topic(), record.partition(), record.offset(), e.getMessage());
+                kafkaConsumerConfig.sendToDlq(record, e);
+            }
+        }
+        if (!commands.isEmpty()) {
+            List<JobResult> results = quartzService.applyJobCommands(commands);
+            for (int i = 0; i < results.size(); i++) {
+                JobResult result = results.get(i);
+                if (!result.isSuccess()) {
+                    ConsumerRecord<String, Object> record = accepted.get(i);
+                    log.warn("job command failed, topic: {}, partition: {}, offset: {}, reason: {}", record.topic(), record.partition(), record.offset(), result.getMessage());
+                    kafkaConsumerConfig.sendToDlq(record, new IllegalStateException(String.valueOf(result.getMessage())));
+                }
+            }
+        }
+        ack.acknowledge();
+    }
+
+    @Override
+    public String getTopic() {
+        return topic;
+    }
+
+    @Override
+    public void reprocess(ConsumerRecord<String, Object> record) throws Exception {
+        if (!(record.value() instanceof String)) {
+            throw new IllegalArgumentException("job command must be a JSON string");
+        }
+        JobCommand command = objectMapper.readValue((String) record.value(), JobCommand.class);
+        JobResult result = quartzService.applyJobCommands(Collections.singletonList(command)).get(0);
+        if (!result.isSuccess()) {
+            throw new IllegalStateException(String.valueOf(result.getMessage()));
+        }
+    }
+}
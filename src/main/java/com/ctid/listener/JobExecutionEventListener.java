@@ -0,0 +1,260 @@
+package com.ctid.listener;
+
+import com.ctid.config.AsyncJobTracker;
+import com.ctid.dto.JobExecutionEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobListener;
+import org.quartz.SchedulerException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 任务执行事件发布
+ * 工作线程只把事件放入有界无锁队列（ConcurrentLinkedQueue + 计数），不等待Kafka；
+ * 后台线程按批取出事件异步发送，由生产者按 linger-ms、batch-size 合并成批次。
+ * Kafka变慢或不可用时，发送阻塞的只有后台线程，队列满后按 overflow 策略处理：
+ * DROP_NEWEST 丢弃新事件，DROP_OLDEST 丢弃最早的事件，BLOCK 工作线程最多等待 block-timeout-ms 后丢弃。
+ * 消息key为任务key，同一任务的事件进入同一分区。
+ * 指标：quartz.execution.events.queued、quartz.execution.events（result=published/failed/dropped）
+ */
+@Slf4j
+@Component
+public class JobExecutionEventListener implements JobListener {
+    private static final long WARN_INTERVAL_MS = 60000;
+
+    @Value("${quartz.execution-events.enabled:true}")
+    private boolean enabled;
+    @Value("${quartz.execution-events.topic:quartz-job-execution}")
+    private String topic;
+    @Value("${quartz.execution-events.queue-capacity:10000}")
+    private int queueCapacity;
+    /**
+     * 后台线程每批最多取出的事件数，队列积压达到该值时立即唤醒后台线程
+     */
+    @Value("${quartz.execution-events.batch-size:500}")
+    private int batchSize;
+    /**
+     * 队列为空时后台线程的等待时间
+     */
+    @Value("${quartz.execution-events.flush-interval-ms:100}")
+    private long flushIntervalMs;
+    @Value("${quartz.execution-events.overflow:DROP_NEWEST}")
+    private Overflow overflow;
+    @Value("${quartz.execution-events.block-timeout-ms:100}")
+    private long blockTimeoutMs;
+
+    @Resource
+    private KafkaTemplate<Object, Object> kafkaTemplate;
+    @Resource
+    private ObjectMapper objectMapper;
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final Queue<JobExecutionEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile long lastWarnTime;
+    private volatile boolean running;
+    private Thread publisher;
+
+    public enum Overflow {
+        DROP_NEWEST,
+        DROP_OLDEST,
+        BLOCK
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        Gauge.builder("quartz.execution.events.queued", size, AtomicInteger::get)
+                .description("Job execution events waiting to be published").register(meterRegistry);
+        FunctionCounter.builder("quartz.execution.events", published, LongAdder::sum).tag("result", "published").register(meterRegistry);
+        FunctionCounter.builder("quartz.execution.events", failed, LongAdder::sum).tag("result", "failed").register(meterRegistry);
+        FunctionCounter.builder("quartz.execution.events", dropped, LongAdder::sum).tag("result", "dropped").register(meterRegistry);
+        running = true;
+        publisher = new Thread(this::publishLoop, "job-event-publisher");
+        publisher.setDaemon(true);
+        publisher.start();
+    }
+
+    /**
+     * 关闭时发送队列中剩余的事件，之后结束的执行不再发布
+     */
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        if (publisher == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(publisher);
+        // Kafka不可用时发送会阻塞，最多等待10秒，已发出的消息由生产者关闭时处理
+        publisher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    @Override
+    public String getName() {
+        return "jobExecutionEventListener";
+    }
+
+    @Override
+    public void jobToBeExecuted(JobExecutionContext context) {
+    }
+
+    @Override
+    public void jobExecutionVetoed(JobExecutionContext context) {
+        if (enabled) {
+            publish(event(context, "VETOED", null));
+        }
+    }
+
+    @Override
+    public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+        if (!enabled) {
+            return;
+        }
+        JobExecutionEvent event = event(context, jobException == null ? "SUCCESS" : "FAILURE", jobException);
+        // 异步任务在 future 结束时发布，结束时间和耗时以 future 为准
+        boolean async = jobException == null && AsyncJobTracker.whenComplete(context, execution -> {
+            event.setRunTime(execution.getRunTime());
+            event.setEndTime(event.getStartTime() + execution.getRunTime());
+            if (execution.getError() != null) {
+                event.setOutcome("FAILURE");
+                event.setErrorMessage(String.valueOf(execution.getError().getMessage()));
+            }
+            publish(event);
+        });
+        if (!async) {
+            publish(event);
+        }
+    }
+
+    private JobExecutionEvent event(JobExecutionContext context, String outcome, JobExecutionException jobException) {
+        JobExecutionEvent event = new JobExecutionEvent();
+        event.setOutcome(outcome);
+        try {
+            event.setSchedName(context.getScheduler().getSchedulerName());
+            event.setInstanceId(context.getScheduler().getSchedulerInstanceId());
+        } catch (SchedulerException e) {
+            // StdScheduler 的这两个方法不会抛出异常
+        }
+        event.setFireInstanceId(context.getFireInstanceId());
+        event.setJobName(context.getJobDetail().getKey().getName());
+        event.setJobGroupName(context.getJobDetail().getKey().getGroup());
+        event.setJobClassName(context.getJobDetail().getJobClass().getName());
+        event.setTriggerName(context.getTrigger().getKey().getName());
+        event.setTriggerGroup(context.getTrigger().getKey().getGroup());
+        event.setScheduledFireTime(context.getScheduledFireTime() == null ? null : context.getScheduledFireTime().getTime());
+        long runTime = Math.max(0L, context.getJobRunTime());
+        event.setStartTime(context.getFireTime().getTime());
+        event.setRunTime(runTime);
+        event.setEndTime(event.getStartTime() + runTime);
+        event.setRecovering(context.isRecovering());
+        event.setRefireCount(context.getRefireCount());
+        if (jobException != null) {
+            event.setErrorMessage(String.valueOf(jobException.getMessage()));
+        }
+        return event;
+    }
+
+    /**
+     * 在工作线程中调用，不等待Kafka
+     */
+    private void publish(JobExecutionEvent event) {
+        if (offer(event)) {
+            return;
+        }
+        switch (overflow) {
+            case DROP_OLDEST:
+                if (queue.poll() != null) {
+                    size.decrementAndGet();
+                    dropped.increment();
+                }
+                if (!offer(event)) {
+                    dropped.increment();
+                }
+                return;
+            case BLOCK:
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+                while (System.nanoTime() < deadline) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                    if (offer(event)) {
+                        return;
+                    }
+                }
+                dropped.increment();
+                return;
+            default:
+                dropped.increment();
+        }
+    }
+
+    private boolean offer(JobExecutionEvent event) {
+        int queued = size.incrementAndGet();
+        if (queued > queueCapacity) {
+            size.decrementAndGet();
+            return false;
+        }
+        queue.offer(event);
+        if (queued == batchSize) {
+            LockSupport.unpark(publisher);
+        }
+        return true;
+    }
+
+    private void publishLoop() {
+        while (running || size.get() > 0) {
+            int sent = 0;
+            JobExecutionEvent event;
+            while (sent < batchSize && (event = queue.poll()) != null) {
+                size.decrementAndGet();
+                send(event);
+                sent++;
+            }
+            if (sent == 0 && running) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+            }
+        }
+    }
+
+    private void send(JobExecutionEvent event) {
+        try {
+            String key = event.getJobGroupName() + '.' + event.getJobName();
+            // 生产者缓冲区满时在这里阻塞，最多 max.block.ms，只影响后台线程
+            kafkaTemplate.send(topic, key, objectMapper.writeValueAsString(event)).addCallback(
+                    result -> published.increment(),
+                    ex -> sendFailed(ex));
+        } catch (Exception e) {
+            sendFailed(e);
+        }
+    }
+
+    private void sendFailed(Throwable e) {
+        failed.increment();
+        long now = System.currentTimeMillis();
+        if (now - lastWarnTime >= WARN_INTERVAL_MS) {
+            lastWarnTime = now;
+            log.warn("publish job execution event failed, failed total: {}, reason: {}", failed.sum(), e.getMessage());
+        }
+    }
+}
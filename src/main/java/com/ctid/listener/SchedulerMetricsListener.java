@@ -0,0 +1,163 @@
+package com.ctid.listener;
+
+import com.ctid.config.AsyncJobTracker;
+import com.ctid.initializer.MisFireEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobListener;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerListener;
+import org.quartz.listeners.SchedulerListenerSupport;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 调度器指标
+ * quartz.trigger.fire.lag      实际触发时间与计划触发时间之差，按任务组
+ * quartz.job.execution         任务执行耗时直方图，按任务组及执行结果，异步任务为 future 结束时的实际耗时
+ * quartz.job.async.inflight    正在执行的异步任务数
+ * quartz.trigger.misfires      misfire次数，按 MisFireEnum 策略
+ * quartz.job.vetoed            被否决的执行次数，按任务组
+ * quartz.scheduler.errors      调度器错误次数
+ * 每次触发都会经过这里，计量器按任务组缓存，命中时不创建对象。
+ */
+@Component
+public class SchedulerMetricsListener extends SchedulerListenerSupport implements JobListener, TriggerListener {
+    private static final String OTHER_POLICY = "OTHER";
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> fireLagTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> successTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> failureTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> vetoCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> misfireCounters = new ConcurrentHashMap<>();
+    private volatile Counter errorCounter;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("quartz.job.async.inflight", AsyncJobTracker::getInFlight)
+                .description("Async job executions not yet completed").register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return "schedulerMetricsListener";
+    }
+
+    @Override
+    public void triggerFired(Trigger trigger, JobExecutionContext context) {
+        if (context.getScheduledFireTime() == null || context.getFireTime() == null) {
+            return;
+        }
+        long lag = context.getFireTime().getTime() - context.getScheduledFireTime().getTime();
+        fireLagTimer(trigger.getJobKey().getGroup()).record(Math.max(0L, lag), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean vetoJobExecution(Trigger trigger, JobExecutionContext context) {
+        return false;
+    }
+
+    @Override
+    public void triggerMisfired(Trigger trigger) {
+        MisFireEnum policy = MisFireEnum.of(trigger);
+        misfireCounter(policy == null ? OTHER_POLICY : policy.name()).increment();
+    }
+
+    @Override
+    public void triggerComplete(Trigger trigger, JobExecutionContext context, Trigger.CompletedExecutionInstruction triggerInstructionCode) {
+    }
+
+    @Override
+    public void jobToBeExecuted(JobExecutionContext context) {
+    }
+
+    @Override
+    public void jobExecutionVetoed(JobExecutionContext context) {
+        vetoCounter(context.getJobDetail().getKey().getGroup()).increment();
+    }
+
+    @Override
+    public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+        String group = context.getJobDetail().getKey().getGroup();
+        // 异步任务在 future 结束时按实际耗时记录
+        if (jobException == null && AsyncJobTracker.whenComplete(context, execution -> recordExecution(group, execution.getError() == null, execution.getRunTime()))) {
+            return;
+        }
+        recordExecution(group, jobException == null, context.getJobRunTime());
+    }
+
+    private void recordExecution(String group, boolean success, long runTime) {
+        Timer timer = success ? executionTimer(successTimers, group, "success") : executionTimer(failureTimers, group, "failure");
+        timer.record(Math.max(0L, runTime), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void schedulerError(String msg, SchedulerException cause) {
+        Counter counter = errorCounter;
+        if (counter == null) {
+            counter = Counter.builder("quartz.scheduler.errors").description("Scheduler errors").register(meterRegistry);
+            errorCounter = counter;
+        }
+        counter.increment();
+    }
+
+    private Timer fireLagTimer(String group) {
+        Timer timer = fireLagTimers.get(group);
+        if (timer == null) {
+            timer = fireLagTimers.computeIfAbsent(group, key -> Timer.builder("quartz.trigger.fire.lag")
+                    .description("Actual minus scheduled fire time")
+                    .tag("group", key)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        return timer;
+    }
+
+    private Timer executionTimer(Map<String, Timer> timers, String group, String result) {
+        Timer timer = timers.get(group);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(group, key -> Timer.builder("quartz.job.execution")
+                    .description("Job execution time")
+                    .tag("group", key)
+                    .tag("result", result)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        return timer;
+    }
+
+    private Counter vetoCounter(String group) {
+        Counter counter = vetoCounters.get(group);
+        if (counter == null) {
+            counter = vetoCounters.computeIfAbsent(group, key -> Counter.builder("quartz.job.vetoed")
+                    .description("Vetoed job executions")
+                    .tag("group", key)
+                    .register(meterRegistry));
+        }
+        return counter;
+    }
+
+    private Counter misfireCounter(String policy) {
+        Counter counter = misfireCounters.get(policy);
+        if (counter == null) {
+            counter = misfireCounters.computeIfAbsent(policy, key -> Counter.builder("quartz.trigger.misfires")
+                    .description("Misfired triggers")
+                    .tag("policy", key)
+                    .register(meterRegistry));
+        }
+        return counter;
+    }
+}
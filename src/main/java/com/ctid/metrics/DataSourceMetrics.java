@@ -0,0 +1,48 @@
+package com.ctid.metrics;
+
+import com.ctid.config.DruidConnectionProvider;
+import com.ctid.config.SchedulerShards;
+import com.ctid.dto.DataSourceStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Quartz数据源连接池指标，按数据源名称
+ * quartz.datasource.active / idle / max        已借出、空闲及最大连接数
+ * quartz.datasource.waiting                    等待连接的线程数
+ * quartz.datasource.checkout.timeouts          获取连接超时次数
+ * quartz.datasource.statement.cache.hit.ratio  PreparedStatement缓存命中率
+ * 连接池在调度器创建时初始化，依赖 SchedulerShards 保证在其之后注册。
+ */
+@Component
+public class DataSourceMetrics implements SmartInitializingSingleton {
+    @Resource
+    private SchedulerShards schedulerShards;
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (DruidConnectionProvider provider : DruidConnectionProvider.getProviders()) {
+            String name = provider.getDatasource().getName();
+            gauge("quartz.datasource.active", provider, name, DataSourceStats::getActiveCount);
+            gauge("quartz.datasource.idle", provider, name, DataSourceStats::getPoolingCount);
+            gauge("quartz.datasource.max", provider, name, DataSourceStats::getMaxActive);
+            gauge("quartz.datasource.waiting", provider, name, DataSourceStats::getWaitingThreads);
+            gauge("quartz.datasource.statement.cache.hit.ratio", provider, name, DataSourceStats::getStatementCacheHitRatio);
+            FunctionCounter.builder("quartz.datasource.checkout.timeouts", provider, p -> p.getStats().getCheckoutTimeouts())
+                    .tag("datasource", name).register(meterRegistry);
+        }
+    }
+
+    private void gauge(String meter, DruidConnectionProvider provider, String name, ToDoubleFunction<DataSourceStats> value) {
+        Gauge.builder(meter, provider, p -> value.applyAsDouble(p.getStats()))
+                .tag("datasource", name).register(meterRegistry);
+    }
+}
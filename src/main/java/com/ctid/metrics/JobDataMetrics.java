@@ -0,0 +1,43 @@
+package com.ctid.metrics;
+
+import com.ctid.config.CompactJDBCDelegate;
+import com.ctid.config.SchedulerShards;
+import com.ctid.dto.JobDataStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 任务执行后 JobDataMap 回写指标，按调度器（分片）
+ * quartz.jobdata.writes / quartz.jobdata.written           实际回写次数及字节数
+ * quartz.jobdata.writes.skipped / quartz.jobdata.saved     内容未变化跳过的次数及节省的字节数
+ * JDBC 代理在调度器启动后才创建，这里按调度器名称注册，读取时再查找代理。
+ */
+@Component
+public class JobDataMetrics implements SmartInitializingSingleton {
+    @Resource
+    private SchedulerShards schedulerShards;
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String name : schedulerShards.getSchedulerNames()) {
+            counter("quartz.jobdata.writes", null, name, JobDataStats::getWrites);
+            counter("quartz.jobdata.written", "bytes", name, JobDataStats::getBytesWritten);
+            counter("quartz.jobdata.writes.skipped", null, name, JobDataStats::getSkippedWrites);
+            counter("quartz.jobdata.saved", "bytes", name, JobDataStats::getBytesSaved);
+        }
+    }
+
+    private void counter(String meter, String baseUnit, String schedName, ToDoubleFunction<JobDataStats> value) {
+        FunctionCounter.builder(meter, schedName, name -> {
+            CompactJDBCDelegate delegate = CompactJDBCDelegate.getDelegate(name);
+            return delegate == null ? 0D : value.applyAsDouble(delegate.getStats());
+        }).baseUnit(baseUnit).tag("scheduler", schedName).register(meterRegistry);
+    }
+}
@@ -0,0 +1,80 @@
+package com.ctid.metrics;
+
+import com.ctid.dto.LatencyStats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的耗时直方图
+ * 按微秒以2的幂分桶（1us ~ 约36分钟），分位数取所在桶的上界，误差不超过一倍，适合观察数量级和长尾。
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 32;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        long micros = nanos / 1000;
+        int bucket = micros == 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets[bucket].increment();
+        count.increment();
+        sumNanos.add(nanos);
+        long max;
+        while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+            // 重试直到更新成功或已有更大值
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public LatencyStats snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        LatencyStats stats = new LatencyStats();
+        stats.setCount(total);
+        if (total == 0) {
+            return stats;
+        }
+        double maxMillis = maxNanos.get() / 1e6;
+        stats.setMeanMillis(sumNanos.sum() / 1e6 / Math.max(1, count.sum()));
+        stats.setP50Millis(Math.min(maxMillis, percentile(counts, total, 0.50)));
+        stats.setP90Millis(Math.min(maxMillis, percentile(counts, total, 0.90)));
+        stats.setP99Millis(Math.min(maxMillis, percentile(counts, total, 0.99)));
+        stats.setMaxMillis(maxMillis);
+        return stats;
+    }
+
+    /**
+     * 分位数所在桶的上界（毫秒）
+     */
+    private static double percentile(long[] counts, long total, double quantile) {
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return (1L << i) / 1000D;
+            }
+        }
+        return (1L << (BUCKETS - 1)) / 1000D;
+    }
+}
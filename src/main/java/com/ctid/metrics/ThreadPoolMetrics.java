@@ -0,0 +1,87 @@
+package com.ctid.metrics;
+
+import com.ctid.config.BulkheadThreadPool;
+import com.ctid.config.SchedulerShards;
+import com.ctid.dto.PoolStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Quartz线程池占用指标
+ * quartz.threadpool.size / active / utilization          按调度器（分片）
+ * quartz.threadpool.group.size / active / queued        BulkheadThreadPool 按任务组子线程池，溢出线程池为 *
+ * 调度器的监听器依赖 MeterRegistry，这里不能作为 MeterBinder 在 MeterRegistry 初始化时绑定，改为在全部单例创建后注册。
+ */
+@Component
+public class ThreadPoolMetrics implements SmartInitializingSingleton {
+    @Resource
+    private SchedulerShards schedulerShards;
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        MeterRegistry registry = meterRegistry;
+        for (Scheduler scheduler : schedulerShards.getSchedulers()) {
+            String name = schedulerName(scheduler);
+            Gauge.builder("quartz.threadpool.size", scheduler, ThreadPoolMetrics::poolSize)
+                    .tag("scheduler", name).register(registry);
+            Gauge.builder("quartz.threadpool.active", scheduler, ThreadPoolMetrics::executing)
+                    .tag("scheduler", name).register(registry);
+            Gauge.builder("quartz.threadpool.utilization", scheduler, s -> {
+                double size = poolSize(s);
+                return size == 0 ? 0D : executing(s) / size;
+            }).tag("scheduler", name).register(registry);
+        }
+        for (BulkheadThreadPool pool : BulkheadThreadPool.getPools()) {
+            for (PoolStats stats : pool.getStats()) {
+                String group = stats.getName();
+                groupGauge(registry, "quartz.threadpool.group.size", pool, group, PoolStats::getSize);
+                groupGauge(registry, "quartz.threadpool.group.active", pool, group, PoolStats::getActive);
+                groupGauge(registry, "quartz.threadpool.group.queued", pool, group, PoolStats::getQueued);
+            }
+        }
+    }
+
+    private static void groupGauge(MeterRegistry registry, String meter, BulkheadThreadPool pool, String group, ToDoubleFunction<PoolStats> value) {
+        Gauge.builder(meter, pool, p -> {
+            for (PoolStats stats : p.getStats()) {
+                if (stats.getName().equals(group)) {
+                    return value.applyAsDouble(stats);
+                }
+            }
+            return Double.NaN;
+        }).tag("scheduler", pool.getInstanceName()).tag("pool", group).register(registry);
+    }
+
+    private static String schedulerName(Scheduler scheduler) {
+        try {
+            return scheduler.getSchedulerName();
+        } catch (SchedulerException e) {
+            return "unknown";
+        }
+    }
+
+    private static double poolSize(Scheduler scheduler) {
+        try {
+            return scheduler.getMetaData().getThreadPoolSize();
+        } catch (SchedulerException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static double executing(Scheduler scheduler) {
+        try {
+            return scheduler.getCurrentlyExecutingJobs().size();
+        } catch (SchedulerException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.ctid.service;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * 死信的重新处理方式，按原始主题匹配，供死信重放的 REPROCESS 模式使用
+ */
+public interface DlqRecordHandler {
+    /**
+     * 处理的原始主题
+     */
+    String getTopic();
+
+    /**
+     * 重新处理一条死信，失败时抛出异常，记录仍留在死信队列中
+     *
+     * @param record 死信记录，key、value 与原始消息相同
+     */
+    void reprocess(ConsumerRecord<String, Object> record) throws Exception;
+}
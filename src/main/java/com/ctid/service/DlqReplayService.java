@@ -0,0 +1,31 @@
+package com.ctid.service;
+
+import com.ctid.dto.DlqReplayRequest;
+import com.ctid.dto.DlqReplayStatus;
+
+import java.util.List;
+
+public interface DlqReplayService {
+    /**
+     * 启动一次死信重放，在后台执行
+     *
+     * @param request 过滤条件、重放方式及限速
+     * @return 启动时的进度
+     */
+    DlqReplayStatus startReplay(DlqReplayRequest request);
+
+    /**
+     * 停止重放，已处理的记录偏移量已提交，以相同名称再次启动时继续
+     *
+     * @param name 重放名称
+     * @return
+     */
+    DlqReplayStatus stopReplay(String name);
+
+    /**
+     * 查询本节点的全部重放进度
+     *
+     * @return
+     */
+    List<DlqReplayStatus> queryReplays();
+}
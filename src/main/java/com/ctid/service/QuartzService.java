@@ -1,5 +1,15 @@
 package com.ctid.service;
 
+import com.ctid.dto.FireForecast;
+import com.ctid.dto.FireForecastQuery;
+import com.ctid.dto.JobCheckpoint;
+import com.ctid.dto.JobCommand;
+import com.ctid.dto.JobPage;
+import com.ctid.dto.JobQuery;
+import com.ctid.dto.JobRequest;
+import com.ctid.dto.JobResult;
+import com.ctid.dto.NodeLoad;
+import com.ctid.dto.ShardRun;
 import org.springframework.scheduling.quartz.QuartzJobBean;
 
 import java.util.List;
@@ -19,6 +29,35 @@ public interface QuartzService {
     void addJob(Class<? extends QuartzJobBean> jobClass, String jobName, String jobGroupName, int jobTime,
                 int jobTimes, Map jobData);
 
+    /**
+     * 增加一个任务job，按任务key的哈希在窗口内打散首次触发时间，同一任务在各节点、每次注册的偏移相同
+     *
+     * @param jobClass      任务job实现类
+     * @param jobName       任务job名称（保证唯一性）
+     * @param jobGroupName  任务job组名
+     * @param jobTime       任务时间间隔（秒）
+     * @param jobTimes      任务运行次数（若<0，则不限次数）
+     * @param jobData       任务参数
+     * @param spreadSeconds 打散窗口（秒），不超过jobTime，null或<=1不打散
+     */
+    void addJob(Class<? extends QuartzJobBean> jobClass, String jobName, String jobGroupName, int jobTime,
+                int jobTimes, Map jobData, Integer spreadSeconds);
+
+    /**
+     * 增加一个分片任务job，每次触发拆分为 shardCount 个分片，由集群中各节点的空闲线程并行执行
+     *
+     * @param jobClass      任务job实现类，须继承 ShardedQuartzJobBean
+     * @param jobName       任务job名称（保证唯一性）
+     * @param jobGroupName  任务job组名
+     * @param jobTime       任务时间间隔（秒）
+     * @param jobTimes      任务运行次数（若<0，则不限次数）
+     * @param jobData       任务参数
+     * @param spreadSeconds 打散窗口（秒），不超过jobTime，null或<=1不打散
+     * @param shardCount    分片数，null时为1
+     */
+    void addJob(Class<? extends QuartzJobBean> jobClass, String jobName, String jobGroupName, int jobTime,
+                int jobTimes, Map jobData, Integer spreadSeconds, Integer shardCount);
+
     /**
      * 增加一个job
      *
@@ -31,6 +70,51 @@ public interface QuartzService {
      */
     void addJob(Class<? extends QuartzJobBean> jobClass, String jobName, String jobGroupName, String jobTime, Integer misfire, Map jobData);
 
+    /**
+     * 增加一个job，按任务key的哈希在窗口内平移cron表达式的秒（及分钟）字段，同一任务在各节点、每次注册的偏移相同
+     *
+     * @param jobClass      任务实现类
+     * @param jobName       任务名称(建议唯一)
+     * @param jobGroupName  任务组名
+     * @param jobTime       时间表达式 （如：0 0/5 * * * ? ）
+     * @param misfire       任务过期策略（null:默认=2 1:忽略 2:触发一次 3:不触发）
+     * @param jobData       参数
+     * @param spreadSeconds 打散窗口（秒），null或<=1不打散
+     */
+    void addJob(Class<? extends QuartzJobBean> jobClass, String jobName, String jobGroupName, String jobTime, Integer misfire, Map jobData, Integer spreadSeconds);
+
+    /**
+     * 增加一个分片任务job，每次触发拆分为 shardCount 个分片，由集群中各节点的空闲线程并行执行
+     *
+     * @param jobClass      任务实现类，须继承 ShardedQuartzJobBean
+     * @param jobName       任务名称(建议唯一)
+     * @param jobGroupName  任务组名
+     * @param jobTime       时间表达式 （如：0 0/5 * * * ? ）
+     * @param misfire       任务过期策略（null:默认=2 1:忽略 2:触发一次 3:不触发）
+     * @param jobData       参数
+     * @param spreadSeconds 打散窗口（秒），null或<=1不打散
+     * @param shardCount    分片数，null时为1
+     */
+    void addJob(Class<? extends QuartzJobBean> jobClass, String jobName, String jobGroupName, String jobTime, Integer misfire, Map jobData,
+                Integer spreadSeconds, Integer shardCount);
+
+    /**
+     * 批量增加任务job，全部校验后分块在同一事务中注册
+     *
+     * @param jobs    任务定义列表
+     * @param replace 已存在同名任务时是否覆盖
+     * @return 每条任务的处理结果，顺序与jobs一致
+     */
+    List<JobResult> addJobs(List<JobRequest> jobs, boolean replace);
+
+    /**
+     * 批量执行任务变更命令（新增、修改、删除、暂停、恢复），同一任务的多条命令按先后顺序生效
+     *
+     * @param commands 命令列表
+     * @return 每条命令的处理结果，顺序与commands一致
+     */
+    List<JobResult> applyJobCommands(List<JobCommand> commands);
+
     /**
      * 修改 一个job的 时间表达式
      *
@@ -87,5 +171,54 @@ public interface QuartzService {
      */
     List<Map<String, Object>> queryRunJob();
 
+    /**
+     * 获取集群所有节点正在运行的任务job，按节点分组
+     *
+     * @return
+     */
+    List<NodeLoad> queryClusterRunJob();
+
+    /**
+     * 查询集群中分块任务的检查点及进度（已处理条数、速度、预计剩余时间），包括正在执行和中断后等待续跑的任务
+     *
+     * @return
+     */
+    List<JobCheckpoint> queryChunkedJobs();
+
+    /**
+     * 查询分片任务最近的执行批次及各分片的状态、执行节点、结果
+     *
+     * @param jobName
+     * @param jobGroupName
+     * @param limit        最多返回的批次数，null时为10
+     * @return
+     */
+    List<ShardRun> queryShardRuns(String jobName, String jobGroupName, Integer limit);
+
+    /**
+     * 重试分片任务最近一个批次中失败的分片，已成功的分片不再执行
+     *
+     * @param jobName
+     * @param jobGroupName
+     * @return 重新注册触发器的分片数
+     */
+    int retryShards(String jobName, String jobGroupName);
+
+    /**
+     * 按条件分页查询任务job
+     *
+     * @param query 查询条件及游标
+     * @return
+     */
+    JobPage queryJobs(JobQuery query);
+
+    /**
+     * 预测一段时间内每秒的触发次数，找出触发集中的热点秒及相关任务
+     *
+     * @param query 预测条件
+     * @return
+     */
+    FireForecast forecastFires(FireForecastQuery query);
+
 
 }
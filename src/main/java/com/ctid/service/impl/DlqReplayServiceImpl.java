@@ -0,0 +1,427 @@
+package com.ctid.service.impl;
+
+import com.ctid.config.KafkaConsumerConfig;
+import com.ctid.dto.DlqReplayRequest;
+import com.ctid.dto.DlqReplayStatus;
+import com.ctid.service.DlqRecordHandler;
+import com.ctid.service.DlqReplayService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 死信重放
+ * 每次重放使用独立的消费组（replay-group-prefix + 名称）读取死信队列全部分区，
+ * 启动时记录各分区的末尾偏移量，只重放此前写入的死信，重放过程中新产生的死信留给下一次。
+ * 符合条件的记录按key的哈希分配到 parallelism 个线程，相同key保持原有顺序，由发放线程按 ratePerSecond 匀速限流。
+ * 每次poll的记录全部处理完后同步提交偏移量，停止或节点重启后以相同名称再次启动即从提交处继续。
+ * 重放失败的记录先原样（含原有header）写回死信队列末尾再提交偏移量，以相同名称再次启动时重放；
+ * 写回也失败时该分区的偏移量只提交到这条记录之前，重放以 FAILED 结束，再次启动时从这条记录继续。
+ * 结束的重放只保留最近 MAX_FINISHED 个的最终进度。
+ */
+@Slf4j
+@Service
+public class DlqReplayServiceImpl implements DlqReplayService {
+    /**
+     * 重放发送的记录带有该header，值为重放名称
+     */
+    public static final String REPLAY_HEADER = "DLQ_REPLAY";
+    private static final String REPUBLISH = "REPUBLISH";
+    private static final String REPROCESS = "REPROCESS";
+    private static final int MAX_FINISHED = 100;
+
+    @Value("${quartz.dlq.topic:dead-letter-queue}")
+    private String dlqTopic;
+    @Value("${quartz.dlq.replay-group-prefix:dlq-replay-}")
+    private String groupPrefix;
+    @Value("${quartz.dlq.poll-timeout-ms:1000}")
+    private long pollTimeoutMs;
+    @Value("${quartz.dlq.send-timeout-ms:30000}")
+    private long sendTimeoutMs;
+
+    @Resource
+    private ConsumerFactory<String, Object> consumerFactory;
+    @Resource
+    private KafkaTemplate<Object, Object> kafkaTemplate;
+    @Autowired
+    private ObjectProvider<DlqRecordHandler> dlqRecordHandlers;
+
+    /**
+     * 运行中的重放，结束时移除
+     */
+    private final Map<String, Replay> replays = new ConcurrentHashMap<>();
+    /**
+     * 已结束重放的最终进度，按结束顺序保留最近 MAX_FINISHED 个
+     */
+    private final Map<String, DlqReplayStatus> finished = new LinkedHashMap<String, DlqReplayStatus>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DlqReplayStatus> eldest) {
+            return size() > MAX_FINISHED;
+        }
+    };
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        for (Replay replay : replays.values()) {
+            replay.stopped = true;
+        }
+        for (Replay replay : replays.values()) {
+            replay.thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    @Override
+    public DlqReplayStatus startReplay(DlqReplayRequest request) {
+        if (request == null || !StringUtils.hasText(request.getName())) {
+            throw new IllegalArgumentException("replay name is required");
+        }
+        String mode = StringUtils.hasText(request.getMode()) ? request.getMode().toUpperCase(Locale.ROOT) : REPUBLISH;
+        if (!REPUBLISH.equals(mode) && !REPROCESS.equals(mode)) {
+            throw new IllegalArgumentException("unsupported replay mode: " + request.getMode());
+        }
+        if (request.getFromTime() != null && request.getToTime() != null && request.getFromTime() >= request.getToTime()) {
+            throw new IllegalArgumentException("fromTime must be before toTime");
+        }
+        Replay replay = new Replay(request, mode);
+        Replay running = replays.compute(request.getName(), (name, previous) ->
+                previous != null && previous.thread.isAlive() ? previous : replay);
+        if (running != replay) {
+            throw new IllegalArgumentException("replay " + request.getName() + " is already running");
+        }
+        replay.thread.start();
+        log.info("dlq replay {} started, mode: {}, originTopic: {}, ratePerSecond: {}, parallelism: {}",
+                request.getName(), mode, request.getOriginTopic(), replay.ratePerSecond, replay.parallelism);
+        return replay.status();
+    }
+
+    @Override
+    public DlqReplayStatus stopReplay(String name) {
+        Replay replay = replays.get(name);
+        if (replay == null) {
+            synchronized (finished) {
+                if (finished.containsKey(name)) {
+                    return finished.get(name);
+                }
+            }
+            throw new IllegalArgumentException("replay " + name + " not found");
+        }
+        replay.stopped = true;
+        try {
+            replay.thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return replay.status();
+    }
+
+    @Override
+    public List<DlqReplayStatus> queryReplays() {
+        Map<String, DlqReplayStatus> statuses;
+        synchronized (finished) {
+            statuses = new HashMap<>(finished);
+        }
+        for (Replay replay : replays.values()) {
+            statuses.put(replay.request.getName(), replay.status());
+        }
+        List<DlqReplayStatus> result = new ArrayList<>(statuses.values());
+        result.sort(Comparator.comparingLong(DlqReplayStatus::getStartTime));
+        return result;
+    }
+
+    private static String header(ConsumerRecord<?, ?> record, String key) {
+        Header header = record.headers().lastHeader(key);
+        return header == null || header.value() == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 一次重放，在独立线程中读取、过滤并发放记录
+     */
+    private class Replay implements Runnable {
+        private final DlqReplayRequest request;
+        private final String mode;
+        private final int ratePerSecond;
+        private final int parallelism;
+        private final long startTime = System.currentTimeMillis();
+        private final Thread thread;
+        private final LongAdder scanned = new LongAdder();
+        private final LongAdder matched = new LongAdder();
+        private final LongAdder replayed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private volatile long remaining;
+        private volatile String state = "RUNNING";
+        private volatile String message;
+        private volatile Long endTime;
+        private volatile boolean stopped;
+
+        Replay(DlqReplayRequest request, String mode) {
+            this.request = request;
+            this.mode = mode;
+            this.ratePerSecond = request.getRatePerSecond() == null ? 500 : request.getRatePerSecond();
+            this.parallelism = request.getParallelism() == null || request.getParallelism() < 1 ? 4 : request.getParallelism();
+            this.thread = new Thread(this, "dlq-replay-" + request.getName());
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            ExecutorService[] workers = new ExecutorService[parallelism];
+            AtomicInteger threadIndex = new AtomicInteger();
+            for (int i = 0; i < parallelism; i++) {
+                workers[i] = Executors.newSingleThreadExecutor(r -> {
+                    Thread t = new Thread(r, thread.getName() + "-" + threadIndex.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+            Properties props = new Properties();
+            props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+            props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+            try (Consumer<String, Object> consumer = consumerFactory.createConsumer(groupPrefix + request.getName(), null, null, props)) {
+                Map<TopicPartition, Long> endOffsets = assign(consumer);
+                long limit = request.getMaxRecords() == null ? Long.MAX_VALUE : request.getMaxRecords();
+                long nextSend = System.nanoTime();
+                boolean done = false;
+                while (!stopped && !done) {
+                    ConsumerRecords<String, Object> records = consumer.poll(Duration.ofMillis(pollTimeoutMs));
+                    List<ConsumerRecord<String, Object>> submitted = new ArrayList<>();
+                    List<Future<Boolean>> futures = new ArrayList<>();
+                    Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+                    for (ConsumerRecord<String, Object> record : records) {
+                        TopicPartition tp = new TopicPartition(record.topic(), record.partition());
+                        if (record.offset() >= endOffsets.get(tp)) {
+                            // 启动后写入的死信，不提交偏移量，留给下一次重放
+                            continue;
+                        }
+                        if (matched.sum() >= limit || stopped) {
+                            done = true;
+                            break;
+                        }
+                        scanned.increment();
+                        commits.put(tp, new OffsetAndMetadata(record.offset() + 1));
+                        if (!matches(record)) {
+                            continue;
+                        }
+                        matched.increment();
+                        if (ratePerSecond > 0) {
+                            // 匀速发放，落后时不补发突发流量
+                            long now = System.nanoTime();
+                            if (nextSend > now) {
+                                LockSupport.parkNanos(nextSend - now);
+                            }
+                            nextSend = Math.max(now, nextSend) + TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+                        }
+                        // 相同key进入同一线程保持顺序，无key的记录按偏移量分散
+                        long hash = record.key() == null ? record.offset() : record.key().hashCode();
+                        submitted.add(record);
+                        futures.add(workers[(int) Math.floorMod(hash, (long) parallelism)].submit(() -> replay(record)));
+                    }
+                    // 未能重放也未能写回死信队列的记录，偏移量只提交到各分区第一条这样的记录之前
+                    ConsumerRecord<String, Object> lost = null;
+                    for (int i = 0; i < futures.size(); i++) {
+                        if (futures.get(i).get()) {
+                            continue;
+                        }
+                        ConsumerRecord<String, Object> record = submitted.get(i);
+                        TopicPartition tp = new TopicPartition(record.topic(), record.partition());
+                        if (record.offset() < commits.get(tp).offset()) {
+                            commits.put(tp, new OffsetAndMetadata(record.offset()));
+                        }
+                        lost = lost == null ? record : lost;
+                    }
+                    if (!commits.isEmpty()) {
+                        consumer.commitSync(commits);
+                    }
+                    if (lost != null) {
+                        throw new IllegalStateException("replay of partition " + lost.partition() + " offset " + lost.offset()
+                                + " failed and could not be returned to " + dlqTopic + ": " + message);
+                    }
+                    remaining = remaining(consumer, endOffsets);
+                    done = done || remaining == 0;
+                }
+                state = stopped ? "STOPPED" : "COMPLETED";
+            } catch (Exception e) {
+                log.error("dlq replay {} failed", request.getName(), e);
+                message = e.getMessage();
+                state = "FAILED";
+            } finally {
+                for (ExecutorService worker : workers) {
+                    worker.shutdownNow();
+                }
+                endTime = System.currentTimeMillis();
+                synchronized (finished) {
+                    finished.remove(request.getName());
+                    finished.put(request.getName(), status());
+                }
+                replays.remove(request.getName(), this);
+                log.info("dlq replay {} {}, scanned: {}, matched: {}, replayed: {}, failed: {}",
+                        request.getName(), state, scanned.sum(), matched.sum(), replayed.sum(), failed.sum());
+            }
+        }
+
+        /**
+         * 分配死信队列全部分区，从已提交的偏移量（没有时从头）开始，返回启动时的末尾偏移量
+         */
+        private Map<TopicPartition, Long> assign(Consumer<String, Object> consumer) {
+            List<PartitionInfo> infos = consumer.partitionsFor(dlqTopic);
+            if (infos == null || infos.isEmpty()) {
+                throw new IllegalStateException("topic " + dlqTopic + " not found");
+            }
+            List<TopicPartition> partitions = new ArrayList<>();
+            for (PartitionInfo info : infos) {
+                partitions.add(new TopicPartition(info.topic(), info.partition()));
+            }
+            consumer.assign(partitions);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+            Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(new HashSet<>(partitions));
+            for (TopicPartition tp : partitions) {
+                OffsetAndMetadata offset = committed.get(tp);
+                if (offset != null) {
+                    consumer.seek(tp, offset.offset());
+                } else {
+                    consumer.seekToBeginning(Collections.singleton(tp));
+                }
+            }
+            remaining = remaining(consumer, endOffsets);
+            return endOffsets;
+        }
+
+        private long remaining(Consumer<String, Object> consumer, Map<TopicPartition, Long> endOffsets) {
+            long total = 0;
+            for (Map.Entry<TopicPartition, Long> entry : endOffsets.entrySet()) {
+                total += Math.max(0L, entry.getValue() - consumer.position(entry.getKey()));
+            }
+            return total;
+        }
+
+        private boolean matches(ConsumerRecord<String, Object> record) {
+            if (StringUtils.hasText(request.getOriginTopic()) && !request.getOriginTopic().equals(header(record, KafkaConsumerConfig.ORIGIN_TOPIC))) {
+                return false;
+            }
+            if (request.getFromTime() != null || request.getToTime() != null) {
+                long timestamp = originTimestamp(record);
+                if (request.getFromTime() != null && timestamp < request.getFromTime()) {
+                    return false;
+                }
+                if (request.getToTime() != null && timestamp >= request.getToTime()) {
+                    return false;
+                }
+            }
+            if (StringUtils.hasText(request.getErrorContains())) {
+                String error = header(record, KafkaConsumerConfig.ORIGIN_ERROR_MSG);
+                return error != null && error.contains(request.getErrorContains());
+            }
+            return true;
+        }
+
+        /**
+         * 原始消息时间，header缺失或无法解析时使用死信写入时间
+         */
+        private long originTimestamp(ConsumerRecord<String, Object> record) {
+            String value = header(record, KafkaConsumerConfig.ORIGIN_TIMESTAMP);
+            try {
+                return value == null ? record.timestamp() : Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                return record.timestamp();
+            }
+        }
+
+        /**
+         * @return 重放成功或已写回死信队列时为 true
+         */
+        private boolean replay(ConsumerRecord<String, Object> record) {
+            String originTopic = header(record, KafkaConsumerConfig.ORIGIN_TOPIC);
+            try {
+                if (REPROCESS.equals(mode)) {
+                    DlqRecordHandler handler = dlqRecordHandlers.orderedStream()
+                            .filter(h -> h.getTopic().equals(originTopic))
+                            .findFirst()
+                            .orElseThrow(() -> new IllegalStateException("no dlq handler for topic " + originTopic));
+                    handler.reprocess(record);
+                } else {
+                    String target = StringUtils.hasText(request.getTargetTopic()) ? request.getTargetTopic() : originTopic;
+                    if (target == null) {
+                        throw new IllegalStateException("origin topic header missing");
+                    }
+                    RecordHeaders headers = new RecordHeaders();
+                    headers.add(REPLAY_HEADER, request.getName().getBytes(StandardCharsets.UTF_8));
+                    kafkaTemplate.send(new ProducerRecord<>(target, null, record.key(), record.value(), headers))
+                            .get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                }
+                replayed.increment();
+                return true;
+            } catch (Exception e) {
+                failed.increment();
+                message = e.getMessage();
+                log.warn("dlq replay {} failed, partition: {}, offset: {}, originTopic: {}, reason: {}",
+                        request.getName(), record.partition(), record.offset(), originTopic, e.getMessage());
+                return returnToDlq(record);
+            }
+        }
+
+        /**
+         * 失败的记录原样写回死信队列，保留原有header，之后的重放仍可按相同条件找到
+         */
+        private boolean returnToDlq(ConsumerRecord<String, Object> record) {
+            try {
+                kafkaTemplate.send(new ProducerRecord<>(dlqTopic, null, record.key(), record.value(), new RecordHeaders(record.headers().toArray())))
+                        .get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                return true;
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                log.error("dlq replay {} could not return record to {}, partition: {}, offset: {}",
+                        request.getName(), dlqTopic, record.partition(), record.offset(), e);
+                return false;
+            }
+        }
+
+        DlqReplayStatus status() {
+            DlqReplayStatus status = new DlqReplayStatus();
+            status.setName(request.getName());
+            status.setState(state);
+            status.setMode(mode);
+            status.setStartTime(startTime);
+            status.setEndTime(endTime);
+            long elapsed = (endTime == null ? System.currentTimeMillis() : endTime) - startTime;
+            status.setElapsedMillis(elapsed);
+            status.setScanned(scanned.sum());
+            status.setMatched(matched.sum());
+            status.setReplayed(replayed.sum());
+            status.setFailed(failed.sum());
+            status.setRemaining(remaining);
+            status.setRecordsPerSecond(elapsed == 0 ? 0 : replayed.sum() * 1000.0 / elapsed);
+            status.setMessage(message);
+            return status;
+        }
+    }
+}
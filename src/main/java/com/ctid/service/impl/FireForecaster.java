@@ -0,0 +1,339 @@
+package com.ctid.service.impl;
+
+import com.ctid.cache.CronEvaluatorCache;
+import com.ctid.dto.FireForecast;
+import com.ctid.dto.FireHotspot;
+import com.ctid.dto.JobInfo;
+import org.quartz.CronExpression;
+import org.quartz.JobKey;
+import org.quartz.Trigger;
+import org.quartz.impl.jdbcjobstore.Constants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * 按秒统计一段时间内各触发器预计的触发次数
+ * CRON：每个表达式（及时区）只计算一次预测区间内的触发时间序列，使用该表达式的触发器只记录起始位置，
+ * 最后按序列一次累加，与触发器数量无关；
+ * SIMPLE：间隔为整秒时按间隔使用差分数组，每个触发器 O(1)，其他间隔逐次计算；
+ * 其他类型（CAL_INT、DAILY_I等）只计入下次触发时间。
+ * 设置了结束时间的触发器只计到 min(预测终点, 结束时间)。
+ * 任务目录缓存只在本节点触发时更新下次触发时间，集群中其他节点的触发不会更新，因此缓存的下次触发时间已过时（overdue）
+ * 通常是已在其他节点触发过，cron、simple 触发器按原有节奏从预测起点之后的下一次继续计算，不按立即触发计入第0秒；
+ * 其他类型仍计为在预测起点触发一次。
+ * 非线程安全，每次预测新建一个实例。
+ */
+class FireForecaster {
+    /**
+     * 使用差分数组的不同间隔数上限，每种间隔占用一个 horizon 长度的数组
+     */
+    private static final int MAX_STRIDES = 64;
+
+    private final CronEvaluatorCache cronEvaluatorCache;
+    private final long from;
+    private final long end;
+    private final int horizon;
+    private final int[] histogram;
+    private final Map<String, CronSequence> sequences = new HashMap<>();
+    private final Map<Integer, int[]> strideDiffs = new HashMap<>();
+    private final List<Plan> plans = new ArrayList<>();
+    private int inactiveTriggers;
+    private int approximateTriggers;
+    private int overdueTriggers;
+
+    /**
+     * @param from    预测起点，向下取整到秒
+     * @param horizon 预测秒数
+     */
+    FireForecaster(CronEvaluatorCache cronEvaluatorCache, long from, int horizon) {
+        this.cronEvaluatorCache = cronEvaluatorCache;
+        this.from = from - from % 1000;
+        this.horizon = horizon;
+        this.end = this.from + horizon * 1000L;
+        this.histogram = new int[horizon];
+    }
+
+    void add(JobInfo info) {
+        if (info.getNextFireTime() == null || !isActive(info.getJobStatus())) {
+            inactiveTriggers++;
+            return;
+        }
+        long next = info.getNextFireTime();
+        boolean overdue = next < from;
+        if (overdue) {
+            overdueTriggers++;
+        }
+        if (Constants.TTYPE_CRON.equals(info.getTriggerType()) && info.getJobTime() != null) {
+            CronSequence sequence = sequence(info.getJobTime(), info.getTimeZoneId());
+            if (sequence != null) {
+                addCron(info, sequence, next, overdue);
+                return;
+            }
+        } else if (Constants.TTYPE_SIMPLE.equals(info.getTriggerType()) && info.getRepeatInterval() != null && info.getRepeatInterval() > 0) {
+            addSimple(info, next, overdue);
+            return;
+        }
+        approximateTriggers++;
+        addOnce(info, overdue ? from : next);
+    }
+
+    FireForecast build(int top, int jobsPerHotspot) {
+        for (CronSequence sequence : sequences.values()) {
+            // 起始位置不晚于 i 且结束位置晚于 i 的触发器在第 i 次触发
+            int active = 0;
+            for (int i = 0; i < sequence.seconds.length; i++) {
+                active += sequence.starts[i] - sequence.stops[i];
+                histogram[sequence.seconds[i]] += active;
+            }
+        }
+        for (Map.Entry<Integer, int[]> entry : strideDiffs.entrySet()) {
+            int stride = entry.getKey();
+            int[] diff = entry.getValue();
+            for (int s = 0; s < horizon; s++) {
+                if (s >= stride) {
+                    diff[s] += diff[s - stride];
+                }
+                histogram[s] += diff[s];
+            }
+        }
+
+        FireForecast forecast = new FireForecast();
+        forecast.setFrom(from);
+        forecast.setHorizonSeconds(horizon);
+        forecast.setTriggers(plans.size());
+        forecast.setInactiveTriggers(inactiveTriggers);
+        forecast.setApproximateTriggers(approximateTriggers);
+        forecast.setOverdueTriggers(overdueTriggers);
+        long total = 0;
+        int peak = 0;
+        for (int count : histogram) {
+            total += count;
+            peak = Math.max(peak, count);
+        }
+        forecast.setTotalFires(total);
+        forecast.setPeakFires(peak);
+        forecast.setMeanFiresPerSecond(horizon == 0 ? 0D : (double) total / horizon);
+        forecast.setHistogram(histogram);
+        forecast.setHotspots(hotspots(top, jobsPerHotspot));
+        return forecast;
+    }
+
+    private static boolean isActive(String jobStatus) {
+        return Trigger.TriggerState.NORMAL.name().equals(jobStatus) || Trigger.TriggerState.BLOCKED.name().equals(jobStatus);
+    }
+
+    /**
+     * 触发器最后可能触发时间之后的第一毫秒，Quartz 允许恰好在结束时间触发
+     */
+    private long limit(JobInfo info) {
+        return info.getEndTime() == null ? end : Math.min(end, info.getEndTime() + 1);
+    }
+
+    private void addCron(JobInfo info, CronSequence sequence, long next, boolean overdue) {
+        // 缓存的下次触发时间已过时从预测起点之后的下一次继续
+        int start = sequence.indexAtOrAfter(overdue ? from : next);
+        int stop = sequence.indexAtOrAfter(limit(info));
+        if (start < stop) {
+            sequence.starts[start]++;
+            sequence.stops[stop]++;
+        }
+        plans.add(new Plan(info, Plan.CRON, sequence, start, stop, 0, 0, 0));
+    }
+
+    private void addSimple(JobInfo info, long next, boolean overdue) {
+        long interval = info.getRepeatInterval();
+        long remaining = info.getRepeatCount() == null || info.getRepeatCount() < 0 ? Long.MAX_VALUE
+                : Math.max(1, info.getRepeatCount() + 1 - (info.getTimesTriggered() == null ? 0 : info.getTimesTriggered()));
+        long first = next;
+        if (overdue) {
+            // 按原节奏推到预测起点及之后，期间的触发视为已在其他节点执行，计入已触发次数
+            long skipped = (from - next + interval - 1) / interval;
+            remaining = remaining == Long.MAX_VALUE ? remaining : Math.max(0, remaining - skipped);
+            first = next + skipped * interval;
+        }
+        long limit = limit(info);
+        long count = first >= limit ? 0 : Math.min(remaining, (limit - 1 - first) / interval + 1);
+        plans.add(new Plan(info, Plan.SIMPLE, null, 0, 0, first, interval, count));
+        if (count <= 0) {
+            return;
+        }
+        int firstSecond = (int) ((first - from) / 1000);
+        if (interval % 1000 == 0 && (strideDiffs.size() < MAX_STRIDES || strideDiffs.containsKey((int) (interval / 1000)))) {
+            int stride = (int) (interval / 1000);
+            int[] diff = strideDiffs.computeIfAbsent(stride, key -> new int[horizon]);
+            diff[firstSecond]++;
+            long stop = firstSecond + count * stride;
+            if (stop < horizon) {
+                diff[(int) stop]--;
+            }
+            return;
+        }
+        for (long k = 0, time = first; k < count; k++, time += interval) {
+            histogram[(int) ((time - from) / 1000)]++;
+        }
+    }
+
+    private void addOnce(JobInfo info, long time) {
+        plans.add(new Plan(info, Plan.ONCE, null, 0, 0, time, 0, time < end ? 1 : 0));
+        if (time < end) {
+            histogram[(int) ((time - from) / 1000)]++;
+        }
+    }
+
+    private CronSequence sequence(String expression, String timeZoneId) {
+        String key = timeZoneId == null ? expression : expression + '\n' + timeZoneId;
+        CronSequence sequence = sequences.get(key);
+        if (sequence == null && !sequences.containsKey(key)) {
+            CronExpression cron = cronEvaluatorCache.get(expression, timeZoneId);
+            sequence = cron == null ? null : new CronSequence(cron);
+            sequences.put(key, sequence);
+        }
+        return sequence;
+    }
+
+    private List<FireHotspot> hotspots(int top, int jobsPerHotspot) {
+        PriorityQueue<Integer> queue = new PriorityQueue<>((a, b) -> histogram[a] != histogram[b]
+                ? Integer.compare(histogram[a], histogram[b]) : Integer.compare(b, a));
+        for (int s = 0; s < horizon && top > 0; s++) {
+            if (histogram[s] == 0) {
+                continue;
+            }
+            if (queue.size() < top) {
+                queue.add(s);
+            } else if (histogram[s] > histogram[queue.peek()]) {
+                queue.poll();
+                queue.add(s);
+            }
+        }
+        List<Integer> seconds = new ArrayList<>(queue);
+        seconds.sort((a, b) -> histogram[a] != histogram[b] ? Integer.compare(histogram[b], histogram[a]) : Integer.compare(a, b));
+
+        List<Set<String>> jobs = new ArrayList<>(seconds.size());
+        for (int i = 0; i < seconds.size(); i++) {
+            jobs.add(new LinkedHashSet<>());
+        }
+        for (Plan plan : plans) {
+            for (int i = 0; i < seconds.size(); i++) {
+                if (plan.firesAt(seconds.get(i), this)) {
+                    jobs.get(i).add(JobKey.jobKey(plan.info.getJobName(), plan.info.getJobGroupName()).toString());
+                }
+            }
+        }
+        List<FireHotspot> hotspots = new ArrayList<>(seconds.size());
+        for (int i = 0; i < seconds.size(); i++) {
+            int second = seconds.get(i);
+            FireHotspot hotspot = new FireHotspot();
+            hotspot.setSecond(second);
+            hotspot.setTime(from + second * 1000L);
+            hotspot.setFires(histogram[second]);
+            hotspot.setJobCount(jobs.get(i).size());
+            List<String> names = new ArrayList<>(jobs.get(i));
+            hotspot.setJobs(names.size() > jobsPerHotspot ? new ArrayList<>(names.subList(0, jobsPerHotspot)) : names);
+            hotspots.add(hotspot);
+        }
+        return hotspots;
+    }
+
+    /**
+     * 一个cron表达式在预测区间内的全部触发时间
+     */
+    private class CronSequence {
+        private final long[] times;
+        private final int[] seconds;
+        /**
+         * 从第 i 次开始触发的触发器数，最后一位对应区间内不再触发的触发器
+         */
+        private final int[] starts;
+        /**
+         * 第 i 次起因结束时间不再触发的触发器数，最后一位对应区间内不会结束的触发器
+         */
+        private final int[] stops;
+
+        CronSequence(CronExpression cron) {
+            long[] buffer = new long[16];
+            int size = 0;
+            Date next = cron.getTimeAfter(new Date(from - 1));
+            while (next != null && next.getTime() < end) {
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, size * 2);
+                }
+                buffer[size++] = next.getTime();
+                next = cron.getTimeAfter(next);
+            }
+            times = Arrays.copyOf(buffer, size);
+            seconds = new int[size];
+            for (int i = 0; i < size; i++) {
+                seconds[i] = (int) ((times[i] - from) / 1000);
+            }
+            starts = new int[size + 1];
+            stops = new int[size + 1];
+        }
+
+        int indexAtOrAfter(long time) {
+            int index = Arrays.binarySearch(times, time);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        /**
+         * 在该秒的触发序号，不触发时为-1
+         */
+        int indexOfSecond(int second) {
+            int index = indexAtOrAfter(from + second * 1000L);
+            return index < seconds.length && seconds[index] == second ? index : -1;
+        }
+    }
+
+    private static class Plan {
+        private static final int CRON = 0;
+        private static final int SIMPLE = 1;
+        private static final int ONCE = 2;
+
+        private final JobInfo info;
+        private final int type;
+        private final CronSequence sequence;
+        private final int start;
+        /**
+         * cron 触发器不再触发的序号（不含）
+         */
+        private final int stop;
+        private final long first;
+        private final long interval;
+        private final long count;
+
+        Plan(JobInfo info, int type, CronSequence sequence, int start, int stop, long first, long interval, long count) {
+            this.info = info;
+            this.type = type;
+            this.sequence = sequence;
+            this.start = start;
+            this.stop = stop;
+            this.first = first;
+            this.interval = interval;
+            this.count = count;
+        }
+
+        boolean firesAt(int second, FireForecaster forecaster) {
+            long secondStart = forecaster.from + second * 1000L;
+            switch (type) {
+                case CRON:
+                    int index = sequence.indexOfSecond(second);
+                    return index >= start && index < stop;
+                case SIMPLE:
+                    if (count <= 0) {
+                        return false;
+                    }
+                    long k = secondStart <= first ? 0 : (secondStart - first + interval - 1) / interval;
+                    return k < count && first + k * interval < secondStart + 1000;
+                default:
+                    return count > 0 && first >= secondStart && first < secondStart + 1000;
+            }
+        }
+    }
+}
@@ -1,24 +1,72 @@
 package com.ctid.service.impl;
 
+import com.ctid.cache.CronEvaluatorCache;
+import com.ctid.cache.JobCatalogCache;
+import com.ctid.config.AsyncJobTracker;
+import com.ctid.config.SchedulerShards;
+import com.ctid.dao.QuartzJobDao;
+import com.ctid.dto.FireForecast;
+import com.ctid.dto.FireForecastQuery;
+import com.ctid.dto.JobCheckpoint;
+import com.ctid.dto.JobCommand;
+import com.ctid.dto.JobInfo;
+import com.ctid.dto.JobPage;
+import com.ctid.dto.JobQuery;
+import com.ctid.dto.JobRequest;
+import com.ctid.dto.JobResult;
+import com.ctid.dto.NodeLoad;
+import com.ctid.dto.RunningJob;
+import com.ctid.dto.ShardExecution;
+import com.ctid.dto.ShardRun;
+import com.ctid.initializer.FireSpread;
+import com.ctid.job.ChunkedQuartzJobBean;
+import com.ctid.job.ShardedQuartzJobBean;
 import com.ctid.service.QuartzService;
 
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.*;
 import org.quartz.DateBuilder.IntervalUnit;
-import org.quartz.impl.matchers.GroupMatcher;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.quartz.impl.jdbcjobstore.Constants;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.quartz.QuartzJobBean;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class QuartzServiceImpl implements QuartzService {
-    @Autowired
-    private Scheduler scheduler;
+    /**
+     * 分片调度器，未分片时只有一个调度器
+     */
+    @Resource
+    private SchedulerShards schedulerShards;
+    /**
+     * 批量注册时每次scheduleJobs提交的任务数
+     */
+    @Value("${quartz.batch.chunk-size:500}")
+    private int batchChunkSize;
+    @Resource
+    private QuartzJobDao quartzJobDao;
+    @Resource
+    private JobCatalogCache jobCatalogCache;
+    @Resource
+    private CronEvaluatorCache cronEvaluatorCache;
+    @Value("${quartz.forecast.max-horizon-seconds:86400}")
+    private int maxForecastHorizon;
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int DEFAULT_FORECAST_HORIZON = 3600;
+    private static final int DEFAULT_HOTSPOTS = 10;
+    private static final int DEFAULT_JOBS_PER_HOTSPOT = 20;
+    private static final int DEFAULT_SHARD_RUNS = 10;
+    private static final int MAX_SHARD_COUNT = 1000;
 
     /**
      * 增加一个job
@@ -33,27 +81,48 @@ public class QuartzServiceImpl implements QuartzService {
     @Override
     public void addJob(Class<? extends QuartzJobBean> jobClass, String jobName, String jobGroupName, int jobTime,
                        int jobTimes, Map jobData) {
+        addJob(jobClass, jobName, jobGroupName, jobTime, jobTimes, jobData, null);
+    }
+
+    /**
+     * 增加一个job，按任务key在窗口内打散首次触发时间
+     *
+     * @param jobClass      任务实现类
+     * @param jobName       任务名称
+     * @param jobGroupName  任务组名
+     * @param jobTime       时间表达式 (这是每隔多少秒为一次任务)
+     * @param jobTimes      运行的次数 （<0:表示不限次数）
+     * @param jobData       参数
+     * @param spreadSeconds 打散窗口（秒），null或<=1不打散
+     */
+    @Override
+    public void addJob(Class<? extends QuartzJobBean> jobClass, String jobName, String jobGroupName, int jobTime,
+                       int jobTimes, Map jobData, Integer spreadSeconds) {
+        addJob(jobClass, jobName, jobGroupName, jobTime, jobTimes, jobData, spreadSeconds, null);
+    }
+
+    /**
+     * 增加一个分片任务job
+     *
+     * @param jobClass      任务实现类
+     * @param jobName       任务名称
+     * @param jobGroupName  任务组名
+     * @param jobTime       时间表达式 (这是每隔多少秒为一次任务)
+     * @param jobTimes      运行的次数 （<0:表示不限次数）
+     * @param jobData       参数
+     * @param spreadSeconds 打散窗口（秒），null或<=1不打散
+     * @param shardCount    分片数，null时为1
+     */
+    @Override
+    public void addJob(Class<? extends QuartzJobBean> jobClass, String jobName, String jobGroupName, int jobTime,
+                       int jobTimes, Map jobData, Integer spreadSeconds, Integer shardCount) {
         try {
-            log.info("addJob, jobName: {}, jobGroupName: {}, jobTime: {}, jobTimes: {}, jobData: {}", jobName, jobGroupName, jobTime, jobTimes, jobData);
+            log.info("addJob, jobName: {}, jobGroupName: {}, jobTime: {}, jobTimes: {}, spreadSeconds: {}, shardCount: {}, jobData: {}", jobName, jobGroupName, jobTime, jobTimes, spreadSeconds, shardCount, jobData);
             // 任务名称和组构成任务key
-            JobDetail jobDetail = JobBuilder.newJob(jobClass).withIdentity(jobName, jobGroupName)
-                    .build();
-            // 设置job参数
-            if (jobData != null && !jobData.isEmpty()) {
-                jobDetail.getJobDataMap().putAll(jobData);
-            }
+            JobDetail jobDetail = buildJobDetail(jobClass, jobName, jobGroupName, jobData, shardCount);
             // 使用simpleTrigger规则
-            Trigger trigger = null;
-            if (jobTimes < 0) {
-                trigger = TriggerBuilder.newTrigger().withIdentity(jobName.concat("_trigger"), jobGroupName)
-                        .withSchedule(SimpleScheduleBuilder.simpleSchedule().withIntervalInSeconds(jobTime).repeatForever())
-                        .startNow().build();
-            } else {
-                trigger = TriggerBuilder.newTrigger().withIdentity(jobName.concat("_trigger"), jobGroupName).withSchedule(
-                                SimpleScheduleBuilder.simpleSchedule().withIntervalInSeconds(jobTime).withRepeatCount(jobTimes))
-                        .startNow().build();
-            }
-            scheduler.scheduleJob(jobDetail, trigger);
+            Trigger trigger = buildSimpleTrigger(jobName, jobGroupName, jobTime, jobTimes, spreadSeconds);
+            schedulerShards.locate(jobDetail.getKey()).scheduleJob(jobDetail, trigger);
         } catch (SchedulerException e) {
             log.error("add job error!", e);
             throw new RuntimeException("add job error!");
@@ -72,44 +141,132 @@ public class QuartzServiceImpl implements QuartzService {
      */
     @Override
     public void addJob(Class<? extends QuartzJobBean> jobClass, String jobName, String jobGroupName, String jobTime, Integer misfire, Map jobData) {
+        addJob(jobClass, jobName, jobGroupName, jobTime, misfire, jobData, null);
+    }
+
+    /**
+     * 增加一个job，按任务key在窗口内平移cron表达式的秒（及分钟）字段
+     *
+     * @param jobClass      任务实现类
+     * @param jobName       任务名称(建议唯一)
+     * @param jobGroupName  任务组名
+     * @param jobTime       时间表达式 （如：0 0/5 * * * ? ）
+     * @param misfire       任务过期策略（null:默认=2 1:忽略 2:触发一次 3:不触发）
+     * @param jobData       参数
+     * @param spreadSeconds 打散窗口（秒），null或<=1不打散
+     */
+    @Override
+    public void addJob(Class<? extends QuartzJobBean> jobClass, String jobName, String jobGroupName, String jobTime, Integer misfire, Map jobData, Integer spreadSeconds) {
+        addJob(jobClass, jobName, jobGroupName, jobTime, misfire, jobData, spreadSeconds, null);
+    }
+
+    /**
+     * 增加一个分片任务job
+     *
+     * @param jobClass      任务实现类
+     * @param jobName       任务名称(建议唯一)
+     * @param jobGroupName  任务组名
+     * @param jobTime       时间表达式 （如：0 0/5 * * * ? ）
+     * @param misfire       任务过期策略（null:默认=2 1:忽略 2:触发一次 3:不触发）
+     * @param jobData       参数
+     * @param spreadSeconds 打散窗口（秒），null或<=1不打散
+     * @param shardCount    分片数，null时为1
+     */
+    @Override
+    public void addJob(Class<? extends QuartzJobBean> jobClass, String jobName, String jobGroupName, String jobTime, Integer misfire, Map jobData,
+                       Integer spreadSeconds, Integer shardCount) {
         try {
-            log.info("addJob, jobName: {}, jobGroupName: {}, jobTime: {}, jobData: {}", jobName, jobGroupName, jobTime, jobData);
+            log.info("addJob, jobName: {}, jobGroupName: {}, jobTime: {}, spreadSeconds: {}, shardCount: {}, jobData: {}", jobName, jobGroupName, jobTime, spreadSeconds, shardCount, jobData);
             // 创建jobDetail实例，绑定Job实现类
             // 指明job的名称，所在组的名称，以及绑定job类
             // 任务名称和组构成任务key
-            JobDetail jobDetail = JobBuilder.newJob(jobClass).withIdentity(jobName, jobGroupName)
-                    .build();
-            // 设置job参数
-            if (jobData != null && !jobData.isEmpty()) {
-                jobDetail.getJobDataMap().putAll(jobData);
-            }
+            JobDetail jobDetail = buildJobDetail(jobClass, jobName, jobGroupName, jobData, shardCount);
             // 定义调度触发规则
             // 使用cornTrigger规则
-            // 触发器key
-            CronScheduleBuilder cronScheduleBuilder = CronScheduleBuilder.cronSchedule(jobTime);
-            if (misfire != null) {
-                switch (misfire) {
-                    case 1:
-                        cronScheduleBuilder.withMisfireHandlingInstructionDoNothing();
-                        break;
-                    case 2:
-                        cronScheduleBuilder.withMisfireHandlingInstructionFireAndProceed();
-                        break;
-                    case 3:
-                        cronScheduleBuilder.withMisfireHandlingInstructionIgnoreMisfires();
-                        break;
-                }
-            }
-            Trigger trigger = TriggerBuilder.newTrigger().withIdentity(jobName.concat("_trigger"), jobGroupName)
-                    .withSchedule(cronScheduleBuilder).startNow().build();
-            // 把作业和触发器注册到任务调度中
-            scheduler.scheduleJob(jobDetail, trigger);
+            Trigger trigger = buildCronTrigger(jobName, jobGroupName, jobTime, misfire, spreadSeconds);
+            // 把作业和触发器注册到任务调度中，按任务key路由到分片
+            schedulerShards.locate(jobDetail.getKey()).scheduleJob(jobDetail, trigger);
         } catch (Exception e) {
             log.error("add job error", e);
             throw new RuntimeException("add job error!");
         }
     }
 
+    /**
+     * 批量增加job
+     * 先校验全部任务并按分片分组，再按chunk-size分块调用scheduleJobs，每块在JobStore中只占用一次事务和TRIGGER_ACCESS锁
+     * 某一块整体失败时逐条重试该块，以得到每条任务各自的结果
+     *
+     * @param jobs    任务定义
+     * @param replace 已存在同名任务时是否覆盖
+     * @return 与jobs一一对应的处理结果
+     */
+    @Override
+    public List<JobResult> addJobs(List<JobRequest> jobs, boolean replace) {
+        log.info("addJobs, size: {}, replace: {}, chunkSize: {}", jobs.size(), replace, batchChunkSize);
+        List<JobResult> results = new ArrayList<>(jobs.size());
+        List<BatchEntry> entries = new ArrayList<>(jobs.size());
+        Set<JobKey> jobKeys = new HashSet<>();
+        for (JobRequest job : jobs) {
+            JobResult result = new JobResult(job.getJobName(), job.getJobGroupName());
+            results.add(result);
+            try {
+                BatchEntry entry = buildBatchEntry(job, result);
+                if (!jobKeys.add(entry.jobDetail.getKey())) {
+                    throw new IllegalArgumentException("duplicate job in batch: " + entry.jobDetail.getKey());
+                }
+                entries.add(entry);
+            } catch (Exception e) {
+                result.fail(e.getMessage());
+            }
+        }
+        scheduleEntries(groupByShard(entries), replace);
+        long failed = results.stream().filter(result -> !result.isSuccess()).count();
+        log.info("addJobs finished, size: {}, failed: {}", jobs.size(), failed);
+        return results;
+    }
+
+    /**
+     * 批量执行任务变更命令
+     * 命令按顺序切分成若干段，每段内同一任务只出现一次，段内命令互不依赖：
+     * 删除按分片调用一次deleteJobs，新增和修改按分片分块调用scheduleJobs，各占用一次事务和TRIGGER_ACCESS锁；
+     * 暂停、恢复没有批量接口，逐条执行。同一任务的后续命令进入下一段，保持先后顺序。
+     * 整块失败时逐条重试，以得到每条命令各自的结果
+     *
+     * @param commands 命令列表
+     * @return 与commands一一对应的处理结果
+     */
+    @Override
+    public List<JobResult> applyJobCommands(List<JobCommand> commands) {
+        log.info("applyJobCommands, size: {}", commands.size());
+        List<JobResult> results = new ArrayList<>(commands.size());
+        List<JobCommand> segment = new ArrayList<>();
+        List<JobResult> segmentResults = new ArrayList<>();
+        Set<JobKey> jobKeys = new HashSet<>();
+        for (JobCommand command : commands) {
+            JobResult result = new JobResult(command.getJobName(), command.getJobGroupName());
+            results.add(result);
+            if (command.getType() == null || !StringUtils.hasText(command.getJobName()) || !StringUtils.hasText(command.getJobGroupName())) {
+                result.fail("type, jobName and jobGroupName are required");
+                continue;
+            }
+            JobKey jobKey = JobKey.jobKey(command.getJobName(), command.getJobGroupName());
+            if (!jobKeys.add(jobKey)) {
+                applySegment(segment, segmentResults);
+                segment.clear();
+                segmentResults.clear();
+                jobKeys.clear();
+                jobKeys.add(jobKey);
+            }
+            segment.add(command);
+            segmentResults.add(result);
+        }
+        applySegment(segment, segmentResults);
+        long failed = results.stream().filter(result -> !result.isSuccess()).count();
+        log.info("applyJobCommands finished, size: {}, failed: {}", commands.size(), failed);
+        return results;
+    }
+
     /**
      * 修改 一个job的 时间表达式
      *
@@ -122,22 +279,17 @@ public class QuartzServiceImpl implements QuartzService {
     public void updateJob(String jobName, String jobGroupName, String jobTime, Integer misfire) {
         try {
             log.info("updateJob, jobName: {}, jobGroupName: {}, jobTime: {}", jobName, jobGroupName, jobTime);
-            TriggerKey triggerKey = TriggerKey.triggerKey(jobName, jobGroupName);
-            CronScheduleBuilder cronScheduleBuilder = CronScheduleBuilder.cronSchedule(jobTime);
-            if (misfire != null) {
-                switch (misfire) {
-                    case 1:
-                        cronScheduleBuilder.withMisfireHandlingInstructionDoNothing();
-                        break;
-                    case 2:
-                        cronScheduleBuilder.withMisfireHandlingInstructionFireAndProceed();
-                        break;
-                    case 3:
-                        cronScheduleBuilder.withMisfireHandlingInstructionIgnoreMisfires();
-                        break;
-                }
-            }
+            // 与 buildCronTrigger 的触发器key一致
+            TriggerKey triggerKey = TriggerKey.triggerKey(jobName.concat("_trigger"), jobGroupName);
+            JobKey jobKey = JobKey.jobKey(jobName, jobGroupName);
+            Scheduler scheduler = schedulerShards.locate(jobKey);
             CronTrigger trigger = (CronTrigger) scheduler.getTrigger(triggerKey);
+            if (trigger == null) {
+                throw new SchedulerException("trigger not found: " + triggerKey);
+            }
+            // 注册时打散过的任务按原窗口重新打散
+            String cron = FireSpread.spreadCron(jobTime, jobKey, FireSpread.spreadSeconds(trigger));
+            CronScheduleBuilder cronScheduleBuilder = cronSchedule(cron, misfire);
             trigger = trigger.getTriggerBuilder().withIdentity(triggerKey)
                     .withSchedule(cronScheduleBuilder).build();
             // 重启触发器
@@ -158,7 +310,8 @@ public class QuartzServiceImpl implements QuartzService {
     public void deleteJob(String jobName, String jobGroupName) {
         try {
             log.info("deleteJob, jobName: {}, jobGroupName: {}", jobName, jobGroupName);
-            boolean b = scheduler.deleteJob(new JobKey(jobName, jobGroupName));
+            JobKey jobKey = new JobKey(jobName, jobGroupName);
+            boolean b = schedulerShards.locate(jobKey).deleteJob(jobKey);
             log.info("deleteJob, jobName: {}, jobGroupName: {}，result: {}", jobName, jobGroupName, b);
         } catch (Exception e) {
             log.error("", e);
@@ -177,7 +330,7 @@ public class QuartzServiceImpl implements QuartzService {
         try {
             log.info("pauseJob, jobName: {}, jobGroupName: {}", jobName, jobGroupName);
             JobKey jobKey = JobKey.jobKey(jobName, jobGroupName);
-            scheduler.pauseJob(jobKey);
+            schedulerShards.locate(jobKey).pauseJob(jobKey);
         } catch (SchedulerException e) {
             log.error("pause job error!", e);
             throw new RuntimeException("pause job error!");
@@ -195,7 +348,7 @@ public class QuartzServiceImpl implements QuartzService {
         try {
             log.info("resumeJob, jobName: {}, jobGroupName: {}", jobName, jobGroupName);
             JobKey jobKey = JobKey.jobKey(jobName, jobGroupName);
-            scheduler.resumeJob(jobKey);
+            schedulerShards.locate(jobKey).resumeJob(jobKey);
         } catch (SchedulerException e) {
             log.error("resume job error!", e);
             throw new RuntimeException("resume job error!");
@@ -213,7 +366,7 @@ public class QuartzServiceImpl implements QuartzService {
         try {
             log.info("runAJobNow, jobName: {}, jobGroupName: {}", jobName, jobGroupName);
             JobKey jobKey = JobKey.jobKey(jobName, jobGroupName);
-            scheduler.triggerJob(jobKey);
+            schedulerShards.locate(jobKey).triggerJob(jobKey);
         } catch (SchedulerException e) {
             log.error("run a job error!", e);
             throw new RuntimeException("run a job error!");
@@ -229,13 +382,54 @@ public class QuartzServiceImpl implements QuartzService {
     public List<Map<String, Object>> queryAllJob() {
         List<Map<String, Object>> jobList = null;
         try {
-            GroupMatcher<JobKey> matcher = GroupMatcher.anyJobGroup();
-            Set<JobKey> jobKeys = scheduler.getJobKeys(matcher);
+            // 由任务目录缓存提供，缓存过期时才访问数据库
+            List<JobInfo> jobInfos = jobCatalogCache.getAll();
+            jobList = new ArrayList<Map<String, Object>>(jobInfos.size());
+            for (JobInfo jobInfo : jobInfos) {
+                Map<String, Object> map = new HashMap<>();
+                map.put("jobName", jobInfo.getJobName());
+                map.put("jobGroupName", jobInfo.getJobGroupName());
+                map.put("description", "触发器:" + TriggerKey.triggerKey(jobInfo.getTriggerName(), jobInfo.getTriggerGroup()));
+                map.put("jobStatus", jobInfo.getJobStatus());
+                if (jobInfo.getJobTime() != null) {
+                    map.put("jobTime", jobInfo.getJobTime());
+                }
+                jobList.add(map);
+            }
+        } catch (Exception e) {
+            log.error("query all jobs error!", e);
+            throw new RuntimeException("query all jobs error!");
+        }
+        return jobList;
+    }
+
+    /**
+     * 获取所有正在运行的job
+     *
+     * @return
+     */
+    @Override
+    public List<Map<String, Object>> queryRunJob() {
+        List<Map<String, Object>> jobList = null;
+        try {
+            // 各分片分别查询本节点正在执行的任务，异步任务的工作线程已归还，从 AsyncJobTracker 补充
             jobList = new ArrayList<Map<String, Object>>();
-            for (JobKey jobKey : jobKeys) {
-                List<? extends Trigger> triggers = scheduler.getTriggersOfJob(jobKey);
-                for (Trigger trigger : triggers) {
-                    Map<String, Object> map = new HashMap<>();
+            for (Scheduler scheduler : schedulerShards.getSchedulers()) {
+                List<JobExecutionContext> executingJobs = new ArrayList<>(scheduler.getCurrentlyExecutingJobs());
+                Set<String> fireInstanceIds = new HashSet<>();
+                for (JobExecutionContext executingJob : executingJobs) {
+                    fireInstanceIds.add(executingJob.getFireInstanceId());
+                }
+                for (JobExecutionContext asyncJob : AsyncJobTracker.getExecutingContexts(scheduler.getSchedulerName(), scheduler.getSchedulerInstanceId())) {
+                    if (!fireInstanceIds.contains(asyncJob.getFireInstanceId())) {
+                        executingJobs.add(asyncJob);
+                    }
+                }
+                for (JobExecutionContext executingJob : executingJobs) {
+                    Map<String, Object> map = new HashMap<String, Object>();
+                    JobDetail jobDetail = executingJob.getJobDetail();
+                    JobKey jobKey = jobDetail.getKey();
+                    Trigger trigger = executingJob.getTrigger();
                     map.put("jobName", jobKey.getName());
                     map.put("jobGroupName", jobKey.getGroup());
                     map.put("description", "触发器:" + trigger.getKey());
@@ -250,45 +444,488 @@ public class QuartzServiceImpl implements QuartzService {
                 }
             }
         } catch (SchedulerException e) {
-            log.error("query all jobs error!", e);
-            throw new RuntimeException("query all jobs error!");
+            log.error("query run jobs error!", e);
+            throw new RuntimeException("query run jobs error!");
         }
         return jobList;
     }
 
     /**
-     * 获取所有正在运行的job
+     * 获取集群中所有节点正在运行的job
+     * 固定两次查询（QRTZ_SCHEDULER_STATE、QRTZ_FIRED_TRIGGERS），与运行中的任务数无关
      *
+     * @return 按节点分组的运行任务及线程使用率
+     */
+    @Override
+    public List<NodeLoad> queryClusterRunJob() {
+        try {
+            int threadPoolSize = schedulerShards.getSchedulers().get(0).getMetaData().getThreadPoolSize();
+            // 各分片是独立的调度器，按 分片/节点 分组
+            Map<String, NodeLoad> nodes = new TreeMap<>();
+            for (NodeLoad node : quartzJobDao.selectSchedulerStates()) {
+                nodes.put(node.getSchedName() + '/' + node.getInstanceName(), node);
+            }
+            for (RunningJob job : quartzJobDao.selectFiredTriggers()) {
+                NodeLoad node = nodes.computeIfAbsent(job.getSchedName() + '/' + job.getInstanceName(), key -> {
+                    NodeLoad load = new NodeLoad();
+                    load.setSchedName(job.getSchedName());
+                    load.setInstanceName(job.getInstanceName());
+                    return load;
+                });
+                if (Constants.STATE_EXECUTING.equals(job.getState())) {
+                    node.setExecutingCount(node.getExecutingCount() + 1);
+                } else {
+                    node.setAcquiredCount(node.getAcquiredCount() + 1);
+                }
+                node.getJobs().add(job);
+            }
+            for (NodeLoad node : nodes.values()) {
+                node.setThreadPoolSize(threadPoolSize);
+                node.setUtilization(threadPoolSize == 0 ? 0D : (double) node.getExecutingCount() / threadPoolSize);
+                node.getJobs().sort(Comparator.comparingLong(RunningJob::getFiredTime));
+            }
+            return new ArrayList<>(nodes.values());
+        } catch (Exception e) {
+            log.error("query cluster run jobs error!", e);
+            throw new RuntimeException("query cluster run jobs error!");
+        }
+    }
+
+    /**
+     * 检查点来自数据库，本节点正在执行的任务使用实时进度
+     */
+    @Override
+    public List<JobCheckpoint> queryChunkedJobs() {
+        try {
+            long now = System.currentTimeMillis();
+            List<JobCheckpoint> checkpoints = quartzJobDao.selectCheckpoints();
+            for (JobCheckpoint checkpoint : checkpoints) {
+                long updatedTime = checkpoint.getUpdatedTime();
+                ChunkedQuartzJobBean.Progress progress = ChunkedQuartzJobBean.getProgress(checkpoint.getFireInstanceId());
+                if (progress != null) {
+                    checkpoint.setItems(progress.getItems());
+                    checkpoint.setTotalItems(progress.getTotalItems());
+                    checkpoint.setRunning(true);
+                    updatedTime = now;
+                }
+                long elapsed = updatedTime - checkpoint.getRunStartTime();
+                long processed = checkpoint.getItems() - checkpoint.getRunStartItems();
+                double rate = elapsed <= 0 ? 0D : processed * 1000D / elapsed;
+                checkpoint.setItemsPerSecond(rate);
+                if (checkpoint.getTotalItems() >= 0 && rate > 0) {
+                    checkpoint.setEtaSeconds((long) Math.ceil(Math.max(0L, checkpoint.getTotalItems() - checkpoint.getItems()) / rate));
+                }
+            }
+            checkpoints.sort(Comparator.comparingLong(JobCheckpoint::getRunStartTime));
+            return checkpoints;
+        } catch (Exception e) {
+            log.error("query chunked jobs error!", e);
+            throw new RuntimeException("query chunked jobs error!");
+        }
+    }
+
+    @Override
+    public List<ShardRun> queryShardRuns(String jobName, String jobGroupName, Integer limit) {
+        try {
+            JobKey jobKey = JobKey.jobKey(jobName, jobGroupName);
+            String schedName = schedulerShards.locate(jobKey).getSchedulerName();
+            int size = limit == null || limit <= 0 ? DEFAULT_SHARD_RUNS : Math.min(limit, MAX_PAGE_SIZE);
+            List<ShardRun> runs = quartzJobDao.selectShardRuns(schedName, jobKey, size);
+            for (ShardRun run : runs) {
+                run.setShards(quartzJobDao.selectShards(schedName, run.getRunId()));
+            }
+            return runs;
+        } catch (Exception e) {
+            log.error("query shard runs error!", e);
+            throw new RuntimeException("query shard runs error!");
+        }
+    }
+
+    /**
+     * 先重新打开批次再重新注册分片触发器，重试的分片结束后由完成屏障重新汇总
+     * 重试失败的分片，以及等待触发但触发器已不存在（批次新建后注册触发器前节点宕机）的分片；执行中的分片由集群恢复处理
+     */
+    @Override
+    public int retryShards(String jobName, String jobGroupName) {
+        JobKey jobKey = JobKey.jobKey(jobName, jobGroupName);
+        try {
+            Scheduler scheduler = schedulerShards.locate(jobKey);
+            String schedName = scheduler.getSchedulerName();
+            if (!scheduler.checkExists(jobKey)) {
+                throw new IllegalArgumentException("job not found: " + jobKey);
+            }
+            List<ShardRun> runs = quartzJobDao.selectShardRuns(schedName, jobKey, 1);
+            if (runs.isEmpty() || ShardedQuartzJobBean.STATE_COMPLETED.equals(runs.get(0).getState())) {
+                return 0;
+            }
+            ShardRun run = runs.get(0);
+            List<ShardExecution> retries = new ArrayList<>();
+            for (ShardExecution shard : quartzJobDao.selectShards(schedName, run.getRunId())) {
+                if (ShardedQuartzJobBean.STATE_FAILED.equals(shard.getState())
+                        || ShardedQuartzJobBean.STATE_WAITING.equals(shard.getState())
+                        && (shard.getTriggerName() == null || !scheduler.checkExists(TriggerKey.triggerKey(shard.getTriggerName(), ShardedQuartzJobBean.SHARD_TRIGGER_GROUP)))) {
+                    retries.add(shard);
+                }
+            }
+            if (retries.isEmpty()) {
+                return 0;
+            }
+            quartzJobDao.reopenShardRun(schedName, run.getRunId());
+            Date startAt = new Date();
+            for (ShardExecution shard : retries) {
+                String triggerName = ShardedQuartzJobBean.shardTriggerName(jobKey, run.getRunId(), shard.getShardIndex(), shard.getAttempts() + 1);
+                quartzJobDao.updateShardTrigger(schedName, run.getRunId(), shard.getShardIndex(), triggerName, shard.getErrorMsg());
+                scheduler.scheduleJob(ShardedQuartzJobBean.buildShardTrigger(jobKey, triggerName, run.getRunId(), shard.getShardIndex(),
+                        run.getShardTotal(), 1, startAt));
+            }
+            log.info("retryShards, job: {}, runId: {}, shards: {}", jobKey, run.getRunId(), retries.size());
+            return retries.size();
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("retry shards error!", e);
+            throw new RuntimeException("retry shards error!");
+        }
+    }
+
+    /**
+     * 分页查询任务列表，单条SQL关联查询任务、触发器及cron/simple触发器表
+     *
+     * @param query 查询条件
      * @return
      */
     @Override
-    public List<Map<String, Object>> queryRunJob() {
-        List<Map<String, Object>> jobList = null;
+    public JobPage queryJobs(JobQuery query) {
+        int limit = query.getLimit() == null || query.getLimit() <= 0 ? DEFAULT_PAGE_SIZE : Math.min(query.getLimit(), MAX_PAGE_SIZE);
+        String afterName = null;
+        String afterGroup = null;
         try {
-            List<JobExecutionContext> executingJobs = scheduler.getCurrentlyExecutingJobs();
-            jobList = new ArrayList<Map<String, Object>>(executingJobs.size());
-            for (JobExecutionContext executingJob : executingJobs) {
-                Map<String, Object> map = new HashMap<String, Object>();
-                JobDetail jobDetail = executingJob.getJobDetail();
-                JobKey jobKey = jobDetail.getKey();
-                Trigger trigger = executingJob.getTrigger();
-                map.put("jobName", jobKey.getName());
-                map.put("jobGroupName", jobKey.getGroup());
-                map.put("description", "触发器:" + trigger.getKey());
-                Trigger.TriggerState triggerState = scheduler.getTriggerState(trigger.getKey());
-                map.put("jobStatus", triggerState.name());
-                if (trigger instanceof CronTrigger) {
-                    CronTrigger cronTrigger = (CronTrigger) trigger;
-                    String cronExpression = cronTrigger.getCronExpression();
-                    map.put("jobTime", cronExpression);
+            if (StringUtils.hasText(query.getCursor())) {
+                String decoded = new String(Base64.getUrlDecoder().decode(query.getCursor()), StandardCharsets.UTF_8);
+                int split = decoded.indexOf('\n');
+                afterName = decoded.substring(0, split);
+                afterGroup = decoded.substring(split + 1);
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("invalid cursor: " + query.getCursor());
+        }
+        List<JobInfo> items;
+        try {
+            // 多取一条用于判断是否还有下一页
+            items = quartzJobDao.selectJobs(query, afterName, afterGroup, limit + 1);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("query jobs error!", e);
+            throw new RuntimeException("query jobs error!");
+        }
+        String nextCursor = null;
+        if (items.size() > limit) {
+            items = new ArrayList<>(items.subList(0, limit));
+            JobInfo last = items.get(limit - 1);
+            String cursor = last.getTriggerName() + '\n' + last.getTriggerGroup();
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+        }
+        return new JobPage(items, nextCursor);
+    }
+
+    /**
+     * 预测触发时间，从任务目录缓存读取全部触发器，不查询数据库
+     * cron表达式按表达式共享解析结果和触发时间序列，10万触发器通常在数秒内完成
+     *
+     * @param query 预测条件
+     * @return
+     */
+    @Override
+    public FireForecast forecastFires(FireForecastQuery query) {
+        int horizon = query.getHorizonSeconds() == null ? DEFAULT_FORECAST_HORIZON : query.getHorizonSeconds();
+        if (horizon <= 0 || horizon > maxForecastHorizon) {
+            throw new IllegalArgumentException("horizonSeconds must be between 1 and " + maxForecastHorizon);
+        }
+        int top = query.getTop() == null ? DEFAULT_HOTSPOTS : query.getTop();
+        int jobsPerHotspot = query.getJobsPerHotspot() == null ? DEFAULT_JOBS_PER_HOTSPOT : query.getJobsPerHotspot();
+        if (top < 0 || jobsPerHotspot < 0) {
+            throw new IllegalArgumentException("top and jobsPerHotspot must not be negative");
+        }
+        try {
+            long start = System.currentTimeMillis();
+            FireForecaster forecaster = new FireForecaster(cronEvaluatorCache, start, horizon);
+            for (JobInfo info : jobCatalogCache.getAll()) {
+                if (!StringUtils.hasText(query.getJobGroupName()) || query.getJobGroupName().equals(info.getJobGroupName())) {
+                    forecaster.add(info);
                 }
-                jobList.add(map);
             }
+            FireForecast forecast = forecaster.build(top, jobsPerHotspot);
+            forecast.setElapsedMillis(System.currentTimeMillis() - start);
+            return forecast;
+        } catch (Exception e) {
+            log.error("forecast fires error!", e);
+            throw new RuntimeException("forecast fires error!");
+        }
+    }
+
+    /**
+     * 按分片分组：已存在的任务留在其所在分片，新任务按一致性哈希路由
+     */
+    private Map<Scheduler, List<BatchEntry>> groupByShard(List<BatchEntry> entries) {
+        Map<Scheduler, List<BatchEntry>> shardEntries = new LinkedHashMap<>();
+        if (schedulerShards.size() == 1) {
+            shardEntries.put(schedulerShards.getSchedulers().get(0), entries);
+            return shardEntries;
+        }
+        Map<JobKey, String> owners = quartzJobDao.selectJobOwners(
+                entries.stream().map(entry -> entry.jobDetail.getKey()).collect(Collectors.toSet()));
+        for (BatchEntry entry : entries) {
+            JobKey jobKey = entry.jobDetail.getKey();
+            Scheduler scheduler = schedulerShards.get(owners.get(jobKey), jobKey);
+            shardEntries.computeIfAbsent(scheduler, key -> new ArrayList<>()).add(entry);
+        }
+        return shardEntries;
+    }
+
+    /**
+     * 段内任务互不相同，先删除，再新增和修改，最后暂停、恢复
+     */
+    private void applySegment(List<JobCommand> commands, List<JobResult> results) {
+        if (commands.isEmpty()) {
+            return;
+        }
+        Map<Scheduler, Map<JobKey, JobResult>> deletes = new LinkedHashMap<>();
+        List<BatchEntry> adds = new ArrayList<>();
+        List<BatchEntry> replaces = new ArrayList<>();
+        Map<Scheduler, List<BatchEntry>> updates = new LinkedHashMap<>();
+        List<Integer> others = new ArrayList<>();
+        for (int i = 0; i < commands.size(); i++) {
+            JobCommand command = commands.get(i);
+            JobResult result = results.get(i);
+            JobKey jobKey = JobKey.jobKey(command.getJobName(), command.getJobGroupName());
+            try {
+                switch (command.getType()) {
+                    case ADD:
+                        (command.isReplace() ? replaces : adds).add(buildBatchEntry(command, result));
+                        break;
+                    case UPDATE:
+                        Scheduler scheduler = schedulerShards.locate(jobKey);
+                        updates.computeIfAbsent(scheduler, key -> new ArrayList<>()).add(buildUpdateEntry(scheduler, command, result));
+                        break;
+                    case DELETE:
+                        deletes.computeIfAbsent(schedulerShards.locate(jobKey), key -> new LinkedHashMap<>()).put(jobKey, result);
+                        break;
+                    default:
+                        others.add(i);
+                }
+            } catch (Exception e) {
+                result.fail(e.getMessage());
+            }
+        }
+        for (Map.Entry<Scheduler, Map<JobKey, JobResult>> shard : deletes.entrySet()) {
+            deleteChunk(shard.getKey(), shard.getValue());
+        }
+        if (!adds.isEmpty()) {
+            scheduleEntries(groupByShard(adds), false);
+        }
+        if (!replaces.isEmpty()) {
+            scheduleEntries(groupByShard(replaces), true);
+        }
+        scheduleEntries(updates, true);
+        for (int i : others) {
+            JobCommand command = commands.get(i);
+            JobKey jobKey = JobKey.jobKey(command.getJobName(), command.getJobGroupName());
+            try {
+                if (command.getType() == JobCommand.Type.PAUSE) {
+                    schedulerShards.locate(jobKey).pauseJob(jobKey);
+                } else {
+                    schedulerShards.locate(jobKey).resumeJob(jobKey);
+                }
+                results.get(i).succeed();
+            } catch (SchedulerException e) {
+                results.get(i).fail(e.getMessage());
+            }
+        }
+    }
+
+    private void deleteChunk(Scheduler scheduler, Map<JobKey, JobResult> jobs) {
+        try {
+            // 不存在的任务视为已删除
+            scheduler.deleteJobs(new ArrayList<>(jobs.keySet()));
+            jobs.values().forEach(JobResult::succeed);
         } catch (SchedulerException e) {
-            log.error("query run jobs error!", e);
-            throw new RuntimeException("query run jobs error!");
+            log.warn("delete jobs chunk error, retry one by one, size: {}, reason: {}", jobs.size(), e.getMessage());
+            for (Map.Entry<JobKey, JobResult> job : jobs.entrySet()) {
+                try {
+                    scheduler.deleteJob(job.getKey());
+                    job.getValue().succeed();
+                } catch (SchedulerException ex) {
+                    job.getValue().fail(ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private void scheduleEntries(Map<Scheduler, List<BatchEntry>> shardEntries, boolean replace) {
+        int chunkSize = Math.max(1, batchChunkSize);
+        for (Map.Entry<Scheduler, List<BatchEntry>> shard : shardEntries.entrySet()) {
+            List<BatchEntry> list = shard.getValue();
+            for (int from = 0; from < list.size(); from += chunkSize) {
+                scheduleChunk(shard.getKey(), list.subList(from, Math.min(list.size(), from + chunkSize)), replace);
+            }
+        }
+    }
+
+    private void scheduleChunk(Scheduler scheduler, List<BatchEntry> chunk, boolean replace) {
+        Map<JobDetail, Set<? extends Trigger>> triggersAndJobs = new LinkedHashMap<>(chunk.size() * 2);
+        for (BatchEntry entry : chunk) {
+            triggersAndJobs.put(entry.jobDetail, Collections.singleton(entry.trigger));
+        }
+        try {
+            scheduler.scheduleJobs(triggersAndJobs, replace);
+            chunk.forEach(entry -> entry.result.succeed());
+        } catch (SchedulerException e) {
+            log.warn("add jobs chunk error, retry one by one, size: {}, reason: {}", chunk.size(), e.getMessage());
+            for (BatchEntry entry : chunk) {
+                try {
+                    scheduler.scheduleJob(entry.jobDetail, Collections.singleton(entry.trigger), replace);
+                    entry.result.succeed();
+                } catch (SchedulerException ex) {
+                    entry.result.fail(ex.getMessage());
+                }
+            }
         }
-        return jobList;
     }
 
+    @SuppressWarnings("unchecked")
+    private BatchEntry buildBatchEntry(JobRequest job, JobResult result) throws ClassNotFoundException {
+        if (!StringUtils.hasText(job.getJobName()) || !StringUtils.hasText(job.getJobGroupName())) {
+            throw new IllegalArgumentException("jobName and jobGroupName are required");
+        }
+        if (!StringUtils.hasText(job.getJobClassName())) {
+            throw new IllegalArgumentException("jobClassName is required");
+        }
+        Class<?> clazz = Class.forName(job.getJobClassName());
+        if (!QuartzJobBean.class.isAssignableFrom(clazz)) {
+            throw new IllegalArgumentException("job class must extend QuartzJobBean: " + job.getJobClassName());
+        }
+        Class<? extends QuartzJobBean> jobClass = (Class<? extends QuartzJobBean>) clazz;
+        Trigger trigger;
+        if (StringUtils.hasText(job.getJobTime())) {
+            if (!CronExpression.isValidExpression(job.getJobTime())) {
+                throw new IllegalArgumentException("invalid cron expression: " + job.getJobTime());
+            }
+            trigger = buildCronTrigger(job.getJobName(), job.getJobGroupName(), job.getJobTime(), job.getMisfire(), job.getSpreadSeconds());
+        } else if (job.getJobInterval() != null && job.getJobInterval() > 0) {
+            int jobTimes = job.getJobTimes() == null ? -1 : job.getJobTimes();
+            trigger = buildSimpleTrigger(job.getJobName(), job.getJobGroupName(), job.getJobInterval(), jobTimes, job.getSpreadSeconds());
+        } else {
+            throw new IllegalArgumentException("either jobTime or a positive jobInterval is required");
+        }
+        JobDetail jobDetail = buildJobDetail(jobClass, job.getJobName(), job.getJobGroupName(), job.getJobData(), job.getShardCount());
+        return new BatchEntry(jobDetail, trigger, result);
+    }
+
+    /**
+     * 修改命令：读取原任务及cron触发器，生成新触发器，与新增命令一起通过scheduleJobs覆盖写入
+     */
+    private BatchEntry buildUpdateEntry(Scheduler scheduler, JobCommand command, JobResult result) throws SchedulerException {
+        if (!StringUtils.hasText(command.getJobTime()) || !CronExpression.isValidExpression(command.getJobTime())) {
+            throw new IllegalArgumentException("invalid cron expression: " + command.getJobTime());
+        }
+        JobKey jobKey = JobKey.jobKey(command.getJobName(), command.getJobGroupName());
+        // 与 buildCronTrigger 的触发器key一致
+        TriggerKey triggerKey = TriggerKey.triggerKey(command.getJobName().concat("_trigger"), command.getJobGroupName());
+        JobDetail jobDetail = scheduler.getJobDetail(jobKey);
+        Trigger trigger = scheduler.getTrigger(triggerKey);
+        if (jobDetail == null || !(trigger instanceof CronTrigger)) {
+            throw new IllegalArgumentException("cron trigger not found: " + triggerKey);
+        }
+        String cron = FireSpread.spreadCron(command.getJobTime(), jobKey, FireSpread.spreadSeconds(trigger));
+        Trigger updated = ((CronTrigger) trigger).getTriggerBuilder()
+                .withSchedule(cronSchedule(cron, command.getMisfire())).startNow().build();
+        return new BatchEntry(jobDetail, updated, result);
+    }
+
+    private JobDetail buildJobDetail(Class<? extends QuartzJobBean> jobClass, String jobName, String jobGroupName, Map jobData, Integer shardCount) {
+        boolean sharded = ShardedQuartzJobBean.class.isAssignableFrom(jobClass);
+        if (shardCount != null && !sharded) {
+            throw new IllegalArgumentException("shardCount requires a job class extending ShardedQuartzJobBean: " + jobClass.getName());
+        }
+        if (shardCount != null && (shardCount < 1 || shardCount > MAX_SHARD_COUNT)) {
+            throw new IllegalArgumentException("shardCount must be between 1 and " + MAX_SHARD_COUNT);
+        }
+        if (sharded && jobClass.isAnnotationPresent(DisallowConcurrentExecution.class)) {
+            throw new IllegalArgumentException("sharded job must allow concurrent execution: " + jobClass.getName());
+        }
+        JobDetail jobDetail = JobBuilder.newJob(jobClass).withIdentity(jobName, jobGroupName)
+                // 分块任务在节点宕机后由其他节点从检查点续跑，分片任务由其他节点重新执行宕机节点上的分片
+                .requestRecovery(ChunkedQuartzJobBean.class.isAssignableFrom(jobClass) || sharded)
+                .build();
+        // 设置job参数
+        if (jobData != null && !jobData.isEmpty()) {
+            jobDetail.getJobDataMap().putAll(jobData);
+        }
+        if (shardCount != null) {
+            jobDetail.getJobDataMap().put(ShardedQuartzJobBean.SHARD_COUNT_KEY, shardCount);
+        }
+        return jobDetail;
+    }
+
+    private Trigger buildSimpleTrigger(String jobName, String jobGroupName, int jobTime, int jobTimes, Integer spreadSeconds) {
+        SimpleScheduleBuilder simpleScheduleBuilder = SimpleScheduleBuilder.simpleSchedule().withIntervalInSeconds(jobTime);
+        if (jobTimes < 0) {
+            simpleScheduleBuilder.repeatForever();
+        } else {
+            simpleScheduleBuilder.withRepeatCount(jobTimes);
+        }
+        TriggerBuilder<SimpleTrigger> builder = TriggerBuilder.newTrigger().withIdentity(jobName.concat("_trigger"), jobGroupName)
+                .withSchedule(simpleScheduleBuilder);
+        if (spreadSeconds != null && spreadSeconds > 1) {
+            JobKey jobKey = JobKey.jobKey(jobName, jobGroupName);
+            return builder.startAt(FireSpread.spreadStart(System.currentTimeMillis(), jobKey, jobTime, spreadSeconds))
+                    .usingJobData(FireSpread.SPREAD_SECONDS_KEY, spreadSeconds).build();
+        }
+        return builder.startNow().build();
+    }
+
+    private Trigger buildCronTrigger(String jobName, String jobGroupName, String jobTime, Integer misfire, Integer spreadSeconds) {
+        // 触发器key
+        TriggerBuilder<Trigger> builder = TriggerBuilder.newTrigger().withIdentity(jobName.concat("_trigger"), jobGroupName);
+        if (spreadSeconds != null && spreadSeconds > 1) {
+            String cron = FireSpread.spreadCron(jobTime, JobKey.jobKey(jobName, jobGroupName), spreadSeconds);
+            builder.usingJobData(FireSpread.SPREAD_SECONDS_KEY, spreadSeconds);
+            return builder.withSchedule(cronSchedule(cron, misfire)).startNow().build();
+        }
+        return builder.withSchedule(cronSchedule(jobTime, misfire)).startNow().build();
+    }
+
+    private CronScheduleBuilder cronSchedule(String jobTime, Integer misfire) {
+        CronScheduleBuilder cronScheduleBuilder = CronScheduleBuilder.cronSchedule(jobTime);
+        if (misfire != null) {
+            switch (misfire) {
+                case 1:
+                    cronScheduleBuilder.withMisfireHandlingInstructionDoNothing();
+                    break;
+                case 2:
+                    cronScheduleBuilder.withMisfireHandlingInstructionFireAndProceed();
+                    break;
+                case 3:
+                    cronScheduleBuilder.withMisfireHandlingInstructionIgnoreMisfires();
+                    break;
+            }
+        }
+        return cronScheduleBuilder;
+    }
+
+    /**
+     * 批量注册中已通过校验的任务
+     */
+    private static class BatchEntry {
+        private final JobDetail jobDetail;
+        private final Trigger trigger;
+        private final JobResult result;
+
+        private BatchEntry(JobDetail jobDetail, Trigger trigger, JobResult result) {
+            this.jobDetail = jobDetail;
+            this.trigger = trigger;
+            this.result = result;
+        }
+    }
 }
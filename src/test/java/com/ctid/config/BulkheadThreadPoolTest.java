@@ -0,0 +1,105 @@
+package com.ctid.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.StdSchedulerFactory;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 一个任务组的任务占满本组子线程池和可借用的溢出线程后，其他任务组的任务仍能立即得到线程
+ */
+class BulkheadThreadPoolTest {
+    private static final int REPORT_JOBS = 4;
+
+    private static volatile CountDownLatch release;
+    private static final AtomicInteger reportRunning = new AtomicInteger();
+    private static volatile CountDownLatch realtimeRan;
+    private static volatile CountDownLatch otherRan;
+
+    private Scheduler scheduler;
+
+    public static class ReportJob implements Job {
+        @Override
+        public void execute(JobExecutionContext context) {
+            reportRunning.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                reportRunning.decrementAndGet();
+            }
+        }
+    }
+
+    public static class RealtimeJob implements Job {
+        @Override
+        public void execute(JobExecutionContext context) {
+            realtimeRan.countDown();
+        }
+    }
+
+    public static class OtherJob implements Job {
+        @Override
+        public void execute(JobExecutionContext context) {
+            otherRan.countDown();
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        release = new CountDownLatch(1);
+        realtimeRan = new CountDownLatch(1);
+        otherRan = new CountDownLatch(1);
+        Properties properties = new Properties();
+        properties.setProperty(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, "BulkheadThreadPoolTest");
+        properties.setProperty(StdSchedulerFactory.PROP_JOB_STORE_CLASS, "org.quartz.simpl.RAMJobStore");
+        properties.setProperty(StdSchedulerFactory.PROP_THREAD_POOL_CLASS, BulkheadThreadPool.class.getName());
+        properties.setProperty("org.quartz.threadPool.threadCount", "2");
+        properties.setProperty("org.quartz.threadPool.groupThreadCounts", "report:1,realtime:1");
+        properties.setProperty("org.quartz.threadPool.maxBorrowedThreads", "1");
+        scheduler = new StdSchedulerFactory(properties).getScheduler();
+        scheduler.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        release.countDown();
+        scheduler.shutdown(true);
+    }
+
+    @Test
+    void fullGroupDoesNotBlockOtherGroups() throws Exception {
+        for (int i = 0; i < REPORT_JOBS; i++) {
+            scheduler.scheduleJob(JobBuilder.newJob(ReportJob.class).withIdentity("report" + i, "report").build(),
+                    TriggerBuilder.newTrigger().withIdentity("report" + i, "report").startNow().build());
+        }
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (reportRunning.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        // 本组1个子线程加最多借用的1个溢出线程，其余任务在本组排队
+        assertEquals(2, reportRunning.get());
+
+        scheduler.scheduleJob(JobBuilder.newJob(RealtimeJob.class).withIdentity("realtime", "realtime").build(),
+                TriggerBuilder.newTrigger().withIdentity("realtime", "realtime").startNow().build());
+        scheduler.scheduleJob(JobBuilder.newJob(OtherJob.class).withIdentity("other", "other").build(),
+                TriggerBuilder.newTrigger().withIdentity("other", "other").startNow().build());
+        assertTrue(realtimeRan.await(5, TimeUnit.SECONDS), "realtime job did not get a thread");
+        assertTrue(otherRan.await(5, TimeUnit.SECONDS), "unconfigured group job did not get a thread");
+        assertEquals(2, reportRunning.get());
+    }
+}
@@ -0,0 +1,187 @@
+package com.ctid.config;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.simpl.CascadingClassLoadHelper;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+import org.quartz.utils.DBConnectionManager;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 多个 SkipLockedJobStoreTX 节点并发获取同一批触发器，每个触发器只能被获取一次
+ * 默认使用内嵌 MariaDB（10.6 起支持 SKIP LOCKED）并执行 doc/quartz.sql 建表；
+ * 指定 -Dquartz.test.mysql.url（及 quartz.test.mysql.user、quartz.test.mysql.password）时使用该 MySQL 8，需已执行 doc/quartz.sql。
+ */
+class SkipLockedJobStoreTXTest {
+    private static final String DATA_SOURCE = "skipLockedTest";
+    private static final String SCHED_NAME = "SkipLockedJobStoreTXTest";
+    private static final String[] TABLES = {"QRTZ_FIRED_TRIGGERS", "QRTZ_SIMPLE_TRIGGERS", "QRTZ_TRIGGERS", "QRTZ_JOB_DETAILS", "QRTZ_LOCKS", "QRTZ_SCHEDULER_STATE"};
+    private static final int NODES = 4;
+    private static final int TRIGGERS = 400;
+    private static final int MAX_COUNT = 10;
+
+    private static DB db;
+    private static JdbcTemplate jdbcTemplate;
+    private static final List<SkipLockedJobStoreTX> stores = new ArrayList<>();
+
+    public static class NoopJob implements Job {
+        @Override
+        public void execute(JobExecutionContext context) {
+        }
+    }
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        String url = System.getProperty("quartz.test.mysql.url");
+        String user = System.getProperty("quartz.test.mysql.user", "root");
+        String password = System.getProperty("quartz.test.mysql.password", "");
+        if (url == null) {
+            DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+            config.setPort(0);
+            // 以 root 运行时 mariadbd 需显式指定用户
+            config.addArg("--user=root");
+            db = DB.newEmbeddedDB(config.build());
+            db.start();
+            // 使用工程的 MySQL 驱动；DB.createDB 需要 mariadb 命令行客户端，直接通过 JDBC 建库
+            String server = "jdbc:mysql://localhost:" + db.getConfiguration().getPort() + "/";
+            new JdbcTemplate(new DriverManagerDataSource(server, "root", "")).execute("create database quartz");
+            url = server + "quartz";
+            user = "root";
+            password = "";
+        }
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, user, password);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        if (db != null) {
+            try (Connection conn = dataSource.getConnection()) {
+                ScriptUtils.executeSqlScript(conn, new FileSystemResource("doc/quartz.sql"));
+            }
+        }
+        clean();
+
+        DruidConnectionProvider provider = new DruidConnectionProvider();
+        provider.setDriver("com.mysql.cj.jdbc.Driver");
+        provider.setURL(url);
+        provider.setUser(user);
+        provider.setPassword(password);
+        provider.setMaxConnections(NODES * 2);
+        provider.initialize();
+        DBConnectionManager.getInstance().addConnectionProvider(DATA_SOURCE, provider);
+
+        CascadingClassLoadHelper loadHelper = new CascadingClassLoadHelper();
+        loadHelper.initialize();
+        for (int i = 0; i < NODES; i++) {
+            SkipLockedJobStoreTX store = new SkipLockedJobStoreTX();
+            store.setDataSource(DATA_SOURCE);
+            store.setInstanceName(SCHED_NAME);
+            store.setInstanceId("node" + i);
+            store.setIsClustered(true);
+            store.setTablePrefix("QRTZ_");
+            store.setDriverDelegateClass(MySQLSkipLockedDelegate.class.getName());
+            store.initialize(loadHelper, mock(SchedulerSignaler.class));
+            stores.add(store);
+        }
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        for (SkipLockedJobStoreTX store : stores) {
+            store.shutdown();
+        }
+        if (jdbcTemplate != null) {
+            clean();
+        }
+        if (db != null) {
+            db.stop();
+        }
+    }
+
+    private static void clean() {
+        for (String table : TABLES) {
+            jdbcTemplate.update("delete from " + table + " where SCHED_NAME = ?", SCHED_NAME);
+        }
+    }
+
+    @Test
+    void concurrentAcquirersAcquireEachTriggerOnce() throws Exception {
+        JobDetail job = JobBuilder.newJob(NoopJob.class).withIdentity("noop").storeDurably().build();
+        Set<Trigger> triggers = new HashSet<>();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < TRIGGERS; i++) {
+            OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger().withIdentity("t" + i).forJob(job).startAt(new Date(now + i)).build();
+            // 与 Scheduler.scheduleJob 相同，存储前计算首次触发时间
+            trigger.computeFirstFireTime(null);
+            triggers.add(trigger);
+        }
+        Map<JobDetail, Set<? extends Trigger>> jobs = new HashMap<>();
+        jobs.put(job, triggers);
+        stores.get(0).storeJobsAndTriggers(jobs, false);
+
+        long noLaterThan = now + TRIGGERS + 60_000L;
+        long deadline = System.currentTimeMillis() + 60_000L;
+        AtomicInteger acquired = new AtomicInteger();
+        List<TriggerKey> keys = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(NODES);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (SkipLockedJobStoreTX store : stores) {
+                Callable<Integer> acquirer = () -> {
+                    int count = 0;
+                    while (acquired.get() < TRIGGERS && System.currentTimeMillis() < deadline) {
+                        List<OperableTrigger> batch = store.acquireNextTriggers(noLaterThan, MAX_COUNT, 0L);
+                        for (OperableTrigger trigger : batch) {
+                            keys.add(trigger.getKey());
+                        }
+                        count += batch.size();
+                        acquired.addAndGet(batch.size());
+                    }
+                    return count;
+                };
+                results.add(executor.submit(acquirer));
+            }
+            for (Future<Integer> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(TRIGGERS, keys.size(), "acquired triggers");
+        assertEquals(TRIGGERS, new HashSet<>(keys).size(), "distinct acquired triggers");
+        assertEquals(Integer.valueOf(TRIGGERS), jdbcTemplate.queryForObject(
+                "select count(*) from QRTZ_FIRED_TRIGGERS where SCHED_NAME = ?", Integer.class, SCHED_NAME));
+        assertEquals(Integer.valueOf(TRIGGERS), jdbcTemplate.queryForObject(
+                "select count(*) from QRTZ_TRIGGERS where SCHED_NAME = ? and TRIGGER_STATE = 'ACQUIRED'", Integer.class, SCHED_NAME));
+    }
+}
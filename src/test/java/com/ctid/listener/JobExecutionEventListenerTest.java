@@ -0,0 +1,200 @@
+package com.ctid.listener;
+
+import com.ctid.dto.JobExecutionEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.Scheduler;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.impl.matchers.KeyMatcher;
+import org.quartz.listeners.TriggerListenerSupport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 执行事件经内嵌 Kafka 发布：成功、失败、被否决的执行各一条，key 为任务key，事件含执行节点及开始、结束时间
+ */
+@SpringJUnitConfig
+@EmbeddedKafka(partitions = 1, topics = JobExecutionEventListenerTest.TOPIC)
+@TestPropertySource(properties = {
+        "quartz.execution-events.topic=" + JobExecutionEventListenerTest.TOPIC,
+        "quartz.execution-events.flush-interval-ms=10"
+})
+class JobExecutionEventListenerTest {
+    static final String TOPIC = "quartz-job-execution-test";
+    private static final String GROUP = "events";
+    private static final String INSTANCE_ID = "event-node";
+
+    @Configuration
+    @Import(JobExecutionEventListener.class)
+    static class Config {
+        @Value("${" + EmbeddedKafkaBroker.SPRING_EMBEDDED_KAFKA_BROKERS + "}")
+        private String brokers;
+
+        @Bean
+        public KafkaTemplate<Object, Object> kafkaTemplate() {
+            Map<String, Object> props = new HashMap<>();
+            props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, brokers);
+            props.put(ProducerConfig.LINGER_MS_CONFIG, 50);
+            props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+            props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+            return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props));
+        }
+
+        @Bean
+        public ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    public static class SuccessJob implements Job {
+        @Override
+        public void execute(JobExecutionContext context) {
+        }
+    }
+
+    public static class FailingJob implements Job {
+        @Override
+        public void execute(JobExecutionContext context) throws JobExecutionException {
+            throw new JobExecutionException("boom");
+        }
+    }
+
+    @Resource
+    private JobExecutionEventListener listener;
+    @Resource
+    private EmbeddedKafkaBroker broker;
+    @Resource
+    private ObjectMapper objectMapper;
+
+    private Scheduler scheduler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, "JobExecutionEventListenerTest");
+        properties.setProperty(StdSchedulerFactory.PROP_SCHED_INSTANCE_ID, INSTANCE_ID);
+        properties.setProperty("org.quartz.threadPool.threadCount", "2");
+        properties.setProperty(StdSchedulerFactory.PROP_JOB_STORE_CLASS, "org.quartz.simpl.RAMJobStore");
+        scheduler = new StdSchedulerFactory(properties).getScheduler();
+        scheduler.getListenerManager().addJobListener(listener);
+        // 否决 vetoed 任务的执行
+        scheduler.getListenerManager().addTriggerListener(new TriggerListenerSupport() {
+            @Override
+            public String getName() {
+                return "veto";
+            }
+
+            @Override
+            public boolean vetoJobExecution(Trigger trigger, JobExecutionContext context) {
+                return true;
+            }
+        }, KeyMatcher.keyEquals(TriggerKey.triggerKey("vetoed_trigger", GROUP)));
+        scheduler.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        scheduler.shutdown(true);
+    }
+
+    @Test
+    void publishesOneEventPerExecutionKeyedByJob() throws Exception {
+        long before = System.currentTimeMillis();
+        schedule(SuccessJob.class, "succeeded");
+        schedule(FailingJob.class, "failed");
+        schedule(SuccessJob.class, "vetoed");
+
+        Map<String, JobExecutionEvent> events = new HashMap<>();
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("execution-events-test", "false", broker);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(consumerProps,
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, TOPIC);
+            long deadline = System.currentTimeMillis() + 30_000L;
+            while (events.size() < 3 && System.currentTimeMillis() < deadline) {
+                ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(500));
+                for (ConsumerRecord<String, String> record : records) {
+                    JobExecutionEvent event = objectMapper.readValue(record.value(), JobExecutionEvent.class);
+                    assertEquals(event.getJobGroupName() + "." + event.getJobName(), record.key(), "message key");
+                    assertNull(events.put(record.key(), event), "duplicate event for " + record.key());
+                }
+            }
+        }
+        assertEquals(3, events.size(), "events: " + events.keySet());
+
+        JobExecutionEvent succeeded = events.get(GROUP + ".succeeded");
+        assertEquals("SUCCESS", succeeded.getOutcome());
+        assertEvent(succeeded, SuccessJob.class, before);
+
+        JobExecutionEvent failed = events.get(GROUP + ".failed");
+        assertEquals("FAILURE", failed.getOutcome());
+        assertEquals("boom", failed.getErrorMessage());
+        assertEvent(failed, FailingJob.class, before);
+
+        JobExecutionEvent vetoed = events.get(GROUP + ".vetoed");
+        assertEquals("VETOED", vetoed.getOutcome());
+        assertEquals(INSTANCE_ID, vetoed.getInstanceId());
+        assertFalse(vetoed.isRecovering());
+    }
+
+    private void schedule(Class<? extends Job> jobClass, String name) throws Exception {
+        scheduler.scheduleJob(JobBuilder.newJob(jobClass).withIdentity(name, GROUP).build(),
+                TriggerBuilder.newTrigger().withIdentity(name + "_trigger", GROUP).startNow().build());
+    }
+
+    private static void assertEvent(JobExecutionEvent event, Class<? extends Job> jobClass, long before) {
+        assertEquals("JobExecutionEventListenerTest", event.getSchedName());
+        assertEquals(INSTANCE_ID, event.getInstanceId());
+        assertEquals(jobClass.getName(), event.getJobClassName());
+        assertEquals(event.getJobName() + "_trigger", event.getTriggerName());
+        assertNotNull(event.getFireInstanceId());
+        assertNotNull(event.getScheduledFireTime());
+        assertTrue(event.getStartTime() >= before, "start time");
+        assertEquals(event.getStartTime() + event.getRunTime(), event.getEndTime(), "end time");
+    }
+}
@@ -0,0 +1,79 @@
+package com.ctid.service.impl;
+
+import com.ctid.cache.CronEvaluatorCache;
+import com.ctid.dto.FireForecast;
+import com.ctid.dto.FireHotspot;
+import com.ctid.dto.JobInfo;
+import org.junit.jupiter.api.Test;
+import org.quartz.impl.jdbcjobstore.Constants;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * 集群中其他节点触发后任务目录缓存的下次触发时间不会更新，这些过期的触发时间不能在第0秒形成热点
+ */
+class FireForecasterTest {
+    private static final int TRIGGERS = 1000;
+    private static final int HORIZON = 60;
+    /**
+     * 整分钟后1秒，第0秒不是 0/10 的触发时间
+     */
+    private static final long FROM = 1_800_000_000_000L / 60_000 * 60_000 + 1000;
+
+    @Test
+    void staleCronTriggersContinueOnSchedule() {
+        FireForecaster forecaster = new FireForecaster(new CronEvaluatorCache(), FROM, HORIZON);
+        for (int i = 0; i < TRIGGERS; i++) {
+            JobInfo info = job("cron" + i, Constants.TTYPE_CRON, FROM - 3_600_000L);
+            info.setJobTime("0/10 * * * * ?");
+            info.setTimeZoneId("UTC");
+            forecaster.add(info);
+        }
+        FireForecast forecast = forecaster.build(3, 10);
+
+        assertEquals(TRIGGERS, forecast.getOverdueTriggers());
+        assertEquals(0, forecast.getHistogram()[0]);
+        // 第9、19 ... 59秒各触发一次
+        assertEquals(6L * TRIGGERS, forecast.getTotalFires());
+        assertEquals(TRIGGERS, forecast.getHistogram()[9]);
+        for (FireHotspot hotspot : forecast.getHotspots()) {
+            assertNotEquals(0, hotspot.getSecond());
+            assertEquals(TRIGGERS, hotspot.getJobCount());
+        }
+    }
+
+    @Test
+    void staleSimpleTriggersContinueOnSchedule() {
+        FireForecaster forecaster = new FireForecaster(new CronEvaluatorCache(), FROM, HORIZON);
+        JobInfo forever = job("forever", Constants.TTYPE_SIMPLE, FROM - 45_000L);
+        forever.setRepeatInterval(30_000L);
+        forever.setRepeatCount(-1L);
+        forecaster.add(forever);
+        // 共3次，过期的45秒内已触发2次，只剩1次
+        JobInfo limited = job("limited", Constants.TTYPE_SIMPLE, FROM - 45_000L);
+        limited.setRepeatInterval(30_000L);
+        limited.setRepeatCount(2L);
+        limited.setTimesTriggered(0L);
+        forecaster.add(limited);
+        FireForecast forecast = forecaster.build(3, 10);
+
+        assertEquals(2, forecast.getOverdueTriggers());
+        assertEquals(0, forecast.getHistogram()[0]);
+        assertEquals(2, forecast.getHistogram()[15]);
+        assertEquals(1, forecast.getHistogram()[45]);
+        assertEquals(3, forecast.getTotalFires());
+    }
+
+    private static JobInfo job(String name, String triggerType, long nextFireTime) {
+        JobInfo info = new JobInfo();
+        info.setJobName(name);
+        info.setJobGroupName("forecast");
+        info.setTriggerName(name + "_trigger");
+        info.setTriggerGroup("forecast");
+        info.setTriggerType(triggerType);
+        info.setJobStatus("NORMAL");
+        info.setNextFireTime(nextFireTime);
+        return info;
+    }
+}
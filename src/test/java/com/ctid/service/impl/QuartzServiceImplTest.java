@@ -0,0 +1,71 @@
+package com.ctid.service.impl;
+
+import com.ctid.config.SchedulerShards;
+import com.ctid.initializer.FireSpread;
+import com.ctid.job.TestJob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.CronTrigger;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.TriggerKey;
+import org.quartz.impl.StdSchedulerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * addJob 注册的 cron 任务可以通过 updateJob 修改时间表达式
+ */
+class QuartzServiceImplTest {
+    private static final String GROUP = "serviceTest";
+
+    private Scheduler scheduler;
+    private QuartzServiceImpl quartzService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, "QuartzServiceImplTest");
+        properties.setProperty(StdSchedulerFactory.PROP_JOB_STORE_CLASS, "org.quartz.simpl.RAMJobStore");
+        properties.setProperty("org.quartz.threadPool.threadCount", "1");
+        scheduler = new StdSchedulerFactory(properties).getScheduler();
+        quartzService = new QuartzServiceImpl();
+        ReflectionTestUtils.setField(quartzService, "schedulerShards", new SchedulerShards(scheduler, Collections.emptyList()));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void updateJobChangesCronOfAddedJob() throws Exception {
+        quartzService.addJob(TestJob.class, "cronJob", GROUP, "0 0 1 * * ?", null, null);
+        quartzService.updateJob("cronJob", GROUP, "0 30 2 * * ?", null);
+
+        CronTrigger trigger = (CronTrigger) scheduler.getTrigger(TriggerKey.triggerKey("cronJob_trigger", GROUP));
+        assertEquals("0 30 2 * * ?", trigger.getCronExpression());
+    }
+
+    @Test
+    void updateJobKeepsSpreadWindow() throws Exception {
+        JobKey jobKey = JobKey.jobKey("spreadJob", GROUP);
+        quartzService.addJob(TestJob.class, jobKey.getName(), GROUP, "0 0/5 * * * ?", null, null, 60);
+        quartzService.updateJob(jobKey.getName(), GROUP, "0 0/10 * * * ?", null);
+
+        CronTrigger trigger = (CronTrigger) scheduler.getTrigger(TriggerKey.triggerKey("spreadJob_trigger", GROUP));
+        assertEquals(FireSpread.spreadCron("0 0/10 * * * ?", jobKey, 60), trigger.getCronExpression());
+        assertEquals(60, FireSpread.spreadSeconds(trigger));
+    }
+
+    @Test
+    void updateJobOfMissingJobFails() {
+        assertThrows(RuntimeException.class, () -> quartzService.updateJob("missing", GROUP, "0 0 1 * * ?", null));
+    }
+}